@@ -0,0 +1,89 @@
+package no.geosoft.jpwls;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The canonical order of each PWLS entity type.
+ * <p>
+ * The entity sets of the model are hash sets, so their iteration order
+ * varies from run to run. Entities written in canonical order give the
+ * same bytes for the same content, which makes the output usable for
+ * byte level caching and diffing:
+ * <pre>
+ *   JsonWriter.writeCurves(stream, CanonicalOrder.sort(curves, CanonicalOrder.CURVES));
+ * </pre>
+ * Entities are ordered by their natural keys, like company code and
+ * mnemonic for curves. Strings are compared by their UTF-16 code units,
+ * independent of locale. Entities of equal keys are ordered by their
+ * {@link ContentHash content hash}, so the order is total with respect
+ * to content. The content hash is cached by the entities that are
+ * typically sorted in bulk, and never decodes compact or mapped text.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class CanonicalOrder
+{
+  /** Canonical order of curves: Company code, nulls first, then mnemonic. */
+  public static final Comparator<Curve> CURVES =
+    Comparator.comparing(Curve::getCompanyCode, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()))
+      .thenComparing(Curve::getMnemonic)
+      .thenComparingLong(ContentHash::of);
+
+  /** Canonical order of tools: Company code, then tool code. */
+  public static final Comparator<Tool> TOOLS =
+    Comparator.comparingInt(Tool::getCompanyCode)
+      .thenComparing(Tool::getToolCode, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+      .thenComparingLong(ContentHash::of);
+
+  /** Canonical order of companies: Company code. */
+  public static final Comparator<Company> COMPANIES =
+    Comparator.comparingInt(Company::getCompanyCode)
+      .thenComparingLong(ContentHash::of);
+
+  /** Canonical order of properties: Name. */
+  public static final Comparator<Property> PROPERTIES =
+    Comparator.comparing(Property::getName)
+      .thenComparingLong(ContentHash::of);
+
+  /** Canonical order of tool classes: Name. */
+  public static final Comparator<ToolClass> TOOL_CLASSES =
+    Comparator.comparing(ToolClass::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+      .thenComparingLong(ContentHash::of);
+
+  /** Canonical order of logging methods: Name. */
+  public static final Comparator<LoggingMethod> LOGGING_METHODS =
+    Comparator.comparing(LoggingMethod::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+      .thenComparingLong(ContentHash::of);
+
+  /**
+   * Private constructor to prevent client instantiation.
+   */
+  private CanonicalOrder()
+  {
+    assert false : "This constructor should never be called";
+  }
+
+  /**
+   * Return the specified entities sorted in the given order.
+   *
+   * @param entities  Entities to sort. Non-null. Not modified.
+   * @param order     Order to sort in, typically one of the canonical orders. Non-null.
+   * @return          The entities in order, as a new list. Never null.
+   * @throws IllegalArgumentException  If entities or order is null.
+   */
+  public static <T> List<T> sort(Collection<T> entities, Comparator<? super T> order)
+  {
+    if (entities == null)
+      throw new IllegalArgumentException("entities cannot be null");
+
+    if (order == null)
+      throw new IllegalArgumentException("order cannot be null");
+
+    List<T> sorted = new ArrayList<>(entities);
+    sorted.sort(order);
+    return sorted;
+  }
+}
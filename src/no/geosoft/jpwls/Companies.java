@@ -14,6 +14,9 @@ public final class Companies
   /** All companies defined by the PWLS standard. */
   private final Set<Company> companies_ = new HashSet<>();
 
+  /** Content hash of this instance. Null if not yet computed. */
+  private volatile Long contentHash_;
+
   /**
    * Create an empty companies instance.
    */
@@ -22,6 +25,20 @@ public final class Companies
     // Nothing
   }
 
+  /**
+   * Create a companies instance holding the same companies as the specified one.
+   *
+   * @param companies  Instance to copy. Non-null.
+   * @throws IllegalArgumentException  If companies is null.
+   */
+  public Companies(Companies companies)
+  {
+    if (companies == null)
+      throw new IllegalArgumentException("companies cannot be null");
+
+    companies_.addAll(companies.companies_);
+  }
+
   /**
    * Add the specified company to this instance.
    *
@@ -33,9 +50,27 @@ public final class Companies
     if (company == null)
       throw new IllegalArgumentException("company cannot be null");
 
+    contentHash_ = null;
+
     companies_.add(company);
   }
 
+  /**
+   * Remove the specified company from this instance.
+   *
+   * @param company  Company to remove. Non-null.
+   * @throws IllegalArgumentException  If company is null.
+   */
+  public void remove(Company company)
+  {
+    if (company == null)
+      throw new IllegalArgumentException("company cannot be null");
+
+    contentHash_ = null;
+
+    companies_.remove(company);
+  }
+
   /**
    * Return all the companies of this instance.
    *
@@ -46,6 +81,25 @@ public final class Companies
     return Collections.unmodifiableSet(companies_);
   }
 
+  /**
+   * Return the content hash of this instance, independent of the
+   * iteration order. The hash is computed on first call and cached
+   * until the instance is modified through {@link #add} or {@link #remove}.
+   *
+   * @return  Content hash of this instance.
+   * @see ContentHash#toETag
+   */
+  public long getContentHash()
+  {
+    Long contentHash = contentHash_;
+    if (contentHash == null) {
+      contentHash = ContentHash.of(companies_, ContentHash::of);
+      contentHash_ = contentHash;
+    }
+
+    return contentHash;
+  }
+
   /**
    * Find company of the specified company code.
    *
@@ -0,0 +1,411 @@
+package no.geosoft.jpwls;
+
+import java.util.function.ToLongFunction;
+
+import no.geosoft.jpwls.util.TextDigest;
+
+/**
+ * Incremental 64-bit FNV-1a hash of PWLS content.
+ * <p>
+ * Two entities with the same content always have the same hash,
+ * regardless of how their text is stored. Text is hashed by the
+ * {@link TextDigest digest} of its UTF-8 encoding, so compact and
+ * memory mapped text is hashed without being decoded. Usage:
+ * <pre>
+ *   long hash = new ContentHash().add(curve.getMnemonic()).add(curve.getCompanyCode()).getValue();
+ * </pre>
+ * The hash is not cryptographic, but collisions between entities
+ * of realistic PWLS content are very unlikely.
+ * <p>
+ * Hashes of entity sets are independent of iteration order, see
+ * {@link #of(Iterable,ToLongFunction)}, and are suitable as HTTP
+ * entity tags through {@link #toETag}.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class ContentHash
+{
+  /** FNV-1a 64-bit offset basis. */
+  private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+
+  /** FNV-1a 64-bit prime. */
+  private static final long PRIME = 0x100000001b3L;
+
+  /** Marker for null values, so that null differs from "". */
+  private static final int NULL = 0xff;
+
+  /** Marker between values, so that ("ab","c") differs from ("a","bc"). */
+  private static final int SEPARATOR = 0xfe;
+
+  /** Current hash value. */
+  private long hash_ = OFFSET_BASIS;
+
+  /**
+   * Create a new content hash.
+   */
+  public ContentHash()
+  {
+    // Nothing
+  }
+
+  /**
+   * Mix a single byte into the hash.
+   *
+   * @param b  Byte to mix in, [0,255].
+   */
+  private void mix(int b)
+  {
+    hash_ ^= b;
+    hash_ *= PRIME;
+  }
+
+  /**
+   * Add the specified text to the hash.
+   *
+   * @param text  Text to add. May be null.
+   * @return      This hash. Never null.
+   */
+  public ContentHash add(CharSequence text)
+  {
+    if (text == null) {
+      mix(NULL);
+      mix(SEPARATOR);
+      return this;
+    }
+
+    return add(TextDigest.of(text));
+  }
+
+  /**
+   * Add the specified integer to the hash.
+   *
+   * @param value  Value to add. May be null.
+   * @return       This hash. Never null.
+   */
+  public ContentHash add(Integer value)
+  {
+    if (value == null) {
+      mix(NULL);
+      mix(SEPARATOR);
+      return this;
+    }
+
+    return add(value.intValue());
+  }
+
+  /**
+   * Add the specified integer to the hash.
+   *
+   * @param value  Value to add.
+   * @return       This hash. Never null.
+   */
+  public ContentHash add(int value)
+  {
+    for (int i = 0; i < 4; i++)
+      mix((value >>> (i * 8)) & 0xff);
+
+    mix(SEPARATOR);
+    return this;
+  }
+
+  /**
+   * Add the specified boolean to the hash.
+   *
+   * @param value  Value to add.
+   * @return       This hash. Never null.
+   */
+  public ContentHash add(boolean value)
+  {
+    mix(value ? 1 : 0);
+    mix(SEPARATOR);
+    return this;
+  }
+
+  /**
+   * Add the specified 64-bit value, typically another hash, to the hash.
+   *
+   * @param value  Value to add.
+   * @return       This hash. Never null.
+   */
+  public ContentHash add(long value)
+  {
+    for (int i = 0; i < 8; i++)
+      mix((int) ((value >>> (i * 8)) & 0xff));
+
+    mix(SEPARATOR);
+    return this;
+  }
+
+  /**
+   * Return the current value of this hash.
+   *
+   * @return  Current value of this hash.
+   */
+  public long getValue()
+  {
+    return hash_;
+  }
+
+  /**
+   * Spread the bits of the specified hash, so that sums of
+   * spread hashes are well distributed. This is the 64-bit
+   * finalizer of MurmurHash3.
+   *
+   * @param hash  Hash to spread.
+   * @return      The spread hash.
+   */
+  static long spread(long hash)
+  {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  /**
+   * Return the content hash of the specified entities, independent of
+   * the order they are iterated in. Entities of equal content contribute
+   * equally, so two sets of the same content have the same hash even if
+   * the entities themselves are different instances.
+   * <p>
+   * The entity hashes are spread and summed, so the computation is a single
+   * pass that may be split and combined in any order.
+   *
+   * @param entities  Entities to hash. Non-null.
+   * @param hasher    Content hash function of a single entity. Non-null.
+   * @return          Content hash of the entities.
+   * @throws IllegalArgumentException  If entities or hasher is null.
+   */
+  public static <T> long of(Iterable<T> entities, ToLongFunction<? super T> hasher)
+  {
+    if (entities == null)
+      throw new IllegalArgumentException("entities cannot be null");
+
+    if (hasher == null)
+      throw new IllegalArgumentException("hasher cannot be null");
+
+    long sum = 0L;
+    int nEntities = 0;
+    for (T entity : entities) {
+      sum += spread(hasher.applyAsLong(entity));
+      nEntities++;
+    }
+
+    return combine(nEntities, sum);
+  }
+
+  /**
+   * Return the content hash of a set of entities from its number of
+   * entities and the sum of their spread hashes, as accumulated by
+   * {@link #of(Iterable,ToLongFunction)}. This lets a set maintain
+   * its hash incrementally as entities are added and removed.
+   *
+   * @param nEntities  Number of entities of the set. [0,&gt;.
+   * @param sum        Sum of the spread entity hashes of the set.
+   * @return           Content hash of the set.
+   */
+  static long combine(int nEntities, long sum)
+  {
+    return new ContentHash().add(nEntities).add(sum).getValue();
+  }
+
+  /**
+   * Return the specified hash as an HTTP entity tag, including the quotes,
+   * like <code>"0123456789abcdef"</code>.
+   *
+   * @param hash  Hash to convert.
+   * @return      The strong entity tag of the hash. Never null.
+   */
+  public static String toETag(long hash)
+  {
+    String hex = Long.toHexString(hash);
+    return "\"" + "0000000000000000".substring(hex.length()) + hex + "\"";
+  }
+
+  /**
+   * Return the content hash of the specified property.
+   * The parent is included by name.
+   *
+   * @param property  Property to hash. Non-null.
+   * @return          Content hash of property.
+   */
+  public static long of(Property property)
+  {
+    assert property != null : "property cannot be null";
+    return property.getContentHash();
+  }
+
+  /**
+   * Compute the content hash of the specified property.
+   * Called by the property itself, which caches the result.
+   *
+   * @param property  Property to hash. Non-null.
+   * @return          Content hash of property.
+   */
+  static long compute(Property property)
+  {
+    assert property != null : "property cannot be null";
+
+    Property parent = property.getParent();
+
+    return new ContentHash()
+      .add(property.getName())
+      .add(property.getDescriptionText())
+      .add(property.getQuantity())
+      .add(property.getGuid())
+      .add(property.getSortOrder())
+      .add(property.isAbstract())
+      .add(parent != null ? parent.getName() : null)
+      .getValue();
+  }
+
+  /**
+   * Return the content hash of the specified company.
+   *
+   * @param company  Company to hash. Non-null.
+   * @return         Content hash of company.
+   */
+  public static long of(Company company)
+  {
+    assert company != null : "company cannot be null";
+
+    return new ContentHash()
+      .add(company.getCompanyCode())
+      .add(company.getName())
+      .getValue();
+  }
+
+  /**
+   * Return the content hash of the specified logging method.
+   *
+   * @param loggingMethod  Logging method to hash. Non-null.
+   * @return               Content hash of logging method.
+   */
+  public static long of(LoggingMethod loggingMethod)
+  {
+    assert loggingMethod != null : "loggingMethod cannot be null";
+
+    return new ContentHash()
+      .add(loggingMethod.getName())
+      .add(loggingMethod.getDescription())
+      .getValue();
+  }
+
+  /**
+   * Return the content hash of the specified tool class.
+   *
+   * @param toolClass  Tool class to hash. Non-null.
+   * @return           Content hash of tool class.
+   */
+  public static long of(ToolClass toolClass)
+  {
+    assert toolClass != null : "toolClass cannot be null";
+
+    return new ContentHash()
+      .add(toolClass.getName())
+      .add(toolClass.getDescription())
+      .getValue();
+  }
+
+  /**
+   * Return the content hash of the specified curve.
+   *
+   * @param curve  Curve to hash. Non-null.
+   * @return       Content hash of curve.
+   */
+  public static long of(Curve curve)
+  {
+    assert curve != null : "curve cannot be null";
+    return curve.getContentHash();
+  }
+
+  /**
+   * Compute the content hash of the specified curve.
+   * Called by the curve itself, which caches the result.
+   *
+   * @param curve  Curve to hash. Non-null.
+   * @return       Content hash of curve.
+   */
+  static long compute(Curve curve)
+  {
+    assert curve != null : "curve cannot be null";
+
+    return new ContentHash()
+      .add(curve.getMnemonic())
+      .add(curve.getLisMnemonic())
+      .add(curve.getCompanyCode())
+      .add(curve.getProperty())
+      .add(curve.getQuantity())
+      .add(curve.getDescriptionText())
+      .getValue();
+  }
+
+  /**
+   * Return the content hash of the curves associated with the specified
+   * tool, i.e. of its part of the curves by tool mapping. Curves are
+   * included by mnemonic and company code.
+   *
+   * @param tool  Tool to hash curves of. Non-null.
+   * @return      Content hash of the curves of tool.
+   */
+  public static long ofCurves(Tool tool)
+  {
+    assert tool != null : "tool cannot be null";
+    return tool.getCurvesHash();
+  }
+
+  /**
+   * Compute the content hash of the curves associated with the specified
+   * tool. Called by the tool itself, which caches the result.
+   *
+   * @param tool  Tool to hash curves of. Non-null.
+   * @return      Content hash of the curves of tool.
+   */
+  static long computeCurves(Tool tool)
+  {
+    assert tool != null : "tool cannot be null";
+
+    return of(tool.getCurves(), curve -> new ContentHash()
+              .add(curve.getMnemonic())
+              .add(curve.getCompanyCode())
+              .getValue());
+  }
+
+  /**
+   * Return the content hash of the specified tool.
+   * The curves of the tool are not included, see {@link #ofCurves}.
+   *
+   * @param tool  Tool to hash. Non-null.
+   * @return      Content hash of tool.
+   */
+  public static long of(Tool tool)
+  {
+    assert tool != null : "tool cannot be null";
+    return tool.getContentHash();
+  }
+
+  /**
+   * Compute the content hash of the specified tool.
+   * Called by the tool itself, which caches the result.
+   *
+   * @param tool  Tool to hash. Non-null.
+   * @return      Content hash of tool.
+   */
+  static long compute(Tool tool)
+  {
+    assert tool != null : "tool cannot be null";
+
+    return new ContentHash()
+      .add(tool.getToolCode())
+      .add(tool.getCompanyCode())
+      .add(tool.getGroup())
+      .add(tool.getMarketingName())
+      .add(tool.getDescriptionText())
+      .add(tool.getGenericType())
+      .add(tool.getLoggingMethod())
+      .add(tool.getTypeDescription())
+      .getValue();
+  }
+}
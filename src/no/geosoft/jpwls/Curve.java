@@ -8,22 +8,25 @@ package no.geosoft.jpwls;
 public final class Curve
 {
   /** Curve mnemonic, i.e. its name. Non-null. */
-  private final String mnemonic_;
+  private final CharSequence mnemonic_;
 
   /** Curve short mnemonic. Null if N/A. */
-  private final String lisMnemonic_;
+  private final CharSequence lisMnemonic_;
 
   /** Company code of this curve. Null if N/A. */
   private final Integer companyCode_;
 
   /** Property of this curve, i.e. what is measured. Non-null. */
-  private final String property_;
+  private final CharSequence property_;
 
   /** Quantity of the property. Non-null. */
-  private final String quantity_;
+  private final CharSequence quantity_;
 
   /** Curve description. Null if none provided. */
-  private final String description_;
+  private final CharSequence description_;
+
+  /** Content hash of this curve. 0 if not yet computed. */
+  private volatile long contentHash_;
 
   /**
    * Create a new curve instance.
@@ -42,6 +45,35 @@ public final class Curve
                String property,
                String quantity,
                String description)
+  {
+    this((CharSequence) mnemonic,
+         (CharSequence) lisMnemonic,
+         companyCode,
+         (CharSequence) property,
+         (CharSequence) quantity,
+         (CharSequence) description);
+  }
+
+  /**
+   * Create a new curve instance.
+   * <p>
+   * Text may be passed as any character sequence, such as a
+   * {@link no.geosoft.jpwls.util.Utf8Text} that is decoded on access.
+   *
+   * @param mnemonic     Curve mnemonic. Non-null.
+   * @param lisMnemonic  Curve short mnemonic. Null if N/A.
+   * @param companyCode  Company code of this curve. Null if N/A.
+   * @param property     Property of this curve. Non-null.
+   * @param quantity     Quantity of the property. Non-null.
+   * @param description  Curve description. Null if none provided.
+   * @throws IllegalArgumentException  If mnemonic, property or quantity is null.
+   */
+  public Curve(CharSequence mnemonic,
+               CharSequence lisMnemonic,
+               Integer companyCode,
+               CharSequence property,
+               CharSequence quantity,
+               CharSequence description)
 
   {
     if (mnemonic == null)
@@ -68,7 +100,7 @@ public final class Curve
    */
   public String getMnemonic()
   {
-    return mnemonic_;
+    return mnemonic_.toString();
   }
 
   /**
@@ -78,7 +110,7 @@ public final class Curve
    */
   public String getLisMnemonic()
   {
-    return lisMnemonic_;
+    return lisMnemonic_ != null ? lisMnemonic_.toString() : null;
   }
 
   /**
@@ -98,7 +130,7 @@ public final class Curve
    */
   public String getProperty()
   {
-    return property_;
+    return property_.toString();
   }
 
   /**
@@ -108,7 +140,7 @@ public final class Curve
    */
   public String getQuantity()
   {
-    return quantity_;
+    return quantity_.toString();
   }
 
   /**
@@ -117,10 +149,37 @@ public final class Curve
    * @return  The description of this curve. Null if none provided.
    */
   public String getDescription()
+  {
+    return description_ != null ? description_.toString() : null;
+  }
+
+  /**
+   * Return the description of this curve as stored, without decoding it.
+   *
+   * @return  The stored description of this curve. Null if none provided.
+   */
+  CharSequence getDescriptionText()
   {
     return description_;
   }
 
+  /**
+   * Return the content hash of this curve, computing it on first call.
+   *
+   * @return  Content hash of this curve.
+   * @see ContentHash#of(Curve)
+   */
+  long getContentHash()
+  {
+    long contentHash = contentHash_;
+    if (contentHash == 0L) {
+      contentHash = ContentHash.compute(this);
+      contentHash_ = contentHash;
+    }
+
+    return contentHash;
+  }
+
   /** {@inheritDoc} */
   @Override
   public String toString()
@@ -1,9 +1,7 @@
 package no.geosoft.jpwls;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -14,10 +12,35 @@ import java.util.Set;
 public final class Curves
 {
   /** All curves defined by the PWLS standard. */
-  private final Set<Curve> curves_ = new HashSet<>();
+  private PersistentMap<Curve,Curve> curves_ = PersistentMap.empty();
+
+  /** Sum of the spread content hashes of the curves. Null if not yet computed. */
+  private volatile Long hashSum_;
 
   /** Curves by mnemonic/company code. Cached for performance. */
-  private final Map<String,Curve> curvesByMnemonic_ = new HashMap<>();
+  private PersistentMap<String,Curve> curvesByMnemonic_ = PersistentMap.empty();
+
+  /** All the curves of this instance, as a live view. */
+  private final Set<Curve> all_ = new AbstractSet<Curve>()
+  {
+    @Override
+    public Iterator<Curve> iterator()
+    {
+      return curves_.keyIterator();
+    }
+
+    @Override
+    public int size()
+    {
+      return curves_.size();
+    }
+
+    @Override
+    public boolean contains(Object object)
+    {
+      return object != null && curves_.get(object) != null;
+    }
+  };
 
   /**
    * Create an empty curves instance.
@@ -27,6 +50,25 @@ public final class Curves
     // Nothing
   }
 
+  /**
+   * Create a curves instance holding the same curves as the specified one.
+   * The two instances share their internal structure until either is
+   * modified, so the copy is made in constant time, and modifying it
+   * costs time proportional to the modification only.
+   *
+   * @param curves  Instance to copy. Non-null.
+   * @throws IllegalArgumentException  If curves is null.
+   */
+  public Curves(Curves curves)
+  {
+    if (curves == null)
+      throw new IllegalArgumentException("curves cannot be null");
+
+    curves_ = curves.curves_;
+    curvesByMnemonic_ = curves.curvesByMnemonic_;
+    hashSum_ = curves.hashSum_;
+  }
+
   /**
    * Add the specified curve to this instance.
    *
@@ -38,10 +80,44 @@ public final class Curves
     if (curve == null)
       throw new IllegalArgumentException("curve cannot be null");
 
-    curves_.add(curve);
+    PersistentMap<Curve,Curve> curves = curves_.put(curve, curve);
+    if (curves == curves_)
+      return;
+
+    curves_ = curves;
+
+    Long hashSum = hashSum_;
+    if (hashSum != null)
+      hashSum_ = hashSum + ContentHash.spread(ContentHash.of(curve));
 
     String key = curve.getMnemonic() + curve.getCompanyCode();
-    curvesByMnemonic_.put(key, curve);
+    curvesByMnemonic_ = curvesByMnemonic_.put(key, curve);
+  }
+
+  /**
+   * Remove the specified curve from this instance.
+   *
+   * @param curve  Curve to remove. Non-null.
+   * @throws IllegalArgumentException  If curve is null.
+   */
+  public void remove(Curve curve)
+  {
+    if (curve == null)
+      throw new IllegalArgumentException("curve cannot be null");
+
+    PersistentMap<Curve,Curve> curves = curves_.remove(curve);
+    if (curves == curves_)
+      return;
+
+    curves_ = curves;
+
+    Long hashSum = hashSum_;
+    if (hashSum != null)
+      hashSum_ = hashSum - ContentHash.spread(ContentHash.of(curve));
+
+    String key = curve.getMnemonic() + curve.getCompanyCode();
+    if (curvesByMnemonic_.get(key) == curve)
+      curvesByMnemonic_ = curvesByMnemonic_.remove(key);
   }
 
   /**
@@ -51,7 +127,33 @@ public final class Curves
    */
   public Set<Curve> getAll()
   {
-    return Collections.unmodifiableSet(curves_);
+    return all_;
+  }
+
+  /**
+   * Return the content hash of this instance, independent of the
+   * iteration order. The hash is computed on first call and then
+   * maintained through {@link #add} and {@link #remove}, so a modified
+   * copy of a hashed instance is not hashed again.
+   *
+   * @return  Content hash of this instance.
+   * @see ContentHash#toETag
+   */
+  public long getContentHash()
+  {
+    PersistentMap<Curve,Curve> curves = curves_;
+
+    Long hashSum = hashSum_;
+    if (hashSum == null) {
+      long sum = 0L;
+      for (Iterator<Curve> i = curves.keyIterator(); i.hasNext(); )
+        sum += ContentHash.spread(ContentHash.of(i.next()));
+
+      hashSum = sum;
+      hashSum_ = hashSum;
+    }
+
+    return ContentHash.combine(curves.size(), hashSum);
   }
 
   /**
@@ -76,7 +178,7 @@ public final class Curves
   public String toString()
   {
     StringBuilder s = new StringBuilder();
-    for (Curve curve : curves_) {
+    for (Curve curve : all_) {
       s.append(curve.toString() + "\n");
     }
 
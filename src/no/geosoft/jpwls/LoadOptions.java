@@ -0,0 +1,193 @@
+package no.geosoft.jpwls;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Options that restrict what is loaded into a PWLS model.
+ * <p>
+ * The options are applied by the JSON reader while parsing, so records of
+ * excluded companies and excluded fields are skipped at the token level and
+ * never allocated. This reduces both load time and heap for deployments that
+ * need only a subset of the standard:
+ * <pre>
+ *   LoadOptions options = new LoadOptions(Set.of(440, 1),
+ *                                         EnumSet.of(LoadOptions.Field.DESCRIPTION));
+ *   Pwls pwls = new Pwls(folder, options);
+ * </pre>
+ * Instances are immutable.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class LoadOptions
+{
+  /**
+   * Optional fields that may be left out when loading.
+   */
+  public enum Field
+  {
+    /** Descriptions of curves, tools and properties. Properties gets an empty description. */
+    DESCRIPTION,
+
+    /** Short (LIS) mnemonics of curves. */
+    SHORT_MNEMONIC,
+
+    /** Marketing names of tools. */
+    MARKETING_NAME,
+
+    /** Type descriptions of tools. */
+    TYPE_DESCRIPTION;
+  }
+
+  /** Options that load everything. */
+  public static final LoadOptions ALL = new LoadOptions(null, null, false, false);
+
+  /** Company codes to load. Null to load all. */
+  private final Set<Integer> companyCodes_;
+
+  /** Fields to leave out. Non-null. */
+  private final Set<Field> excludedFields_;
+
+  /** True to keep descriptions in a compressed text store, false to keep them as strings. */
+  private final boolean isDescriptionCompact_;
+
+  /** True to validate the JSON resources against their schemas while parsing. */
+  private final boolean isValidated_;
+
+  /**
+   * Create new load options.
+   * <p>
+   * Compact descriptions are kept compressed in a
+   * {@link no.geosoft.jpwls.util.TextStore} per entity type and decoded
+   * on access. This saves most of the heap of the descriptions at the
+   * cost of slower access to them.
+   * <p>
+   * Validated JSON resources are checked against their JSON schemas in
+   * a pass of their own before the model is built, so the validation cost
+   * is logged separately. Problems are counted in the
+   * {@link LoadReport} with the resource, record index and field of a
+   * sample of them, and the resource is otherwise loaded as without
+   * validation.
+   *
+   * @param companyCodes          Codes of the companies to load curves, tools
+   *                              and companies of. Null to load all.
+   * @param excludedFields        Fields to leave out. Null or empty to load all.
+   * @param isDescriptionCompact  True to keep descriptions compressed,
+   *                              false to keep them as strings.
+   * @param isValidated           True to validate the JSON resources before
+   *                              parsing them, false to not validate.
+   */
+  public LoadOptions(Set<Integer> companyCodes, Set<Field> excludedFields, boolean isDescriptionCompact, boolean isValidated)
+  {
+    companyCodes_ = companyCodes != null ? Collections.unmodifiableSet(new HashSet<>(companyCodes)) : null;
+    excludedFields_ = excludedFields != null && !excludedFields.isEmpty() ?
+      Collections.unmodifiableSet(EnumSet.copyOf(excludedFields)) : Collections.emptySet();
+    isDescriptionCompact_ = isDescriptionCompact;
+    isValidated_ = isValidated;
+  }
+
+  /**
+   * Create new load options without validation.
+   *
+   * @param companyCodes          Codes of the companies to load curves, tools
+   *                              and companies of. Null to load all.
+   * @param excludedFields        Fields to leave out. Null or empty to load all.
+   * @param isDescriptionCompact  True to keep descriptions compressed,
+   *                              false to keep them as strings.
+   */
+  public LoadOptions(Set<Integer> companyCodes, Set<Field> excludedFields, boolean isDescriptionCompact)
+  {
+    this(companyCodes, excludedFields, isDescriptionCompact, false);
+  }
+
+  /**
+   * Create new load options with descriptions kept as strings.
+   *
+   * @param companyCodes    Codes of the companies to load curves, tools and
+   *                        companies of. Null to load all.
+   * @param excludedFields  Fields to leave out. Null or empty to load all.
+   */
+  public LoadOptions(Set<Integer> companyCodes, Set<Field> excludedFields)
+  {
+    this(companyCodes, excludedFields, false);
+  }
+
+  /**
+   * Return the codes of the companies to load.
+   *
+   * @return  Codes of the companies to load. Null if all.
+   */
+  public Set<Integer> getCompanyCodes()
+  {
+    return companyCodes_;
+  }
+
+  /**
+   * Return the fields to leave out.
+   *
+   * @return  The fields to leave out. Never null.
+   */
+  public Set<Field> getExcludedFields()
+  {
+    return excludedFields_;
+  }
+
+  /**
+   * Check if descriptions should be kept compressed.
+   *
+   * @return  True if descriptions should be kept compressed, false if
+   *          they should be kept as strings.
+   */
+  public boolean isDescriptionCompact()
+  {
+    return isDescriptionCompact_;
+  }
+
+  /**
+   * Check if the JSON resources should be validated while parsed.
+   *
+   * @return  True if the resources should be validated, false otherwise.
+   */
+  public boolean isValidated()
+  {
+    return isValidated_;
+  }
+
+  /**
+   * Check if records of the specified company should be loaded.
+   *
+   * @param companyCode  Company code to check.
+   * @return             True if the records should be loaded, false otherwise.
+   */
+  public boolean isIncluded(int companyCode)
+  {
+    return companyCodes_ == null || companyCodes_.contains(companyCode);
+  }
+
+  /**
+   * Check if the specified field should be loaded.
+   *
+   * @param field  Field to check. Non-null.
+   * @return       True if the field should be loaded, false otherwise.
+   * @throws IllegalArgumentException  If field is null.
+   */
+  public boolean isIncluded(Field field)
+  {
+    if (field == null)
+      throw new IllegalArgumentException("field cannot be null");
+
+    return !excludedFields_.contains(field);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    return "companies=" + (companyCodes_ != null ? companyCodes_ : "all") +
+           " excluded=" + excludedFields_ +
+           " compact=" + isDescriptionCompact_ +
+           " validated=" + isValidated_;
+  }
+}
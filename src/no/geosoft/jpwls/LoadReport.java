@@ -0,0 +1,247 @@
+package no.geosoft.jpwls;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Report of inconsistencies found in the data while loading a PWLS model.
+ * <p>
+ * Noisy data may refer to thousands of unknown tools and curves. Rather
+ * than logging each of them, the readers count them per category here
+ * together with a sample of the offending keys, and the report is logged
+ * once when the load completes:
+ * <pre>
+ *   Pwls pwls = new Pwls(folder);
+ *   LoadReport report = pwls.getLoadReport();
+ *   if (!report.isEmpty())
+ *     System.out.println(report);
+ * </pre>
+ * Instances are thread safe, so a single report can be shared by the
+ * concurrent readers of a load.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class LoadReport
+{
+  /**
+   * Categories of load issues.
+   */
+  public enum Category
+  {
+    /** Curve by tool association referring to a tool that doesn't exist. */
+    UNKNOWN_TOOL("Unknown tools"),
+
+    /** Curve by tool association referring to a curve that doesn't exist. */
+    UNKNOWN_CURVE("Unknown curves"),
+
+    /** Property referring to a parent property that doesn't exist. */
+    MISSING_PARENT("Missing parent properties"),
+
+    /** Record not conforming to the JSON schema of its resource. */
+    SCHEMA_PROBLEM("Schema problems");
+
+    /** Display name of this category. Non-null. */
+    private final String displayName_;
+
+    /**
+     * Create a category.
+     *
+     * @param displayName  Display name of category. Non-null.
+     */
+    private Category(String displayName)
+    {
+      assert displayName != null : "displayName cannot be null";
+      displayName_ = displayName;
+    }
+
+    /**
+     * Return the display name of this category.
+     *
+     * @return  Display name of this category. Never null.
+     */
+    public String getDisplayName()
+    {
+      return displayName_;
+    }
+  }
+
+  /** Maximum number of sample keys kept per category. */
+  public static final int MAX_SAMPLES = 10;
+
+  /** The logger instance. */
+  private static final Logger logger_ = Logger.getLogger(LoadReport.class.getName());
+
+  /** Number of issues per category. Non-null. */
+  private final Map<Category,Integer> counts_ = new EnumMap<>(Category.class);
+
+  /** Sample of offending keys per category. Non-null. */
+  private final Map<Category,Set<String>> samples_ = new EnumMap<>(Category.class);
+
+  /**
+   * Create an empty load report.
+   */
+  public LoadReport()
+  {
+    // Nothing
+  }
+
+  /**
+   * Add an issue of the specified category.
+   *
+   * @param category  Category of issue. Non-null.
+   * @param key       Key of the offending entity, like a tool code. Non-null.
+   * @throws IllegalArgumentException  If category or key is null.
+   */
+  public synchronized void add(Category category, String key)
+  {
+    if (category == null)
+      throw new IllegalArgumentException("category cannot be null");
+
+    if (key == null)
+      throw new IllegalArgumentException("key cannot be null");
+
+    counts_.merge(category, 1, Integer::sum);
+
+    Set<String> samples = samples_.computeIfAbsent(category, c -> new LinkedHashSet<>());
+    if (samples.size() < MAX_SAMPLES)
+      samples.add(key);
+  }
+
+  /**
+   * Add the issues of the specified report to this report.
+   *
+   * @param report  Report to add. Non-null.
+   * @throws IllegalArgumentException  If report is null.
+   */
+  public void add(LoadReport report)
+  {
+    if (report == null)
+      throw new IllegalArgumentException("report cannot be null");
+
+    if (report == this)
+      return;
+
+    // Copy first to not hold both locks
+    Map<Category,Integer> counts;
+    Map<Category,List<String>> samples = new EnumMap<>(Category.class);
+    synchronized (report) {
+      counts = new EnumMap<>(report.counts_);
+      for (Map.Entry<Category,Set<String>> entry : report.samples_.entrySet())
+        samples.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+    }
+
+    synchronized (this) {
+      for (Map.Entry<Category,Integer> entry : counts.entrySet())
+        counts_.merge(entry.getKey(), entry.getValue(), Integer::sum);
+
+      for (Map.Entry<Category,List<String>> entry : samples.entrySet()) {
+        Set<String> existing = samples_.computeIfAbsent(entry.getKey(), c -> new LinkedHashSet<>());
+        for (String key : entry.getValue()) {
+          if (existing.size() < MAX_SAMPLES)
+            existing.add(key);
+        }
+      }
+    }
+  }
+
+  /**
+   * Return the number of issues of the specified category.
+   *
+   * @param category  Category to get number of issues of. Non-null.
+   * @return          Number of issues of the category. [0,&gt;.
+   * @throws IllegalArgumentException  If category is null.
+   */
+  public synchronized int getNIssues(Category category)
+  {
+    if (category == null)
+      throw new IllegalArgumentException("category cannot be null");
+
+    return counts_.getOrDefault(category, 0);
+  }
+
+  /**
+   * Return the total number of issues of this report.
+   *
+   * @return  Total number of issues. [0,&gt;.
+   */
+  public synchronized int getNIssues()
+  {
+    int nIssues = 0;
+    for (int count : counts_.values())
+      nIssues += count;
+
+    return nIssues;
+  }
+
+  /**
+   * Return a sample of the offending keys of the specified category.
+   * The sample holds the first distinct keys reported, up to {@link #MAX_SAMPLES}.
+   *
+   * @param category  Category to get sample of. Non-null.
+   * @return          Sample of offending keys. Never null.
+   * @throws IllegalArgumentException  If category is null.
+   */
+  public synchronized List<String> getSamples(Category category)
+  {
+    if (category == null)
+      throw new IllegalArgumentException("category cannot be null");
+
+    Set<String> samples = samples_.get(category);
+    return samples != null ? Collections.unmodifiableList(new ArrayList<>(samples)) : Collections.emptyList();
+  }
+
+  /**
+   * Check if this report is empty, i.e. if no issues were found.
+   *
+   * @return  True if no issues were found, false otherwise.
+   */
+  public synchronized boolean isEmpty()
+  {
+    return counts_.isEmpty();
+  }
+
+  /**
+   * Log this report as a single warning, unless it is empty.
+   *
+   * @param what  Name of what was loaded, for the log message. Non-null.
+   * @throws IllegalArgumentException  If what is null.
+   */
+  public void log(String what)
+  {
+    if (what == null)
+      throw new IllegalArgumentException("what cannot be null");
+
+    if (isEmpty())
+      return;
+
+    logger_.log(Level.WARNING, "Loaded " + what + " with " + getNIssues() + " data issues. " + this);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public synchronized String toString()
+  {
+    StringBuilder s = new StringBuilder();
+    for (Map.Entry<Category,Integer> entry : counts_.entrySet()) {
+      Category category = entry.getKey();
+      int count = entry.getValue();
+      Set<String> samples = samples_.get(category);
+
+      if (s.length() > 0)
+        s.append("; ");
+
+      s.append(category.getDisplayName() + ": " + count + " " + samples);
+      if (count > samples.size())
+        s.append("...");
+    }
+
+    return s.toString();
+  }
+}
@@ -14,6 +14,9 @@ public final class LoggingMethods
   /** All logging methods defined by the PWLS standard. */
   private final Set<LoggingMethod> loggingMethods_ = new HashSet<>();
 
+  /** Content hash of this instance. Null if not yet computed. */
+  private volatile Long contentHash_;
+
   /**
    * Create an empty logging methods instance.
    */
@@ -22,6 +25,20 @@ public final class LoggingMethods
     // Nothing
   }
 
+  /**
+   * Create a logging methods instance holding the same logging methods as the specified one.
+   *
+   * @param loggingMethods  Instance to copy. Non-null.
+   * @throws IllegalArgumentException  If loggingMethods is null.
+   */
+  public LoggingMethods(LoggingMethods loggingMethods)
+  {
+    if (loggingMethods == null)
+      throw new IllegalArgumentException("loggingMethods cannot be null");
+
+    loggingMethods_.addAll(loggingMethods.loggingMethods_);
+  }
+
   /**
    * Add the specified logging method to this instance.
    *
@@ -33,9 +50,27 @@ public final class LoggingMethods
     if (loggingMethod == null)
       throw new IllegalArgumentException("loggingMethod cannot be null");
 
+    contentHash_ = null;
+
     loggingMethods_.add(loggingMethod);
   }
 
+  /**
+   * Remove the specified logging method from this instance.
+   *
+   * @param loggingMethod  Logging method to remove. Non-null.
+   * @throws IllegalArgumentException  If loggingMethod is null.
+   */
+  public void remove(LoggingMethod loggingMethod)
+  {
+    if (loggingMethod == null)
+      throw new IllegalArgumentException("loggingMethod cannot be null");
+
+    contentHash_ = null;
+
+    loggingMethods_.remove(loggingMethod);
+  }
+
   /**
    * Return all the logging methods of this instance.
    *
@@ -46,6 +81,25 @@ public final class LoggingMethods
     return Collections.unmodifiableSet(loggingMethods_);
   }
 
+  /**
+   * Return the content hash of this instance, independent of the
+   * iteration order. The hash is computed on first call and cached
+   * until the instance is modified through {@link #add} or {@link #remove}.
+   *
+   * @return  Content hash of this instance.
+   * @see ContentHash#toETag
+   */
+  public long getContentHash()
+  {
+    Long contentHash = contentHash_;
+    if (contentHash == null) {
+      contentHash = ContentHash.of(loggingMethods_, ContentHash::of);
+      contentHash_ = contentHash;
+    }
+
+    return contentHash;
+  }
+
   /**
    * Find logging method of the specified name.
    *
@@ -0,0 +1,215 @@
+package no.geosoft.jpwls;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import no.geosoft.jpwls.util.TextStore;
+import no.geosoft.jpwls.util.Utf8Text;
+
+/**
+ * Report of the estimated heap occupied by the descriptions of a PWLS
+ * model, per entity type, compared with keeping them as plain strings.
+ * <p>
+ * Descriptions may be held as strings, in a compressed {@link TextStore}
+ * (see {@link LoadOptions}) or as {@link Utf8Text} in a memory mapped
+ * snapshot. The figures are estimates assuming compressed object pointers
+ * and compact strings. Building the report decodes every description
+ * once, so it is meant for diagnostics only.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class MemoryReport
+{
+  /**
+   * Description memory of a single entity type.
+   */
+  public static final class Entry
+  {
+    /** Name of the entity type. Non-null. */
+    private final String entityType_;
+
+    /** Number of descriptions. */
+    private int nDescriptions_;
+
+    /** Estimated heap of the descriptions as strings. */
+    private long stringSize_;
+
+    /** Estimated actual heap of the descriptions. */
+    private long heapSize_;
+
+    /**
+     * Create a new entry.
+     *
+     * @param entityType  Name of the entity type. Non-null.
+     */
+    private Entry(String entityType)
+    {
+      assert entityType != null : "entityType cannot be null";
+      entityType_ = entityType;
+    }
+
+    /**
+     * Return the name of the entity type of this entry.
+     *
+     * @return  Name of the entity type. Never null.
+     */
+    public String getEntityType()
+    {
+      return entityType_;
+    }
+
+    /**
+     * Return the number of descriptions of this entry.
+     *
+     * @return  Number of descriptions. [0,&gt;.
+     */
+    public int getNDescriptions()
+    {
+      return nDescriptions_;
+    }
+
+    /**
+     * Return the estimated heap the descriptions would occupy as strings.
+     *
+     * @return  Estimated heap in bytes. [0,&gt;.
+     */
+    public long getStringSize()
+    {
+      return stringSize_;
+    }
+
+    /**
+     * Return the estimated heap actually occupied by the descriptions.
+     *
+     * @return  Estimated heap in bytes. [0,&gt;.
+     */
+    public long getHeapSize()
+    {
+      return heapSize_;
+    }
+
+    /**
+     * Return the estimated heap saved compared to plain strings.
+     *
+     * @return  Estimated heap saved in bytes. Negative if more is used.
+     */
+    public long getSavedSize()
+    {
+      return stringSize_ - heapSize_;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString()
+    {
+      return String.format("%-12s %8d %12d %12d %12d",
+                           entityType_, nDescriptions_, stringSize_, heapSize_, getSavedSize());
+    }
+  }
+
+  /** The entries of this report. Non-null. */
+  private final List<Entry> entries_ = new ArrayList<>();
+
+  /**
+   * Create a memory report of the specified PWLS model.
+   *
+   * @param pwls  Model to report on. Non-null.
+   * @throws IllegalArgumentException  If pwls is null.
+   */
+  public MemoryReport(Pwls pwls)
+  {
+    if (pwls == null)
+      throw new IllegalArgumentException("pwls cannot be null");
+
+    Entry curves = new Entry("curves");
+    Map<TextStore,Boolean> curveStores = new IdentityHashMap<>();
+    for (Curve curve : pwls.getAllCurves().getAll())
+      add(curves, curve.getDescriptionText(), curveStores);
+    entries_.add(curves);
+
+    Entry tools = new Entry("tools");
+    Map<TextStore,Boolean> toolStores = new IdentityHashMap<>();
+    for (Tool tool : pwls.getAllTools().getAll())
+      add(tools, tool.getDescriptionText(), toolStores);
+    entries_.add(tools);
+
+    Entry properties = new Entry("properties");
+    Map<TextStore,Boolean> propertyStores = new IdentityHashMap<>();
+    for (Property property : pwls.getAllProperties().getAll())
+      add(properties, property.getDescriptionText(), propertyStores);
+    entries_.add(properties);
+  }
+
+  /**
+   * Add the specified description to the given entry.
+   *
+   * @param entry        Entry to add to. Non-null.
+   * @param description  Description to add. May be null.
+   * @param stores       Text stores already accounted for. Non-null.
+   */
+  private static void add(Entry entry, CharSequence description, Map<TextStore,Boolean> stores)
+  {
+    assert entry != null : "entry cannot be null";
+    assert stores != null : "stores cannot be null";
+
+    if (description == null)
+      return;
+
+    long stringSize = TextStore.getStringSize(description.toString());
+
+    entry.nDescriptions_++;
+    entry.stringSize_ += stringSize;
+
+    TextStore store = TextStore.getStore(description);
+    if (store != null) {
+      // The store size includes the references handed out
+      if (stores.put(store, Boolean.TRUE) == null)
+        entry.heapSize_ += store.getHeapSize();
+    }
+    else if (description instanceof Utf8Text) {
+      entry.heapSize_ += TextStore.getTextSize();
+    }
+    else {
+      entry.heapSize_ += stringSize;
+    }
+  }
+
+  /**
+   * Return the entries of this report, one per entity type.
+   *
+   * @return  The entries of this report. Never null.
+   */
+  public List<Entry> getEntries()
+  {
+    return Collections.unmodifiableList(entries_);
+  }
+
+  /**
+   * Return the total estimated heap saved compared to plain strings.
+   *
+   * @return  Estimated heap saved in bytes. Negative if more is used.
+   */
+  public long getSavedSize()
+  {
+    long savedSize = 0;
+    for (Entry entry : entries_)
+      savedSize += entry.getSavedSize();
+
+    return savedSize;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    StringBuilder s = new StringBuilder();
+    s.append(String.format("%-12s %8s %12s %12s %12s%n", "Entity", "#", "As strings", "Heap", "Saved"));
+    for (Entry entry : entries_)
+      s.append(entry + "\n");
+    s.append(String.format("%-12s %8s %12s %12s %12d%n", "Total", "", "", "", getSavedSize()));
+    return s.toString();
+  }
+}
@@ -0,0 +1,703 @@
+package no.geosoft.jpwls;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable hash map with structural sharing, implemented as a
+ * hash array mapped trie.
+ * <p>
+ * Updates return a new map and leave the original unchanged. The new
+ * map shares all of the trie with the original except the path to the
+ * updated entry, so an update costs O(log32 n) time and space, and a
+ * copy of the map costs nothing. This lets a modified copy of a large
+ * entity set be made in time proportional to the modification.
+ * <p>
+ * Keys are compared by <em>equals</em> and <em>hashCode</em>, so entities
+ * without these are compared by identity. Null keys and values are not
+ * supported. Instances are thread safe.
+ *
+ * @param <K>  Key type.
+ * @param <V>  Value type.
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+final class PersistentMap<K,V>
+{
+  /** Number of hash bits consumed per trie level. */
+  private static final int BITS_PER_LEVEL = 5;
+
+  /** Mask of the hash bits of a trie level. */
+  private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+
+  /** Largest shift that still consumes hash bits. */
+  private static final int MAX_SHIFT = 30;
+
+  /** Maximum depth of the trie, including the collision level. */
+  private static final int MAX_DEPTH = MAX_SHIFT / BITS_PER_LEVEL + 2;
+
+  /** The empty map. */
+  private static final PersistentMap<?,?> EMPTY = new PersistentMap<>(new BitmapNode(0, 0, new Object[0]), 0);
+
+  /**
+   * The outcome of an update of a node.
+   */
+  private static final class Change
+  {
+    /** Change in number of entries, -1, 0 or 1. */
+    private int sizeDelta;
+  }
+
+  /**
+   * A node of the trie.
+   */
+  private abstract static class Node
+  {
+    /**
+     * Return the value of the specified key within this node.
+     *
+     * @param key    Key to find. Non-null.
+     * @param hash   Hash of key.
+     * @param shift  Shift of the level of this node.
+     * @return       The value, or null if not present.
+     */
+    abstract Object get(Object key, int hash, int shift);
+
+    /**
+     * Return this node with the specified mapping.
+     *
+     * @param key     Key to map. Non-null.
+     * @param value   Value to map to. Non-null.
+     * @param hash    Hash of key.
+     * @param shift   Shift of the level of this node.
+     * @param change  Outcome of the update, to be filled in. Non-null.
+     * @return        The updated node, or this if unchanged. Never null.
+     */
+    abstract Node put(Object key, Object value, int hash, int shift, Change change);
+
+    /**
+     * Return this node without the specified key.
+     *
+     * @param key     Key to remove. Non-null.
+     * @param hash    Hash of key.
+     * @param shift   Shift of the level of this node.
+     * @param change  Outcome of the update, to be filled in. Non-null.
+     * @return        The updated node, or this if unchanged. Never null.
+     */
+    abstract Node remove(Object key, int hash, int shift, Change change);
+
+    /**
+     * Return the number of entries held directly by this node.
+     *
+     * @return  Number of entries of this node. [0,&gt;.
+     */
+    abstract int getNEntries();
+
+    /**
+     * Return the number of sub-nodes of this node.
+     *
+     * @return  Number of sub-nodes of this node. [0,&gt;.
+     */
+    abstract int getNNodes();
+
+    /**
+     * Return the key of the specified entry of this node.
+     *
+     * @param index  Index of entry. [0,getNEntries()&gt;.
+     * @return       The key of the entry. Never null.
+     */
+    abstract Object getKey(int index);
+
+    /**
+     * Return the value of the specified entry of this node.
+     *
+     * @param index  Index of entry. [0,getNEntries()&gt;.
+     * @return       The value of the entry. Never null.
+     */
+    abstract Object getValue(int index);
+
+    /**
+     * Return the specified sub-node of this node.
+     *
+     * @param index  Index of sub-node. [0,getNNodes()&gt;.
+     * @return       The sub-node. Never null.
+     */
+    abstract Node getNode(int index);
+  }
+
+  /**
+   * A trie node of up to 32 slots, each holding either an entry or a
+   * sub-node. The entries are kept first in the array, as key/value
+   * pairs in slot order, followed by the sub-nodes in slot order.
+   */
+  private static final class BitmapNode extends Node
+  {
+    /** Slots holding an entry. */
+    private final int entryMap_;
+
+    /** Slots holding a sub-node. */
+    private final int nodeMap_;
+
+    /** Entries followed by sub-nodes. Non-null. */
+    private final Object[] array_;
+
+    /**
+     * Create a bitmap node.
+     *
+     * @param entryMap  Slots holding an entry.
+     * @param nodeMap   Slots holding a sub-node.
+     * @param array     Entries followed by sub-nodes. Non-null.
+     */
+    BitmapNode(int entryMap, int nodeMap, Object[] array)
+    {
+      assert array != null : "array cannot be null";
+
+      entryMap_ = entryMap;
+      nodeMap_ = nodeMap;
+      array_ = array;
+    }
+
+    /**
+     * Return the array index of the key of the entry of the specified slot.
+     *
+     * @param bit  Bit of slot.
+     * @return     Array index of the key of the entry.
+     */
+    private int getEntryIndex(int bit)
+    {
+      return 2 * Integer.bitCount(entryMap_ & (bit - 1));
+    }
+
+    /**
+     * Return the array index of the sub-node of the specified slot.
+     *
+     * @param bit  Bit of slot.
+     * @return     Array index of the sub-node.
+     */
+    private int getNodeIndex(int bit)
+    {
+      return 2 * Integer.bitCount(entryMap_) + Integer.bitCount(nodeMap_ & (bit - 1));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Object get(Object key, int hash, int shift)
+    {
+      int bit = getBit(hash, shift);
+
+      if ((entryMap_ & bit) != 0) {
+        int index = getEntryIndex(bit);
+        return key.equals(array_[index]) ? array_[index + 1] : null;
+      }
+
+      if ((nodeMap_ & bit) != 0)
+        return ((Node) array_[getNodeIndex(bit)]).get(key, hash, shift + BITS_PER_LEVEL);
+
+      return null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Node put(Object key, Object value, int hash, int shift, Change change)
+    {
+      int bit = getBit(hash, shift);
+
+      if ((entryMap_ & bit) != 0) {
+        int index = getEntryIndex(bit);
+        Object existingKey = array_[index];
+        Object existingValue = array_[index + 1];
+
+        // Replace the value
+        if (key.equals(existingKey)) {
+          if (existingValue == value)
+            return this;
+
+          Object[] array = array_.clone();
+          array[index + 1] = value;
+          return new BitmapNode(entryMap_, nodeMap_, array);
+        }
+
+        // Push the existing entry and the new one down into a new sub-node
+        Node node = createNode(existingKey, existingValue, hashOf(existingKey),
+                               key, value, hash, shift + BITS_PER_LEVEL);
+        change.sizeDelta = 1;
+
+        int nodeIndex = getNodeIndex(bit) - 2;
+        Object[] array = new Object[array_.length - 1];
+        System.arraycopy(array_, 0, array, 0, index);
+        System.arraycopy(array_, index + 2, array, index, nodeIndex - index);
+        array[nodeIndex] = node;
+        System.arraycopy(array_, nodeIndex + 2, array, nodeIndex + 1, array_.length - nodeIndex - 2);
+        return new BitmapNode(entryMap_ ^ bit, nodeMap_ | bit, array);
+      }
+
+      if ((nodeMap_ & bit) != 0) {
+        int index = getNodeIndex(bit);
+        Node node = (Node) array_[index];
+        Node newNode = node.put(key, value, hash, shift + BITS_PER_LEVEL, change);
+        if (newNode == node)
+          return this;
+
+        Object[] array = array_.clone();
+        array[index] = newNode;
+        return new BitmapNode(entryMap_, nodeMap_, array);
+      }
+
+      // Insert a new entry in the empty slot
+      change.sizeDelta = 1;
+
+      int index = getEntryIndex(bit);
+      Object[] array = new Object[array_.length + 2];
+      System.arraycopy(array_, 0, array, 0, index);
+      array[index] = key;
+      array[index + 1] = value;
+      System.arraycopy(array_, index, array, index + 2, array_.length - index);
+      return new BitmapNode(entryMap_ | bit, nodeMap_, array);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Node remove(Object key, int hash, int shift, Change change)
+    {
+      int bit = getBit(hash, shift);
+
+      if ((entryMap_ & bit) != 0) {
+        int index = getEntryIndex(bit);
+        if (!key.equals(array_[index]))
+          return this;
+
+        change.sizeDelta = -1;
+
+        Object[] array = new Object[array_.length - 2];
+        System.arraycopy(array_, 0, array, 0, index);
+        System.arraycopy(array_, index + 2, array, index, array_.length - index - 2);
+        return new BitmapNode(entryMap_ ^ bit, nodeMap_, array);
+      }
+
+      if ((nodeMap_ & bit) != 0) {
+        int index = getNodeIndex(bit);
+        Node node = (Node) array_[index];
+        Node newNode = node.remove(key, hash, shift + BITS_PER_LEVEL, change);
+        if (newNode == node)
+          return this;
+
+        // Keep the trie compact by pulling a single remaining entry up here
+        if (newNode.getNNodes() == 0 && newNode.getNEntries() == 1) {
+          int entryIndex = getEntryIndex(bit);
+          Object[] array = new Object[array_.length + 1];
+          System.arraycopy(array_, 0, array, 0, entryIndex);
+          array[entryIndex] = newNode.getKey(0);
+          array[entryIndex + 1] = newNode.getValue(0);
+          System.arraycopy(array_, entryIndex, array, entryIndex + 2, index - entryIndex);
+          System.arraycopy(array_, index + 1, array, index + 2, array_.length - index - 1);
+          return new BitmapNode(entryMap_ | bit, nodeMap_ ^ bit, array);
+        }
+
+        Object[] array = array_.clone();
+        array[index] = newNode;
+        return new BitmapNode(entryMap_, nodeMap_, array);
+      }
+
+      return this;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    int getNEntries()
+    {
+      return Integer.bitCount(entryMap_);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    int getNNodes()
+    {
+      return Integer.bitCount(nodeMap_);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Object getKey(int index)
+    {
+      return array_[2 * index];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Object getValue(int index)
+    {
+      return array_[2 * index + 1];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Node getNode(int index)
+    {
+      return (Node) array_[2 * getNEntries() + index];
+    }
+  }
+
+  /**
+   * A node of entries whose keys have identical hashes. Only found
+   * below the last level of the trie.
+   */
+  private static final class CollisionNode extends Node
+  {
+    /** Keys followed by their value. Non-null. */
+    private final Object[] array_;
+
+    /**
+     * Create a collision node.
+     *
+     * @param array  Keys followed by their value. Non-null.
+     */
+    CollisionNode(Object[] array)
+    {
+      assert array != null : "array cannot be null";
+      array_ = array;
+    }
+
+    /**
+     * Return the array index of the specified key.
+     *
+     * @param key  Key to find. Non-null.
+     * @return     Array index of key, or -1 if not present.
+     */
+    private int indexOf(Object key)
+    {
+      for (int i = 0; i < array_.length; i += 2) {
+        if (key.equals(array_[i]))
+          return i;
+      }
+
+      return -1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Object get(Object key, int hash, int shift)
+    {
+      int index = indexOf(key);
+      return index >= 0 ? array_[index + 1] : null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Node put(Object key, Object value, int hash, int shift, Change change)
+    {
+      int index = indexOf(key);
+      if (index >= 0) {
+        if (array_[index + 1] == value)
+          return this;
+
+        Object[] array = array_.clone();
+        array[index + 1] = value;
+        return new CollisionNode(array);
+      }
+
+      change.sizeDelta = 1;
+
+      Object[] array = Arrays.copyOf(array_, array_.length + 2);
+      array[array_.length] = key;
+      array[array_.length + 1] = value;
+      return new CollisionNode(array);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Node remove(Object key, int hash, int shift, Change change)
+    {
+      int index = indexOf(key);
+      if (index < 0)
+        return this;
+
+      change.sizeDelta = -1;
+
+      Object[] array = new Object[array_.length - 2];
+      System.arraycopy(array_, 0, array, 0, index);
+      System.arraycopy(array_, index + 2, array, index, array_.length - index - 2);
+      return new CollisionNode(array);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    int getNEntries()
+    {
+      return array_.length / 2;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    int getNNodes()
+    {
+      return 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Object getKey(int index)
+    {
+      return array_[2 * index];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Object getValue(int index)
+    {
+      return array_[2 * index + 1];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Node getNode(int index)
+    {
+      throw new IndexOutOfBoundsException("Collision nodes have no sub-nodes");
+    }
+  }
+
+  /**
+   * Iterator over the keys or the values of a map.
+   *
+   * @param <T>  Type of element iterated.
+   */
+  private static final class EntryIterator<T> implements Iterator<T>
+  {
+    /** True to iterate keys, false to iterate values. */
+    private final boolean isKeys_;
+
+    /** Nodes of the current path from the root. */
+    private final Node[] nodes_ = new Node[MAX_DEPTH + 1];
+
+    /** Position within each node of the current path, entries first, then sub-nodes. */
+    private final int[] positions_ = new int[MAX_DEPTH + 1];
+
+    /** Depth of the current node. -1 when exhausted. */
+    private int depth_;
+
+    /**
+     * Create an iterator over the specified trie.
+     *
+     * @param root    Root of trie. Non-null.
+     * @param isKeys  True to iterate keys, false to iterate values.
+     */
+    EntryIterator(Node root, boolean isKeys)
+    {
+      assert root != null : "root cannot be null";
+
+      nodes_[0] = root;
+      isKeys_ = isKeys;
+      advance();
+    }
+
+    /**
+     * Move to the next entry, unless already at an entry.
+     */
+    private void advance()
+    {
+      while (depth_ >= 0) {
+        Node node = nodes_[depth_];
+        int position = positions_[depth_];
+        int nEntries = node.getNEntries();
+
+        if (position < nEntries)
+          return;
+
+        int nodeIndex = position - nEntries;
+        if (nodeIndex < node.getNNodes()) {
+          positions_[depth_]++;
+          depth_++;
+          nodes_[depth_] = node.getNode(nodeIndex);
+          positions_[depth_] = 0;
+        }
+        else {
+          nodes_[depth_] = null;
+          depth_--;
+        }
+      }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext()
+    {
+      return depth_ >= 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next()
+    {
+      if (depth_ < 0)
+        throw new NoSuchElementException();
+
+      Node node = nodes_[depth_];
+      int position = positions_[depth_]++;
+      T element = (T) (isKeys_ ? node.getKey(position) : node.getValue(position));
+
+      advance();
+
+      return element;
+    }
+  }
+
+  /** Root of the trie. Non-null. */
+  private final Node root_;
+
+  /** Number of entries of this map. */
+  private final int size_;
+
+  /**
+   * Create a map of the specified trie.
+   *
+   * @param root  Root of trie. Non-null.
+   * @param size  Number of entries of the trie.
+   */
+  private PersistentMap(Node root, int size)
+  {
+    assert root != null : "root cannot be null";
+
+    root_ = root;
+    size_ = size;
+  }
+
+  /**
+   * Return the empty map.
+   *
+   * @return  The empty map. Never null.
+   */
+  @SuppressWarnings("unchecked")
+  static <K,V> PersistentMap<K,V> empty()
+  {
+    return (PersistentMap<K,V>) EMPTY;
+  }
+
+  /**
+   * Return the hash of the specified key, with the high bits
+   * spread into the low bits that pick the top level slots.
+   *
+   * @param key  Key to get hash of. Non-null.
+   * @return     Hash of key.
+   */
+  private static int hashOf(Object key)
+  {
+    int hash = key.hashCode();
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Return the bit of the slot of the specified hash at the given level.
+   *
+   * @param hash   Hash to get slot of.
+   * @param shift  Shift of level.
+   * @return       Bit of slot.
+   */
+  private static int getBit(int hash, int shift)
+  {
+    return 1 << ((hash >>> shift) & LEVEL_MASK);
+  }
+
+  /**
+   * Create a node of the two specified entries.
+   *
+   * @param key1    Key of first entry. Non-null.
+   * @param value1  Value of first entry. Non-null.
+   * @param hash1   Hash of first key.
+   * @param key2    Key of second entry. Non-null.
+   * @param value2  Value of second entry. Non-null.
+   * @param hash2   Hash of second key.
+   * @param shift   Shift of level of the node.
+   * @return        The new node. Never null.
+   */
+  private static Node createNode(Object key1, Object value1, int hash1,
+                                 Object key2, Object value2, int hash2, int shift)
+  {
+    if (shift > MAX_SHIFT)
+      return new CollisionNode(new Object[] {key1, value1, key2, value2});
+
+    int bit1 = getBit(hash1, shift);
+    int bit2 = getBit(hash2, shift);
+
+    if (bit1 == bit2)
+      return new BitmapNode(0, bit1, new Object[] {createNode(key1, value1, hash1, key2, value2, hash2, shift + BITS_PER_LEVEL)});
+
+    return Integer.compareUnsigned(bit1, bit2) < 0 ?
+      new BitmapNode(bit1 | bit2, 0, new Object[] {key1, value1, key2, value2}) :
+      new BitmapNode(bit1 | bit2, 0, new Object[] {key2, value2, key1, value1});
+  }
+
+  /**
+   * Return the value of the specified key.
+   *
+   * @param key  Key to get value of. Non-null.
+   * @return     The value of the key, or null if not present.
+   */
+  @SuppressWarnings("unchecked")
+  V get(Object key)
+  {
+    assert key != null : "key cannot be null";
+    return (V) root_.get(key, hashOf(key), 0);
+  }
+
+  /**
+   * Return a map with the specified mapping added to the mappings of this.
+   *
+   * @param key    Key to map. Non-null.
+   * @param value  Value to map to. Non-null.
+   * @return       The new map, or this if it already holds the mapping. Never null.
+   */
+  PersistentMap<K,V> put(K key, V value)
+  {
+    assert key != null : "key cannot be null";
+    assert value != null : "value cannot be null";
+
+    Change change = new Change();
+    Node root = root_.put(key, value, hashOf(key), 0, change);
+    return root != root_ ? new PersistentMap<>(root, size_ + change.sizeDelta) : this;
+  }
+
+  /**
+   * Return a map with the mappings of this except that of the specified key.
+   *
+   * @param key  Key to remove. Non-null.
+   * @return     The new map, or this if the key is not present. Never null.
+   */
+  PersistentMap<K,V> remove(Object key)
+  {
+    assert key != null : "key cannot be null";
+
+    Change change = new Change();
+    Node root = root_.remove(key, hashOf(key), 0, change);
+    return root != root_ ? new PersistentMap<>(root, size_ + change.sizeDelta) : this;
+  }
+
+  /**
+   * Return the number of entries of this map.
+   *
+   * @return  Number of entries of this map. [0,&gt;.
+   */
+  int size()
+  {
+    return size_;
+  }
+
+  /**
+   * Return an iterator over the keys of this map.
+   *
+   * @return  Iterator over the keys. Never null.
+   */
+  Iterator<K> keyIterator()
+  {
+    return new EntryIterator<>(root_, true);
+  }
+
+  /**
+   * Return an iterator over the values of this map.
+   *
+   * @return  Iterator over the values. Never null.
+   */
+  Iterator<V> valueIterator()
+  {
+    return new EntryIterator<>(root_, false);
+  }
+}
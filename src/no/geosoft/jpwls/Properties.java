@@ -14,6 +14,9 @@ public final class Properties
   /** All properties defined by the PWLS standard. */
   private final Set<Property> properties_ = new HashSet<>();
 
+  /** Content hash of this instance. Null if not yet computed. */
+  private volatile Long contentHash_;
+
   /**
    * Create an empty properties instance.
    */
@@ -22,6 +25,20 @@ public final class Properties
     // Nothing
   }
 
+  /**
+   * Create a properties instance holding the same properties as the specified one.
+   *
+   * @param properties  Instance to copy. Non-null.
+   * @throws IllegalArgumentException  If properties is null.
+   */
+  public Properties(Properties properties)
+  {
+    if (properties == null)
+      throw new IllegalArgumentException("properties cannot be null");
+
+    properties_.addAll(properties.properties_);
+  }
+
   /**
    * Add the specified property to this instance.
    *
@@ -33,9 +50,27 @@ public final class Properties
     if (property == null)
       throw new IllegalArgumentException("property cannot be null");
 
+    contentHash_ = null;
+
     properties_.add(property);
   }
 
+  /**
+   * Remove the specified property from this instance.
+   *
+   * @param property  Property to remove. Non-null.
+   * @throws IllegalArgumentException  If property is null.
+   */
+  public void remove(Property property)
+  {
+    if (property == null)
+      throw new IllegalArgumentException("property cannot be null");
+
+    contentHash_ = null;
+
+    properties_.remove(property);
+  }
+
   /**
    * Return all the propertries of this instance.
    *
@@ -46,6 +81,26 @@ public final class Properties
     return Collections.unmodifiableSet(properties_);
   }
 
+  /**
+   * Return the content hash of this instance, independent of the
+   * iteration order. The hash is computed on first call and cached
+   * until the instance is modified through {@link #add} or {@link #remove}.
+   * Parents are included by name, so they must be resolved first.
+   *
+   * @return  Content hash of this instance.
+   * @see ContentHash#toETag
+   */
+  public long getContentHash()
+  {
+    Long contentHash = contentHash_;
+    if (contentHash == null) {
+      contentHash = ContentHash.of(properties_, ContentHash::of);
+      contentHash_ = contentHash;
+    }
+
+    return contentHash;
+  }
+
   /**
    * Return property of the given name.
    *
@@ -9,16 +9,16 @@ package no.geosoft.jpwls;
 public final class Property
 {
   /** Property name. Non-null. */
-  private final String name_;
+  private final CharSequence name_;
 
   /** Property description. Non-null. */
-  private final String description_;
+  private final CharSequence description_;
 
   /** The quantity of this property. Non-null. */
-  private final String quantity_;
+  private final CharSequence quantity_;
 
   /** Property unique ID. Non-null. */
-  private final String guid_;
+  private final CharSequence guid_;
 
   /** Property sort order. */
   private final int sortOrder_;
@@ -29,6 +29,9 @@ public final class Property
   /** Parent property. */
   private Property parent_;
 
+  /** Content hash of this property. 0 if not yet computed. */
+  private volatile long contentHash_;
+
   /**
    * Create a new property instance.
    *
@@ -46,6 +49,35 @@ public final class Property
                   String guid,
                   int sortOrder,
                   boolean isAbstract)
+  {
+    this((CharSequence) name,
+         (CharSequence) description,
+         (CharSequence) quantity,
+         (CharSequence) guid,
+         sortOrder,
+         isAbstract);
+  }
+
+  /**
+   * Create a new property instance.
+   * <p>
+   * Any character sequence is accepted as text, including the
+   * lazily decoded {@link no.geosoft.jpwls.util.Utf8Text}.
+   *
+   * @param name         Property name. Non-null.
+   * @param description  Property description. Non-null.
+   * @param quantity     The quantity of this property. Non-null.
+   * @param guid         Property unique ID. Non-null.
+   * @param sortOrder    Property sort order.
+   * @param isAbstract   Abstract specifier.
+   * @throws IllegalArgumentException  If name, description, quentity or guid is null.
+   */
+  public Property(CharSequence name,
+                  CharSequence description,
+                  CharSequence quantity,
+                  CharSequence guid,
+                  int sortOrder,
+                  boolean isAbstract)
   {
     if (name == null)
       throw new IllegalArgumentException("name cannot be null");
@@ -74,7 +106,7 @@ public final class Property
    */
   public String getName()
   {
-    return name_;
+    return name_.toString();
   }
 
   /**
@@ -83,6 +115,16 @@ public final class Property
    * @return  Property description. Never null.
    */
   public String getDescription()
+  {
+    return description_.toString();
+  }
+
+  /**
+   * Return the description of this property as stored, without decoding it.
+   *
+   * @return  The stored description of this property. Never null.
+   */
+  CharSequence getDescriptionText()
   {
     return description_;
   }
@@ -94,7 +136,7 @@ public final class Property
    */
   public String getQuantity()
   {
-    return quantity_;
+    return quantity_.toString();
   }
 
   /**
@@ -104,7 +146,7 @@ public final class Property
    */
   public String getGuid()
   {
-    return guid_;
+    return guid_.toString();
   }
 
   /**
@@ -119,6 +161,7 @@ public final class Property
       throw new IllegalArgumentException("parent cannot be null");
 
     parent_ = parent;
+    contentHash_ = 0L;
   }
 
   /**
@@ -151,6 +194,23 @@ public final class Property
     return isAbstract_;
   }
 
+  /**
+   * Return the content hash of this property, computing it on first call.
+   *
+   * @return  Content hash of this property.
+   * @see ContentHash#of(Property)
+   */
+  long getContentHash()
+  {
+    long contentHash = contentHash_;
+    if (contentHash == 0L) {
+      contentHash = ContentHash.compute(this);
+      contentHash_ = contentHash;
+    }
+
+    return contentHash;
+  }
+
   /** {@inheritDoc} */
   @Override
   public String toString()
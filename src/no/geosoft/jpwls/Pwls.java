@@ -1,18 +1,30 @@
 package no.geosoft.jpwls;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.nio.file.Path;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import no.geosoft.jpwls.json.JsonReader;
+import no.geosoft.jpwls.snapshot.SnapshotReader;
+import no.geosoft.jpwls.source.DirectorySource;
+import no.geosoft.jpwls.source.HttpSource;
+import no.geosoft.jpwls.source.PwlsSource;
+import no.geosoft.jpwls.util.HttpFetcher;
 
 /**
  * The PWLS model.
@@ -22,128 +34,353 @@ import no.geosoft.jpwls.json.JsonReader;
 public final class Pwls
 {
   /** The logger instance. */
-  private final Logger logger_ = Logger.getLogger(Pwls.class.getName());
+  private static final Logger logger_ = Logger.getLogger(Pwls.class.getName());
+
+  /** Number of JSON resources that makes up the PWLS model. */
+  private static final int N_RESOURCES = 7;
+
+  /**
+   * Default executor for loading the PWLS resources. Bounded to one thread
+   * per resource. Threads are daemons and are created on demand only.
+   */
+  private static final ExecutorService loadExecutor_ = Executors.newFixedThreadPool(N_RESOURCES, runnable -> {
+      Thread thread = new Thread(runnable, "jpwls-loader");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+  /**
+   * Executor for parsing chunks of the large curves and tools resources
+   * concurrently. This is CPU bound work, so the common pool sized by the
+   * number of cores is used rather than the load executor.
+   */
+  private static final Executor parseExecutor_ = ForkJoinPool.commonPool();
+
+  /** Fetcher used for URL based loads when no other is specified. No caching. */
+  private static final HttpFetcher httpFetcher_ = new HttpFetcher();
+
+  /**
+   * An entity set that is loaded on first access, exactly once.
+   * If the load fails, a warning is logged and the fallback is used,
+   * the same way as for a failing resource in an eager load.
+   *
+   * @param <T>  Type of entity set.
+   */
+  private static final class Lazy<T>
+  {
+    /** Name of what is loaded, for logging. Non-null. */
+    private final String what_;
+
+    /** Location loaded from, for logging. Null if already loaded. */
+    private final Object location_;
+
+    /** The load operation. Null when loaded. */
+    private Callable<T> loader_;
+
+    /** Value to use if the load fails. Null when loaded. */
+    private Supplier<T> fallback_;
+
+    /** The loaded value. Null until loaded. */
+    private volatile T value_;
+
+    /**
+     * Create a holder of an already loaded value.
+     *
+     * @param value  The value. Non-null.
+     */
+    Lazy(T value)
+    {
+      assert value != null : "value cannot be null";
+
+      what_ = "";
+      location_ = null;
+      value_ = value;
+    }
+
+    /**
+     * Create a holder that loads its value on first access.
+     *
+     * @param loader    Load operation. Non-null.
+     * @param fallback  Value to use if the load fails. Non-null.
+     * @param what      Name of what is loaded, for logging. Non-null.
+     * @param location  Location loaded from, for logging. Non-null.
+     */
+    Lazy(Callable<T> loader, Supplier<T> fallback, String what, Object location)
+    {
+      assert loader != null : "loader cannot be null";
+      assert fallback != null : "fallback cannot be null";
+      assert what != null : "what cannot be null";
+      assert location != null : "location cannot be null";
+
+      loader_ = loader;
+      fallback_ = fallback;
+      what_ = what;
+      location_ = location;
+    }
+
+    /**
+     * Check if the value of this holder has been loaded.
+     *
+     * @return  True if loaded, false otherwise.
+     */
+    boolean isLoaded()
+    {
+      return value_ != null;
+    }
+
+    /**
+     * Return the value of this holder, loading it if necessary.
+     * Concurrent callers block until the single load completes.
+     *
+     * @return  The value. Never null.
+     */
+    T get()
+    {
+      T value = value_;
+      if (value != null)
+        return value;
+
+      synchronized (this) {
+        if (value_ == null) {
+          try {
+            value_ = loader_.call();
+          }
+          catch (IOException exception) {
+            logger_.log(Level.WARNING, "Unable to read " + what_ + ". Continue without: " + location_, exception);
+            value_ = fallback_.get();
+          }
+          catch (RuntimeException exception) {
+            throw exception;
+          }
+          catch (Exception exception) {
+            throw new IllegalStateException(exception);
+          }
+
+          loader_ = null;
+          fallback_ = null;
+        }
+
+        return value_;
+      }
+    }
+  }
 
   /** PWLS properties. */
-  private final Properties properties_;
+  private final Lazy<Properties> properties_;
 
   /** PWLS companies. */
-  private final Companies companies_;
+  private final Lazy<Companies> companies_;
 
   /** PWLS logging methods. */
-  private final LoggingMethods loggingMethods_;
+  private final Lazy<LoggingMethods> loggingMethods_;
 
   /** PWLS tool classes. */
-  private final ToolClasses toolClasses_;
+  private final Lazy<ToolClasses> toolClasses_;
 
-  /** PWLS tools. */
-  private final Tools tools_;
+  /** PWLS tools. Loading these loads the curves as well. */
+  private final Lazy<Tools> tools_;
 
   /** PWLS curves. */
-  private final Curves curves_;
+  private final Lazy<Curves> curves_;
+
+  /** Issues found in the data when loading this model. Non-null. */
+  private final LoadReport loadReport_;
 
   /**
-   * Initialize the PWLS model from the specified base URL, typically
-   * the GitHub location of the JSON files that makes up the standard.
+   * Create a PWLS model of the specified (fully loaded) entity sets.
    *
-   * @param baseUrl  Base URL to initialize from. Non-null.
-   * @throws IllegalArgumentException  If baseUrl is null.
+   * @param properties      Properties of the model. Non-null.
+   * @param companies       Companies of the model. Non-null.
+   * @param loggingMethods  Logging methods of the model. Non-null.
+   * @param toolClasses     Tool classes of the model. Non-null.
+   * @param tools           Tools of the model, with curves associated. Non-null.
+   * @param curves          Curves of the model. Non-null.
+   * @param loadReport      Issues found when loading the entity sets. Non-null.
+   * @throws IllegalArgumentException  If any of the arguments is null.
    */
-  public Pwls(String baseUrl)
+  public Pwls(Properties properties,
+              Companies companies,
+              LoggingMethods loggingMethods,
+              ToolClasses toolClasses,
+              Tools tools,
+              Curves curves,
+              LoadReport loadReport)
   {
-    if (baseUrl == null)
-      throw new IllegalArgumentException("baseUrl cannot be null");
+    if (properties == null)
+      throw new IllegalArgumentException("properties cannot be null");
 
-    String url = null;
+    if (companies == null)
+      throw new IllegalArgumentException("companies cannot be null");
 
-    //
-    // Properties
-    //
-    Properties properties = new Properties();
-    try {
-      url = baseUrl + "/properties.json";
-      properties = readProperties(url);
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read properties. Continue without: " + url, exception);
-    }
-    properties_ = properties;
+    if (loggingMethods == null)
+      throw new IllegalArgumentException("loggingMethods cannot be null");
 
-    //
-    // Companies
-    //
-    Companies companies = new Companies();
-    try {
-      url = baseUrl + "/companies.json";
-      companies = readCompanies(url);
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read companies. Continue without: " + url, exception);
-    }
-    companies_ = companies;
+    if (toolClasses == null)
+      throw new IllegalArgumentException("toolClasses cannot be null");
 
-    //
-    // Logging methods
-    //
-    LoggingMethods loggingMethods = new LoggingMethods();
-    try {
-      url = baseUrl + "/loggingMethods.json";
-      loggingMethods = readLoggingMethods(url);
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read logging methods. Continue without: " + url, exception);
-    }
-    loggingMethods_ = loggingMethods;
+    if (tools == null)
+      throw new IllegalArgumentException("tools cannot be null");
 
-    //
-    // Tool classes
-    //
-    ToolClasses toolClasses = new ToolClasses();
-    try {
-      url = baseUrl + "/toolClasses.json";
-      toolClasses = readToolClasses(url);
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read tool classes. Continue without: " + url, exception);
-    }
-    toolClasses_ = toolClasses;
+    if (curves == null)
+      throw new IllegalArgumentException("curves cannot be null");
 
-    //
-    // Tools
-    //
-    Tools tools = new Tools();
-    try {
-      url = baseUrl + "/tools.json";
-      tools = readTools(url);
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read tools. Continue without: " + url, exception);
-    }
-    tools_ = tools;
+    if (loadReport == null)
+      throw new IllegalArgumentException("loadReport cannot be null");
 
-    //
-    // Curves
-    //
-    Curves curves = new Curves();
-    try {
-      url = baseUrl + "/curves.json";
-      curves = readCurves(url);
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read curves. Continue without: " + url, exception);
-    }
+    properties_ = new Lazy<>(properties);
+    companies_ = new Lazy<>(companies);
+    loggingMethods_ = new Lazy<>(loggingMethods);
+    toolClasses_ = new Lazy<>(toolClasses);
+    tools_ = new Lazy<>(tools);
+    curves_ = new Lazy<>(curves);
+    loadReport_ = loadReport;
+  }
+
+  /**
+   * Create a PWLS model of the specified (fully loaded) entity sets.
+   *
+   * @param properties      Properties of the model. Non-null.
+   * @param companies       Companies of the model. Non-null.
+   * @param loggingMethods  Logging methods of the model. Non-null.
+   * @param toolClasses     Tool classes of the model. Non-null.
+   * @param tools           Tools of the model, with curves associated. Non-null.
+   * @param curves          Curves of the model. Non-null.
+   * @throws IllegalArgumentException  If any of the arguments is null.
+   */
+  public Pwls(Properties properties,
+              Companies companies,
+              LoggingMethods loggingMethods,
+              ToolClasses toolClasses,
+              Tools tools,
+              Curves curves)
+  {
+    this(properties, companies, loggingMethods, toolClasses, tools, curves, new LoadReport());
+  }
+
+  /**
+   * Create a PWLS model of the specified, possibly not yet loaded, entity sets.
+   *
+   * @param properties      Properties of the model. Non-null.
+   * @param companies       Companies of the model. Non-null.
+   * @param loggingMethods  Logging methods of the model. Non-null.
+   * @param toolClasses     Tool classes of the model. Non-null.
+   * @param tools           Tools of the model, linking curves when loaded. Non-null.
+   * @param curves          Curves of the model. Non-null.
+   * @param loadReport      Report the loading entity sets add issues to. Non-null.
+   */
+  private Pwls(Lazy<Properties> properties,
+               Lazy<Companies> companies,
+               Lazy<LoggingMethods> loggingMethods,
+               Lazy<ToolClasses> toolClasses,
+               Lazy<Tools> tools,
+               Lazy<Curves> curves,
+               LoadReport loadReport)
+  {
+    assert properties != null : "properties cannot be null";
+    assert companies != null : "companies cannot be null";
+    assert loggingMethods != null : "loggingMethods cannot be null";
+    assert toolClasses != null : "toolClasses cannot be null";
+    assert tools != null : "tools cannot be null";
+    assert curves != null : "curves cannot be null";
+    assert loadReport != null : "loadReport cannot be null";
+
+    properties_ = properties;
+    companies_ = companies;
+    loggingMethods_ = loggingMethods;
+    toolClasses_ = toolClasses;
+    tools_ = tools;
     curves_ = curves;
+    loadReport_ = loadReport;
+  }
 
-    //
-    // Curves by tool
-    //
-    try {
-      url = baseUrl + "/curvesByTool.json";
-      readCurvesByTool(url, tools_, curves_);
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read curves by tool. Continue without: " + url, exception);
-    }
+  /**
+   * Create a PWLS model sharing the entity sets of the specified one.
+   *
+   * @param pwls  PWLS model to share entities with. Non-null.
+   */
+  private Pwls(Pwls pwls)
+  {
+    this(pwls.properties_,
+         pwls.companies_,
+         pwls.loggingMethods_,
+         pwls.toolClasses_,
+         pwls.tools_,
+         pwls.curves_,
+         pwls.loadReport_);
+  }
+
+  /**
+   * Initialize the PWLS model from the specified source.
+   * <p>
+   * The resources are read and parsed concurrently. The constructor
+   * returns when the model is complete.
+   *
+   * @param source   Source of the PWLS resources. Non-null.
+   * @param options  Options restricting what is loaded. Non-null.
+   * @throws IllegalArgumentException  If source or options is null.
+   */
+  public Pwls(PwlsSource source, LoadOptions options)
+  {
+    this(join(loadAsync(source, options, loadExecutor_)));
+  }
+
+  /**
+   * Initialize the complete PWLS model from the specified source.
+   *
+   * @param source  Source of the PWLS resources. Non-null.
+   * @throws IllegalArgumentException  If source is null.
+   * @see #Pwls(PwlsSource,LoadOptions)
+   */
+  public Pwls(PwlsSource source)
+  {
+    this(source, LoadOptions.ALL);
+  }
+
+  /**
+   * Initialize the PWLS model from the specified base URL, typically
+   * the GitHub location of the JSON files that makes up the standard.
+   * <p>
+   * The resources are fetched and parsed concurrently. The constructor
+   * returns when the model is complete.
+   *
+   * @param baseUrl  Base URL to initialize from. Non-null.
+   * @throws IllegalArgumentException  If baseUrl is null.
+   */
+  public Pwls(String baseUrl)
+  {
+    this(new HttpSource(baseUrl, httpFetcher_));
+  }
+
+  /**
+   * Initialize the PWLS model from the specified base URL, fetching the
+   * resources through the given fetcher.
+   * <p>
+   * Use a fetcher with a cache folder to make restarts cost one conditional
+   * round trip per resource rather than full downloads.
+   *
+   * @param baseUrl  Base URL to initialize from. Non-null.
+   * @param fetcher  Fetcher to fetch the resources with. Non-null.
+   * @throws IllegalArgumentException  If baseUrl or fetcher is null.
+   */
+  public Pwls(String baseUrl, HttpFetcher fetcher)
+  {
+    this(new HttpSource(baseUrl, fetcher));
+  }
+
+  /**
+   * Initialize a possibly partial PWLS model from the specified base URL.
+   * <p>
+   * Records of companies and fields excluded by the options are skipped
+   * while parsing and never allocated.
+   *
+   * @param baseUrl  Base URL to initialize from. Non-null.
+   * @param fetcher  Fetcher to fetch the resources with. Non-null.
+   * @param options  Options restricting what is loaded. Non-null.
+   * @throws IllegalArgumentException  If baseUrl, fetcher or options is null.
+   */
+  public Pwls(String baseUrl, HttpFetcher fetcher, LoadOptions options)
+  {
+    this(new HttpSource(baseUrl, fetcher), options);
   }
 
   /**
@@ -158,101 +395,625 @@ public final class Pwls
    */
   public Pwls(File folder)
   {
-    if (folder == null)
-      throw new IllegalArgumentException("folder cannot be null");
+    this(new DirectorySource(folder));
+  }
 
-    File file = null;
+  /**
+   * Initialize a possibly partial PWLS model from the specified folder.
+   *
+   * @param folder   Folder of JSON files to initialize from. Non-null.
+   * @param options  Options restricting what is loaded. Non-null.
+   * @throws IllegalArgumentException  If folder or options is null.
+   * @see #Pwls(String,HttpFetcher,LoadOptions)
+   */
+  public Pwls(File folder, LoadOptions options)
+  {
+    this(new DirectorySource(folder), options);
+  }
 
-    //
-    // Properties
-    //
-    Properties properties = new Properties();
-    try {
-      file = new File(folder, "properties.json");
-      properties = readProperties(file);
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read properties. Continue without: " + file, exception);
-    }
-    properties_ = properties;
+  /**
+   * Initialize the PWLS model from the specified binary snapshot file,
+   * as written by {@link no.geosoft.jpwls.snapshot.SnapshotWriter}.
+   * <p>
+   * This is the fastest way to start: The snapshot is read in one sequential
+   * operation with no JSON parsing or re-linking of tools and curves.
+   *
+   * @param snapshot  Snapshot file to initialize from. Non-null.
+   * @throws IllegalArgumentException  If snapshot is null.
+   * @throws IOException  If the snapshot cannot be read, or is stale or corrupt.
+   */
+  public Pwls(Path snapshot)
+    throws IOException
+  {
+    this(snapshot, false);
+  }
 
-    //
-    // Companies
-    //
-    Companies companies = new Companies();
-    try {
-      file = new File(folder, "companies.json");
-      companies= readCompanies(file);
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read companies. Continue without: " + file, exception);
-    }
-    companies_ = companies;
+  /**
+   * Initialize the PWLS model from the specified binary snapshot file,
+   * optionally memory mapping it.
+   * <p>
+   * When memory mapped, the text of curves, tools and properties stays in the
+   * mapped file and is decoded on access, so the text is shared through the
+   * page cache between processes mapping the same file. The entities and
+   * lookup indexes are still on the heap, see
+   * {@link no.geosoft.jpwls.snapshot.SnapshotReader#map(Path)}. Getters decode
+   * text on every access, so this mode trades some CPU for memory.
+   *
+   * @param snapshot        Snapshot file to initialize from. Non-null.
+   * @param isMemoryMapped  True to memory map the snapshot, false to read it
+   *                        fully into memory.
+   * @throws IllegalArgumentException  If snapshot is null.
+   * @throws IOException  If the snapshot cannot be read, or is stale or corrupt.
+   */
+  public Pwls(Path snapshot, boolean isMemoryMapped)
+    throws IOException
+  {
+    this(isMemoryMapped ? SnapshotReader.map(snapshot) : SnapshotReader.read(snapshot));
+  }
 
-    //
-    // Logging methods
-    //
-    LoggingMethods loggingMethods = new LoggingMethods();
-    try {
-      file = new File(folder, "loggingMethods.json");
-      loggingMethods = readLoggingMethods(file);
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read logging methods. Continue without: " + file, exception);
-    }
-    loggingMethods_ = loggingMethods;
+  /**
+   * Load the PWLS model asynchronously from the specified source.
+   * <p>
+   * The six independent resources are read and parsed concurrently
+   * on the given executor. The curves by tool mapping is read
+   * concurrently as well, and linked as soon as tools and curves
+   * are ready.
+   *
+   * @param source    Source of the PWLS resources. Non-null.
+   * @param options   Options restricting what is loaded. Non-null.
+   * @param executor  Executor to load on. Non-null.
+   * @return          Future of the loaded model. Never null.
+   * @throws IllegalArgumentException  If source, options or executor is null.
+   */
+  public static CompletableFuture<Pwls> loadAsync(PwlsSource source, LoadOptions options, Executor executor)
+  {
+    if (source == null)
+      throw new IllegalArgumentException("source cannot be null");
+
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
+
+    if (executor == null)
+      throw new IllegalArgumentException("executor cannot be null");
+
+    LoadReport report = new LoadReport();
+
+    return load(readAsync(() -> readProperties(source, options, report), Properties::new, "properties", source.getLocation(PwlsSource.PROPERTIES), executor),
+                readAsync(() -> readCompanies(source, options, report), Companies::new, "companies", source.getLocation(PwlsSource.COMPANIES), executor),
+                readAsync(() -> readLoggingMethods(source, options, report), LoggingMethods::new, "logging methods", source.getLocation(PwlsSource.LOGGING_METHODS), executor),
+                readAsync(() -> readToolClasses(source, options, report), ToolClasses::new, "tool classes", source.getLocation(PwlsSource.TOOL_CLASSES), executor),
+                readAsync(() -> readTools(source, options, report), Tools::new, "tools", source.getLocation(PwlsSource.TOOLS), executor),
+                readAsync(() -> readCurves(source, options, report), Curves::new, "curves", source.getLocation(PwlsSource.CURVES), executor),
+                readAsync(() -> readCurvesByTool(source), () -> null, "curves by tool", source.getLocation(PwlsSource.CURVES_BY_TOOL), executor),
+                options,
+                report,
+                executor);
+  }
 
-    //
-    // Tool classes
-    //
-    ToolClasses toolClasses = new ToolClasses();
-    try {
-      file = new File(folder, "toolClasses.json");
-      toolClasses = readToolClasses(file);
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read tool classes. Continue without: " + file, exception);
-    }
-    toolClasses_ = toolClasses;
+  /**
+   * Load the complete PWLS model asynchronously from the specified source
+   * using the default loader executor.
+   *
+   * @param source  Source of the PWLS resources. Non-null.
+   * @return        Future of the loaded model. Never null.
+   * @throws IllegalArgumentException  If source is null.
+   * @see #loadAsync(PwlsSource,LoadOptions,Executor)
+   */
+  public static CompletableFuture<Pwls> loadAsync(PwlsSource source)
+  {
+    return loadAsync(source, LoadOptions.ALL, loadExecutor_);
+  }
 
-    //
-    // Tools
-    //
-    Tools tools = new Tools();
-    try {
-      file = new File(folder, "tools.json");
-      tools = readTools(file);
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read tools. Continue without: " + file, exception);
-    }
-    tools_ = tools;
+  /**
+   * Load the PWLS model asynchronously from the specified base URL.
+   *
+   * @param baseUrl   Base URL to load from. Non-null.
+   * @param fetcher   Fetcher to fetch the resources with. Non-null.
+   * @param options   Options restricting what is loaded. Non-null.
+   * @param executor  Executor to load on. Non-null.
+   * @return          Future of the loaded model. Never null.
+   * @throws IllegalArgumentException  If baseUrl, fetcher, options or executor is null.
+   * @see #loadAsync(PwlsSource,LoadOptions,Executor)
+   */
+  public static CompletableFuture<Pwls> loadAsync(String baseUrl, HttpFetcher fetcher, LoadOptions options, Executor executor)
+  {
+    return loadAsync(new HttpSource(baseUrl, fetcher), options, executor);
+  }
+
+  /**
+   * Load the complete PWLS model asynchronously from the specified base URL.
+   *
+   * @param baseUrl   Base URL to load from. Non-null.
+   * @param fetcher   Fetcher to fetch the resources with. Non-null.
+   * @param executor  Executor to load on. Non-null.
+   * @return          Future of the loaded model. Never null.
+   * @throws IllegalArgumentException  If baseUrl, fetcher or executor is null.
+   * @see #loadAsync(PwlsSource,LoadOptions,Executor)
+   */
+  public static CompletableFuture<Pwls> loadAsync(String baseUrl, HttpFetcher fetcher, Executor executor)
+  {
+    return loadAsync(baseUrl, fetcher, LoadOptions.ALL, executor);
+  }
+
+  /**
+   * Load the PWLS model asynchronously from the specified base URL
+   * without caching.
+   *
+   * @param baseUrl   Base URL to load from. Non-null.
+   * @param executor  Executor to load on. Non-null.
+   * @return          Future of the loaded model. Never null.
+   * @throws IllegalArgumentException  If baseUrl or executor is null.
+   */
+  public static CompletableFuture<Pwls> loadAsync(String baseUrl, Executor executor)
+  {
+    return loadAsync(baseUrl, httpFetcher_, executor);
+  }
+
+  /**
+   * Load the PWLS model asynchronously from the specified base URL
+   * without caching, using the default loader executor.
+   *
+   * @param baseUrl  Base URL to load from. Non-null.
+   * @return         Future of the loaded model. Never null.
+   * @throws IllegalArgumentException  If baseUrl is null.
+   */
+  public static CompletableFuture<Pwls> loadAsync(String baseUrl)
+  {
+    return loadAsync(baseUrl, httpFetcher_, loadExecutor_);
+  }
+
+  /**
+   * Load the PWLS model asynchronously from the specified folder.
+   *
+   * @param folder    Folder of JSON files to load from. Non-null.
+   * @param options   Options restricting what is loaded. Non-null.
+   * @param executor  Executor to load on. Non-null.
+   * @return          Future of the loaded model. Never null.
+   * @throws IllegalArgumentException  If folder, options or executor is null.
+   */
+  public static CompletableFuture<Pwls> loadAsync(File folder, LoadOptions options, Executor executor)
+  {
+    return loadAsync(new DirectorySource(folder), options, executor);
+  }
+
+  /**
+   * Load the complete PWLS model asynchronously from the specified folder.
+   *
+   * @param folder    Folder of JSON files to load from. Non-null.
+   * @param executor  Executor to load on. Non-null.
+   * @return          Future of the loaded model. Never null.
+   * @throws IllegalArgumentException  If folder or executor is null.
+   */
+  public static CompletableFuture<Pwls> loadAsync(File folder, Executor executor)
+  {
+    return loadAsync(folder, LoadOptions.ALL, executor);
+  }
+
+  /**
+   * Load the PWLS model asynchronously from the specified folder
+   * using the default loader executor.
+   *
+   * @param folder  Folder of JSON files to load from. Non-null.
+   * @return        Future of the loaded model. Never null.
+   * @throws IllegalArgumentException  If folder is null.
+   */
+  public static CompletableFuture<Pwls> loadAsync(File folder)
+  {
+    return loadAsync(folder, loadExecutor_);
+  }
+
+  /**
+   * Create a PWLS model of the specified source where each entity set
+   * is read, parsed and indexed on first access only.
+   * <p>
+   * This suits consumers that use only a few of the entity sets, such
+   * as companies and properties, as the large tools and curves resources
+   * are then never read. Accessing the tools loads the curves as well
+   * since the two are linked. Use {@link #warmUp} to load everything up front.
+   *
+   * @param source   Source of the PWLS resources. Non-null.
+   * @param options  Options restricting what is loaded. Non-null.
+   * @return         The lazily loaded model. Never null.
+   * @throws IllegalArgumentException  If source or options is null.
+   */
+  public static Pwls lazy(PwlsSource source, LoadOptions options)
+  {
+    if (source == null)
+      throw new IllegalArgumentException("source cannot be null");
+
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
+
+    // Each set reports its own issues as it is loaded, and adds them to the model report
+    LoadReport report = new LoadReport();
+
+    Lazy<Curves> curves = new Lazy<>(() -> read("curves", report, r -> readCurves(source, options, r)), Curves::new, "curves", source.getLocation(PwlsSource.CURVES));
+
+    return new Pwls(new Lazy<>(() -> read("properties", report, r -> readProperties(source, options, r)), Properties::new, "properties", source.getLocation(PwlsSource.PROPERTIES)),
+                    new Lazy<>(() -> read("companies", report, r -> readCompanies(source, options, r)), Companies::new, "companies", source.getLocation(PwlsSource.COMPANIES)),
+                    new Lazy<>(() -> read("logging methods", report, r -> readLoggingMethods(source, options, r)), LoggingMethods::new, "logging methods", source.getLocation(PwlsSource.LOGGING_METHODS)),
+                    new Lazy<>(() -> read("tool classes", report, r -> readToolClasses(source, options, r)), ToolClasses::new, "tool classes", source.getLocation(PwlsSource.TOOL_CLASSES)),
+                    new Lazy<>(() -> link(read("tools", report, r -> readTools(source, options, r)), curves, () -> readCurvesByTool(source), source.getLocation(PwlsSource.CURVES_BY_TOOL), options, report), Tools::new, "tools", source.getLocation(PwlsSource.TOOLS)),
+                    curves,
+                    report);
+  }
+
+  /**
+   * Create a complete PWLS model of the specified source where each
+   * entity set is read on first access only.
+   *
+   * @param source  Source of the PWLS resources. Non-null.
+   * @return        The lazily loaded model. Never null.
+   * @throws IllegalArgumentException  If source is null.
+   * @see #lazy(PwlsSource,LoadOptions)
+   */
+  public static Pwls lazy(PwlsSource source)
+  {
+    return lazy(source, LoadOptions.ALL);
+  }
+
+  /**
+   * Create a PWLS model from the specified base URL where each entity set
+   * is fetched on first access only.
+   *
+   * @param baseUrl  Base URL to load from. Non-null.
+   * @param fetcher  Fetcher to fetch the resources with. Non-null.
+   * @param options  Options restricting what is loaded. Non-null.
+   * @return         The lazily loaded model. Never null.
+   * @throws IllegalArgumentException  If baseUrl, fetcher or options is null.
+   * @see #lazy(PwlsSource,LoadOptions)
+   */
+  public static Pwls lazy(String baseUrl, HttpFetcher fetcher, LoadOptions options)
+  {
+    return lazy(new HttpSource(baseUrl, fetcher), options);
+  }
+
+  /**
+   * Create a complete PWLS model from the specified base URL where each
+   * entity set is fetched on first access only.
+   *
+   * @param baseUrl  Base URL to load from. Non-null.
+   * @param fetcher  Fetcher to fetch the resources with. Non-null.
+   * @return         The lazily loaded model. Never null.
+   * @throws IllegalArgumentException  If baseUrl or fetcher is null.
+   * @see #lazy(PwlsSource,LoadOptions)
+   */
+  public static Pwls lazy(String baseUrl, HttpFetcher fetcher)
+  {
+    return lazy(baseUrl, fetcher, LoadOptions.ALL);
+  }
+
+  /**
+   * Create a PWLS model from the specified base URL where each entity set
+   * is fetched on first access only, without caching.
+   *
+   * @param baseUrl  Base URL to load from. Non-null.
+   * @return         The lazily loaded model. Never null.
+   * @throws IllegalArgumentException  If baseUrl is null.
+   * @see #lazy(PwlsSource,LoadOptions)
+   */
+  public static Pwls lazy(String baseUrl)
+  {
+    return lazy(baseUrl, httpFetcher_);
+  }
+
+  /**
+   * Create a PWLS model from the specified folder where each entity set
+   * is read, parsed and indexed on first access only.
+   *
+   * @param folder   Folder of JSON files to load from. Non-null.
+   * @param options  Options restricting what is loaded. Non-null.
+   * @return         The lazily loaded model. Never null.
+   * @throws IllegalArgumentException  If folder or options is null.
+   * @see #lazy(PwlsSource,LoadOptions)
+   */
+  public static Pwls lazy(File folder, LoadOptions options)
+  {
+    return lazy(new DirectorySource(folder), options);
+  }
+
+  /**
+   * Create a complete PWLS model from the specified folder where each
+   * entity set is read on first access only.
+   *
+   * @param folder  Folder of JSON files to load from. Non-null.
+   * @return        The lazily loaded model. Never null.
+   * @throws IllegalArgumentException  If folder is null.
+   * @see #lazy(PwlsSource,LoadOptions)
+   */
+  public static Pwls lazy(File folder)
+  {
+    return lazy(folder, LoadOptions.ALL);
+  }
+
+  /**
+   * Link the specified tools with their curves as given by the
+   * curves by tool content. If the content cannot be read, a warning
+   * is logged and the tools are left without curves.
+   *
+   * @param tools     Tools to link. Non-null.
+   * @param curves    Curves to link with, loaded as needed. Non-null.
+   * @param content   Reader of the curves by tool JSON content. Non-null.
+   * @param location  Location of the content, for logging. Non-null.
+   * @param options   Options restricting what is linked. Non-null.
+   * @param report    Report to add the issues of the linking to. Non-null.
+   * @return          The tools. Never null.
+   * @throws Exception  If the linking fails for some other reason.
+   */
+  private static Tools link(Tools tools, Lazy<Curves> curves, Callable<byte[]> content, Object location,
+                            LoadOptions options, LoadReport report)
+    throws Exception
+  {
+    assert tools != null : "tools cannot be null";
+    assert curves != null : "curves cannot be null";
+    assert content != null : "content cannot be null";
+    assert location != null : "location cannot be null";
 
-    //
-    // Curves
-    //
-    Curves curves = new Curves();
+    byte[] curvesByTool;
     try {
-      file = new File(folder, "curves.json");
-      curves = readCurves(file);
+      curvesByTool = content.call();
     }
     catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read curves. Continue without: " + file, exception);
+      logger_.log(Level.WARNING, "Unable to read curves by tool. Continue without: " + location, exception);
+      return tools;
     }
-    curves_ = curves;
 
-    //
-    // Curves by tool
-    //
+    LoadReport linkReport = new LoadReport();
+    JsonReader.readCurvesByTool(new ByteArrayInputStream(curvesByTool), tools, curves.get(), options, linkReport);
+    linkReport.log("curves by tool");
+    report.add(linkReport);
+
+    return tools;
+  }
+
+  /**
+   * Load all entity sets of this model that are not yet loaded,
+   * concurrently on the loader threads, and wait for them to complete.
+   * This is a no-op for an eagerly loaded model.
+   *
+   * @return  This model. Never null.
+   */
+  public Pwls warmUp()
+  {
+    CompletableFuture.allOf(CompletableFuture.runAsync(properties_::get, loadExecutor_),
+                            CompletableFuture.runAsync(companies_::get, loadExecutor_),
+                            CompletableFuture.runAsync(loggingMethods_::get, loadExecutor_),
+                            CompletableFuture.runAsync(toolClasses_::get, loadExecutor_),
+                            CompletableFuture.runAsync(curves_::get, loadExecutor_),
+                            CompletableFuture.runAsync(tools_::get, loadExecutor_)).join();
+    return this;
+  }
+
+  /**
+   * Return the issues found in the data when loading this model, like
+   * associations of unknown tools or curves and properties with missing
+   * parents. For a lazily loaded model the report covers the entity sets
+   * loaded so far.
+   *
+   * @return  The load report of this model. Never null.
+   */
+  public LoadReport getLoadReport()
+  {
+    return loadReport_;
+  }
+
+  /**
+   * Return the content hash of this model, combining the content hashes
+   * of its entity sets and the curves by tool mapping. Two models of the
+   * same content have the same hash regardless of how they are loaded
+   * or stored, so the hash is suitable as HTTP entity tag and cache key
+   * and for checking if anything has changed.
+   * <p>
+   * The set hashes are computed once and cached, so apart from the first
+   * call this is a constant time operation. The hash is computed as part
+   * of the load of eagerly loaded models. For a lazily loaded model the
+   * first call loads it completely.
+   *
+   * @return  Content hash of this model.
+   * @see ContentHash#toETag
+   */
+  public long getContentHash()
+  {
+    return new ContentHash()
+      .add(properties_.get().getContentHash())
+      .add(companies_.get().getContentHash())
+      .add(loggingMethods_.get().getContentHash())
+      .add(toolClasses_.get().getContentHash())
+      .add(tools_.get().getContentHash())
+      .add(curves_.get().getContentHash())
+      .getValue();
+  }
+
+  /**
+   * Check if all the entity sets of this model are loaded.
+   *
+   * @return  True if the model is completely loaded, false otherwise.
+   */
+  public boolean isLoaded()
+  {
+    return properties_.isLoaded() &&
+           companies_.isLoaded() &&
+           loggingMethods_.isLoaded() &&
+           toolClasses_.isLoaded() &&
+           tools_.isLoaded() &&
+           curves_.isLoaded();
+  }
+
+  /**
+   * Run the specified read operation asynchronously. If the read fails,
+   * a warning is logged and the fallback value is used instead, so that
+   * a missing resource doesn't prevent the rest of the model from loading.
+   *
+   * @param reader    Read operation. Non-null.
+   * @param fallback  Value to use if the read fails. Non-null.
+   * @param what      Name of what is being read, for logging. Non-null.
+   * @param location  Location read from, for logging. Non-null.
+   * @param executor  Executor to read on. Non-null.
+   * @return          Future of the value read. Never null.
+   */
+  private static <T> CompletableFuture<T> readAsync(Callable<T> reader, Supplier<T> fallback,
+                                                    String what, Object location, Executor executor)
+  {
+    assert reader != null : "reader cannot be null";
+    assert fallback != null : "fallback cannot be null";
+    assert what != null : "what cannot be null";
+    assert location != null : "location cannot be null";
+    assert executor != null : "executor cannot be null";
+
+    return CompletableFuture.supplyAsync(() -> {
+        try {
+          return reader.call();
+        }
+        catch (IOException exception) {
+          logger_.log(Level.WARNING, "Unable to read " + what + ". Continue without: " + location, exception);
+          return fallback.get();
+        }
+        catch (RuntimeException exception) {
+          throw exception;
+        }
+        catch (Exception exception) {
+          throw new CompletionException(exception);
+        }
+      }, executor);
+  }
+
+  /**
+   * Assemble the PWLS model from the specified resource futures.
+   * The curves by tool mapping is linked into the tools as soon as
+   * tools, curves and the mapping content are all available.
+   *
+   * @param properties           Future properties. Non-null.
+   * @param companies            Future companies. Non-null.
+   * @param loggingMethods       Future logging methods. Non-null.
+   * @param toolClasses          Future tool classes. Non-null.
+   * @param tools                Future tools. Non-null.
+   * @param curves               Future curves. Non-null.
+   * @param curvesByToolContent  Future curves by tool JSON content. Non-null.
+   * @param options              Options restricting what is linked. Non-null.
+   * @param report               Report to add the issues of the linking to. Non-null.
+   * @param executor             Executor to link on. Non-null.
+   * @return                     Future of the complete model. Never null.
+   */
+  private static CompletableFuture<Pwls> load(CompletableFuture<Properties> properties,
+                                              CompletableFuture<Companies> companies,
+                                              CompletableFuture<LoggingMethods> loggingMethods,
+                                              CompletableFuture<ToolClasses> toolClasses,
+                                              CompletableFuture<Tools> tools,
+                                              CompletableFuture<Curves> curves,
+                                              CompletableFuture<byte[]> curvesByToolContent,
+                                              LoadOptions options,
+                                              LoadReport report,
+                                              Executor executor)
+  {
+    CompletableFuture<Void> curvesByTool = CompletableFuture.allOf(tools, curves, curvesByToolContent).thenRunAsync(() -> {
+        byte[] content = curvesByToolContent.join();
+        if (content != null)
+          JsonReader.readCurvesByTool(new ByteArrayInputStream(content), tools.join(), curves.join(), options, report);
+      }, executor);
+
+    return CompletableFuture.allOf(properties, companies, loggingMethods, toolClasses, curvesByTool)
+      .thenApply(v -> {
+          report.log("PWLS model");
+          Pwls pwls = new Pwls(properties.join(),
+                               companies.join(),
+                               loggingMethods.join(),
+                               toolClasses.join(),
+                               tools.join(),
+                               curves.join(),
+                               report);
+
+          // Compute and cache the content hashes while on the loader thread.
+          // Stored text is hashed by its digest, so nothing is decoded.
+          pwls.getContentHash();
+
+          return pwls;
+        });
+  }
+
+  /**
+   * Wait for the specified load to complete and return the result.
+   * Unchecked exceptions of the load are rethrown as is.
+   *
+   * @param future  Future to wait for. Non-null.
+   * @return        The loaded PWLS model. Never null.
+   */
+  private static Pwls join(CompletableFuture<Pwls> future)
+  {
+    assert future != null : "future cannot be null";
+
     try {
-      file = new File(folder, "curvesByTool.json");
-      readCurvesByTool(file, tools_, curves_);
+      return future.join();
     }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to read curves by tool. Continue without: " + file, exception);
+    catch (CompletionException exception) {
+      Throwable cause = exception.getCause();
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      if (cause instanceof Error)
+        throw (Error) cause;
+      throw exception;
     }
   }
 
+  /**
+   * Return all properties of this model.
+   *
+   * @return  All properties of this model. Never null.
+   */
+  Properties getAllProperties()
+  {
+    return properties_.get();
+  }
+
+  /**
+   * Return all companies of this model.
+   *
+   * @return  All companies of this model. Never null.
+   */
+  Companies getAllCompanies()
+  {
+    return companies_.get();
+  }
+
+  /**
+   * Return all logging methods of this model.
+   *
+   * @return  All logging methods of this model. Never null.
+   */
+  LoggingMethods getAllLoggingMethods()
+  {
+    return loggingMethods_.get();
+  }
+
+  /**
+   * Return all tool classes of this model.
+   *
+   * @return  All tool classes of this model. Never null.
+   */
+  ToolClasses getAllToolClasses()
+  {
+    return toolClasses_.get();
+  }
+
+  /**
+   * Return all tools of this model.
+   *
+   * @return  All tools of this model. Never null.
+   */
+  Tools getAllTools()
+  {
+    return tools_.get();
+  }
+
+  /**
+   * Return all curves of this model.
+   *
+   * @return  All curves of this model. Never null.
+   */
+  Curves getAllCurves()
+  {
+    return curves_.get();
+  }
+
   /**
    * Get properties of the PWLS model.
    *
@@ -264,7 +1025,7 @@ public final class Pwls
   {
     Set<Property> properties = new HashSet<>();
 
-    for (Property property : properties_.getAll()) {
+    for (Property property : properties_.get().getAll()) {
       if (name != null && !property.getName().equals(name))
         continue;
 
@@ -287,7 +1048,7 @@ public final class Pwls
   {
     Set<Company> companies = new HashSet<>();
 
-    for (Company company : companies_.getAll()) {
+    for (Company company : companies_.get().getAll()) {
       if (companyCode != null && companyCode != company.getCompanyCode())
         continue;
 
@@ -307,7 +1068,7 @@ public final class Pwls
   {
     Set<LoggingMethod> loggingMethods = new HashSet<>();
 
-    for (LoggingMethod loggingMethod : loggingMethods_.getAll()) {
+    for (LoggingMethod loggingMethod : loggingMethods_.get().getAll()) {
       if (name != null && !loggingMethod.getName().equals(name))
         continue;
 
@@ -327,7 +1088,7 @@ public final class Pwls
   {
     Set<ToolClass> toolClasses = new HashSet<>();
 
-    for (ToolClass toolClass : toolClasses_.getAll()) {
+    for (ToolClass toolClass : toolClasses_.get().getAll()) {
       if (name != null && !toolClass.getName().equals(name))
         continue;
 
@@ -351,7 +1112,7 @@ public final class Pwls
   {
     Set<Tool> tools = new HashSet<>();
 
-    for (Tool tool : tools_.getAll()) {
+    for (Tool tool : tools_.get().getAll()) {
       if (toolCode != null && !toolCode.equals(tool.getToolCode()))
         continue;
 
@@ -386,7 +1147,7 @@ public final class Pwls
   {
     Set<Curve> curves = new HashSet<>();
 
-    for (Curve curve : curves_.getAll()) {
+    for (Curve curve : curves_.get().getAll()) {
       if (mnemonic != null && !mnemonic.equals(curve.getMnemonic()))
         continue;
 
@@ -406,370 +1167,219 @@ public final class Pwls
   }
 
   /**
-   * Read properties from the specified URL.
+   * Parser of the content of a single PWLS resource.
    *
-   * @param url  URL to read properties from. Non-null.
-   * @return     Properties read. Never null.
-   * @throws IOException  If the read operation fails for some reason.
+   * @param <T>  Type of entity set parsed.
    */
-  private Properties readProperties(String url)
-    throws IOException
+  private interface Parser<T>
   {
-    assert url != null : "url cannot be null";
-
-    logger_.log(Level.INFO, "Read properties from " + url);
-    InputStream stream = null;
-    try {
-      stream = new URL(url).openStream();
-      return JsonReader.readProperties(stream);
-    }
-    catch (MalformedURLException exception) {
-      throw new IOException("Invalid URL:" + url, exception);
-    }
-    finally {
-      stream.close();
-    }
+    /**
+     * Parse the specified resource content.
+     *
+     * @param stream  Stream to parse. Non-null.
+     * @return        The parsed entity set. Never null.
+     * @throws IOException  If the parse operation fails for some reason.
+     */
+    T parse(InputStream stream)
+      throws IOException;
   }
 
   /**
-   * Read properties from the specified file.
+   * Reader of an entity set adding its load issues to a report.
    *
-   * @param file  File to read properties from. Non-null.
-   * @return      Properties read. Never null.
-   * @throws IOException  If the read operation fails for some reason.
+   * @param <T>  Type of entity set read.
    */
-  private Properties readProperties(File file)
-    throws IOException
+  private interface ReportedReader<T>
   {
-    assert file != null : "file cannot be null";
-
-    logger_.log(Level.INFO, "Read properties from " + file);
-    InputStream stream = null;
-    try {
-      stream = new FileInputStream(file);
-      return JsonReader.readProperties(stream);
-    }
-    catch (FileNotFoundException exception) {
-      throw new IOException("Invalid file: " + file, exception);
-    }
-    finally {
-      stream.close();
-    }
+    /**
+     * Read the entity set.
+     *
+     * @param report  Report to add load issues to. Non-null.
+     * @return        The entity set read. Never null.
+     * @throws IOException  If the read operation fails for some reason.
+     */
+    T read(LoadReport report)
+      throws IOException;
   }
 
   /**
-   * Read companies from the specified URL.
+   * Read an entity set on its own, logging its load issues as it completes
+   * and adding them to the specified report of the complete model.
    *
-   * @param url  URL to read companies from. Non-null.
-   * @return     Companies read. Never null.
+   * @param what    What is read, for logging. Non-null.
+   * @param report  Report of the complete model. Non-null.
+   * @param reader  Reader of the entity set. Non-null.
+   * @return        The entity set read. Never null.
    * @throws IOException  If the read operation fails for some reason.
    */
-  private Companies readCompanies(String url)
+  private static <T> T read(String what, LoadReport report, ReportedReader<T> reader)
     throws IOException
   {
-    assert url != null : "url cannot be null";
-
-    logger_.log(Level.INFO, "Read companies from " + url);
-    InputStream stream = null;
-    try {
-      stream = new URL(url).openStream();
-      return JsonReader.readCompanies(stream);
-    }
-    catch (MalformedURLException exception) {
-      throw new IOException("Invalid URL: " + url, exception);
-    }
-    finally {
-      stream.close();
-    }
-  }
+    assert what != null : "what cannot be null";
+    assert report != null : "report cannot be null";
+    assert reader != null : "reader cannot be null";
 
-  /**
-   * Read companies from the specified file.
-   *
-   * @param file  File to read companies from. Non-null.
-   * @return      Companies read. Never null.
-   * @throws IOException  If the read operation fails for some reason.
-   */
-  private Companies readCompanies(File file)
-    throws IOException
-  {
-    assert file != null : "file cannot be null";
+    LoadReport entityReport = new LoadReport();
+    T entities = reader.read(entityReport);
+    entityReport.log(what);
+    report.add(entityReport);
 
-    logger_.log(Level.INFO, "Read companies from " + file);
-    InputStream stream = null;
-    try {
-      stream = new FileInputStream(file);
-      return JsonReader.readCompanies(stream);
-    }
-    catch (FileNotFoundException exception) {
-      throw new IOException("Invalid file: " + file, exception);
-    }
-    finally {
-      stream.close();
-    }
+    return entities;
   }
 
   /**
-   * Read logging methods from the specified URL.
+   * Read the specified resource of the given source.
    *
-   * @param url  URL to read logging methods from. Non-null.
-   * @return     Logging methods read. Never null.
+   * @param source  Source to read from. Non-null.
+   * @param name    Name of resource to read. Non-null.
+   * @param what    Name of what is being read, for logging. Non-null.
+   * @param parser  Parser of the resource content. Non-null.
+   * @return        The parsed content. Never null.
    * @throws IOException  If the read operation fails for some reason.
    */
-  private LoggingMethods readLoggingMethods(String url)
+  private static <T> T read(PwlsSource source, String name, String what, Parser<T> parser)
     throws IOException
   {
-    assert url != null : "url cannot be null";
+    assert source != null : "source cannot be null";
+    assert name != null : "name cannot be null";
+    assert what != null : "what cannot be null";
+    assert parser != null : "parser cannot be null";
 
-    logger_.log(Level.INFO, "Read logging methods from " + url);
-    InputStream stream = null;
-    try {
-      stream = new URL(url).openStream();
-      return JsonReader.readLoggingMethods(stream);
-    }
-    catch (MalformedURLException exception) {
-      throw new IOException("Invalid URL: " + url, exception);
-    }
-    finally {
-      stream.close();
+    logger_.log(Level.INFO, "Read " + what + " from " + source.getLocation(name));
+    try (InputStream stream = source.open(name)) {
+      return parser.parse(stream);
     }
   }
 
   /**
-   * Read logging methods from the specified file.
+   * Read the specified resource from the given source. Resources of
+   * local sources are read completely and parsed in concurrent chunks.
+   * Other sources are parsed as the content streams in, so that
+   * parsing overlaps with a transfer and the content is never held in
+   * memory as a whole.
    *
-   * @param file  File to read logging methods from. Non-null.
-   * @return      Logging methods read. Never null.
+   * @param source         Source to read from. Non-null.
+   * @param name           Name of resource to read. Non-null.
+   * @param what           What is read, for logging. Non-null.
+   * @param parser         Streaming parser of the resource. Non-null.
+   * @param chunkedParser  Chunked parser of the complete resource content. Non-null.
+   * @return               The parsed entity set. Never null.
    * @throws IOException  If the read operation fails for some reason.
    */
-  private LoggingMethods readLoggingMethods(File file)
+  private static <T> T read(PwlsSource source, String name, String what,
+                            Parser<T> parser, Function<byte[],T> chunkedParser)
     throws IOException
   {
-    assert file != null : "file cannot be null";
+    assert chunkedParser != null : "chunkedParser cannot be null";
 
-    logger_.log(Level.INFO, "Read logging methods from " + file);
-    InputStream stream = null;
-    try {
-      stream = new FileInputStream(file);
-      return JsonReader.readLoggingMethods(stream);
-    }
-    catch (FileNotFoundException exception) {
-      throw new IOException("Invalid file: " + file, exception);
-    }
-    finally {
-      stream.close();
-    }
+    return read(source, name, what, source.isLocal() ? stream -> chunkedParser.apply(stream.readAllBytes()) : parser);
   }
 
   /**
-   * Read tool classes from the specified URL.
+   * Read properties from the specified source.
    *
-   * @param url  URL to read tool classes from. Non-null.
-   * @return     Tool classes read. Never null.
+   * @param source   Source to read from. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @param report   Report to add load issues to. Non-null.
+   * @return         Properties read. Never null.
    * @throws IOException  If the read operation fails for some reason.
    */
-  private ToolClasses readToolClasses(String url)
+  private static Properties readProperties(PwlsSource source, LoadOptions options, LoadReport report)
     throws IOException
   {
-    assert url != null : "url cannot be null";
-
-    logger_.log(Level.INFO, "Read tool classes from " + url);
-    InputStream stream = null;
-    try {
-      stream = new URL(url).openStream();
-      return JsonReader.readToolClasses(stream);
-    }
-    catch (MalformedURLException exception) {
-      throw new IOException("Invalid URL: " + url, exception);
-    }
-    finally {
-      stream.close();
-    }
+    return read(source, PwlsSource.PROPERTIES, "properties", stream -> JsonReader.readProperties(stream, options, report));
   }
 
   /**
-   * Read tool classes from the specified file.
+   * Read companies from the specified source.
    *
-   * @param file  File to read tool classes from. Non-null.
-   * @return      Tool classes read. Never null.
+   * @param source   Source to read from. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @param report   Report to add load issues to. Non-null.
+   * @return         Companies read. Never null.
    * @throws IOException  If the read operation fails for some reason.
    */
-  private ToolClasses readToolClasses(File file)
+  private static Companies readCompanies(PwlsSource source, LoadOptions options, LoadReport report)
     throws IOException
   {
-    assert file != null : "file cannot be null";
-
-    logger_.log(Level.INFO, "Read tool classes from " + file);
-    InputStream stream = null;
-    try {
-      stream = new FileInputStream(file);
-      return JsonReader.readToolClasses(stream);
-    }
-    catch (FileNotFoundException exception) {
-      throw new IOException("Invalid file: " + file, exception);
-    }
-    finally {
-      stream.close();
-    }
+    return read(source, PwlsSource.COMPANIES, "companies", stream -> JsonReader.readCompanies(stream, options, report));
   }
 
   /**
-   * Read tools from the specified URL.
+   * Read logging methods from the specified source.
    *
-   * @param url  URL to read tools from. Non-null.
-   * @return     Tools read. Never null.
+   * @param source   Source to read from. Non-null.
+   * @param options  Options of the read. Non-null.
+   * @param report   Report to add load issues to. Non-null.
+   * @return         Logging methods read. Never null.
    * @throws IOException  If the read operation fails for some reason.
    */
-  private Tools readTools(String url)
+  private static LoggingMethods readLoggingMethods(PwlsSource source, LoadOptions options, LoadReport report)
     throws IOException
   {
-    assert url != null : "url cannot be null";
-
-    logger_.log(Level.INFO, "Read tools from " + url);
-    InputStream stream = null;
-    try {
-      stream = new URL(url).openStream();
-      return JsonReader.readTools(stream);
-    }
-    catch (MalformedURLException exception) {
-      throw new IOException("Invalid URL: " + url, exception);
-    }
-    finally {
-      stream.close();
-    }
+    return read(source, PwlsSource.LOGGING_METHODS, "logging methods", stream -> JsonReader.readLoggingMethods(stream, options, report));
   }
 
   /**
-   * Read tools from the specified file.
+   * Read tool classes from the specified source.
    *
-   * @param file  File to read tools from. Non-null.
-   * @return      Tools read. Never null.
+   * @param source   Source to read from. Non-null.
+   * @param options  Options of the read. Non-null.
+   * @param report   Report to add load issues to. Non-null.
+   * @return         Tool classes read. Never null.
    * @throws IOException  If the read operation fails for some reason.
    */
-  private Tools readTools(File file)
+  private static ToolClasses readToolClasses(PwlsSource source, LoadOptions options, LoadReport report)
     throws IOException
   {
-    assert file != null : "file cannot be null";
-
-    logger_.log(Level.INFO, "Read tools from " + file);
-    InputStream stream = null;
-    try {
-      stream = new FileInputStream(file);
-      return JsonReader.readTools(stream);
-    }
-    catch (FileNotFoundException exception) {
-      throw new IOException("Invalid file: " + file, exception);
-    }
-    finally {
-      stream.close();
-    }
+    return read(source, PwlsSource.TOOL_CLASSES, "tool classes", stream -> JsonReader.readToolClasses(stream, options, report));
   }
 
   /**
-   * Read curves from the specified URL.
+   * Read tools from the specified source.
    *
-   * @param url  URL to read curves from. Non-null.
-   * @return     Curves read. Never null.
+   * @param source   Source to read from. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @param report   Report to add load issues to. Non-null.
+   * @return         Tools read. Never null.
    * @throws IOException  If the read operation fails for some reason.
    */
-  private Curves readCurves(String url)
+  private static Tools readTools(PwlsSource source, LoadOptions options, LoadReport report)
     throws IOException
   {
-    assert url != null : "url cannot be null";
-
-    logger_.log(Level.INFO, "Read curves from " + url);
-    InputStream stream = null;
-    try {
-      stream = new URL(url).openStream();
-      return JsonReader.readCurves(stream);
-    }
-    catch (MalformedURLException exception) {
-      throw new IOException("Invalid URL: " + url, exception);
-    }
-    finally {
-      stream.close();
-    }
+    return read(source, PwlsSource.TOOLS, "tools",
+                stream -> JsonReader.readTools(stream, options, report),
+                content -> JsonReader.readTools(content, options, report, parseExecutor_));
   }
 
   /**
-   * Read curves from the specified file.
+   * Read curves from the specified source.
    *
-   * @param file  File to read curves from. Non-null.
-   * @return      Curves read. Never null.
+   * @param source   Source to read from. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @param report   Report to add load issues to. Non-null.
+   * @return         Curves read. Never null.
    * @throws IOException  If the read operation fails for some reason.
    */
-  private Curves readCurves(File file)
-    throws IOException
-  {
-    assert file != null : "file cannot be null";
-
-    logger_.log(Level.INFO, "Read curves from " + file);
-    InputStream stream = null;
-    try {
-      stream = new FileInputStream(file);
-      return JsonReader.readCurves(stream);
-    }
-    catch (FileNotFoundException exception) {
-      throw new IOException("Invalid file: " + file, exception);
-    }
-    finally {
-      stream.close();
-    }
-  }
-
-  /**
-   * Read curves by tool from the specified URL.
-   *
-   * @param url     URL to read curves by tool from. Non-null.
-   * @param tools   Tools instance to populate. Non-null.
-   * @param curves  Curves instance to populate from. Non-null.
-   */
-  private void readCurvesByTool(String url, Tools tools, Curves curves)
+  private static Curves readCurves(PwlsSource source, LoadOptions options, LoadReport report)
     throws IOException
   {
-    assert url != null : "url cannot be null";
-    assert tools != null : "tools cannot be null";
-    assert curves != null : "curves cannot be null";
-
-    logger_.log(Level.INFO, "Read curves by tool from " + url);
-    InputStream stream = null;
-    try {
-      stream = new URL(url).openStream();
-      JsonReader.readCurvesByTool(stream, tools, curves);
-    }
-    catch (MalformedURLException exception) {
-      throw new IOException("Invalid URL: " + url, exception);
-    }
-    finally {
-      stream.close();
-    }
+    return read(source, PwlsSource.CURVES, "curves",
+                stream -> JsonReader.readCurves(stream, options, report),
+                content -> JsonReader.readCurves(content, options, report, parseExecutor_));
   }
 
   /**
-   * Read curves by tool from the specified file.
+   * Read the curves by tool JSON content from the specified source.
+   * The content is linked once tools and curves are available.
    *
-   * @param url     URL to read curves by tool from. Non-null.
-   * @param tools   Tools instance to populate. Non-null.
-   * @param curves  Curves instance to populate from. Non-null.
+   * @param source  Source to read from. Non-null.
+   * @return        Curves by tool content. Never null.
+   * @throws IOException  If the read operation fails for some reason.
    */
-  private void readCurvesByTool(File file, Tools tools, Curves curves)
+  private static byte[] readCurvesByTool(PwlsSource source)
     throws IOException
   {
-    assert file != null : "file cannot be null";
-    assert tools != null : "tools cannot be null";
-    assert curves != null : "curves cannot be null";
-
-    logger_.log(Level.INFO, "Read curves by tool from " + file);
-    InputStream stream = null;
-    try {
-      stream = new FileInputStream(file);
-      JsonReader.readCurvesByTool(stream, tools, curves);
-    }
-    catch (FileNotFoundException exception) {
-      throw new IOException("Invalid file: " + file, exception);
-    }
-    finally {
-      stream.close();
-    }
+    return read(source, PwlsSource.CURVES_BY_TOOL, "curves by tool", InputStream::readAllBytes);
   }
 }
@@ -0,0 +1,97 @@
+package no.geosoft.jpwls;
+
+/**
+ * Event sent to listeners of a {@link ReloadablePwls} when a new
+ * PWLS snapshot has been published.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class PwlsChangeEvent
+{
+  /** The snapshot that was replaced. Non-null. */
+  private final Pwls previous_;
+
+  /** The snapshot that was published. Non-null. */
+  private final Pwls current_;
+
+  /** Version of the published snapshot. */
+  private final long version_;
+
+  /** Difference between the replaced and the published snapshot. Non-null. */
+  private final PwlsDiff diff_;
+
+  /**
+   * Create a new change event.
+   *
+   * @param previous  The snapshot that was replaced. Non-null.
+   * @param current   The snapshot that was published. Non-null.
+   * @param version   Version of the published snapshot.
+   * @param diff      Difference between the two snapshots. Non-null.
+   * @throws IllegalArgumentException  If previous, current or diff is null.
+   */
+  public PwlsChangeEvent(Pwls previous, Pwls current, long version, PwlsDiff diff)
+  {
+    if (previous == null)
+      throw new IllegalArgumentException("previous cannot be null");
+
+    if (current == null)
+      throw new IllegalArgumentException("current cannot be null");
+
+    if (diff == null)
+      throw new IllegalArgumentException("diff cannot be null");
+
+    previous_ = previous;
+    current_ = current;
+    version_ = version;
+    diff_ = diff;
+  }
+
+  /**
+   * Return the snapshot that was replaced.
+   *
+   * @return  The snapshot that was replaced. Never null.
+   */
+  public Pwls getPrevious()
+  {
+    return previous_;
+  }
+
+  /**
+   * Return the snapshot that was published.
+   *
+   * @return  The snapshot that was published. Never null.
+   */
+  public Pwls getCurrent()
+  {
+    return current_;
+  }
+
+  /**
+   * Return the version of the published snapshot.
+   *
+   * @return  Version of the published snapshot.
+   */
+  public long getVersion()
+  {
+    return version_;
+  }
+
+  /**
+   * Return the difference between the replaced and the published snapshot.
+   * Listeners maintaining derived state can use this to update only
+   * the affected entries.
+   *
+   * @return  The difference between the two snapshots. Never null.
+   */
+  public PwlsDiff getDiff()
+  {
+    return diff_;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    return "PWLS snapshot version " + version_;
+  }
+}
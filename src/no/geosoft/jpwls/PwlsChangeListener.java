@@ -0,0 +1,19 @@
+package no.geosoft.jpwls;
+
+/**
+ * Listener for new PWLS snapshots published by a {@link ReloadablePwls}.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public interface PwlsChangeListener
+{
+  /**
+   * Called after a new PWLS snapshot has been published.
+   * <p>
+   * The call is made on the thread that performed the reload, and
+   * should return quickly.
+   *
+   * @param event  Event describing the change. Non-null.
+   */
+  void pwlsChanged(PwlsChangeEvent event);
+}
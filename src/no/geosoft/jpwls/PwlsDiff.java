@@ -0,0 +1,656 @@
+package no.geosoft.jpwls;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * The difference between two PWLS models.
+ * <p>
+ * Entities are matched on their natural key (curve mnemonic and company code,
+ * tool code and company code, property name, company code, logging method name
+ * and tool class name) and compared on their {@link ContentHash content hash}.
+ * The tool/curve associations are compared as a separate set of links.
+ * <p>
+ * The diff can be {@link #patch applied} to the previous model in order to
+ * produce a model equal to the current one that shares every unchanged entity
+ * instance with the previous one.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class PwlsDiff
+{
+  /**
+   * The added, removed and changed entities of one entity type.
+   *
+   * @param <T>  Entity type.
+   */
+  public static final class Delta<T>
+  {
+    /** Entities of the current model not in the previous. */
+    private final Set<T> added_ = new HashSet<>();
+
+    /** Entities of the previous model not in the current. */
+    private final Set<T> removed_ = new HashSet<>();
+
+    /** Entities of the current model with changed content. */
+    private final Set<T> changed_ = new HashSet<>();
+
+    /** The previous versions of the changed entities. */
+    private final Set<T> replaced_ = new HashSet<>();
+
+    /**
+     * Create an empty delta.
+     */
+    private Delta()
+    {
+      // Nothing
+    }
+
+    /**
+     * Return the entities of the current model that are not in the previous.
+     *
+     * @return  The added entities. Never null.
+     */
+    public Set<T> getAdded()
+    {
+      return Collections.unmodifiableSet(added_);
+    }
+
+    /**
+     * Return the entities of the previous model that are not in the current.
+     *
+     * @return  The removed entities. Never null.
+     */
+    public Set<T> getRemoved()
+    {
+      return Collections.unmodifiableSet(removed_);
+    }
+
+    /**
+     * Return the entities of the current model that has changed content
+     * since the previous.
+     *
+     * @return  The changed entities. Never null.
+     */
+    public Set<T> getChanged()
+    {
+      return Collections.unmodifiableSet(changed_);
+    }
+
+    /**
+     * Return the total number of differences in this delta.
+     *
+     * @return  Number of differences. [0,&gt;.
+     */
+    public int size()
+    {
+      return added_.size() + removed_.size() + changed_.size();
+    }
+
+    /**
+     * Check if this delta is empty.
+     *
+     * @return  True if there are no differences, false otherwise.
+     */
+    public boolean isEmpty()
+    {
+      return size() == 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString()
+    {
+      return "+" + added_.size() + " -" + removed_.size() + " ~" + changed_.size();
+    }
+  }
+
+  /**
+   * An association between a tool and a curve.
+   */
+  public static final class Link
+  {
+    /** Tool code of the tool. Non-null. */
+    private final String toolCode_;
+
+    /** Company code of the tool. */
+    private final int companyCode_;
+
+    /** Mnemonic of the curve. Non-null. */
+    private final String curveMnemonic_;
+
+    /**
+     * Create a new link.
+     *
+     * @param toolCode       Tool code of the tool. Non-null.
+     * @param companyCode    Company code of the tool.
+     * @param curveMnemonic  Mnemonic of the curve. Non-null.
+     */
+    private Link(String toolCode, int companyCode, String curveMnemonic)
+    {
+      assert toolCode != null : "toolCode cannot be null";
+      assert curveMnemonic != null : "curveMnemonic cannot be null";
+
+      toolCode_ = toolCode;
+      companyCode_ = companyCode;
+      curveMnemonic_ = curveMnemonic;
+    }
+
+    /**
+     * Return the tool code of the tool of this link.
+     *
+     * @return  Tool code of the tool. Never null.
+     */
+    public String getToolCode()
+    {
+      return toolCode_;
+    }
+
+    /**
+     * Return the company code of the tool of this link.
+     *
+     * @return  Company code of the tool.
+     */
+    public int getCompanyCode()
+    {
+      return companyCode_;
+    }
+
+    /**
+     * Return the mnemonic of the curve of this link.
+     *
+     * @return  Mnemonic of the curve. Never null.
+     */
+    public String getCurveMnemonic()
+    {
+      return curveMnemonic_;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object object)
+    {
+      if (this == object)
+        return true;
+
+      if (!(object instanceof Link))
+        return false;
+
+      Link link = (Link) object;
+      return companyCode_ == link.companyCode_ &&
+             toolCode_.equals(link.toolCode_) &&
+             curveMnemonic_.equals(link.curveMnemonic_);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode()
+    {
+      return 31 * (31 * toolCode_.hashCode() + companyCode_) + curveMnemonic_.hashCode();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString()
+    {
+      return toolCode_ + "/" + companyCode_ + " -> " + curveMnemonic_;
+    }
+  }
+
+  /** The previous model. Non-null. */
+  private final Pwls previous_;
+
+  /** The current model. Non-null. */
+  private final Pwls current_;
+
+  /** Property differences. Non-null. */
+  private final Delta<Property> properties_;
+
+  /** Company differences. Non-null. */
+  private final Delta<Company> companies_;
+
+  /** Logging method differences. Non-null. */
+  private final Delta<LoggingMethod> loggingMethods_;
+
+  /** Tool class differences. Non-null. */
+  private final Delta<ToolClass> toolClasses_;
+
+  /** Curve differences. Non-null. */
+  private final Delta<Curve> curves_;
+
+  /** Tool differences, not including curve associations. Non-null. */
+  private final Delta<Tool> tools_;
+
+  /** Tool/curve association differences. Never contains changes. Non-null. */
+  private final Delta<Link> links_;
+
+  /** Tools of the previous model associated with changed or removed curves. Non-null. */
+  private final Set<Tool> staleTools_;
+
+  /**
+   * Compute the difference between the two specified models.
+   * Entity sets shared between the two are not traversed.
+   *
+   * @param previous  Previous model. Non-null.
+   * @param current   Current model. Non-null.
+   * @throws IllegalArgumentException  If previous or current is null.
+   */
+  public PwlsDiff(Pwls previous, Pwls current)
+  {
+    if (previous == null)
+      throw new IllegalArgumentException("previous cannot be null");
+
+    if (current == null)
+      throw new IllegalArgumentException("current cannot be null");
+
+    previous_ = previous;
+    current_ = current;
+
+    properties_ = previous.getAllProperties() == current.getAllProperties() ? new Delta<>() :
+      diff(previous.getAllProperties().getAll(), current.getAllProperties().getAll(),
+           Property::getName, ContentHash::of);
+
+    companies_ = previous.getAllCompanies() == current.getAllCompanies() ? new Delta<>() :
+      diff(previous.getAllCompanies().getAll(), current.getAllCompanies().getAll(),
+           company -> Integer.toString(company.getCompanyCode()), ContentHash::of);
+
+    loggingMethods_ = previous.getAllLoggingMethods() == current.getAllLoggingMethods() ? new Delta<>() :
+      diff(previous.getAllLoggingMethods().getAll(), current.getAllLoggingMethods().getAll(),
+           LoggingMethod::getName, ContentHash::of);
+
+    toolClasses_ = previous.getAllToolClasses() == current.getAllToolClasses() ? new Delta<>() :
+      diff(previous.getAllToolClasses().getAll(), current.getAllToolClasses().getAll(),
+           ToolClass::getName, ContentHash::of);
+
+    curves_ = previous.getAllCurves() == current.getAllCurves() ? new Delta<>() :
+      diff(previous.getAllCurves().getAll(), current.getAllCurves().getAll(),
+           PwlsDiff::getKey, ContentHash::of);
+
+    Tools previousTools = previous.getAllTools();
+    Tools currentTools = current.getAllTools();
+    boolean isSameTools = previousTools == currentTools;
+
+    tools_ = isSameTools ? new Delta<>() :
+      diff(previousTools.getAll(), currentTools.getAll(), PwlsDiff::getKey, ContentHash::of);
+
+    links_ = isSameTools ? new Delta<>() : diffLinks(previousTools, currentTools);
+
+    staleTools_ = getStaleTools(previousTools, curves_);
+  }
+
+  /**
+   * Return the natural key of the specified curve.
+   *
+   * @param curve  Curve to get key of. Non-null.
+   * @return       Key of curve. Never null.
+   */
+  private static String getKey(Curve curve)
+  {
+    assert curve != null : "curve cannot be null";
+    return curve.getMnemonic() + "/" + curve.getCompanyCode();
+  }
+
+  /**
+   * Return the natural key of the specified tool.
+   *
+   * @param tool  Tool to get key of. Non-null.
+   * @return      Key of tool. Never null.
+   */
+  private static String getKey(Tool tool)
+  {
+    assert tool != null : "tool cannot be null";
+    return tool.getToolCode() + "/" + tool.getCompanyCode();
+  }
+
+  /**
+   * Return all the tool/curve links of the specified tool.
+   *
+   * @param tool  Tool to get links of. Non-null.
+   * @return      The links of the tool. Never null.
+   */
+  private static Set<Link> getLinks(Tool tool)
+  {
+    assert tool != null : "tool cannot be null";
+
+    Set<Link> links = new HashSet<>();
+    for (Curve curve : tool.getCurves())
+      links.add(new Link(tool.getToolCode(), tool.getCompanyCode(), curve.getMnemonic()));
+
+    return links;
+  }
+
+  /**
+   * Compute the tool/curve link delta between the specified tools.
+   * Only the links of tools with a different curves hash are compared.
+   *
+   * @param previous  Previous tools. Non-null.
+   * @param current   Current tools. Non-null.
+   * @return          The requested delta. Never null.
+   */
+  private static Delta<Link> diffLinks(Tools previous, Tools current)
+  {
+    assert previous != null : "previous cannot be null";
+    assert current != null : "current cannot be null";
+
+    Delta<Link> delta = new Delta<>();
+
+    for (Tool tool : current.getAll()) {
+      Tool previousTool = previous.find(tool.getToolCode(), tool.getCompanyCode());
+      if (previousTool == null)
+        delta.added_.addAll(getLinks(tool));
+      else if (previousTool != tool && ContentHash.ofCurves(previousTool) != ContentHash.ofCurves(tool)) {
+        Delta<Link> toolDelta = diff(getLinks(previousTool), getLinks(tool), Link::toString, link -> 0L);
+        delta.added_.addAll(toolDelta.added_);
+        delta.removed_.addAll(toolDelta.removed_);
+      }
+    }
+
+    for (Tool tool : previous.getAll()) {
+      if (current.find(tool.getToolCode(), tool.getCompanyCode()) == null)
+        delta.removed_.addAll(getLinks(tool));
+    }
+
+    return delta;
+  }
+
+  /**
+   * Return the specified tools that are associated with any of the
+   * changed or removed curves of the specified curve delta. The tools
+   * are looked up in their curve index, so the cost is proportional
+   * to the size of the delta.
+   *
+   * @param tools   Tools of the previous model. Non-null.
+   * @param curves  Curve delta. Non-null.
+   * @return        The requested tools. Never null.
+   */
+  private static Set<Tool> getStaleTools(Tools tools, Delta<Curve> curves)
+  {
+    assert tools != null : "tools cannot be null";
+    assert curves != null : "curves cannot be null";
+
+    Set<Tool> staleTools = new HashSet<>();
+
+    for (Curve curve : curves.replaced_)
+      staleTools.addAll(tools.findByCurve(curve));
+
+    for (Curve curve : curves.removed_)
+      staleTools.addAll(tools.findByCurve(curve));
+
+    return staleTools;
+  }
+
+  /**
+   * Compute the delta between the specified entity collections.
+   *
+   * @param previous  Previous entities. Non-null.
+   * @param current   Current entities. Non-null.
+   * @param key       Natural key of entities. Non-null.
+   * @param hash      Content hash of entities. Non-null.
+   * @return          The requested delta. Never null.
+   */
+  private static <T> Delta<T> diff(Collection<T> previous,
+                                   Collection<T> current,
+                                   Function<T,String> key,
+                                   ToLongFunction<T> hash)
+  {
+    assert previous != null : "previous cannot be null";
+    assert current != null : "current cannot be null";
+    assert key != null : "key cannot be null";
+    assert hash != null : "hash cannot be null";
+
+    Map<String,T> previousByKey = new HashMap<>();
+    for (T entity : previous)
+      previousByKey.put(key.apply(entity), entity);
+
+    Delta<T> delta = new Delta<>();
+
+    for (T entity : current) {
+      T previousEntity = previousByKey.remove(key.apply(entity));
+      if (previousEntity == null)
+        delta.added_.add(entity);
+      else if (previousEntity != entity && hash.applyAsLong(previousEntity) != hash.applyAsLong(entity)) {
+        delta.changed_.add(entity);
+        delta.replaced_.add(previousEntity);
+      }
+    }
+
+    delta.removed_.addAll(previousByKey.values());
+
+    return delta;
+  }
+
+  /**
+   * Return the previous model of this diff.
+   *
+   * @return  The previous model. Never null.
+   */
+  public Pwls getPrevious()
+  {
+    return previous_;
+  }
+
+  /**
+   * Return the current model of this diff.
+   *
+   * @return  The current model. Never null.
+   */
+  public Pwls getCurrent()
+  {
+    return current_;
+  }
+
+  /**
+   * Return the property differences.
+   *
+   * @return  The property differences. Never null.
+   */
+  public Delta<Property> getProperties()
+  {
+    return properties_;
+  }
+
+  /**
+   * Return the company differences.
+   *
+   * @return  The company differences. Never null.
+   */
+  public Delta<Company> getCompanies()
+  {
+    return companies_;
+  }
+
+  /**
+   * Return the logging method differences.
+   *
+   * @return  The logging method differences. Never null.
+   */
+  public Delta<LoggingMethod> getLoggingMethods()
+  {
+    return loggingMethods_;
+  }
+
+  /**
+   * Return the tool class differences.
+   *
+   * @return  The tool class differences. Never null.
+   */
+  public Delta<ToolClass> getToolClasses()
+  {
+    return toolClasses_;
+  }
+
+  /**
+   * Return the curve differences.
+   *
+   * @return  The curve differences. Never null.
+   */
+  public Delta<Curve> getCurves()
+  {
+    return curves_;
+  }
+
+  /**
+   * Return the tool differences. Changes to the curves of
+   * the tools are reported by {@link #getLinks}.
+   *
+   * @return  The tool differences. Never null.
+   */
+  public Delta<Tool> getTools()
+  {
+    return tools_;
+  }
+
+  /**
+   * Return the tool/curve association differences.
+   *
+   * @return  The tool/curve association differences. Never null.
+   */
+  public Delta<Link> getLinks()
+  {
+    return links_;
+  }
+
+  /**
+   * Return the total number of differences.
+   *
+   * @return  Total number of differences. [0,&gt;.
+   */
+  public int size()
+  {
+    return properties_.size() + companies_.size() + loggingMethods_.size() +
+           toolClasses_.size() + curves_.size() + tools_.size() + links_.size();
+  }
+
+  /**
+   * Check if the two models of this diff have the same content.
+   *
+   * @return  True if there are no differences, false otherwise.
+   */
+  public boolean isEmpty()
+  {
+    return size() == 0;
+  }
+
+  /**
+   * Apply this diff to the previous model.
+   * <p>
+   * The returned model has the content of the current model, but
+   * reuses every unchanged entity of the previous model, and every
+   * unchanged entity set. Only the curve and tool indexes are patched
+   * entry by entry; the other entity sets are small and are replaced
+   * as a whole if anything in them has changed.
+   * Tools are replaced if they have changed, if their curve associations
+   * have changed, or if any of their curves have changed.
+   * <p>
+   * The curve and tool indexes share structure with those of the previous
+   * model, and their content hashes are maintained incrementally, so the
+   * cost of the patch is proportional to the size of this diff.
+   * The load report of the current model is carried over.
+   *
+   * @return  The patched model. Never null.
+   */
+  public Pwls patch()
+  {
+    Properties properties = properties_.isEmpty() ? previous_.getAllProperties() : current_.getAllProperties();
+    Companies companies = companies_.isEmpty() ? previous_.getAllCompanies() : current_.getAllCompanies();
+    LoggingMethods loggingMethods = loggingMethods_.isEmpty() ? previous_.getAllLoggingMethods() : current_.getAllLoggingMethods();
+    ToolClasses toolClasses = toolClasses_.isEmpty() ? previous_.getAllToolClasses() : current_.getAllToolClasses();
+
+    Curves previousCurves = previous_.getAllCurves();
+    Curves curves = previousCurves;
+
+    if (!curves_.isEmpty()) {
+      curves = new Curves(previousCurves);
+
+      for (Curve curve : curves_.removed_)
+        curves.remove(curve);
+
+      for (Curve curve : curves_.replaced_)
+        curves.remove(curve);
+
+      for (Curve curve : curves_.changed_)
+        curves.add(curve);
+
+      for (Curve curve : curves_.added_)
+        curves.add(curve);
+    }
+
+    Tools previousTools = previous_.getAllTools();
+    Tools currentTools = current_.getAllTools();
+
+    // Nothing tool related has changed
+    if (tools_.isEmpty() && links_.isEmpty() && staleTools_.isEmpty())
+      return new Pwls(properties, companies, loggingMethods, toolClasses, previousTools, curves,
+                      current_.getLoadReport());
+
+    // Collect the tools of the previous model to replace, and the tools of the current model to replace them with
+    Set<Tool> replacedTools = new HashSet<>(tools_.replaced_);
+    replacedTools.addAll(staleTools_);
+
+    Set<Tool> newTools = new HashSet<>(tools_.changed_);
+    newTools.addAll(tools_.added_);
+
+    for (Tool tool : staleTools_) {
+      Tool currentTool = currentTools.find(tool.getToolCode(), tool.getCompanyCode());
+      if (currentTool != null)
+        newTools.add(currentTool);
+    }
+
+    Set<Link> changedLinks = new HashSet<>(links_.added_);
+    changedLinks.addAll(links_.removed_);
+
+    for (Link link : changedLinks) {
+      Tool previousTool = previousTools.find(link.getToolCode(), link.getCompanyCode());
+      if (previousTool != null)
+        replacedTools.add(previousTool);
+
+      Tool currentTool = currentTools.find(link.getToolCode(), link.getCompanyCode());
+      if (currentTool != null)
+        newTools.add(currentTool);
+    }
+
+    Tools tools = new Tools(previousTools);
+
+    for (Tool tool : tools_.removed_)
+      tools.remove(tool);
+
+    for (Tool tool : replacedTools)
+      tools.remove(tool);
+
+    for (Tool currentTool : newTools) {
+      // Relink against the patched curves so that unchanged curves are shared
+      Tool tool = currentTool.copy();
+      for (Curve curve : currentTool.getCurves()) {
+        int companyCode = curve.getCompanyCode() != null ? curve.getCompanyCode() : currentTool.getCompanyCode();
+        Curve patchedCurve = curves.find(curve.getMnemonic(), companyCode);
+        tool.addCurve(patchedCurve != null ? patchedCurve : curve);
+      }
+
+      tools.add(tool);
+    }
+
+    return new Pwls(properties, companies, loggingMethods, toolClasses, tools, curves,
+                    current_.getLoadReport());
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    StringBuilder s = new StringBuilder();
+    s.append("Properties.......: " + properties_ + "\n");
+    s.append("Companies........: " + companies_ + "\n");
+    s.append("Logging methods..: " + loggingMethods_ + "\n");
+    s.append("Tool classes.....: " + toolClasses_ + "\n");
+    s.append("Curves...........: " + curves_ + "\n");
+    s.append("Tools............: " + tools_ + "\n");
+    s.append("Links............: " + links_ + "\n");
+    return s.toString();
+  }
+}
@@ -0,0 +1,435 @@
+package no.geosoft.jpwls;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import no.geosoft.jpwls.json.JsonReader;
+
+/**
+ * Keeps a PWLS model up to date with a local folder of PWLS JSON files.
+ * <p>
+ * The folder is monitored through a {@link WatchService}. Bursts of changes,
+ * like those of an editor or a sync tool, are debounced into a single reload.
+ * Only the files that have changed are re-parsed. Unchanged entity sets
+ * are reused from the previous snapshot, and the curves by tool links are
+ * rebuilt only if tools, curves or the mapping itself has changed.
+ * <p>
+ * The model is published through a {@link ReloadablePwls}, so readers are
+ * never blocked and never see a partially updated model. Every snapshot
+ * is loaded with the options the watcher was created with, and its
+ * {@link Pwls#getLoadReport load report} covers all the files of the
+ * model, whether re-parsed or reused.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class PwlsFolderWatcher
+  implements AutoCloseable
+{
+  /** The logger instance. */
+  private static final Logger logger_ = Logger.getLogger(PwlsFolderWatcher.class.getName());
+
+  /** Default debounce delay in milliseconds. */
+  public static final long DEFAULT_DEBOUNCE_DELAY = 500;
+
+  /** Name of the properties file. */
+  private static final String PROPERTIES_FILE = "properties.json";
+
+  /** Name of the companies file. */
+  private static final String COMPANIES_FILE = "companies.json";
+
+  /** Name of the logging methods file. */
+  private static final String LOGGING_METHODS_FILE = "loggingMethods.json";
+
+  /** Name of the tool classes file. */
+  private static final String TOOL_CLASSES_FILE = "toolClasses.json";
+
+  /** Name of the tools file. */
+  private static final String TOOLS_FILE = "tools.json";
+
+  /** Name of the curves file. */
+  private static final String CURVES_FILE = "curves.json";
+
+  /** Name of the curves by tool file. */
+  private static final String CURVES_BY_TOOL_FILE = "curvesByTool.json";
+
+  /** All the files that make up the PWLS model. */
+  private static final List<String> FILES = Arrays.asList(PROPERTIES_FILE,
+                                                          COMPANIES_FILE,
+                                                          LOGGING_METHODS_FILE,
+                                                          TOOL_CLASSES_FILE,
+                                                          TOOLS_FILE,
+                                                          CURVES_FILE,
+                                                          CURVES_BY_TOOL_FILE);
+
+  /**
+   * Reader of a single PWLS file.
+   *
+   * @param <T>  Type of content read.
+   */
+  private interface ResourceReader<T>
+  {
+    /**
+     * Read the specified file content.
+     *
+     * @param stream  Stream of the file content. Non-null.
+     * @param report  Report to add load issues to. Non-null.
+     * @return        The content read. Null if none.
+     * @throws IOException  If the read operation fails for some reason.
+     */
+    T read(InputStream stream, LoadReport report)
+      throws IOException;
+  }
+
+  /** The folder being watched. Non-null. */
+  private final File folder_;
+
+  /** Options of every load. Non-null. */
+  private final LoadOptions options_;
+
+  /** Load issues of the files of the current model by file name. Accessed on reload only. */
+  private Map<String,LoadReport> reports_ = new HashMap<>();
+
+  /** The watch service of the folder. Non-null. */
+  private final WatchService watchService_;
+
+  /** The reloadable model. Non-null. */
+  private final ReloadablePwls reloadablePwls_;
+
+  /** Names of files changed since the last reload. Guarded by itself. */
+  private final Set<String> changedFiles_ = new HashSet<>();
+
+  /** The watcher thread. Non-null. */
+  private final Thread thread_;
+
+  /** Debounce delay in milliseconds. */
+  private volatile long debounceDelay_ = DEFAULT_DEBOUNCE_DELAY;
+
+  /**
+   * Create a watcher of the specified folder. The initial model is loaded
+   * and watching starts immediately.
+   *
+   * @param folder   Folder of PWLS JSON files to watch. Non-null.
+   * @param options  Options of the initial load and every reload. Non-null.
+   * @throws IllegalArgumentException  If folder or options is null.
+   * @throws IOException  If the folder cannot be watched or the initial
+   *                      model cannot be read.
+   */
+  public PwlsFolderWatcher(File folder, LoadOptions options)
+    throws IOException
+  {
+    if (folder == null)
+      throw new IllegalArgumentException("folder cannot be null");
+
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
+
+    folder_ = folder;
+    options_ = options;
+
+    watchService_ = FileSystems.getDefault().newWatchService();
+    folder.toPath().register(watchService_,
+                             StandardWatchEventKinds.ENTRY_CREATE,
+                             StandardWatchEventKinds.ENTRY_MODIFY,
+                             StandardWatchEventKinds.ENTRY_DELETE);
+
+    // The initial model is read file by file as well, so that reloads can reuse the issues of unchanged files
+    reloadablePwls_ = new ReloadablePwls(load(null, new HashSet<>(FILES)), this::load);
+
+    thread_ = new Thread(this::watch, "jpwls-watcher");
+    thread_.setDaemon(true);
+    thread_.start();
+  }
+
+  /**
+   * Create a watcher of the specified folder loading the complete model.
+   *
+   * @param folder  Folder of PWLS JSON files to watch. Non-null.
+   * @throws IllegalArgumentException  If folder is null.
+   * @throws IOException  If the folder cannot be watched or the initial
+   *                      model cannot be read.
+   */
+  public PwlsFolderWatcher(File folder)
+    throws IOException
+  {
+    this(folder, LoadOptions.ALL);
+  }
+
+  /**
+   * Set the debounce delay, i.e. for how long the folder must be quiet
+   * after a change before it is reloaded.
+   *
+   * @param debounceDelay  Debounce delay in milliseconds. [0,&gt;.
+   * @throws IllegalArgumentException  If debounceDelay is negative.
+   */
+  public void setDebounceDelay(long debounceDelay)
+  {
+    if (debounceDelay < 0)
+      throw new IllegalArgumentException("Invalid debounceDelay: " + debounceDelay);
+
+    debounceDelay_ = debounceDelay;
+  }
+
+  /**
+   * Return the reloadable model maintained by this watcher.
+   * Use it to get the current snapshot, or to listen for changes.
+   *
+   * @return  The reloadable model. Never null.
+   */
+  public ReloadablePwls getReloadablePwls()
+  {
+    return reloadablePwls_;
+  }
+
+  /**
+   * Return the current PWLS snapshot.
+   *
+   * @return  The current PWLS snapshot. Never null.
+   */
+  public Pwls get()
+  {
+    return reloadablePwls_.get();
+  }
+
+  /**
+   * Record the changes of the specified watch key.
+   *
+   * @param key  Key to record changes of. Non-null.
+   */
+  private void collect(WatchKey key)
+  {
+    assert key != null : "key cannot be null";
+
+    synchronized (changedFiles_) {
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+          changedFiles_.addAll(FILES);
+          continue;
+        }
+
+        String fileName = ((Path) event.context()).getFileName().toString();
+        if (FILES.contains(fileName))
+          changedFiles_.add(fileName);
+      }
+    }
+
+    key.reset();
+  }
+
+  /**
+   * Watch the folder and reload on changes. Runs until the watcher is closed.
+   */
+  private void watch()
+  {
+    try {
+      while (true) {
+        collect(watchService_.take());
+
+        // Wait for the burst of changes to settle
+        WatchKey key;
+        while ((key = watchService_.poll(debounceDelay_, TimeUnit.MILLISECONDS)) != null)
+          collect(key);
+
+        boolean isChanged;
+        synchronized (changedFiles_) {
+          isChanged = !changedFiles_.isEmpty();
+        }
+
+        if (!isChanged)
+          continue;
+
+        try {
+          reloadablePwls_.reload();
+        }
+        catch (IOException | RuntimeException exception) {
+          logger_.log(Level.WARNING, "Unable to reload " + folder_ + ". Keeping current snapshot", exception);
+        }
+      }
+    }
+    catch (InterruptedException | ClosedWatchServiceException exception) {
+      // Closed
+    }
+  }
+
+  /**
+   * Load a new model, re-parsing only the files changed since the previous
+   * one. If nothing is known to have changed, the complete model is loaded.
+   *
+   * @return  The new model. Never null.
+   * @throws IOException  If a changed file cannot be read. The changes are
+   *                      then kept for the next attempt.
+   */
+  private Pwls load()
+    throws IOException
+  {
+    Set<String> changedFiles;
+    synchronized (changedFiles_) {
+      changedFiles = new HashSet<>(changedFiles_);
+      changedFiles_.clear();
+    }
+
+    if (changedFiles.isEmpty())
+      changedFiles.addAll(FILES);
+
+    logger_.log(Level.INFO, "Reloading " + changedFiles + " from " + folder_);
+
+    try {
+      return load(reloadablePwls_.get(), changedFiles);
+    }
+    catch (IOException | RuntimeException exception) {
+      synchronized (changedFiles_) {
+        changedFiles_.addAll(changedFiles);
+      }
+      throw exception;
+    }
+  }
+
+  /**
+   * Read the specified file of the folder, recording its load issues.
+   *
+   * @param fileName  Name of file to read. Non-null.
+   * @param reports   Load issues by file name to add the issues of the file to. Non-null.
+   * @param reader    Reader of the file content. Non-null.
+   * @return          The content read. Null if none.
+   * @throws IOException  If the file cannot be read.
+   */
+  private <T> T read(String fileName, Map<String,LoadReport> reports, ResourceReader<T> reader)
+    throws IOException
+  {
+    assert fileName != null : "fileName cannot be null";
+    assert reports != null : "reports cannot be null";
+    assert reader != null : "reader cannot be null";
+
+    LoadReport report = new LoadReport();
+
+    T content;
+    try (InputStream stream = new FileInputStream(new File(folder_, fileName))) {
+      content = reader.read(stream, report);
+    }
+
+    report.log(fileName);
+    reports.put(fileName, report);
+
+    return content;
+  }
+
+  /**
+   * Create a new model from the specified one by re-parsing the given files.
+   *
+   * @param previous      Model to reuse unchanged entity sets of. Null if all files are to be parsed.
+   * @param changedFiles  Names of files to re-parse. Non-null.
+   * @return              The new model. Never null.
+   * @throws IOException  If a file cannot be read.
+   */
+  private Pwls load(Pwls previous, Set<String> changedFiles)
+    throws IOException
+  {
+    assert changedFiles != null : "changedFiles cannot be null";
+    assert previous != null || changedFiles.containsAll(FILES) : "previous cannot be null";
+
+    // Issues of the unchanged files are reused along with their content
+    Map<String,LoadReport> reports = new HashMap<>(reports_);
+
+    Properties properties = changedFiles.contains(PROPERTIES_FILE) ?
+      read(PROPERTIES_FILE, reports, (stream, report) -> JsonReader.readProperties(stream, options_, report)) :
+      previous.getAllProperties();
+
+    Companies companies = changedFiles.contains(COMPANIES_FILE) ?
+      read(COMPANIES_FILE, reports, (stream, report) -> JsonReader.readCompanies(stream, options_, report)) :
+      previous.getAllCompanies();
+
+    LoggingMethods loggingMethods = changedFiles.contains(LOGGING_METHODS_FILE) ?
+      read(LOGGING_METHODS_FILE, reports, (stream, report) -> JsonReader.readLoggingMethods(stream, options_, report)) :
+      previous.getAllLoggingMethods();
+
+    ToolClasses toolClasses = changedFiles.contains(TOOL_CLASSES_FILE) ?
+      read(TOOL_CLASSES_FILE, reports, (stream, report) -> JsonReader.readToolClasses(stream, options_, report)) :
+      previous.getAllToolClasses();
+
+    Curves curves = changedFiles.contains(CURVES_FILE) ?
+      read(CURVES_FILE, reports, (stream, report) -> JsonReader.readCurves(stream, options_, report)) :
+      previous.getAllCurves();
+
+    //
+    // The tools of the previous model are shared with its readers and can't
+    // be re-linked in place, so tools are re-parsed whenever links must be
+    // rebuilt.
+    //
+    boolean isLinksChanged = changedFiles.contains(TOOLS_FILE) ||
+                             changedFiles.contains(CURVES_FILE) ||
+                             changedFiles.contains(CURVES_BY_TOOL_FILE);
+
+    Tools tools;
+    if (isLinksChanged) {
+      Tools newTools = read(TOOLS_FILE, reports, (stream, report) -> JsonReader.readTools(stream, options_, report));
+
+      // The mapping is optional, as when loading. Its reappearance triggers a new reload.
+      try {
+        read(CURVES_BY_TOOL_FILE, reports, (stream, report) -> {
+            JsonReader.readCurvesByTool(stream, newTools, curves, options_, report);
+            return null;
+          });
+      }
+      catch (FileNotFoundException exception) {
+        logger_.log(Level.WARNING, "Unable to read curves by tool. Continue without: " + new File(folder_, CURVES_BY_TOOL_FILE), exception);
+        reports.remove(CURVES_BY_TOOL_FILE);
+      }
+
+      tools = newTools;
+    }
+    else {
+      tools = previous.getAllTools();
+    }
+
+    LoadReport loadReport = new LoadReport();
+    for (LoadReport report : reports.values())
+      loadReport.add(report);
+
+    Pwls pwls = new Pwls(properties, companies, loggingMethods, toolClasses, tools, curves, loadReport);
+
+    reports_ = reports;
+    return pwls;
+  }
+
+  /**
+   * Stop watching the folder. The current snapshot stays available.
+   */
+  @Override
+  public void close()
+  {
+    try {
+      watchService_.close();
+    }
+    catch (IOException exception) {
+      logger_.log(Level.WARNING, "Unable to close watch service", exception);
+    }
+
+    thread_.interrupt();
+    reloadablePwls_.close();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    return "PWLS folder watcher: " + folder_;
+  }
+}
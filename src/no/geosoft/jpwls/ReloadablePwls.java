@@ -0,0 +1,390 @@
+package no.geosoft.jpwls;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A handle to a PWLS model that can be reloaded while in use.
+ * <p>
+ * Each reload builds a complete new {@link Pwls} instance on the side and
+ * publishes it with a single atomic reference swap. Readers never block and
+ * never see a partially built model. A reader that needs a consistent view
+ * across several calls should get the current snapshot once and use it
+ * for the duration of the operation:
+ * <pre>
+ *   ReloadablePwls reloadablePwls = new ReloadablePwls(() -&gt; new Pwls(snapshotFile));
+ *   reloadablePwls.start(10, TimeUnit.MINUTES);
+ *   :
+ *   Pwls pwls = reloadablePwls.get(); // Pinned for this query
+ *   Set&lt;Tool&gt; tools = pwls.getTools(null, 440, null, null, null);
+ * </pre>
+ * If a reload fails, the current snapshot is kept.
+ * <p>
+ * A reloaded model is compared with the current snapshot, first by
+ * {@link Pwls#getContentHash content hash} and then, if different,
+ * {@link PwlsDiff entity by entity}.
+ * If nothing has changed the current snapshot is kept, otherwise the
+ * published snapshot shares every unchanged entity with the current one
+ * and listeners are told exactly what changed.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class ReloadablePwls
+  implements AutoCloseable
+{
+  /** The logger instance. */
+  private static final Logger logger_ = Logger.getLogger(ReloadablePwls.class.getName());
+
+  /**
+   * Loader of complete PWLS models.
+   */
+  public interface Loader
+  {
+    /**
+     * Load a complete PWLS model.
+     *
+     * @return  The model loaded. Never null.
+     * @throws IOException  If the model cannot be loaded. The current
+     *                      snapshot is then kept.
+     */
+    Pwls load()
+      throws IOException;
+  }
+
+  /**
+   * A published PWLS model and its version. Taking both from the
+   * same snapshot guarantees that the version is that of the model.
+   */
+  public static final class Snapshot
+  {
+    /** The PWLS model. Non-null. */
+    private final Pwls pwls_;
+
+    /** Version of the model. Increases by one for each publish. */
+    private final long version_;
+
+    /**
+     * Create a snapshot.
+     *
+     * @param pwls     The PWLS model. Non-null.
+     * @param version  Version of the model.
+     */
+    private Snapshot(Pwls pwls, long version)
+    {
+      assert pwls != null : "pwls cannot be null";
+
+      pwls_ = pwls;
+      version_ = version;
+    }
+
+    /**
+     * Return the PWLS model of this snapshot.
+     *
+     * @return  The PWLS model of this snapshot. Never null.
+     */
+    public Pwls getPwls()
+    {
+      return pwls_;
+    }
+
+    /**
+     * Return the version of this snapshot.
+     *
+     * @return  Version of this snapshot.
+     */
+    public long getVersion()
+    {
+      return version_;
+    }
+  }
+
+  /** The loader of new models. Non-null. */
+  private final Loader loader_;
+
+  /** The current snapshot. Non-null. */
+  private final AtomicReference<Snapshot> snapshot_;
+
+  /** Listeners of published snapshots. */
+  private final List<PwlsChangeListener> listeners_ = new CopyOnWriteArrayList<>();
+
+  /** Lock that serializes reloads. Readers never take it. */
+  private final Object reloadLock_ = new Object();
+
+  /** Executor of background reloads. */
+  private final ScheduledExecutorService executor_;
+
+  /** Periodic reload task. Null if not started. */
+  private ScheduledFuture<?> periodicReload_;
+
+  /**
+   * Create a reloadable PWLS model with the specified initial model.
+   *
+   * @param pwls    Initial PWLS model. Non-null.
+   * @param loader  Loader of new models. Non-null.
+   * @throws IllegalArgumentException  If pwls or loader is null.
+   */
+  public ReloadablePwls(Pwls pwls, Loader loader)
+  {
+    if (pwls == null)
+      throw new IllegalArgumentException("pwls cannot be null");
+
+    if (loader == null)
+      throw new IllegalArgumentException("loader cannot be null");
+
+    loader_ = loader;
+    snapshot_ = new AtomicReference<>(new Snapshot(pwls, 1));
+
+    executor_ = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jpwls-reloader");
+        thread.setDaemon(true);
+        return thread;
+      });
+  }
+
+  /**
+   * Create a reloadable PWLS model, loading the initial model
+   * from the specified loader.
+   *
+   * @param loader  Loader of models. Non-null.
+   * @throws IllegalArgumentException  If loader is null.
+   * @throws IOException  If the initial model cannot be loaded.
+   */
+  public ReloadablePwls(Loader loader)
+    throws IOException
+  {
+    this(load(loader), loader);
+  }
+
+  /**
+   * Load a model from the specified loader.
+   *
+   * @param loader  Loader to load from. Non-null.
+   * @return        The model loaded. Never null.
+   * @throws IllegalArgumentException  If loader is null.
+   * @throws IOException  If the load fails.
+   */
+  private static Pwls load(Loader loader)
+    throws IOException
+  {
+    if (loader == null)
+      throw new IllegalArgumentException("loader cannot be null");
+
+    Pwls pwls = loader.load();
+    if (pwls == null)
+      throw new IOException("Loader returned null");
+
+    return pwls;
+  }
+
+  /**
+   * Return the current PWLS snapshot.
+   * <p>
+   * The returned instance is immutable and stays valid after later
+   * reloads, so it can be used for the full duration of a query.
+   *
+   * @return  The current PWLS snapshot. Never null.
+   */
+  public Pwls get()
+  {
+    return snapshot_.get().getPwls();
+  }
+
+  /**
+   * Return the version of the current snapshot. The initial snapshot has
+   * version 1 and the version increases by one for each publish.
+   *
+   * @return  Version of the current snapshot.
+   */
+  public long getVersion()
+  {
+    return snapshot_.get().getVersion();
+  }
+
+  /**
+   * Return the current snapshot, i.e. the current model together with
+   * its version. Use this rather than {@link #get} and {@link #getVersion}
+   * when both are needed, as a reload may happen between the two calls.
+   *
+   * @return  The current snapshot. Never null.
+   */
+  public Snapshot getSnapshot()
+  {
+    return snapshot_.get();
+  }
+
+  /**
+   * Add a listener of published snapshots.
+   *
+   * @param listener  Listener to add. Non-null.
+   * @throws IllegalArgumentException  If listener is null.
+   */
+  public void addChangeListener(PwlsChangeListener listener)
+  {
+    if (listener == null)
+      throw new IllegalArgumentException("listener cannot be null");
+
+    listeners_.add(listener);
+  }
+
+  /**
+   * Remove a listener of published snapshots.
+   *
+   * @param listener  Listener to remove. Null is ignored.
+   */
+  public void removeChangeListener(PwlsChangeListener listener)
+  {
+    listeners_.remove(listener);
+  }
+
+  /**
+   * Publish the specified model as the current snapshot and notify listeners.
+   * Must be called with the reload lock held.
+   *
+   * @param pwls  Model to publish. Non-null.
+   * @param diff  Difference from the current snapshot. Non-null.
+   * @return      The published snapshot. Never null.
+   */
+  private Snapshot publish(Pwls pwls, PwlsDiff diff)
+  {
+    assert pwls != null : "pwls cannot be null";
+    assert diff != null : "diff cannot be null";
+    assert Thread.holdsLock(reloadLock_);
+
+    Snapshot previous = snapshot_.get();
+    Snapshot current = new Snapshot(pwls, previous.getVersion() + 1);
+    snapshot_.set(current);
+
+    logger_.log(Level.INFO, "Published PWLS snapshot version " + current.getVersion() + ", " + diff.size() + " changes");
+
+    PwlsChangeEvent event = new PwlsChangeEvent(previous.getPwls(), current.getPwls(), current.getVersion(), diff);
+    for (PwlsChangeListener listener : listeners_) {
+      try {
+        listener.pwlsChanged(event);
+      }
+      catch (RuntimeException exception) {
+        logger_.log(Level.WARNING, "Change listener failed: " + listener, exception);
+      }
+    }
+
+    return current;
+  }
+
+  /**
+   * Reload the model on the calling thread and publish it
+   * unless it is unchanged.
+   *
+   * @return  The new current snapshot. Never null.
+   * @throws IOException  If the reload fails. The current snapshot is then kept.
+   */
+  public Pwls reload()
+    throws IOException
+  {
+    synchronized (reloadLock_) {
+      Pwls pwls = load(loader_);
+
+      Pwls current = get();
+
+      // Constant time check of the common case of nothing changed
+      if (pwls.getContentHash() == current.getContentHash()) {
+        logger_.log(Level.FINE, "No changes. Keeping snapshot version " + getVersion());
+        return current;
+      }
+
+      PwlsDiff diff = new PwlsDiff(current, pwls);
+      if (diff.isEmpty()) {
+        logger_.log(Level.FINE, "No changes. Keeping snapshot version " + getVersion());
+        return current;
+      }
+
+      return publish(diff.patch(), diff).getPwls();
+    }
+  }
+
+  /**
+   * Reload the model on the background thread and publish it.
+   *
+   * @return  Future of the new current snapshot. Never null. Completes
+   *          exceptionally if the reload fails.
+   */
+  public CompletableFuture<Pwls> reloadAsync()
+  {
+    CompletableFuture<Pwls> future = new CompletableFuture<>();
+    executor_.execute(() -> {
+        try {
+          future.complete(reload());
+        }
+        catch (IOException | RuntimeException exception) {
+          logger_.log(Level.WARNING, "Reload failed. Keeping snapshot version " + getVersion(), exception);
+          future.completeExceptionally(exception);
+        }
+      });
+
+    return future;
+  }
+
+  /**
+   * Start reloading the model periodically on the background thread.
+   * Any previous schedule is replaced.
+   *
+   * @param interval  Interval between reloads. [1,&gt;.
+   * @param unit      Unit of interval. Non-null.
+   * @throws IllegalArgumentException  If interval is not positive or unit is null.
+   */
+  public synchronized void start(long interval, TimeUnit unit)
+  {
+    if (interval <= 0)
+      throw new IllegalArgumentException("Invalid interval: " + interval);
+
+    if (unit == null)
+      throw new IllegalArgumentException("unit cannot be null");
+
+    stop();
+
+    periodicReload_ = executor_.scheduleWithFixedDelay(() -> {
+        try {
+          reload();
+        }
+        catch (IOException | RuntimeException exception) {
+          logger_.log(Level.WARNING, "Reload failed. Keeping snapshot version " + getVersion(), exception);
+        }
+      }, interval, interval, unit);
+  }
+
+  /**
+   * Stop periodic reloading. A reload in progress is completed.
+   */
+  public synchronized void stop()
+  {
+    if (periodicReload_ != null) {
+      periodicReload_.cancel(false);
+      periodicReload_ = null;
+    }
+  }
+
+  /**
+   * Stop periodic reloading and release the background thread.
+   * The current snapshot stays available.
+   */
+  @Override
+  public void close()
+  {
+    stop();
+    executor_.shutdown();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    return "Reloadable PWLS, snapshot version " + getVersion();
+  }
+}
@@ -0,0 +1,403 @@
+package no.geosoft.jpwls;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import no.geosoft.jpwls.json.Projection;
+
+/**
+ * Bounded cache of complete query responses.
+ * <p>
+ * Most traffic is a handful of recurring queries, each of which would
+ * otherwise filter and serialize the model from scratch. Responses are
+ * cached by the normalized query, i.e. the path and the parameters in
+ * sorted order, together with the snapshot version they were computed from.
+ * The model and its version must be taken from the same snapshot:
+ * <pre>
+ *   ResponseCache responseCache = new ResponseCache(64 * 1024 * 1024);
+ *   reloadablePwls.addChangeListener(responseCache);
+ *   :
+ *   ReloadablePwls.Snapshot snapshot = reloadablePwls.getSnapshot();
+ *   Pwls pwls = snapshot.getPwls();
+ *   responseCache.write("tools", parameters, snapshot.getVersion(),
+ *                       stream -&gt; JsonWriter.writeTools(stream, pwls.getTools(...)),
+ *                       responseStream);
+ * </pre>
+ * The cache is bounded by the total size of the responses, and the least
+ * recently used responses are evicted first. Responses larger than the
+ * capacity are never cached. The cache is cleared when a new snapshot is
+ * published.
+ * <p>
+ * Instances are thread safe.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class ResponseCache
+  implements PwlsChangeListener
+{
+  /**
+   * Producer of a response not in the cache.
+   */
+  public interface Producer
+  {
+    /**
+     * Write the response to the specified stream.
+     *
+     * @param stream  Stream to write to. Non-null.
+     * @throws IOException  If the response cannot be produced.
+     */
+    void produce(OutputStream stream)
+      throws IOException;
+  }
+
+  /** Name of the parameter selecting the members of the response. */
+  private static final String FIELDS = "fields";
+
+  /** Maximum total size of the cached responses, in bytes. */
+  private final long capacity_;
+
+  /** Responses by key, in least recently used order. Non-null. */
+  private final LinkedHashMap<String,byte[]> responses_ = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** Total size of the cached responses, in bytes. */
+  private long nBytes_;
+
+  /** Number of lookups served from the cache. */
+  private long nHits_;
+
+  /** Number of lookups not served from the cache. */
+  private long nMisses_;
+
+  /** Number of responses evicted to make room for others. */
+  private long nEvictions_;
+
+  /**
+   * Create a response cache of the specified capacity.
+   *
+   * @param capacity  Maximum total size of the cached responses, in bytes. [0,&gt;.
+   * @throws IllegalArgumentException  If capacity is negative.
+   */
+  public ResponseCache(long capacity)
+  {
+    if (capacity < 0)
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+
+    capacity_ = capacity;
+  }
+
+  /**
+   * Return the normalized cache key of the specified query.
+   * The key is independent of the order of the parameters, and
+   * parameters with a null value are ignored. The <em>fields</em>
+   * parameter is normalized as a {@link Projection}, so that
+   * equivalent member lists share the same key.
+   *
+   * @param path        Path of query, like "tools". Non-null.
+   * @param parameters  Query parameters. Null if none.
+   * @param version     Version of the snapshot the query is made against.
+   * @return            The normalized cache key. Never null.
+   * @throws IllegalArgumentException  If path is null.
+   */
+  public static String getKey(String path, Map<String,String> parameters, long version)
+  {
+    if (path == null)
+      throw new IllegalArgumentException("path cannot be null");
+
+    StringBuilder key = new StringBuilder();
+    key.append(version);
+    key.append(':');
+    key.append(path);
+
+    if (parameters != null) {
+      char separator = '?';
+      for (Map.Entry<String,String> entry : new TreeMap<>(parameters).entrySet()) {
+        String value = entry.getValue();
+        if (value == null)
+          continue;
+
+        // All members is the same as no projection
+        if (FIELDS.equals(entry.getKey())) {
+          value = Projection.parse(value).toString();
+          if (value.equals(Projection.ALL.toString()))
+            continue;
+        }
+
+        key.append(separator);
+        key.append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8));
+        key.append('=');
+        key.append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+        separator = '&';
+      }
+    }
+
+    return key.toString();
+  }
+
+  /**
+   * Return the cached response of the specified query, without copying it.
+   *
+   * @param path        Path of query, like "tools". Non-null.
+   * @param parameters  Query parameters. Null if none.
+   * @param version     Version of the snapshot the query is made against.
+   * @return            The cached response, or null if not cached.
+   * @throws IllegalArgumentException  If path is null.
+   */
+  private byte[] find(String path, Map<String,String> parameters, long version)
+  {
+    String key = getKey(path, parameters, version);
+
+    synchronized (this) {
+      byte[] response = responses_.get(key);
+      if (response != null)
+        nHits_++;
+      else
+        nMisses_++;
+
+      return response;
+    }
+  }
+
+  /**
+   * Return the response of the specified query, producing and caching
+   * it if not already cached. The cached response is not copied.
+   *
+   * @param path        Path of query, like "tools". Non-null.
+   * @param parameters  Query parameters. Null if none.
+   * @param version     Version of the snapshot the query is made against.
+   * @param producer    Producer of the response if not cached. Non-null.
+   * @return            The response. Never null.
+   * @throws IllegalArgumentException  If path or producer is null.
+   * @throws IOException  If the producer fails.
+   */
+  private byte[] find(String path, Map<String,String> parameters, long version, Producer producer)
+    throws IOException
+  {
+    if (producer == null)
+      throw new IllegalArgumentException("producer cannot be null");
+
+    byte[] response = find(path, parameters, version);
+    if (response != null)
+      return response;
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    producer.produce(stream);
+    response = stream.toByteArray();
+
+    store(getKey(path, parameters, version), response);
+
+    return response;
+  }
+
+  /**
+   * Return the cached response of the specified query.
+   *
+   * @param path        Path of query, like "tools". Non-null.
+   * @param parameters  Query parameters. Null if none.
+   * @param version     Version of the snapshot the query is made against.
+   * @return            A copy of the cached response, or null if not cached.
+   * @throws IllegalArgumentException  If path is null.
+   */
+  public byte[] get(String path, Map<String,String> parameters, long version)
+  {
+    byte[] response = find(path, parameters, version);
+    return response != null ? response.clone() : null;
+  }
+
+  /**
+   * Return the response of the specified query, producing and caching
+   * it if not already cached.
+   * <p>
+   * The producer is called without holding any lock, so concurrent misses
+   * of the same query may produce the response more than once.
+   *
+   * @param path        Path of query, like "tools". Non-null.
+   * @param parameters  Query parameters. Null if none.
+   * @param version     Version of the snapshot the query is made against.
+   * @param producer    Producer of the response if not cached. Non-null.
+   * @return            A copy of the response. Never null.
+   * @throws IllegalArgumentException  If path or producer is null.
+   * @throws IOException  If the producer fails.
+   */
+  public byte[] get(String path, Map<String,String> parameters, long version, Producer producer)
+    throws IOException
+  {
+    return find(path, parameters, version, producer).clone();
+  }
+
+  /**
+   * Write the response of the specified query to the given stream,
+   * producing and caching it if not already cached. Unlike
+   * {@link #get(String,Map,long,Producer)} the response is not copied.
+   * <p>
+   * The producer is called without holding any lock, so concurrent misses
+   * of the same query may produce the response more than once.
+   *
+   * @param path        Path of query, like "tools". Non-null.
+   * @param parameters  Query parameters. Null if none.
+   * @param version     Version of the snapshot the query is made against.
+   * @param producer    Producer of the response if not cached. Non-null.
+   * @param stream      Stream to write the response to. Non-null.
+   * @throws IllegalArgumentException  If path, producer or stream is null.
+   * @throws IOException  If the producer or the write operation fails.
+   */
+  public void write(String path, Map<String,String> parameters, long version, Producer producer, OutputStream stream)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    stream.write(find(path, parameters, version, producer));
+  }
+
+  /**
+   * Cache the response of the specified query, evicting the least
+   * recently used responses as needed to stay within the capacity.
+   *
+   * @param path        Path of query, like "tools". Non-null.
+   * @param parameters  Query parameters. Null if none.
+   * @param version     Version of the snapshot the response is computed from.
+   * @param response    Response to cache. Non-null. It is copied.
+   * @throws IllegalArgumentException  If path or response is null.
+   */
+  public void put(String path, Map<String,String> parameters, long version, byte[] response)
+  {
+    if (response == null)
+      throw new IllegalArgumentException("response cannot be null");
+
+    store(getKey(path, parameters, version), response.clone());
+  }
+
+  /**
+   * Cache the specified response, evicting the least recently used
+   * responses as needed to stay within the capacity.
+   *
+   * @param key       Normalized key of query. Non-null.
+   * @param response  Response to cache. Non-null. Owned by the cache.
+   */
+  private void store(String key, byte[] response)
+  {
+    assert key != null : "key cannot be null";
+    assert response != null : "response cannot be null";
+
+    synchronized (this) {
+      byte[] previous = responses_.remove(key);
+      if (previous != null)
+        nBytes_ -= previous.length;
+
+      // A response that doesn't fit would only flush the cache
+      if (response.length > capacity_)
+        return;
+
+      responses_.put(key, response);
+      nBytes_ += response.length;
+
+      Iterator<byte[]> iterator = responses_.values().iterator();
+      while (nBytes_ > capacity_ && iterator.hasNext()) {
+        byte[] eldest = iterator.next();
+        if (eldest == response)
+          continue;
+
+        iterator.remove();
+        nBytes_ -= eldest.length;
+        nEvictions_++;
+      }
+    }
+  }
+
+  /**
+   * Return the capacity of this cache.
+   *
+   * @return  Maximum total size of the cached responses, in bytes. [0,&gt;.
+   */
+  public long getCapacity()
+  {
+    return capacity_;
+  }
+
+  /**
+   * Return the number of responses currently cached.
+   *
+   * @return  Number of responses cached. [0,&gt;.
+   */
+  public synchronized int size()
+  {
+    return responses_.size();
+  }
+
+  /**
+   * Return the total size of the responses currently cached.
+   *
+   * @return  Total size of the cached responses, in bytes. [0,&gt;.
+   */
+  public synchronized long getNBytes()
+  {
+    return nBytes_;
+  }
+
+  /**
+   * Return the number of lookups served from this cache.
+   *
+   * @return  Number of cache hits. [0,&gt;.
+   */
+  public synchronized long getNHits()
+  {
+    return nHits_;
+  }
+
+  /**
+   * Return the number of lookups not served from this cache.
+   *
+   * @return  Number of cache misses. [0,&gt;.
+   */
+  public synchronized long getNMisses()
+  {
+    return nMisses_;
+  }
+
+  /**
+   * Return the number of responses evicted to make room for others.
+   * Responses removed by {@link #clear} are not counted.
+   *
+   * @return  Number of evictions. [0,&gt;.
+   */
+  public synchronized long getNEvictions()
+  {
+    return nEvictions_;
+  }
+
+  /**
+   * Remove all cached responses. The counters are kept.
+   */
+  public synchronized void clear()
+  {
+    responses_.clear();
+    nBytes_ = 0;
+  }
+
+  /**
+   * Clear the cache when a new snapshot is published, as the
+   * cached responses are of the previous one.
+   *
+   * @param event  Event describing the change. Non-null.
+   */
+  @Override
+  public void pwlsChanged(PwlsChangeEvent event)
+  {
+    clear();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public synchronized String toString()
+  {
+    return "ResponseCache[" + responses_.size() + " responses, " + nBytes_ + "/" + capacity_ + " bytes, " +
+           nHits_ + " hits, " + nMisses_ + " misses, " + nEvictions_ + " evictions]";
+  }
+}
@@ -3,6 +3,7 @@ package no.geosoft.jpwls;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Model a PWLS <em>tool</em>.
@@ -11,33 +12,49 @@ import java.util.Set;
  */
 public final class Tool
 {
+  /**
+   * Number of curve associations made to tracked tools, so that a
+   * {@link Tools} instance can tell if anything it has derived from
+   * the curves of its tools is out of date.
+   */
+  private static final AtomicLong linkModCount_ = new AtomicLong();
+
   /** Tool code, i.e. its name. Non-null. */
-  private final String toolCode_;
+  private final CharSequence toolCode_;
 
   /** Company code of this tool. */
   private final int companyCode_;
 
   /** Tool group. Null if none or N/A. */
-  private final String group_;
+  private final CharSequence group_;
 
   /** Tool marketing name. Null if none. */
-  private final String marketingName_;
+  private final CharSequence marketingName_;
 
   /** Tool description. Null if none provided. */
-  private final String description_;
+  private final CharSequence description_;
 
   /** The generic type of this tool. Null if N/A. */
-  private final String genericType_;
+  private final CharSequence genericType_;
 
   /** The logging methods of this tool. Null if N/A. */
-  private final String loggingMethod_;
+  private final CharSequence loggingMethod_;
 
   /** Description of the type of this tool. Null if N/A. */
-  private final String typeDescription_;
+  private final CharSequence typeDescription_;
 
   /** The curves associated with this tool. */
   private final Set<Curve> curves_ = new HashSet<>();
 
+  /** Content hash of this tool, without curves. 0 if not yet computed. */
+  private volatile long contentHash_;
+
+  /** Content hash of the curves of this tool. 0 if not yet computed. */
+  private volatile long curvesHash_;
+
+  /** True if state derived from the curves of this tool is held by a {@link Tools} instance. */
+  private volatile boolean isTracked_;
+
   /**
    * Create a new tool instance.
    *
@@ -59,6 +76,41 @@ public final class Tool
               String genericType,
               String loggingMethod,
               String typeDescription)
+  {
+    this((CharSequence) toolCode,
+         companyCode,
+         (CharSequence) group,
+         (CharSequence) marketingName,
+         (CharSequence) description,
+         (CharSequence) genericType,
+         (CharSequence) loggingMethod,
+         (CharSequence) typeDescription);
+  }
+
+  /**
+   * Create a new tool instance.
+   * <p>
+   * Text arguments may be {@link no.geosoft.jpwls.util.Utf8Text} instances
+   * in which case they are decoded whenever accessed.
+   *
+   * @param toolCode         Tool code. Non-null.
+   * @param companyCode      Code of company of tool.
+   * @param group            Tool group. Null if none or N/A.
+   * @param marketingName    Tool marketing name. Null if none.
+   * @param description      Tool description. Null if none provided.
+   * @param genericType      Generic type of this tool. Null if N/A.
+   * @param loggingMethod    Logging method of this tool. Null if N/A.
+   * @param typeDescription  Description of the type of this tool. Null if N/A.
+   * @throws IllegalArgumentException  If toolCode is null.
+   */
+  public Tool(CharSequence toolCode,
+              int companyCode,
+              CharSequence group,
+              CharSequence marketingName,
+              CharSequence description,
+              CharSequence genericType,
+              CharSequence loggingMethod,
+              CharSequence typeDescription)
   {
     if (toolCode == null)
       throw new IllegalArgumentException("toolCode cannot be null");
@@ -73,6 +125,18 @@ public final class Tool
     typeDescription_ = typeDescription;
   }
 
+  /**
+   * Return a copy of this tool without any associated curves.
+   * The text of this tool is shared with the copy.
+   *
+   * @return  Copy of this tool. Never null.
+   */
+  Tool copy()
+  {
+    return new Tool(toolCode_, companyCode_, group_, marketingName_, description_,
+                    genericType_, loggingMethod_, typeDescription_);
+  }
+
   /**
    * Associate the specified curve with this tool.
    *
@@ -84,7 +148,33 @@ public final class Tool
     if (curve == null)
       throw new IllegalArgumentException("curve cannot be null");
 
-    curves_.add(curve);
+    if (curves_.add(curve)) {
+      curvesHash_ = 0L;
+      if (isTracked_)
+        linkModCount_.incrementAndGet();
+    }
+  }
+
+  /**
+   * Mark this tool as tracked, i.e. that a {@link Tools} instance holds
+   * state derived from its curves. Later curve associations are then
+   * counted by {@link #getLinkModCount}.
+   */
+  void track()
+  {
+    isTracked_ = true;
+  }
+
+  /**
+   * Return the number of curve associations made to tracked tools so far.
+   * State derived from the curves of tracked tools is up to date as long
+   * as this number is unchanged since it was derived.
+   *
+   * @return  Number of curve associations made to tracked tools. [0,&gt;.
+   */
+  static long getLinkModCount()
+  {
+    return linkModCount_.get();
   }
 
   /**
@@ -94,7 +184,7 @@ public final class Tool
    */
   public String getToolCode()
   {
-    return toolCode_;
+    return toolCode_.toString();
   }
 
   /**
@@ -114,7 +204,7 @@ public final class Tool
    */
   public String getGroup()
   {
-    return group_;
+    return group_ != null ? group_.toString() : null;
   }
 
   /**
@@ -124,7 +214,7 @@ public final class Tool
    */
   public String getMarketingName()
   {
-    return marketingName_;
+    return marketingName_ != null ? marketingName_.toString() : null;
   }
 
   /**
@@ -133,6 +223,16 @@ public final class Tool
    * @return  Description of this tool. Null if none provided.
    */
   public String getDescription()
+  {
+    return description_ != null ? description_.toString() : null;
+  }
+
+  /**
+   * Return the description of this tool as stored, without decoding it.
+   *
+   * @return  The stored description of this tool. Null if none provided.
+   */
+  CharSequence getDescriptionText()
   {
     return description_;
   }
@@ -144,7 +244,7 @@ public final class Tool
    */
   public String getGenericType()
   {
-    return genericType_;
+    return genericType_ != null ? genericType_.toString() : null;
   }
 
   /**
@@ -154,7 +254,7 @@ public final class Tool
    */
   public String getLoggingMethod()
   {
-    return loggingMethod_;
+    return loggingMethod_ != null ? loggingMethod_.toString() : null;
   }
 
   /**
@@ -164,7 +264,7 @@ public final class Tool
    */
   public String getTypeDescription()
   {
-    return typeDescription_;
+    return typeDescription_ != null ? typeDescription_.toString() : null;
   }
 
   /**
@@ -177,6 +277,40 @@ public final class Tool
     return Collections.unmodifiableSet(curves_);
   }
 
+  /**
+   * Return the content hash of this tool, without its curves, computing it on first call.
+   *
+   * @return  Content hash of this tool, without its curves.
+   * @see ContentHash#of(Tool)
+   */
+  long getContentHash()
+  {
+    long contentHash = contentHash_;
+    if (contentHash == 0L) {
+      contentHash = ContentHash.compute(this);
+      contentHash_ = contentHash;
+    }
+
+    return contentHash;
+  }
+
+  /**
+   * Return the content hash of the curves of this tool, computing it on first call.
+   *
+   * @return  Content hash of the curves of this tool.
+   * @see ContentHash#ofCurves
+   */
+  long getCurvesHash()
+  {
+    long contentHash = curvesHash_;
+    if (contentHash == 0L) {
+      contentHash = ContentHash.computeCurves(this);
+      curvesHash_ = contentHash;
+    }
+
+    return contentHash;
+  }
+
   /** {@inheritDoc} */
   @Override
   public String toString()
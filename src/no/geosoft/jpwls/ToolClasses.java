@@ -14,6 +14,9 @@ public final class ToolClasses
   /** All tool classes defined by the PWLS standard. */
   private final Set<ToolClass> toolClasses_ = new HashSet<>();
 
+  /** Content hash of this instance. Null if not yet computed. */
+  private volatile Long contentHash_;
+
   /**
    * Create an empty tool classes instance.
    */
@@ -22,6 +25,20 @@ public final class ToolClasses
     // Nothing
   }
 
+  /**
+   * Create a tool classes instance holding the same tool classes as the specified one.
+   *
+   * @param toolClasses  Instance to copy. Non-null.
+   * @throws IllegalArgumentException  If toolClasses is null.
+   */
+  public ToolClasses(ToolClasses toolClasses)
+  {
+    if (toolClasses == null)
+      throw new IllegalArgumentException("toolClasses cannot be null");
+
+    toolClasses_.addAll(toolClasses.toolClasses_);
+  }
+
   /**
    * Add the specified tool class to this instance.
    *
@@ -33,9 +50,27 @@ public final class ToolClasses
     if (toolClass == null)
       throw new IllegalArgumentException("toolClass cannot be null");
 
+    contentHash_ = null;
+
     toolClasses_.add(toolClass);
   }
 
+  /**
+   * Remove the specified tool class from this instance.
+   *
+   * @param toolClass  Tool class to remove. Non-null.
+   * @throws IllegalArgumentException  If toolClass is null.
+   */
+  public void remove(ToolClass toolClass)
+  {
+    if (toolClass == null)
+      throw new IllegalArgumentException("toolClass cannot be null");
+
+    contentHash_ = null;
+
+    toolClasses_.remove(toolClass);
+  }
+
   /**
    * Return all the tool classes of this instance.
    *
@@ -46,6 +81,25 @@ public final class ToolClasses
     return Collections.unmodifiableSet(toolClasses_);
   }
 
+  /**
+   * Return the content hash of this instance, independent of the
+   * iteration order. The hash is computed on first call and cached
+   * until the instance is modified through {@link #add} or {@link #remove}.
+   *
+   * @return  Content hash of this instance.
+   * @see ContentHash#toETag
+   */
+  public long getContentHash()
+  {
+    Long contentHash = contentHash_;
+    if (contentHash == null) {
+      contentHash = ContentHash.of(toolClasses_, ContentHash::of);
+      contentHash_ = contentHash;
+    }
+
+    return contentHash;
+  }
+
   /**
    * Find tool class of the specified name.
    *
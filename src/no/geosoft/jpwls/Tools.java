@@ -1,9 +1,8 @@
 package no.geosoft.jpwls;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.AbstractSet;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -14,10 +13,44 @@ import java.util.Set;
 public final class Tools
 {
   /** All the tools managed by this instance. */
-  private final Set<Tool> tools_ = new HashSet<>();
+  private PersistentMap<Tool,Tool> tools_ = PersistentMap.empty();
+
+  /** Sum of the spread content hashes of the tools. Null if not yet computed. */
+  private volatile Long hashSum_;
+
+  /** Tool link modification count when hashSum_ was computed. */
+  private volatile long hashLinkModCount_;
 
   /** Tools by toolCode/company code. Cached for performance. */
-  private final Map<String,Tool> toolsByCode_ = new HashMap<>();
+  private PersistentMap<String,Tool> toolsByCode_ = PersistentMap.empty();
+
+  /** Tools by associated curve. Null if not yet built. */
+  private volatile PersistentMap<Curve,PersistentMap<Tool,Tool>> toolsByCurve_;
+
+  /** Tool link modification count when toolsByCurve_ was built. */
+  private volatile long indexLinkModCount_;
+
+  /** All the tools of this instance, as a live view. */
+  private final Set<Tool> all_ = new AbstractSet<Tool>()
+  {
+    @Override
+    public Iterator<Tool> iterator()
+    {
+      return tools_.keyIterator();
+    }
+
+    @Override
+    public int size()
+    {
+      return tools_.size();
+    }
+
+    @Override
+    public boolean contains(Object object)
+    {
+      return object != null && tools_.get(object) != null;
+    }
+  };
 
   /**
    * Create an empty curves instance.
@@ -27,6 +60,93 @@ public final class Tools
     // Nothing
   }
 
+  /**
+   * Create a tools instance holding the same tools as the specified one.
+   * The two instances share their internal structure until either is
+   * modified, so the copy is made in constant time, and modifying it
+   * costs time proportional to the modification only.
+   *
+   * @param tools  Instance to copy. Non-null.
+   * @throws IllegalArgumentException  If tools is null.
+   */
+  public Tools(Tools tools)
+  {
+    if (tools == null)
+      throw new IllegalArgumentException("tools cannot be null");
+
+    tools_ = tools.tools_;
+    toolsByCode_ = tools.toolsByCode_;
+    hashSum_ = tools.hashSum_;
+    hashLinkModCount_ = tools.hashLinkModCount_;
+    toolsByCurve_ = tools.toolsByCurve_;
+    indexLinkModCount_ = tools.indexLinkModCount_;
+  }
+
+  /**
+   * Return the content hash of the specified tool including its curves,
+   * as contributed to the content hash of the instance.
+   *
+   * @param tool  Tool to hash. Non-null.
+   * @return      Content hash of tool and its curves.
+   */
+  private static long getContentHash(Tool tool)
+  {
+    assert tool != null : "tool cannot be null";
+
+    return new ContentHash()
+      .add(ContentHash.of(tool))
+      .add(ContentHash.ofCurves(tool))
+      .getValue();
+  }
+
+  /**
+   * Return the specified curve index with the given tool added.
+   *
+   * @param toolsByCurve  Index to add to. Non-null.
+   * @param tool          Tool to add. Non-null.
+   * @return              The new index. Never null.
+   */
+  private static PersistentMap<Curve,PersistentMap<Tool,Tool>> index(PersistentMap<Curve,PersistentMap<Tool,Tool>> toolsByCurve,
+                                                                     Tool tool)
+  {
+    assert toolsByCurve != null : "toolsByCurve cannot be null";
+    assert tool != null : "tool cannot be null";
+
+    tool.track();
+
+    for (Curve curve : tool.getCurves()) {
+      PersistentMap<Tool,Tool> tools = toolsByCurve.get(curve);
+      toolsByCurve = toolsByCurve.put(curve, (tools != null ? tools : PersistentMap.<Tool,Tool>empty()).put(tool, tool));
+    }
+
+    return toolsByCurve;
+  }
+
+  /**
+   * Return the specified curve index with the given tool removed.
+   *
+   * @param toolsByCurve  Index to remove from. Non-null.
+   * @param tool          Tool to remove. Non-null.
+   * @return              The new index. Never null.
+   */
+  private static PersistentMap<Curve,PersistentMap<Tool,Tool>> unindex(PersistentMap<Curve,PersistentMap<Tool,Tool>> toolsByCurve,
+                                                                       Tool tool)
+  {
+    assert toolsByCurve != null : "toolsByCurve cannot be null";
+    assert tool != null : "tool cannot be null";
+
+    for (Curve curve : tool.getCurves()) {
+      PersistentMap<Tool,Tool> tools = toolsByCurve.get(curve);
+      if (tools == null)
+        continue;
+
+      tools = tools.remove(tool);
+      toolsByCurve = tools.size() > 0 ? toolsByCurve.put(curve, tools) : toolsByCurve.remove(curve);
+    }
+
+    return toolsByCurve;
+  }
+
   /**
    * Add the specified tool to this instance.
    *
@@ -38,10 +158,54 @@ public final class Tools
     if (tool == null)
       throw new IllegalArgumentException("tool cannot be null");
 
-    tools_.add(tool);
+    PersistentMap<Tool,Tool> tools = tools_.put(tool, tool);
+    if (tools == tools_)
+      return;
+
+    tools_ = tools;
+
+    Long hashSum = hashSum_;
+    if (hashSum != null) {
+      tool.track();
+      hashSum_ = hashSum + ContentHash.spread(getContentHash(tool));
+    }
+
+    PersistentMap<Curve,PersistentMap<Tool,Tool>> toolsByCurve = toolsByCurve_;
+    if (toolsByCurve != null)
+      toolsByCurve_ = index(toolsByCurve, tool);
+
+    String key = tool.getToolCode() + tool.getCompanyCode();
+    toolsByCode_ = toolsByCode_.put(key, tool);
+  }
+
+  /**
+   * Remove the specified tool from this instance.
+   *
+   * @param tool  Tool to remove. Non-null.
+   * @throws IllegalArgumentException  If tool is null.
+   */
+  public void remove(Tool tool)
+  {
+    if (tool == null)
+      throw new IllegalArgumentException("tool cannot be null");
+
+    PersistentMap<Tool,Tool> tools = tools_.remove(tool);
+    if (tools == tools_)
+      return;
+
+    tools_ = tools;
+
+    Long hashSum = hashSum_;
+    if (hashSum != null)
+      hashSum_ = hashSum - ContentHash.spread(getContentHash(tool));
+
+    PersistentMap<Curve,PersistentMap<Tool,Tool>> toolsByCurve = toolsByCurve_;
+    if (toolsByCurve != null)
+      toolsByCurve_ = unindex(toolsByCurve, tool);
 
     String key = tool.getToolCode() + tool.getCompanyCode();
-    toolsByCode_.put(key, tool);
+    if (toolsByCode_.get(key) == tool)
+      toolsByCode_ = toolsByCode_.remove(key);
   }
 
   /**
@@ -51,7 +215,44 @@ public final class Tools
    */
   public Set<Tool> getAll()
   {
-    return Collections.unmodifiableSet(tools_);
+    return all_;
+  }
+
+  /**
+   * Return the content hash of this instance, independent of the
+   * iteration order. The curves associated with each tool are included,
+   * so the hash covers the curves by tool mapping as well.
+   * <p>
+   * The hash is computed on first call and then maintained through
+   * {@link #add} and {@link #remove}, so a modified copy of a hashed
+   * instance is not hashed again. If curves are associated with any
+   * hashed tool after that, the hash is computed anew on next call.
+   *
+   * @return  Content hash of this instance.
+   * @see ContentHash#toETag
+   */
+  public long getContentHash()
+  {
+    PersistentMap<Tool,Tool> tools = tools_;
+
+    Long hashSum = hashSum_;
+    if (hashSum == null || hashLinkModCount_ != Tool.getLinkModCount()) {
+      // Read before tracking, so that associations made while summing are caught next time
+      long linkModCount = Tool.getLinkModCount();
+
+      long sum = 0L;
+      for (Iterator<Tool> i = tools.keyIterator(); i.hasNext(); ) {
+        Tool tool = i.next();
+        tool.track();
+        sum += ContentHash.spread(getContentHash(tool));
+      }
+
+      hashSum = sum;
+      hashLinkModCount_ = linkModCount;
+      hashSum_ = hashSum;
+    }
+
+    return ContentHash.combine(tools.size(), hashSum);
   }
 
   /**
@@ -71,12 +272,51 @@ public final class Tools
     return toolsByCode_.get(key);
   }
 
+  /**
+   * Return the tools of this instance associated with the specified curve.
+   * <p>
+   * The curve index is built on first call and then maintained through
+   * {@link #add} and {@link #remove}, and shared with copies, so a lookup
+   * in a modified copy costs time proportional to the modification only.
+   * If curves are associated with any indexed tool after that, the index
+   * is built anew on next call.
+   *
+   * @param curve  Curve to find tools of. Non-null.
+   * @return       The tools associated with the curve. Never null.
+   */
+  Set<Tool> findByCurve(Curve curve)
+  {
+    assert curve != null : "curve cannot be null";
+
+    PersistentMap<Curve,PersistentMap<Tool,Tool>> toolsByCurve = toolsByCurve_;
+    if (toolsByCurve == null || indexLinkModCount_ != Tool.getLinkModCount()) {
+      // Read before tracking, so that associations made while indexing are caught next time
+      long linkModCount = Tool.getLinkModCount();
+
+      toolsByCurve = PersistentMap.empty();
+      for (Iterator<Tool> i = tools_.keyIterator(); i.hasNext(); )
+        toolsByCurve = index(toolsByCurve, i.next());
+
+      indexLinkModCount_ = linkModCount;
+      toolsByCurve_ = toolsByCurve;
+    }
+
+    Set<Tool> tools = new HashSet<>();
+    PersistentMap<Tool,Tool> curveTools = toolsByCurve.get(curve);
+    if (curveTools != null) {
+      for (Iterator<Tool> i = curveTools.keyIterator(); i.hasNext(); )
+        tools.add(i.next());
+    }
+
+    return tools;
+  }
+
   /** {@inheritDoc} */
   @Override
   public String toString()
   {
     StringBuilder s = new StringBuilder();
-    for (Tool tool : tools_)
+    for (Tool tool : all_)
       s.append(tool.toString() + "\n");
     return s.toString();
   }
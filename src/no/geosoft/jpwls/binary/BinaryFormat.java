@@ -0,0 +1,82 @@
+package no.geosoft.jpwls.binary;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The binary wire formats supported for PWLS entities.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public enum BinaryFormat
+{
+  /** Concise Binary Object Representation, RFC 8949. */
+  CBOR("application/cbor") {
+    @Override
+    Encoder createEncoder(OutputStream stream)
+    {
+      return new CborEncoder(stream);
+    }
+
+    @Override
+    Decoder createDecoder(InputStream stream)
+    {
+      return new CborDecoder(stream);
+    }
+  },
+
+  /** MessagePack, see msgpack.org. */
+  MESSAGE_PACK("application/msgpack") {
+    @Override
+    Encoder createEncoder(OutputStream stream)
+    {
+      return new MessagePackEncoder(stream);
+    }
+
+    @Override
+    Decoder createDecoder(InputStream stream)
+    {
+      return new MessagePackDecoder(stream);
+    }
+  };
+
+  /** MIME type of this format. Non-null. */
+  private final String mimeType_;
+
+  /**
+   * Create a binary format.
+   *
+   * @param mimeType  MIME type of format. Non-null.
+   */
+  private BinaryFormat(String mimeType)
+  {
+    assert mimeType != null : "mimeType cannot be null";
+    mimeType_ = mimeType;
+  }
+
+  /**
+   * Return the MIME type of this format, for content negotiation.
+   *
+   * @return  MIME type of this format. Never null.
+   */
+  public String getMimeType()
+  {
+    return mimeType_;
+  }
+
+  /**
+   * Create an encoder of this format writing to the specified stream.
+   *
+   * @param stream  Stream to write to. Non-null.
+   * @return        The encoder. Never null.
+   */
+  abstract Encoder createEncoder(OutputStream stream);
+
+  /**
+   * Create a decoder of this format reading from the specified stream.
+   *
+   * @param stream  Stream to read from. Non-null.
+   * @return        The decoder. Never null.
+   */
+  abstract Decoder createDecoder(InputStream stream);
+}
@@ -0,0 +1,411 @@
+package no.geosoft.jpwls.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import no.geosoft.jpwls.Companies;
+import no.geosoft.jpwls.Company;
+import no.geosoft.jpwls.Curve;
+import no.geosoft.jpwls.Curves;
+import no.geosoft.jpwls.LoggingMethod;
+import no.geosoft.jpwls.LoggingMethods;
+import no.geosoft.jpwls.Properties;
+import no.geosoft.jpwls.Property;
+import no.geosoft.jpwls.Tool;
+import no.geosoft.jpwls.ToolClass;
+import no.geosoft.jpwls.ToolClasses;
+import no.geosoft.jpwls.Tools;
+
+/**
+ * Class for reading PWLS instances written in a binary format by
+ * {@link BinaryWriter}.
+ * <p>
+ * Records are decoded one by one from the stream. As for JSON, members
+ * may come in any order, missing members get their default value and
+ * unknown members are skipped. Member names are matched against
+ * pre-encoded tables without creating strings.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ * @see BinaryWriter
+ */
+public final class BinaryReader
+{
+  /**
+   * Private constructor to prevent client instantiation.
+   */
+  private BinaryReader()
+  {
+    assert false : "This constructor should never be called";
+  }
+
+  /**
+   * Check the arguments common to the public read methods.
+   *
+   * @param stream  Stream argument. Non-null.
+   * @param format  Format argument. Non-null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   */
+  private static void checkArguments(InputStream stream, BinaryFormat format)
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (format == null)
+      throw new IllegalArgumentException("format cannot be null");
+  }
+
+  /**
+   * Read a curve record from the specified decoder.
+   *
+   * @param decoder  Decoder positioned at the record map. Non-null.
+   * @return         The curve read. Never null.
+   * @throws IOException  If the read operation fails or the record is malformed.
+   */
+  private static Curve readCurve(Decoder decoder)
+    throws IOException
+  {
+    assert decoder != null : "decoder cannot be null";
+
+    String mnemonic = null;
+    String shortMnemonic = null;
+    int companyCode = -1;
+    String property = null;
+    String quantity = null;
+    String description = null;
+
+    for (int i = decoder.readMapHeader(); i > 0; i--) {
+      switch (decoder.readKey(KeyTable.CURVE)) {
+        case 0  : mnemonic = decoder.readString(); break;
+        case 1  : shortMnemonic = decoder.readString(); break;
+        case 2  : companyCode = decoder.readInt(-1); break;
+        case 3  : property = decoder.readString(); break;
+        case 4  : quantity = decoder.readString(); break;
+        case 5  : description = decoder.readString(); break;
+        default : decoder.skipValue();
+      }
+    }
+
+    return new Curve(mnemonic,
+                     shortMnemonic,
+                     companyCode != -1 ? companyCode : null,
+                     property,
+                     quantity,
+                     description);
+  }
+
+  /**
+   * Read a tool record from the specified decoder.
+   *
+   * @param decoder  Decoder positioned at the record map. Non-null.
+   * @return         The tool read. Never null.
+   * @throws IOException  If the read operation fails or the record is malformed.
+   */
+  private static Tool readTool(Decoder decoder)
+    throws IOException
+  {
+    assert decoder != null : "decoder cannot be null";
+
+    String toolCode = null;
+    int companyCode = -1;
+    String group = null;
+    String marketingName = null;
+    String description = null;
+    String genericType = null;
+    String loggingMethod = null;
+    String typeDescription = null;
+
+    for (int i = decoder.readMapHeader(); i > 0; i--) {
+      switch (decoder.readKey(KeyTable.TOOL)) {
+        case 0  : toolCode = decoder.readString(); break;
+        case 1  : companyCode = decoder.readInt(-1); break;
+        case 2  : group = decoder.readString(); break;
+        case 3  : marketingName = decoder.readString(); break;
+        case 4  : description = decoder.readString(); break;
+        case 5  : genericType = decoder.readString(); break;
+        case 6  : loggingMethod = decoder.readString(); break;
+        case 7  : typeDescription = decoder.readString(); break;
+        default : decoder.skipValue();
+      }
+    }
+
+    return new Tool(toolCode,
+                    companyCode,
+                    group,
+                    marketingName,
+                    description,
+                    genericType,
+                    loggingMethod,
+                    typeDescription);
+  }
+
+  /**
+   * Read a company record from the specified decoder.
+   *
+   * @param decoder  Decoder positioned at the record map. Non-null.
+   * @return         The company read. Never null.
+   * @throws IOException  If the read operation fails, the record is malformed
+   *                      or has no company code.
+   */
+  private static Company readCompany(Decoder decoder)
+    throws IOException
+  {
+    assert decoder != null : "decoder cannot be null";
+
+    int companyCode = -1;
+    String name = null;
+
+    for (int i = decoder.readMapHeader(); i > 0; i--) {
+      switch (decoder.readKey(KeyTable.COMPANY)) {
+        case 0  : companyCode = decoder.readInt(-1); break;
+        case 1  : name = decoder.readString(); break;
+        default : decoder.skipValue();
+      }
+    }
+
+    if (companyCode == -1)
+      throw new IOException("Missing companyCode");
+
+    return new Company(companyCode, name);
+  }
+
+  /**
+   * Read a property record from the specified decoder.
+   *
+   * @param decoder  Decoder positioned at the record map. Non-null.
+   * @param parents  Map to put the parent name of the property in. Non-null.
+   * @return         The property read. Never null.
+   * @throws IOException  If the read operation fails or the record is malformed.
+   */
+  private static Property readProperty(Decoder decoder, Map<Property,String> parents)
+    throws IOException
+  {
+    assert decoder != null : "decoder cannot be null";
+    assert parents != null : "parents cannot be null";
+
+    String name = null;
+    String description = null;
+    String quantity = null;
+    String guid = null;
+    String parent = null;
+    int sortOrder = -1;
+    boolean isAbstract = false;
+
+    for (int i = decoder.readMapHeader(); i > 0; i--) {
+      switch (decoder.readKey(KeyTable.PROPERTY)) {
+        case 0  : name = decoder.readString(); break;
+        case 1  : description = decoder.readString(); break;
+        case 2  : quantity = decoder.readString(); break;
+        case 3  : guid = decoder.readString(); break;
+        case 4  : parent = decoder.readString(); break;
+        case 5  : sortOrder = decoder.readInt(-1); break;
+        case 6  : isAbstract = decoder.readBoolean(false); break;
+        default : decoder.skipValue();
+      }
+    }
+
+    Property property = new Property(name,
+                                     description != null ? description : "",
+                                     quantity,
+                                     guid,
+                                     sortOrder,
+                                     isAbstract);
+
+    parents.put(property, parent);
+
+    return property;
+  }
+
+  /**
+   * Read a tool class or logging method record, i.e. a name and a
+   * description, from the specified decoder.
+   *
+   * @param decoder   Decoder positioned at the record map. Non-null.
+   * @param keyTable  Member names of the record type. Non-null.
+   * @return          Name and description of the record. Never null.
+   * @throws IOException  If the read operation fails or the record is malformed.
+   */
+  private static String[] readNameAndDescription(Decoder decoder, KeyTable keyTable)
+    throws IOException
+  {
+    assert decoder != null : "decoder cannot be null";
+    assert keyTable != null : "keyTable cannot be null";
+
+    String[] values = new String[2];
+
+    for (int i = decoder.readMapHeader(); i > 0; i--) {
+      switch (decoder.readKey(keyTable)) {
+        case 0  : values[0] = decoder.readString(); break;
+        case 1  : values[1] = decoder.readString(); break;
+        default : decoder.skipValue();
+      }
+    }
+
+    return values;
+  }
+
+  /**
+   * Read PWLS curves in the specified binary format.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param format  Format of stream. Non-null.
+   * @return        The curves read. Never null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   * @throws IOException  If the read operation fails or the input is malformed.
+   */
+  public static Curves readCurves(InputStream stream, BinaryFormat format)
+    throws IOException
+  {
+    checkArguments(stream, format);
+
+    Decoder decoder = format.createDecoder(stream);
+
+    Curves curves = new Curves();
+    for (int i = decoder.readArrayHeader(); i > 0; i--)
+      curves.add(readCurve(decoder));
+
+    return curves;
+  }
+
+  /**
+   * Read PWLS tools in the specified binary format.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param format  Format of stream. Non-null.
+   * @return        The tools read. Never null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   * @throws IOException  If the read operation fails or the input is malformed.
+   */
+  public static Tools readTools(InputStream stream, BinaryFormat format)
+    throws IOException
+  {
+    checkArguments(stream, format);
+
+    Decoder decoder = format.createDecoder(stream);
+
+    Tools tools = new Tools();
+    for (int i = decoder.readArrayHeader(); i > 0; i--)
+      tools.add(readTool(decoder));
+
+    return tools;
+  }
+
+  /**
+   * Read PWLS companies in the specified binary format.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param format  Format of stream. Non-null.
+   * @return        The companies read. Never null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   * @throws IOException  If the read operation fails or the input is malformed.
+   */
+  public static Companies readCompanies(InputStream stream, BinaryFormat format)
+    throws IOException
+  {
+    checkArguments(stream, format);
+
+    Decoder decoder = format.createDecoder(stream);
+
+    Companies companies = new Companies();
+    for (int i = decoder.readArrayHeader(); i > 0; i--)
+      companies.add(readCompany(decoder));
+
+    return companies;
+  }
+
+  /**
+   * Read PWLS properties in the specified binary format.
+   * Parents are resolved by name among the properties read.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param format  Format of stream. Non-null.
+   * @return        The properties read. Never null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   * @throws IOException  If the read operation fails or the input is malformed.
+   */
+  public static Properties readProperties(InputStream stream, BinaryFormat format)
+    throws IOException
+  {
+    checkArguments(stream, format);
+
+    Decoder decoder = format.createDecoder(stream);
+
+    Properties properties = new Properties();
+
+    // Temporary holder of parents
+    Map<Property,String> parents = new HashMap<>();
+
+    // Properties by name, for resolving parents
+    Map<String,Property> propertiesByName = new HashMap<>();
+
+    for (int i = decoder.readArrayHeader(); i > 0; i--) {
+      Property property = readProperty(decoder, parents);
+      propertiesByName.putIfAbsent(property.getName(), property);
+
+      properties.add(property);
+    }
+
+    // Resolve parents
+    for (Property property : properties.getAll()) {
+      String parentName = parents.get(property);
+      Property parentProperty = parentName != null ? propertiesByName.get(parentName) : null;
+
+      // Keep parent == null if at root level
+      if (parentProperty != null && parentProperty != property)
+        property.setParent(parentProperty);
+    }
+
+    return properties;
+  }
+
+  /**
+   * Read PWLS tool classes in the specified binary format.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param format  Format of stream. Non-null.
+   * @return        The tool classes read. Never null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   * @throws IOException  If the read operation fails or the input is malformed.
+   */
+  public static ToolClasses readToolClasses(InputStream stream, BinaryFormat format)
+    throws IOException
+  {
+    checkArguments(stream, format);
+
+    Decoder decoder = format.createDecoder(stream);
+
+    ToolClasses toolClasses = new ToolClasses();
+    for (int i = decoder.readArrayHeader(); i > 0; i--) {
+      String[] values = readNameAndDescription(decoder, KeyTable.TOOL_CLASS);
+      toolClasses.add(new ToolClass(values[0], values[1]));
+    }
+
+    return toolClasses;
+  }
+
+  /**
+   * Read PWLS logging methods in the specified binary format.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param format  Format of stream. Non-null.
+   * @return        The logging methods read. Never null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   * @throws IOException  If the read operation fails or the input is malformed.
+   */
+  public static LoggingMethods readLoggingMethods(InputStream stream, BinaryFormat format)
+    throws IOException
+  {
+    checkArguments(stream, format);
+
+    Decoder decoder = format.createDecoder(stream);
+
+    LoggingMethods loggingMethods = new LoggingMethods();
+    for (int i = decoder.readArrayHeader(); i > 0; i--) {
+      String[] values = readNameAndDescription(decoder, KeyTable.LOGGING_METHOD);
+      loggingMethods.add(new LoggingMethod(values[0], values[1]));
+    }
+
+    return loggingMethods;
+  }
+}
@@ -0,0 +1,325 @@
+package no.geosoft.jpwls.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+
+import no.geosoft.jpwls.Company;
+import no.geosoft.jpwls.Curve;
+import no.geosoft.jpwls.LoggingMethod;
+import no.geosoft.jpwls.Property;
+import no.geosoft.jpwls.Tool;
+import no.geosoft.jpwls.ToolClass;
+
+/**
+ * Class for writing PWLS instances in a binary format, CBOR or MessagePack.
+ * <p>
+ * The output has the same structure as the JSON format: an array of
+ * records, each a map from the JSON member names to their values.
+ * All members are written, null values included, in a fixed order.
+ * Member names are copied from pre-encoded tables, and the records are
+ * streamed directly to the output:
+ * <pre>
+ *   BinaryWriter.writeCurves(stream, curves, BinaryFormat.CBOR);
+ * </pre>
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ * @see BinaryReader
+ */
+public final class BinaryWriter
+{
+  /**
+   * Writer of the members of a single record.
+   *
+   * @param <T>  Type of record written.
+   */
+  private interface RecordWriter<T>
+  {
+    /**
+     * Write the members of the specified record to the given encoder.
+     *
+     * @param encoder  Encoder positioned after the map header of the record. Non-null.
+     * @param keys     Encoded member names of the record type. Non-null.
+     * @param record   Record to write. Non-null.
+     * @throws IOException  If the write operation fails.
+     */
+    void write(Encoder encoder, byte[][] keys, T record)
+      throws IOException;
+  }
+
+  /**
+   * Private constructor to prevent client instantiation.
+   */
+  private BinaryWriter()
+  {
+    assert false : "This constructor should never be called";
+  }
+
+  /**
+   * Write the members of the specified curve.
+   *
+   * @param encoder  Encoder to write to. Non-null.
+   * @param keys     Encoded member names of curves. Non-null.
+   * @param curve    Curve to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  private static void writeMembers(Encoder encoder, byte[][] keys, Curve curve)
+    throws IOException
+  {
+    encoder.write(keys[0], curve.getMnemonic());
+    encoder.write(keys[1], curve.getLisMnemonic());
+    encoder.write(keys[2], curve.getCompanyCode());
+    encoder.write(keys[3], curve.getProperty());
+    encoder.write(keys[4], curve.getQuantity());
+    encoder.write(keys[5], curve.getDescription());
+  }
+
+  /**
+   * Write the members of the specified tool.
+   *
+   * @param encoder  Encoder to write to. Non-null.
+   * @param keys     Encoded member names of tools. Non-null.
+   * @param tool     Tool to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  private static void writeMembers(Encoder encoder, byte[][] keys, Tool tool)
+    throws IOException
+  {
+    encoder.write(keys[0], tool.getToolCode());
+    encoder.write(keys[1], tool.getCompanyCode());
+    encoder.write(keys[2], tool.getGroup());
+    encoder.write(keys[3], tool.getMarketingName());
+    encoder.write(keys[4], tool.getDescription());
+    encoder.write(keys[5], tool.getGenericType());
+    encoder.write(keys[6], tool.getLoggingMethod());
+    encoder.write(keys[7], tool.getTypeDescription());
+  }
+
+  /**
+   * Write the members of the specified company.
+   *
+   * @param encoder  Encoder to write to. Non-null.
+   * @param keys     Encoded member names of companies. Non-null.
+   * @param company  Company to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  private static void writeMembers(Encoder encoder, byte[][] keys, Company company)
+    throws IOException
+  {
+    encoder.write(keys[0], company.getCompanyCode());
+    encoder.write(keys[1], company.getName());
+  }
+
+  /**
+   * Write the members of the specified property.
+   *
+   * @param encoder   Encoder to write to. Non-null.
+   * @param keys      Encoded member names of properties. Non-null.
+   * @param property  Property to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  private static void writeMembers(Encoder encoder, byte[][] keys, Property property)
+    throws IOException
+  {
+    Property parent = property.getParent();
+
+    encoder.write(keys[0], property.getName());
+    encoder.write(keys[1], property.getDescription());
+    encoder.write(keys[2], property.getQuantity());
+    encoder.write(keys[3], property.getGuid());
+    encoder.write(keys[4], parent != null ? parent.getName() : null);
+    encoder.write(keys[5], property.getSortOrder());
+    encoder.write(keys[6], property.isAbstract());
+  }
+
+  /**
+   * Write the members of the specified tool class.
+   *
+   * @param encoder    Encoder to write to. Non-null.
+   * @param keys       Encoded member names of tool classes. Non-null.
+   * @param toolClass  Tool class to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  private static void writeMembers(Encoder encoder, byte[][] keys, ToolClass toolClass)
+    throws IOException
+  {
+    encoder.write(keys[0], toolClass.getName());
+    encoder.write(keys[1], toolClass.getDescription());
+  }
+
+  /**
+   * Write the members of the specified logging method.
+   *
+   * @param encoder        Encoder to write to. Non-null.
+   * @param keys           Encoded member names of logging methods. Non-null.
+   * @param loggingMethod  Logging method to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  private static void writeMembers(Encoder encoder, byte[][] keys, LoggingMethod loggingMethod)
+    throws IOException
+  {
+    encoder.write(keys[0], loggingMethod.getName());
+    encoder.write(keys[1], loggingMethod.getDescription());
+  }
+
+  /**
+   * Write the specified records as an array of maps to the given stream.
+   *
+   * @param stream        Stream to write to. Non-null. Left open.
+   * @param records       Records to write. Non-null.
+   * @param format        Format to write. Non-null.
+   * @param keyTable      Member names of the record type. Non-null.
+   * @param recordWriter  Writer of the members of each record. Non-null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  private static <T> void writeArray(OutputStream stream, Collection<T> records, BinaryFormat format,
+                                     KeyTable keyTable, RecordWriter<T> recordWriter)
+    throws IOException
+  {
+    assert stream != null : "stream cannot be null";
+    assert records != null : "records cannot be null";
+    assert format != null : "format cannot be null";
+    assert keyTable != null : "keyTable cannot be null";
+    assert recordWriter != null : "recordWriter cannot be null";
+
+    Encoder encoder = format.createEncoder(stream);
+    byte[][] keys = keyTable.getEncodedNames(format);
+
+    // The header is written up front, so the collection must not change meanwhile
+    int nRecords = records.size();
+    encoder.writeArrayHeader(nRecords);
+
+    int nWritten = 0;
+    for (T record : records) {
+      if (nWritten == nRecords)
+        throw new IOException("Collection modified while writing");
+
+      encoder.writeMapHeader(keyTable.size());
+      recordWriter.write(encoder, keys, record);
+      nWritten++;
+    }
+
+    if (nWritten != nRecords)
+      throw new IOException("Collection modified while writing");
+
+    encoder.flush();
+  }
+
+  /**
+   * Check the arguments common to the public write methods.
+   *
+   * @param stream   Stream argument. Non-null.
+   * @param records  Records argument. Non-null.
+   * @param what     Name of records argument, for the error message. Non-null.
+   * @param format   Format argument. Non-null.
+   * @throws IllegalArgumentException  If any of the arguments is null.
+   */
+  private static void checkArguments(OutputStream stream, Collection<?> records, String what, BinaryFormat format)
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (records == null)
+      throw new IllegalArgumentException(what + " cannot be null");
+
+    if (format == null)
+      throw new IllegalArgumentException("format cannot be null");
+  }
+
+  /**
+   * Write the specified PWLS curves in the given binary format.
+   *
+   * @param stream  Stream to write to. Non-null. Left open.
+   * @param curves  Curves to write. Non-null.
+   * @param format  Format to write. Non-null.
+   * @throws IllegalArgumentException  If stream, curves or format is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeCurves(OutputStream stream, Collection<Curve> curves, BinaryFormat format)
+    throws IOException
+  {
+    checkArguments(stream, curves, "curves", format);
+    writeArray(stream, curves, format, KeyTable.CURVE, BinaryWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS tools in the given binary format.
+   *
+   * @param stream  Stream to write to. Non-null. Left open.
+   * @param tools   Tools to write. Non-null.
+   * @param format  Format to write. Non-null.
+   * @throws IllegalArgumentException  If stream, tools or format is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeTools(OutputStream stream, Collection<Tool> tools, BinaryFormat format)
+    throws IOException
+  {
+    checkArguments(stream, tools, "tools", format);
+    writeArray(stream, tools, format, KeyTable.TOOL, BinaryWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS companies in the given binary format.
+   *
+   * @param stream     Stream to write to. Non-null. Left open.
+   * @param companies  Companies to write. Non-null.
+   * @param format     Format to write. Non-null.
+   * @throws IllegalArgumentException  If stream, companies or format is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeCompanies(OutputStream stream, Collection<Company> companies, BinaryFormat format)
+    throws IOException
+  {
+    checkArguments(stream, companies, "companies", format);
+    writeArray(stream, companies, format, KeyTable.COMPANY, BinaryWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS properties in the given binary format.
+   * Parents are written by name.
+   *
+   * @param stream      Stream to write to. Non-null. Left open.
+   * @param properties  Properties to write. Non-null.
+   * @param format      Format to write. Non-null.
+   * @throws IllegalArgumentException  If stream, properties or format is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeProperties(OutputStream stream, Collection<Property> properties, BinaryFormat format)
+    throws IOException
+  {
+    checkArguments(stream, properties, "properties", format);
+    writeArray(stream, properties, format, KeyTable.PROPERTY, BinaryWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS tool classes in the given binary format.
+   *
+   * @param stream       Stream to write to. Non-null. Left open.
+   * @param toolClasses  Tool classes to write. Non-null.
+   * @param format       Format to write. Non-null.
+   * @throws IllegalArgumentException  If stream, toolClasses or format is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeToolClasses(OutputStream stream, Collection<ToolClass> toolClasses, BinaryFormat format)
+    throws IOException
+  {
+    checkArguments(stream, toolClasses, "toolClasses", format);
+    writeArray(stream, toolClasses, format, KeyTable.TOOL_CLASS, BinaryWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS logging methods in the given binary format.
+   *
+   * @param stream          Stream to write to. Non-null. Left open.
+   * @param loggingMethods  Logging methods to write. Non-null.
+   * @param format          Format to write. Non-null.
+   * @throws IllegalArgumentException  If stream, loggingMethods or format is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeLoggingMethods(OutputStream stream, Collection<LoggingMethod> loggingMethods, BinaryFormat format)
+    throws IOException
+  {
+    checkArguments(stream, loggingMethods, "loggingMethods", format);
+    writeArray(stream, loggingMethods, format, KeyTable.LOGGING_METHOD, BinaryWriter::writeMembers);
+  }
+}
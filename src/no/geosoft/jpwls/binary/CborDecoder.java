@@ -0,0 +1,193 @@
+package no.geosoft.jpwls.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decoder of CBOR, RFC 8949. Indefinite length arrays, maps and strings
+ * are not supported, except when skipped as unknown members.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+final class CborDecoder extends Decoder
+{
+  /** Additional information indicating indefinite length. */
+  private static final int INDEFINITE = 31;
+
+  /** The break code terminating indefinite length items. */
+  private static final int BREAK = 0xff;
+
+  /**
+   * Create a CBOR decoder reading from the specified stream.
+   *
+   * @param stream  Stream to read from. Non-null.
+   */
+  CborDecoder(InputStream stream)
+  {
+    super(stream);
+  }
+
+  /**
+   * Read the argument of a data item of the specified initial byte.
+   *
+   * @param initialByte  Initial byte of the data item, already consumed.
+   * @return             The argument, as unsigned.
+   * @throws IOException  If the read operation fails or the argument is malformed.
+   */
+  private long readArgument(int initialByte)
+    throws IOException
+  {
+    int additionalInfo = initialByte & 0x1f;
+
+    if (additionalInfo < 24)
+      return additionalInfo;
+
+    switch (additionalInfo) {
+      case 24 : return readBigEndian(1);
+      case 25 : return readBigEndian(2);
+      case 26 : return readBigEndian(4);
+      case 27 : return readBigEndian(8);
+      default :
+        throw new IOException("Unsupported CBOR argument: 0x" + Integer.toHexString(initialByte));
+    }
+  }
+
+  /**
+   * Read the head of a data item of the specified major type.
+   *
+   * @param majorType  Expected major type. [0,7].
+   * @param what       Description of expected item, for error messages. Non-null.
+   * @return           The argument of the head.
+   * @throws IOException  If the read operation fails or the item is of another type.
+   */
+  private long readHead(int majorType, String what)
+    throws IOException
+  {
+    int initialByte = readByte();
+    if (initialByte >>> 5 != majorType)
+      throw new IOException("Expected " + what + " but found 0x" + Integer.toHexString(initialByte));
+
+    return readArgument(initialByte);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  boolean readNull()
+    throws IOException
+  {
+    if (peekByte() != CborEncoder.NULL)
+      return false;
+
+    readByte();
+    return true;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  int readArrayHeader()
+    throws IOException
+  {
+    return toLength(readHead(CborEncoder.ARRAY, "array"));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  int readMapHeader()
+    throws IOException
+  {
+    return toLength(readHead(CborEncoder.MAP, "map"));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  int readStringHeader()
+    throws IOException
+  {
+    return toLength(readHead(CborEncoder.TEXT, "string"));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  long readInteger()
+    throws IOException
+  {
+    int initialByte = readByte();
+    int majorType = initialByte >>> 5;
+
+    if (majorType != CborEncoder.UNSIGNED && majorType != CborEncoder.NEGATIVE)
+      throw new IOException("Expected integer but found 0x" + Integer.toHexString(initialByte));
+
+    long argument = readArgument(initialByte);
+    if (argument < 0)
+      throw new IOException("Integer out of range");
+
+    return majorType == CborEncoder.UNSIGNED ? argument : -1 - argument;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  boolean readBoolean()
+    throws IOException
+  {
+    int initialByte = readByte();
+    if (initialByte == CborEncoder.TRUE)
+      return true;
+    if (initialByte == CborEncoder.FALSE)
+      return false;
+
+    throw new IOException("Expected boolean but found 0x" + Integer.toHexString(initialByte));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void skipValue()
+    throws IOException
+  {
+    int initialByte = readByte();
+    int majorType = initialByte >>> 5;
+
+    if ((initialByte & 0x1f) == INDEFINITE && majorType >= CborEncoder.BYTES && majorType <= CborEncoder.MAP) {
+      while (peekByte() != BREAK) {
+        skipValue();
+        if (majorType == CborEncoder.MAP)
+          skipValue();
+      }
+      readByte();
+      return;
+    }
+
+    switch (majorType) {
+      case CborEncoder.UNSIGNED :
+      case CborEncoder.NEGATIVE :
+        readArgument(initialByte);
+        break;
+
+      case CborEncoder.BYTES :
+      case CborEncoder.TEXT :
+        skipBytes(toLength(readArgument(initialByte)));
+        break;
+
+      case CborEncoder.ARRAY :
+        for (long i = readArgument(initialByte); i > 0; i--)
+          skipValue();
+        break;
+
+      case CborEncoder.MAP :
+        for (long i = readArgument(initialByte); i > 0; i--) {
+          skipValue();
+          skipValue();
+        }
+        break;
+
+      case CborEncoder.TAG :
+        readArgument(initialByte);
+        skipValue();
+        break;
+
+      default :
+        // Simple values and floats; the argument is the value itself
+        readArgument(initialByte);
+        break;
+    }
+  }
+}
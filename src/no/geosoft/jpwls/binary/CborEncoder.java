@@ -0,0 +1,133 @@
+package no.geosoft.jpwls.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encoder of CBOR, RFC 8949. Only definite lengths are written.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+final class CborEncoder extends Encoder
+{
+  /** Major type of unsigned integers. */
+  static final int UNSIGNED = 0;
+
+  /** Major type of negative integers. */
+  static final int NEGATIVE = 1;
+
+  /** Major type of byte strings. */
+  static final int BYTES = 2;
+
+  /** Major type of text strings. */
+  static final int TEXT = 3;
+
+  /** Major type of arrays. */
+  static final int ARRAY = 4;
+
+  /** Major type of maps. */
+  static final int MAP = 5;
+
+  /** Major type of tags. */
+  static final int TAG = 6;
+
+  /** Major type of simple values and floats. */
+  static final int SIMPLE = 7;
+
+  /** The false value. */
+  static final int FALSE = 0xf4;
+
+  /** The true value. */
+  static final int TRUE = 0xf5;
+
+  /** The null value. */
+  static final int NULL = 0xf6;
+
+  /**
+   * Create a CBOR encoder writing to the specified stream.
+   *
+   * @param stream  Stream to write to. Non-null.
+   */
+  CborEncoder(OutputStream stream)
+  {
+    super(stream);
+  }
+
+  /**
+   * Write the head of a data item of the specified major type and argument,
+   * using the shortest encoding of the argument.
+   *
+   * @param majorType  Major type. [0,7].
+   * @param argument   Argument, treated as unsigned.
+   * @throws IOException  If the write operation fails.
+   */
+  private void writeHead(int majorType, long argument)
+    throws IOException
+  {
+    int type = majorType << 5;
+
+    if (argument >= 0 && argument < 24)
+      writeByte(type | (int) argument);
+    else if (argument >= 0 && argument <= 0xff) {
+      writeByte(type | 24);
+      writeByte((int) argument);
+    }
+    else if (argument >= 0 && argument <= 0xffff)
+      writeShort(type | 25, (int) argument);
+    else if (argument >= 0 && argument <= 0xffffffffL)
+      writeInt(type | 26, (int) argument);
+    else
+      writeLong(type | 27, argument);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void writeArrayHeader(int length)
+    throws IOException
+  {
+    writeHead(ARRAY, length);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void writeMapHeader(int length)
+    throws IOException
+  {
+    writeHead(MAP, length);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void writeStringHeader(int length)
+    throws IOException
+  {
+    writeHead(TEXT, length);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void writeInteger(long value)
+    throws IOException
+  {
+    if (value >= 0)
+      writeHead(UNSIGNED, value);
+    else
+      writeHead(NEGATIVE, -1 - value);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void writeBoolean(boolean value)
+    throws IOException
+  {
+    writeByte(value ? TRUE : FALSE);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void writeNull()
+    throws IOException
+  {
+    writeByte(NULL);
+  }
+}
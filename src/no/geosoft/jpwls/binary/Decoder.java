@@ -0,0 +1,332 @@
+package no.geosoft.jpwls.binary;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming decoder of the values of a binary format.
+ * <p>
+ * Input is read through an internal buffer, so the stream need
+ * not be buffered. The decoder may read past the last value decoded.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+abstract class Decoder
+{
+  /** Size of the input buffer. */
+  private static final int BUFFER_SIZE = 8192;
+
+  /** Stream to read from. Non-null. */
+  private final InputStream stream_;
+
+  /** The input buffer. Non-null. */
+  private final byte[] buffer_ = new byte[BUFFER_SIZE];
+
+  /** Position of next byte to read in the buffer. */
+  private int position_;
+
+  /** Number of valid bytes in the buffer. */
+  private int limit_;
+
+  /**
+   * Create a decoder reading from the specified stream.
+   *
+   * @param stream  Stream to read from. Non-null.
+   */
+  Decoder(InputStream stream)
+  {
+    assert stream != null : "stream cannot be null";
+    stream_ = stream;
+  }
+
+  /**
+   * Make the specified number of bytes available in the buffer.
+   *
+   * @param nBytes  Number of bytes needed. [1,BUFFER_SIZE].
+   * @throws EOFException  If the stream ends before the bytes are available.
+   * @throws IOException   If the read operation fails.
+   */
+  private void require(int nBytes)
+    throws IOException
+  {
+    assert nBytes > 0 && nBytes <= buffer_.length : "Invalid nBytes: " + nBytes;
+
+    if (limit_ - position_ >= nBytes)
+      return;
+
+    System.arraycopy(buffer_, position_, buffer_, 0, limit_ - position_);
+    limit_ -= position_;
+    position_ = 0;
+
+    while (limit_ < nBytes) {
+      int n = stream_.read(buffer_, limit_, buffer_.length - limit_);
+      if (n < 0)
+        throw new EOFException("Unexpected end of input");
+      limit_ += n;
+    }
+  }
+
+  /**
+   * Return the next byte without consuming it.
+   *
+   * @return  The next byte. [0,255].
+   * @throws EOFException  If there is no more input.
+   * @throws IOException   If the read operation fails.
+   */
+  final int peekByte()
+    throws IOException
+  {
+    require(1);
+    return buffer_[position_] & 0xff;
+  }
+
+  /**
+   * Read the next byte.
+   *
+   * @return  The byte read. [0,255].
+   * @throws EOFException  If there is no more input.
+   * @throws IOException   If the read operation fails.
+   */
+  final int readByte()
+    throws IOException
+  {
+    require(1);
+    return buffer_[position_++] & 0xff;
+  }
+
+  /**
+   * Read a big-endian value of the specified number of bytes.
+   *
+   * @param nBytes  Number of bytes to read. [1,8].
+   * @return        The value read. Values of 8 bytes may be negative.
+   * @throws EOFException  If the stream ends prematurely.
+   * @throws IOException   If the read operation fails.
+   */
+  final long readBigEndian(int nBytes)
+    throws IOException
+  {
+    require(nBytes);
+
+    long value = 0;
+    for (int i = 0; i < nBytes; i++)
+      value = (value << 8) | (buffer_[position_++] & 0xff);
+
+    return value;
+  }
+
+  /**
+   * Read a UTF-8 string of the specified length.
+   *
+   * @param length  Number of bytes of the string. [0,&gt;.
+   * @return        The string read. Never null.
+   * @throws EOFException  If the stream ends prematurely.
+   * @throws IOException   If the read operation fails.
+   */
+  final String readUtf8(int length)
+    throws IOException
+  {
+    if (length == 0)
+      return "";
+
+    if (length <= buffer_.length) {
+      require(length);
+      String string = new String(buffer_, position_, length, StandardCharsets.UTF_8);
+      position_ += length;
+      return string;
+    }
+
+    byte[] bytes = new byte[length];
+    int n = 0;
+    while (n < length) {
+      int chunk = Math.min(length - n, buffer_.length);
+      require(chunk);
+      System.arraycopy(buffer_, position_, bytes, n, chunk);
+      position_ += chunk;
+      n += chunk;
+    }
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Skip the specified number of bytes.
+   *
+   * @param nBytes  Number of bytes to skip. [0,&gt;.
+   * @throws EOFException  If the stream ends prematurely.
+   * @throws IOException   If the read operation fails.
+   */
+  final void skipBytes(long nBytes)
+    throws IOException
+  {
+    while (nBytes > 0) {
+      int chunk = (int) Math.min(nBytes, buffer_.length);
+      require(chunk);
+      position_ += chunk;
+      nBytes -= chunk;
+    }
+  }
+
+  /**
+   * Read a string used as key, and return its index in the specified table.
+   * The key is matched against the raw bytes of the table, so no string
+   * is created.
+   *
+   * @param keyTable  Table of known keys. Non-null.
+   * @return          Index of key in table, or -1 if not a known key.
+   * @throws IOException  If the read operation fails or the next value is not a string.
+   */
+  final int readKey(KeyTable keyTable)
+    throws IOException
+  {
+    assert keyTable != null : "keyTable cannot be null";
+
+    int length = readStringHeader();
+
+    if (length > buffer_.length) {
+      skipBytes(length);
+      return -1;
+    }
+
+    if (length > 0)
+      require(length);
+
+    int index = -1;
+    for (int i = 0; i < keyTable.size(); i++) {
+      byte[] name = keyTable.getUtf8Name(i);
+      if (Arrays.equals(buffer_, position_, position_ + length, name, 0, name.length)) {
+        index = i;
+        break;
+      }
+    }
+
+    position_ += length;
+    return index;
+  }
+
+  /**
+   * Read a string value.
+   *
+   * @return  The string read, or null if the value is null.
+   * @throws IOException  If the read operation fails or the next value is not a string or null.
+   */
+  final String readString()
+    throws IOException
+  {
+    return readNull() ? null : readUtf8(readStringHeader());
+  }
+
+  /**
+   * Read an integer value.
+   *
+   * @param defaultValue  Value to return if the value is null.
+   * @return              The value read, or defaultValue if the value is null.
+   * @throws IOException  If the read operation fails or the next value is not an
+   *                      integer within the range of int, or null.
+   */
+  final int readInt(int defaultValue)
+    throws IOException
+  {
+    if (readNull())
+      return defaultValue;
+
+    long value = readInteger();
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+      throw new IOException("Integer out of range: " + value);
+
+    return (int) value;
+  }
+
+  /**
+   * Read a boolean value.
+   *
+   * @param defaultValue  Value to return if the value is null.
+   * @return              The value read, or defaultValue if the value is null.
+   * @throws IOException  If the read operation fails or the next value is not a boolean or null.
+   */
+  final boolean readBoolean(boolean defaultValue)
+    throws IOException
+  {
+    return readNull() ? defaultValue : readBoolean();
+  }
+
+  /**
+   * Check if the next value is null, and consume it if so.
+   *
+   * @return  True if a null value was consumed, false otherwise.
+   * @throws IOException  If the read operation fails.
+   */
+  abstract boolean readNull()
+    throws IOException;
+
+  /**
+   * Read the header of an array.
+   *
+   * @return  Number of elements of the array. [0,&gt;.
+   * @throws IOException  If the read operation fails or the next value is not a definite length array.
+   */
+  abstract int readArrayHeader()
+    throws IOException;
+
+  /**
+   * Read the header of a map.
+   *
+   * @return  Number of key/value pairs of the map. [0,&gt;.
+   * @throws IOException  If the read operation fails or the next value is not a definite length map.
+   */
+  abstract int readMapHeader()
+    throws IOException;
+
+  /**
+   * Read the header of a string.
+   *
+   * @return  Number of bytes of the string. [0,&gt;.
+   * @throws IOException  If the read operation fails or the next value is not a definite length string.
+   */
+  abstract int readStringHeader()
+    throws IOException;
+
+  /**
+   * Read a non-null integer value.
+   *
+   * @return  The value read.
+   * @throws IOException  If the read operation fails or the next value is not an integer.
+   */
+  abstract long readInteger()
+    throws IOException;
+
+  /**
+   * Read a non-null boolean value.
+   *
+   * @return  The value read.
+   * @throws IOException  If the read operation fails or the next value is not a boolean.
+   */
+  abstract boolean readBoolean()
+    throws IOException;
+
+  /**
+   * Skip the next value, including any nested values.
+   *
+   * @throws IOException  If the read operation fails or the value is malformed.
+   */
+  abstract void skipValue()
+    throws IOException;
+
+  /**
+   * Check a length read from the input, and return it as an int.
+   *
+   * @param length  Length to check.
+   * @return        The length. [0,&gt;.
+   * @throws IOException  If length is negative or exceeds the range of int.
+   */
+  static int toLength(long length)
+    throws IOException
+  {
+    if (length < 0 || length > Integer.MAX_VALUE)
+      throw new IOException("Invalid length: " + Long.toUnsignedString(length));
+
+    return (int) length;
+  }
+}
@@ -0,0 +1,269 @@
+package no.geosoft.jpwls.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming encoder of the values of a binary format.
+ * <p>
+ * Output is assembled in an internal buffer that is written to the
+ * stream whenever it is full, and on {@link #flush}.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+abstract class Encoder
+{
+  /** Size of the output buffer. */
+  private static final int BUFFER_SIZE = 8192;
+
+  /** Stream to write to. Non-null. */
+  private final OutputStream stream_;
+
+  /** The output buffer. Non-null. */
+  private final byte[] buffer_ = new byte[BUFFER_SIZE];
+
+  /** Number of bytes of the buffer in use. */
+  private int position_;
+
+  /**
+   * Create an encoder writing to the specified stream.
+   *
+   * @param stream  Stream to write to. Non-null.
+   */
+  Encoder(OutputStream stream)
+  {
+    assert stream != null : "stream cannot be null";
+    stream_ = stream;
+  }
+
+  /**
+   * Make room for the specified number of bytes in the buffer.
+   *
+   * @param nBytes  Number of bytes needed. [0,BUFFER_SIZE].
+   * @throws IOException  If writing the buffer fails.
+   */
+  private void ensure(int nBytes)
+    throws IOException
+  {
+    if (position_ + nBytes > buffer_.length) {
+      stream_.write(buffer_, 0, position_);
+      position_ = 0;
+    }
+  }
+
+  /**
+   * Write the specified byte.
+   *
+   * @param value  Byte to write. Only the lower 8 bits are used.
+   * @throws IOException  If the write operation fails.
+   */
+  final void writeByte(int value)
+    throws IOException
+  {
+    ensure(1);
+    buffer_[position_++] = (byte) value;
+  }
+
+  /**
+   * Write the specified byte followed by a big-endian 16-bit value.
+   *
+   * @param type   Leading type byte.
+   * @param value  Value to write. Only the lower 16 bits are used.
+   * @throws IOException  If the write operation fails.
+   */
+  final void writeShort(int type, int value)
+    throws IOException
+  {
+    ensure(3);
+    buffer_[position_++] = (byte) type;
+    buffer_[position_++] = (byte) (value >>> 8);
+    buffer_[position_++] = (byte) value;
+  }
+
+  /**
+   * Write the specified byte followed by a big-endian 32-bit value.
+   *
+   * @param type   Leading type byte.
+   * @param value  Value to write.
+   * @throws IOException  If the write operation fails.
+   */
+  final void writeInt(int type, int value)
+    throws IOException
+  {
+    ensure(5);
+    buffer_[position_++] = (byte) type;
+    buffer_[position_++] = (byte) (value >>> 24);
+    buffer_[position_++] = (byte) (value >>> 16);
+    buffer_[position_++] = (byte) (value >>> 8);
+    buffer_[position_++] = (byte) value;
+  }
+
+  /**
+   * Write the specified byte followed by a big-endian 64-bit value.
+   *
+   * @param type   Leading type byte.
+   * @param value  Value to write.
+   * @throws IOException  If the write operation fails.
+   */
+  final void writeLong(int type, long value)
+    throws IOException
+  {
+    ensure(9);
+    buffer_[position_++] = (byte) type;
+    for (int shift = 56; shift >= 0; shift -= 8)
+      buffer_[position_++] = (byte) (value >>> shift);
+  }
+
+  /**
+   * Write the specified bytes as is.
+   *
+   * @param bytes  Bytes to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  final void writeRaw(byte[] bytes)
+    throws IOException
+  {
+    assert bytes != null : "bytes cannot be null";
+
+    if (bytes.length > buffer_.length) {
+      ensure(buffer_.length);
+      stream_.write(bytes);
+      return;
+    }
+
+    ensure(bytes.length);
+    System.arraycopy(bytes, 0, buffer_, position_, bytes.length);
+    position_ += bytes.length;
+  }
+
+  /**
+   * Write the header of an array of the specified length.
+   *
+   * @param length  Number of elements of the array. [0,&gt;.
+   * @throws IOException  If the write operation fails.
+   */
+  abstract void writeArrayHeader(int length)
+    throws IOException;
+
+  /**
+   * Write the header of a map of the specified number of entries.
+   *
+   * @param length  Number of key/value pairs of the map. [0,&gt;.
+   * @throws IOException  If the write operation fails.
+   */
+  abstract void writeMapHeader(int length)
+    throws IOException;
+
+  /**
+   * Write the header of a UTF-8 string of the specified length.
+   *
+   * @param length  Number of bytes of the string. [0,&gt;.
+   * @throws IOException  If the write operation fails.
+   */
+  abstract void writeStringHeader(int length)
+    throws IOException;
+
+  /**
+   * Write the specified integer value.
+   *
+   * @param value  Value to write.
+   * @throws IOException  If the write operation fails.
+   */
+  abstract void writeInteger(long value)
+    throws IOException;
+
+  /**
+   * Write the specified boolean value.
+   *
+   * @param value  Value to write.
+   * @throws IOException  If the write operation fails.
+   */
+  abstract void writeBoolean(boolean value)
+    throws IOException;
+
+  /**
+   * Write a null value.
+   *
+   * @throws IOException  If the write operation fails.
+   */
+  abstract void writeNull()
+    throws IOException;
+
+  /**
+   * Write the specified string value.
+   *
+   * @param value  Value to write. May be null, in case null is written.
+   * @throws IOException  If the write operation fails.
+   */
+  final void writeString(String value)
+    throws IOException
+  {
+    if (value == null) {
+      writeNull();
+      return;
+    }
+
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeStringHeader(bytes.length);
+    writeRaw(bytes);
+  }
+
+  /**
+   * Write entry of the specified pre-encoded key and value.
+   *
+   * @param key    Encoded key. Non-null.
+   * @param value  Value of key. May be null, in case null is written.
+   * @throws IOException  If the write operation fails.
+   */
+  final void write(byte[] key, String value)
+    throws IOException
+  {
+    writeRaw(key);
+    writeString(value);
+  }
+
+  /**
+   * Write entry of the specified pre-encoded key and value.
+   *
+   * @param key    Encoded key. Non-null.
+   * @param value  Value of key. May be null, in case null is written.
+   * @throws IOException  If the write operation fails.
+   */
+  final void write(byte[] key, Integer value)
+    throws IOException
+  {
+    writeRaw(key);
+    if (value != null)
+      writeInteger(value);
+    else
+      writeNull();
+  }
+
+  /**
+   * Write entry of the specified pre-encoded key and value.
+   *
+   * @param key    Encoded key. Non-null.
+   * @param value  Value of key.
+   * @throws IOException  If the write operation fails.
+   */
+  final void write(byte[] key, boolean value)
+    throws IOException
+  {
+    writeRaw(key);
+    writeBoolean(value);
+  }
+
+  /**
+   * Write the buffered output to the stream and flush it.
+   *
+   * @throws IOException  If the write operation fails.
+   */
+  final void flush()
+    throws IOException
+  {
+    stream_.write(buffer_, 0, position_);
+    position_ = 0;
+    stream_.flush();
+  }
+}
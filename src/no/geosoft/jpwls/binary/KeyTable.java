@@ -0,0 +1,125 @@
+package no.geosoft.jpwls.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The member names of an entity type, pre-encoded in each binary format.
+ * <p>
+ * Member names are the same as in the JSON format, and are written in
+ * the order of the table. Encoded names are copied as is when writing,
+ * and names read are matched against the raw UTF-8 bytes of the table,
+ * so no key strings are created in either direction.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+final class KeyTable
+{
+  /** Members of curves. */
+  static final KeyTable CURVE = new KeyTable("mnemonic", "shortMnemonic", "companyCode", "property", "quantity", "description");
+
+  /** Members of tools. */
+  static final KeyTable TOOL = new KeyTable("toolCode", "companyCode", "group", "marketingName", "description",
+                                            "genericType", "loggingMethod", "typeDescription");
+
+  /** Members of companies. */
+  static final KeyTable COMPANY = new KeyTable("companyCode", "name");
+
+  /** Members of properties. */
+  static final KeyTable PROPERTY = new KeyTable("name", "description", "quantity", "guid", "parent", "sortOrder", "isAbstract");
+
+  /** Members of tool classes. */
+  static final KeyTable TOOL_CLASS = new KeyTable("name", "description");
+
+  /** Members of logging methods. */
+  static final KeyTable LOGGING_METHOD = new KeyTable("name", "description");
+
+  /** The member names. Non-null. */
+  private final String[] names_;
+
+  /** UTF-8 bytes of the member names. Non-null. */
+  private final byte[][] utf8Names_;
+
+  /** Member names as encoded by each format. Non-null. */
+  private final Map<BinaryFormat,byte[][]> encodedNames_ = new EnumMap<>(BinaryFormat.class);
+
+  /**
+   * Create a key table of the specified member names.
+   *
+   * @param names  Member names in the order they are written. Non-null.
+   */
+  private KeyTable(String... names)
+  {
+    assert names != null : "names cannot be null";
+
+    names_ = names;
+
+    utf8Names_ = new byte[names.length][];
+    for (int i = 0; i < names.length; i++)
+      utf8Names_[i] = names[i].getBytes(StandardCharsets.UTF_8);
+
+    for (BinaryFormat format : BinaryFormat.values()) {
+      byte[][] encodedNames = new byte[names.length][];
+      for (int i = 0; i < names.length; i++) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try {
+          Encoder encoder = format.createEncoder(stream);
+          encoder.writeString(names[i]);
+          encoder.flush();
+        }
+        catch (IOException exception) {
+          assert false : "Unexpected: " + exception;
+        }
+        encodedNames[i] = stream.toByteArray();
+      }
+      encodedNames_.put(format, encodedNames);
+    }
+  }
+
+  /**
+   * Return the number of members of this table.
+   *
+   * @return  Number of members. [0,&gt;.
+   */
+  int size()
+  {
+    return names_.length;
+  }
+
+  /**
+   * Return the member name of the specified index.
+   *
+   * @param index  Index of member. [0,size&gt;.
+   * @return       The member name. Never null.
+   */
+  String getName(int index)
+  {
+    return names_[index];
+  }
+
+  /**
+   * Return the UTF-8 bytes of the member name of the specified index.
+   *
+   * @param index  Index of member. [0,size&gt;.
+   * @return       UTF-8 bytes of the member name. Never null.
+   */
+  byte[] getUtf8Name(int index)
+  {
+    return utf8Names_[index];
+  }
+
+  /**
+   * Return the member names of this table as encoded by the specified format.
+   *
+   * @param format  Format to get encoded names of. Non-null.
+   * @return        The encoded member names, by index. Never null.
+   */
+  byte[][] getEncodedNames(BinaryFormat format)
+  {
+    assert format != null : "format cannot be null";
+    return encodedNames_.get(format);
+  }
+}
@@ -0,0 +1,275 @@
+package no.geosoft.jpwls.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decoder of MessagePack.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+final class MessagePackDecoder extends Decoder
+{
+  /**
+   * Create a MessagePack decoder reading from the specified stream.
+   *
+   * @param stream  Stream to read from. Non-null.
+   */
+  MessagePackDecoder(InputStream stream)
+  {
+    super(stream);
+  }
+
+  /**
+   * Create an exception for an unexpected type byte.
+   *
+   * @param what      Description of expected value. Non-null.
+   * @param typeByte  The type byte found.
+   * @return          The exception. Never null.
+   */
+  private static IOException unexpected(String what, int typeByte)
+  {
+    return new IOException("Expected " + what + " but found 0x" + Integer.toHexString(typeByte));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  boolean readNull()
+    throws IOException
+  {
+    if (peekByte() != MessagePackEncoder.NIL)
+      return false;
+
+    readByte();
+    return true;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  int readArrayHeader()
+    throws IOException
+  {
+    int typeByte = readByte();
+
+    if ((typeByte & 0xf0) == MessagePackEncoder.FIXARRAY)
+      return typeByte & 0x0f;
+
+    switch (typeByte) {
+      case MessagePackEncoder.ARRAY16 : return (int) readBigEndian(2);
+      case MessagePackEncoder.ARRAY32 : return toLength(readBigEndian(4));
+      default :
+        throw unexpected("array", typeByte);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  int readMapHeader()
+    throws IOException
+  {
+    int typeByte = readByte();
+
+    if ((typeByte & 0xf0) == MessagePackEncoder.FIXMAP)
+      return typeByte & 0x0f;
+
+    switch (typeByte) {
+      case MessagePackEncoder.MAP16 : return (int) readBigEndian(2);
+      case MessagePackEncoder.MAP32 : return toLength(readBigEndian(4));
+      default :
+        throw unexpected("map", typeByte);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  int readStringHeader()
+    throws IOException
+  {
+    int typeByte = readByte();
+
+    if ((typeByte & 0xe0) == MessagePackEncoder.FIXSTR)
+      return typeByte & 0x1f;
+
+    switch (typeByte) {
+      case MessagePackEncoder.STR8  : return (int) readBigEndian(1);
+      case MessagePackEncoder.STR16 : return (int) readBigEndian(2);
+      case MessagePackEncoder.STR32 : return toLength(readBigEndian(4));
+      default :
+        throw unexpected("string", typeByte);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  long readInteger()
+    throws IOException
+  {
+    int typeByte = readByte();
+
+    if (typeByte <= 0x7f)
+      return typeByte;
+
+    if (typeByte >= MessagePackEncoder.NEGATIVE_FIXINT)
+      return (byte) typeByte;
+
+    switch (typeByte) {
+      case MessagePackEncoder.UINT8  : return readBigEndian(1);
+      case MessagePackEncoder.UINT16 : return readBigEndian(2);
+      case MessagePackEncoder.UINT32 : return readBigEndian(4);
+      case MessagePackEncoder.UINT64 :
+        long value = readBigEndian(8);
+        if (value < 0)
+          throw new IOException("Integer out of range: " + Long.toUnsignedString(value));
+        return value;
+      case MessagePackEncoder.INT8   : return (byte) readBigEndian(1);
+      case MessagePackEncoder.INT16  : return (short) readBigEndian(2);
+      case MessagePackEncoder.INT32  : return (int) readBigEndian(4);
+      case MessagePackEncoder.INT64  : return readBigEndian(8);
+      default :
+        throw unexpected("integer", typeByte);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  boolean readBoolean()
+    throws IOException
+  {
+    int typeByte = readByte();
+    if (typeByte == MessagePackEncoder.TRUE)
+      return true;
+    if (typeByte == MessagePackEncoder.FALSE)
+      return false;
+
+    throw unexpected("boolean", typeByte);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void skipValue()
+    throws IOException
+  {
+    int typeByte = readByte();
+
+    // positive fixint, negative fixint
+    if (typeByte <= 0x7f || typeByte >= MessagePackEncoder.NEGATIVE_FIXINT)
+      return;
+
+    // fixmap
+    if ((typeByte & 0xf0) == MessagePackEncoder.FIXMAP) {
+      skipValues(2L * (typeByte & 0x0f));
+      return;
+    }
+
+    // fixarray
+    if ((typeByte & 0xf0) == MessagePackEncoder.FIXARRAY) {
+      skipValues(typeByte & 0x0f);
+      return;
+    }
+
+    // fixstr
+    if ((typeByte & 0xe0) == MessagePackEncoder.FIXSTR) {
+      skipBytes(typeByte & 0x1f);
+      return;
+    }
+
+    switch (typeByte) {
+      case 0xc0 : // nil
+      case 0xc2 : // false
+      case 0xc3 : // true
+        break;
+
+      case 0xc4 : // bin 8
+      case 0xd9 : // str 8
+        skipBytes(readBigEndian(1));
+        break;
+      case 0xc5 : // bin 16
+      case 0xda : // str 16
+        skipBytes(readBigEndian(2));
+        break;
+      case 0xc6 : // bin 32
+      case 0xdb : // str 32
+        skipBytes(readBigEndian(4));
+        break;
+
+      case 0xc7 : // ext 8
+        skipBytes(readBigEndian(1) + 1);
+        break;
+      case 0xc8 : // ext 16
+        skipBytes(readBigEndian(2) + 1);
+        break;
+      case 0xc9 : // ext 32
+        skipBytes(readBigEndian(4) + 1);
+        break;
+
+      case 0xca : // float 32
+        skipBytes(4);
+        break;
+      case 0xcb : // float 64
+        skipBytes(8);
+        break;
+
+      case 0xcc : // uint 8
+      case 0xd0 : // int 8
+        skipBytes(1);
+        break;
+      case 0xcd : // uint 16
+      case 0xd1 : // int 16
+        skipBytes(2);
+        break;
+      case 0xce : // uint 32
+      case 0xd2 : // int 32
+        skipBytes(4);
+        break;
+      case 0xcf : // uint 64
+      case 0xd3 : // int 64
+        skipBytes(8);
+        break;
+
+      case 0xd4 : // fixext 1
+        skipBytes(2);
+        break;
+      case 0xd5 : // fixext 2
+        skipBytes(3);
+        break;
+      case 0xd6 : // fixext 4
+        skipBytes(5);
+        break;
+      case 0xd7 : // fixext 8
+        skipBytes(9);
+        break;
+      case 0xd8 : // fixext 16
+        skipBytes(17);
+        break;
+
+      case 0xdc : // array 16
+        skipValues(readBigEndian(2));
+        break;
+      case 0xdd : // array 32
+        skipValues(readBigEndian(4));
+        break;
+      case 0xde : // map 16
+        skipValues(2 * readBigEndian(2));
+        break;
+      case 0xdf : // map 32
+        skipValues(2 * readBigEndian(4));
+        break;
+
+      default :
+        throw new IOException("Invalid MessagePack type: 0x" + Integer.toHexString(typeByte));
+    }
+  }
+
+  /**
+   * Skip the specified number of values.
+   *
+   * @param nValues  Number of values to skip. [0,&gt;.
+   * @throws IOException  If the read operation fails or a value is malformed.
+   */
+  private void skipValues(long nValues)
+    throws IOException
+  {
+    for (long i = 0; i < nValues; i++)
+      skipValue();
+  }
+}
@@ -0,0 +1,189 @@
+package no.geosoft.jpwls.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encoder of MessagePack. Integers and lengths are written
+ * using the shortest encoding available.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+final class MessagePackEncoder extends Encoder
+{
+  /** The nil value. */
+  static final int NIL = 0xc0;
+
+  /** The false value. */
+  static final int FALSE = 0xc2;
+
+  /** The true value. */
+  static final int TRUE = 0xc3;
+
+  /** Prefix of fixed maps, holding up to 15 entries. */
+  static final int FIXMAP = 0x80;
+
+  /** Prefix of fixed arrays, holding up to 15 elements. */
+  static final int FIXARRAY = 0x90;
+
+  /** Prefix of fixed strings, holding up to 31 bytes. */
+  static final int FIXSTR = 0xa0;
+
+  /** Prefix of negative fixed integers, [-32,-1]. */
+  static final int NEGATIVE_FIXINT = 0xe0;
+
+  /** 8-bit unsigned integer. */
+  static final int UINT8 = 0xcc;
+
+  /** 16-bit unsigned integer. */
+  static final int UINT16 = 0xcd;
+
+  /** 32-bit unsigned integer. */
+  static final int UINT32 = 0xce;
+
+  /** 64-bit unsigned integer. */
+  static final int UINT64 = 0xcf;
+
+  /** 8-bit signed integer. */
+  static final int INT8 = 0xd0;
+
+  /** 16-bit signed integer. */
+  static final int INT16 = 0xd1;
+
+  /** 32-bit signed integer. */
+  static final int INT32 = 0xd2;
+
+  /** 64-bit signed integer. */
+  static final int INT64 = 0xd3;
+
+  /** String of up to 255 bytes. */
+  static final int STR8 = 0xd9;
+
+  /** String of up to 65535 bytes. */
+  static final int STR16 = 0xda;
+
+  /** String of up to 2^32-1 bytes. */
+  static final int STR32 = 0xdb;
+
+  /** Array of up to 65535 elements. */
+  static final int ARRAY16 = 0xdc;
+
+  /** Array of up to 2^32-1 elements. */
+  static final int ARRAY32 = 0xdd;
+
+  /** Map of up to 65535 entries. */
+  static final int MAP16 = 0xde;
+
+  /** Map of up to 2^32-1 entries. */
+  static final int MAP32 = 0xdf;
+
+  /**
+   * Create a MessagePack encoder writing to the specified stream.
+   *
+   * @param stream  Stream to write to. Non-null.
+   */
+  MessagePackEncoder(OutputStream stream)
+  {
+    super(stream);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void writeArrayHeader(int length)
+    throws IOException
+  {
+    assert length >= 0 : "Invalid length: " + length;
+
+    if (length <= 15)
+      writeByte(FIXARRAY | length);
+    else if (length <= 0xffff)
+      writeShort(ARRAY16, length);
+    else
+      writeInt(ARRAY32, length);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void writeMapHeader(int length)
+    throws IOException
+  {
+    assert length >= 0 : "Invalid length: " + length;
+
+    if (length <= 15)
+      writeByte(FIXMAP | length);
+    else if (length <= 0xffff)
+      writeShort(MAP16, length);
+    else
+      writeInt(MAP32, length);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void writeStringHeader(int length)
+    throws IOException
+  {
+    assert length >= 0 : "Invalid length: " + length;
+
+    if (length <= 31)
+      writeByte(FIXSTR | length);
+    else if (length <= 0xff) {
+      writeByte(STR8);
+      writeByte(length);
+    }
+    else if (length <= 0xffff)
+      writeShort(STR16, length);
+    else
+      writeInt(STR32, length);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void writeInteger(long value)
+    throws IOException
+  {
+    if (value >= 0) {
+      if (value <= 0x7f)
+        writeByte((int) value);
+      else if (value <= 0xff) {
+        writeByte(UINT8);
+        writeByte((int) value);
+      }
+      else if (value <= 0xffff)
+        writeShort(UINT16, (int) value);
+      else if (value <= 0xffffffffL)
+        writeInt(UINT32, (int) value);
+      else
+        writeLong(UINT64, value);
+    }
+    else {
+      if (value >= -32)
+        writeByte((int) value);
+      else if (value >= Byte.MIN_VALUE) {
+        writeByte(INT8);
+        writeByte((int) value);
+      }
+      else if (value >= Short.MIN_VALUE)
+        writeShort(INT16, (int) value);
+      else if (value >= Integer.MIN_VALUE)
+        writeInt(INT32, (int) value);
+      else
+        writeLong(INT64, value);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void writeBoolean(boolean value)
+    throws IOException
+  {
+    writeByte(value ? TRUE : FALSE);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  void writeNull()
+    throws IOException
+  {
+    writeByte(NIL);
+  }
+}
@@ -0,0 +1,59 @@
+package no.geosoft.jpwls.csv;
+
+/**
+ * The delimited text formats supported for PWLS entities.
+ * <p>
+ * Both formats use the quoting rules of RFC 4180: fields containing
+ * the delimiter, a double quote or a line break are enclosed in double
+ * quotes, and double quotes within them are doubled. Records end with CRLF.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public enum CsvFormat
+{
+  /** Comma separated values, RFC 4180. */
+  CSV(',', "text/csv"),
+
+  /** Tab separated values. */
+  TSV('\t', "text/tab-separated-values");
+
+  /** Field delimiter of this format. */
+  private final char delimiter_;
+
+  /** MIME type of this format. Non-null. */
+  private final String mimeType_;
+
+  /**
+   * Create a delimited text format.
+   *
+   * @param delimiter  Field delimiter.
+   * @param mimeType   MIME type of format. Non-null.
+   */
+  private CsvFormat(char delimiter, String mimeType)
+  {
+    assert mimeType != null : "mimeType cannot be null";
+
+    delimiter_ = delimiter;
+    mimeType_ = mimeType;
+  }
+
+  /**
+   * Return the field delimiter of this format.
+   *
+   * @return  The field delimiter.
+   */
+  public char getDelimiter()
+  {
+    return delimiter_;
+  }
+
+  /**
+   * Return the MIME type of this format, for content negotiation.
+   *
+   * @return  MIME type of this format. Never null.
+   */
+  public String getMimeType()
+  {
+    return mimeType_;
+  }
+}
@@ -0,0 +1,410 @@
+package no.geosoft.jpwls.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import no.geosoft.jpwls.Companies;
+import no.geosoft.jpwls.Company;
+import no.geosoft.jpwls.Curve;
+import no.geosoft.jpwls.Curves;
+import no.geosoft.jpwls.LoadReport;
+import no.geosoft.jpwls.LoggingMethod;
+import no.geosoft.jpwls.LoggingMethods;
+import no.geosoft.jpwls.Properties;
+import no.geosoft.jpwls.Property;
+import no.geosoft.jpwls.Tool;
+import no.geosoft.jpwls.ToolClass;
+import no.geosoft.jpwls.ToolClasses;
+import no.geosoft.jpwls.Tools;
+
+/**
+ * Class for reading PWLS instances from CSV or TSV tables.
+ * <p>
+ * Each table must start with a header record of column names as
+ * written by {@link CsvWriter}. Columns are found by name, so they
+ * may come in any order, and unknown columns are ignored. Missing
+ * columns and empty fields get the same defaults as in the JSON format.
+ * Records are parsed one at a time from the stream. Input must be UTF-8.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ * @see CsvWriter
+ */
+public final class CsvReader
+{
+  /**
+   * Private constructor to prevent client instantiation.
+   */
+  private CsvReader()
+  {
+    assert false : "This constructor should never be called";
+  }
+
+  /**
+   * Create a row reader of the specified stream and read its header.
+   *
+   * @param stream   Stream to read from. Non-null.
+   * @param format   Format of stream. Non-null.
+   * @param columns  Names of the columns to locate. Non-null.
+   * @param indices  Array to put the field index of each column in, or -1 if
+   *                 not present. Non-null. Same length as columns.
+   * @return         The row reader, positioned after the header. Never null.
+   * @throws IOException  If the read operation fails.
+   */
+  private static RowReader open(InputStream stream, CsvFormat format, String[] columns, int[] indices)
+    throws IOException
+  {
+    assert stream != null : "stream cannot be null";
+    assert format != null : "format cannot be null";
+    assert columns != null : "columns cannot be null";
+    assert indices != null && indices.length == columns.length : "Invalid indices";
+
+    RowReader rowReader = new RowReader(new InputStreamReader(stream, StandardCharsets.UTF_8), format);
+
+    Map<String,Integer> header = new HashMap<>();
+    if (rowReader.next()) {
+      for (int i = 0; i < rowReader.getNFields(); i++) {
+        String name = rowReader.getField(i);
+        if (name != null)
+          header.putIfAbsent(name.trim(), i);
+      }
+    }
+
+    for (int i = 0; i < columns.length; i++)
+      indices[i] = header.getOrDefault(columns[i], -1);
+
+    return rowReader;
+  }
+
+  /**
+   * Return the specified field of the current record as an integer.
+   *
+   * @param rowReader     Row reader positioned at the record. Non-null.
+   * @param index         Index of field. -1 if the column is not present.
+   * @param defaultValue  Value to return if the field is empty.
+   * @return              The integer value of the field, or defaultValue if empty.
+   * @throws IOException  If the field is not an integer.
+   */
+  private static int getInt(RowReader rowReader, int index, int defaultValue)
+    throws IOException
+  {
+    assert rowReader != null : "rowReader cannot be null";
+
+    String field = rowReader.getField(index);
+    if (field == null || field.isEmpty())
+      return defaultValue;
+
+    try {
+      return Integer.parseInt(field.trim());
+    }
+    catch (NumberFormatException exception) {
+      throw new IOException("Invalid integer at line " + rowReader.getLineNo() + ": " + field, exception);
+    }
+  }
+
+  /**
+   * Return the specified field of the current record as a boolean.
+   *
+   * @param rowReader     Row reader positioned at the record. Non-null.
+   * @param index         Index of field. -1 if the column is not present.
+   * @param defaultValue  Value to return if the field is empty.
+   * @return              The boolean value of the field, or defaultValue if empty.
+   */
+  private static boolean getBoolean(RowReader rowReader, int index, boolean defaultValue)
+  {
+    assert rowReader != null : "rowReader cannot be null";
+
+    String field = rowReader.getField(index);
+    if (field == null || field.isEmpty())
+      return defaultValue;
+
+    return Boolean.parseBoolean(field.trim());
+  }
+
+  /**
+   * Check the arguments common to the public read methods.
+   *
+   * @param stream  Stream argument. Non-null.
+   * @param format  Format argument. Non-null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   */
+  private static void checkArguments(InputStream stream, CsvFormat format)
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (format == null)
+      throw new IllegalArgumentException("format cannot be null");
+  }
+
+  /**
+   * Read PWLS curves from the specified table.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param format  Format of stream. Non-null.
+   * @return        The curves read. Never null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   * @throws IOException  If the read operation fails or the input is malformed.
+   */
+  public static Curves readCurves(InputStream stream, CsvFormat format)
+    throws IOException
+  {
+    checkArguments(stream, format);
+
+    int[] columns = new int[CsvWriter.CURVE_COLUMNS.length];
+    RowReader rowReader = open(stream, format, CsvWriter.CURVE_COLUMNS, columns);
+
+    Curves curves = new Curves();
+    while (rowReader.next()) {
+      int companyCode = getInt(rowReader, columns[2], -1);
+      curves.add(new Curve(rowReader.getField(columns[0]),
+                           rowReader.getField(columns[1]),
+                           companyCode != -1 ? companyCode : null,
+                           rowReader.getField(columns[3]),
+                           rowReader.getField(columns[4]),
+                           rowReader.getField(columns[5])));
+    }
+
+    return curves;
+  }
+
+  /**
+   * Read PWLS tools from the specified table.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param format  Format of stream. Non-null.
+   * @return        The tools read. Never null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   * @throws IOException  If the read operation fails or the input is malformed.
+   */
+  public static Tools readTools(InputStream stream, CsvFormat format)
+    throws IOException
+  {
+    checkArguments(stream, format);
+
+    int[] columns = new int[CsvWriter.TOOL_COLUMNS.length];
+    RowReader rowReader = open(stream, format, CsvWriter.TOOL_COLUMNS, columns);
+
+    Tools tools = new Tools();
+    while (rowReader.next()) {
+      tools.add(new Tool(rowReader.getField(columns[0]),
+                         getInt(rowReader, columns[1], -1),
+                         rowReader.getField(columns[2]),
+                         rowReader.getField(columns[3]),
+                         rowReader.getField(columns[4]),
+                         rowReader.getField(columns[5]),
+                         rowReader.getField(columns[6]),
+                         rowReader.getField(columns[7])));
+    }
+
+    return tools;
+  }
+
+  /**
+   * Read PWLS companies from the specified table.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param format  Format of stream. Non-null.
+   * @return        The companies read. Never null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   * @throws IOException  If the read operation fails, the input is malformed
+   *                      or a record has no company code.
+   */
+  public static Companies readCompanies(InputStream stream, CsvFormat format)
+    throws IOException
+  {
+    checkArguments(stream, format);
+
+    int[] columns = new int[CsvWriter.COMPANY_COLUMNS.length];
+    RowReader rowReader = open(stream, format, CsvWriter.COMPANY_COLUMNS, columns);
+
+    Companies companies = new Companies();
+    while (rowReader.next()) {
+      int companyCode = getInt(rowReader, columns[0], -1);
+      if (companyCode == -1)
+        throw new IOException("Missing companyCode at line " + rowReader.getLineNo());
+
+      companies.add(new Company(companyCode, rowReader.getField(columns[1])));
+    }
+
+    return companies;
+  }
+
+  /**
+   * Read PWLS properties from the specified table.
+   * Parents are resolved by name among the properties read.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param format  Format of stream. Non-null.
+   * @return        The properties read. Never null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   * @throws IOException  If the read operation fails or the input is malformed.
+   */
+  public static Properties readProperties(InputStream stream, CsvFormat format)
+    throws IOException
+  {
+    checkArguments(stream, format);
+
+    int[] columns = new int[CsvWriter.PROPERTY_COLUMNS.length];
+    RowReader rowReader = open(stream, format, CsvWriter.PROPERTY_COLUMNS, columns);
+
+    Properties properties = new Properties();
+
+    // Temporary holder of parents
+    Map<Property,String> parents = new HashMap<>();
+
+    // Properties by name, for resolving parents
+    Map<String,Property> propertiesByName = new HashMap<>();
+
+    while (rowReader.next()) {
+      String description = rowReader.getField(columns[1]);
+
+      Property property = new Property(rowReader.getField(columns[0]),
+                                       description != null ? description : "",
+                                       rowReader.getField(columns[2]),
+                                       rowReader.getField(columns[3]),
+                                       getInt(rowReader, columns[5], -1),
+                                       getBoolean(rowReader, columns[6], false));
+
+      parents.put(property, rowReader.getField(columns[4]));
+      propertiesByName.putIfAbsent(property.getName(), property);
+
+      properties.add(property);
+    }
+
+    // Resolve parents
+    for (Property property : properties.getAll()) {
+      String parentName = parents.get(property);
+      Property parentProperty = parentName != null ? propertiesByName.get(parentName) : null;
+
+      // Keep parent == null if at root level
+      if (parentProperty != null && parentProperty != property)
+        property.setParent(parentProperty);
+    }
+
+    return properties;
+  }
+
+  /**
+   * Read PWLS tool classes from the specified table.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param format  Format of stream. Non-null.
+   * @return        The tool classes read. Never null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   * @throws IOException  If the read operation fails or the input is malformed.
+   */
+  public static ToolClasses readToolClasses(InputStream stream, CsvFormat format)
+    throws IOException
+  {
+    checkArguments(stream, format);
+
+    int[] columns = new int[CsvWriter.NAME_COLUMNS.length];
+    RowReader rowReader = open(stream, format, CsvWriter.NAME_COLUMNS, columns);
+
+    ToolClasses toolClasses = new ToolClasses();
+    while (rowReader.next())
+      toolClasses.add(new ToolClass(rowReader.getField(columns[0]), rowReader.getField(columns[1])));
+
+    return toolClasses;
+  }
+
+  /**
+   * Read PWLS logging methods from the specified table.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param format  Format of stream. Non-null.
+   * @return        The logging methods read. Never null.
+   * @throws IllegalArgumentException  If stream or format is null.
+   * @throws IOException  If the read operation fails or the input is malformed.
+   */
+  public static LoggingMethods readLoggingMethods(InputStream stream, CsvFormat format)
+    throws IOException
+  {
+    checkArguments(stream, format);
+
+    int[] columns = new int[CsvWriter.NAME_COLUMNS.length];
+    RowReader rowReader = open(stream, format, CsvWriter.NAME_COLUMNS, columns);
+
+    LoggingMethods loggingMethods = new LoggingMethods();
+    while (rowReader.next())
+      loggingMethods.add(new LoggingMethod(rowReader.getField(columns[0]), rowReader.getField(columns[1])));
+
+    return loggingMethods;
+  }
+
+  /**
+   * Read the PWLS curves by tool link table and associate the curves
+   * with their tools. Links of unknown tools or curves are logged
+   * in summary.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param tools   Tools to associate curves with. Non-null.
+   * @param curves  Curves to associate. Non-null.
+   * @param format  Format of stream. Non-null.
+   * @throws IllegalArgumentException  If stream, tools, curves or format is null.
+   * @throws IOException  If the read operation fails or the input is malformed.
+   */
+  public static void readCurvesByTool(InputStream stream, Tools tools, Curves curves, CsvFormat format)
+    throws IOException
+  {
+    LoadReport report = new LoadReport();
+    readCurvesByTool(stream, tools, curves, format, report);
+    report.log("curves by tool");
+  }
+
+  /**
+   * Read the PWLS curves by tool link table and associate the curves
+   * with their tools. Links of unknown tools or curves are added to
+   * the report rather than logged individually.
+   *
+   * @param stream  Stream to read from. Non-null. Left open.
+   * @param tools   Tools to associate curves with. Non-null.
+   * @param curves  Curves to associate. Non-null.
+   * @param format  Format of stream. Non-null.
+   * @param report  Report to add load issues to. Non-null.
+   * @throws IllegalArgumentException  If stream, tools, curves, format or report is null.
+   * @throws IOException  If the read operation fails, the input is malformed
+   *                      or a record has no tool code or curve mnemonic.
+   */
+  public static void readCurvesByTool(InputStream stream, Tools tools, Curves curves, CsvFormat format, LoadReport report)
+    throws IOException
+  {
+    checkArguments(stream, format);
+
+    if (tools == null)
+      throw new IllegalArgumentException("tools cannot be null");
+
+    if (curves == null)
+      throw new IllegalArgumentException("curves cannot be null");
+
+    if (report == null)
+      throw new IllegalArgumentException("report cannot be null");
+
+    int[] columns = new int[CsvWriter.LINK_COLUMNS.length];
+    RowReader rowReader = open(stream, format, CsvWriter.LINK_COLUMNS, columns);
+
+    while (rowReader.next()) {
+      String toolCode = rowReader.getField(columns[0]);
+      int companyCode = getInt(rowReader, columns[1], -1);
+      String curveMnemonic = rowReader.getField(columns[2]);
+
+      if (toolCode == null || curveMnemonic == null)
+        throw new IOException("Missing toolCode or curveMnemonic at line " + rowReader.getLineNo());
+
+      Tool tool = tools.find(toolCode, companyCode);
+      if (tool == null)
+        report.add(LoadReport.Category.UNKNOWN_TOOL, toolCode + "/" + companyCode);
+
+      Curve curve = curves.find(curveMnemonic, companyCode);
+      if (curve == null)
+        report.add(LoadReport.Category.UNKNOWN_CURVE, curveMnemonic + "/" + companyCode);
+
+      if (tool != null && curve != null)
+        tool.addCurve(curve);
+    }
+  }
+}
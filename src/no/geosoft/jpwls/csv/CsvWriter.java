@@ -0,0 +1,370 @@
+package no.geosoft.jpwls.csv;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import no.geosoft.jpwls.CanonicalOrder;
+import no.geosoft.jpwls.Company;
+import no.geosoft.jpwls.Curve;
+import no.geosoft.jpwls.LoggingMethod;
+import no.geosoft.jpwls.Property;
+import no.geosoft.jpwls.Tool;
+import no.geosoft.jpwls.ToolClass;
+
+/**
+ * Class for writing PWLS instances as CSV or TSV, typically for bulk
+ * loading into databases and analytics engines.
+ * <p>
+ * Each table starts with a header record of the JSON member names,
+ * followed by one record per entity. Records are streamed directly to
+ * the output, so memory use is independent of the number of records:
+ * <pre>
+ *   CsvWriter.writeCurves(System.out, pwls.getCurves(null, null, null, null), CsvFormat.CSV);
+ * </pre>
+ * The output is UTF-8. Null values are written as empty fields, while
+ * empty strings are written as <code>""</code>. Records are written in
+ * the order given; use {@link CanonicalOrder} for reproducible output.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ * @see CsvReader
+ */
+public final class CsvWriter
+{
+  /** Column names of the curves table. */
+  static final String[] CURVE_COLUMNS = {"mnemonic", "shortMnemonic", "companyCode", "property", "quantity", "description"};
+
+  /** Column names of the tools table. */
+  static final String[] TOOL_COLUMNS = {"toolCode", "companyCode", "group", "marketingName", "description",
+                                        "genericType", "loggingMethod", "typeDescription"};
+
+  /** Column names of the companies table. */
+  static final String[] COMPANY_COLUMNS = {"companyCode", "name"};
+
+  /** Column names of the properties table. */
+  static final String[] PROPERTY_COLUMNS = {"name", "description", "quantity", "guid", "parent", "sortOrder", "isAbstract"};
+
+  /** Column names of the tool classes and logging methods tables. */
+  static final String[] NAME_COLUMNS = {"name", "description"};
+
+  /** Column names of the curves by tool table. */
+  static final String[] LINK_COLUMNS = {"toolCode", "companyCode", "curveMnemonic"};
+
+  /** Size of the output buffer, in chars. */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Writer of the records of a single entity.
+   *
+   * @param <T>  Type of record written.
+   */
+  private interface RecordWriter<T>
+  {
+    /**
+     * Write the records of the specified entity, each ended by {@link RowWriter#endRow}.
+     *
+     * @param rowWriter  Row writer to write to. Non-null.
+     * @param record     Entity to write. Non-null.
+     * @throws IOException  If the write operation fails.
+     */
+    void write(RowWriter rowWriter, T record)
+      throws IOException;
+  }
+
+  /**
+   * Private constructor to prevent client instantiation.
+   */
+  private CsvWriter()
+  {
+    assert false : "This constructor should never be called";
+  }
+
+  /**
+   * Write the record of the specified curve.
+   *
+   * @param rowWriter  Row writer to write to. Non-null.
+   * @param curve      Curve to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  private static void writeRecord(RowWriter rowWriter, Curve curve)
+    throws IOException
+  {
+    rowWriter.write(curve.getMnemonic());
+    rowWriter.write(curve.getLisMnemonic());
+    rowWriter.write(curve.getCompanyCode());
+    rowWriter.write(curve.getProperty());
+    rowWriter.write(curve.getQuantity());
+    rowWriter.write(curve.getDescription());
+    rowWriter.endRow();
+  }
+
+  /**
+   * Write the record of the specified tool.
+   *
+   * @param rowWriter  Row writer to write to. Non-null.
+   * @param tool       Tool to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  private static void writeRecord(RowWriter rowWriter, Tool tool)
+    throws IOException
+  {
+    rowWriter.write(tool.getToolCode());
+    rowWriter.write(tool.getCompanyCode());
+    rowWriter.write(tool.getGroup());
+    rowWriter.write(tool.getMarketingName());
+    rowWriter.write(tool.getDescription());
+    rowWriter.write(tool.getGenericType());
+    rowWriter.write(tool.getLoggingMethod());
+    rowWriter.write(tool.getTypeDescription());
+    rowWriter.endRow();
+  }
+
+  /**
+   * Write the record of the specified company.
+   *
+   * @param rowWriter  Row writer to write to. Non-null.
+   * @param company    Company to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  private static void writeRecord(RowWriter rowWriter, Company company)
+    throws IOException
+  {
+    rowWriter.write(company.getCompanyCode());
+    rowWriter.write(company.getName());
+    rowWriter.endRow();
+  }
+
+  /**
+   * Write the record of the specified property.
+   *
+   * @param rowWriter  Row writer to write to. Non-null.
+   * @param property   Property to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  private static void writeRecord(RowWriter rowWriter, Property property)
+    throws IOException
+  {
+    Property parent = property.getParent();
+
+    rowWriter.write(property.getName());
+    rowWriter.write(property.getDescription());
+    rowWriter.write(property.getQuantity());
+    rowWriter.write(property.getGuid());
+    rowWriter.write(parent != null ? parent.getName() : null);
+    rowWriter.write(property.getSortOrder());
+    rowWriter.write(property.isAbstract());
+    rowWriter.endRow();
+  }
+
+  /**
+   * Write the record of the specified tool class.
+   *
+   * @param rowWriter  Row writer to write to. Non-null.
+   * @param toolClass  Tool class to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  private static void writeRecord(RowWriter rowWriter, ToolClass toolClass)
+    throws IOException
+  {
+    rowWriter.write(toolClass.getName());
+    rowWriter.write(toolClass.getDescription());
+    rowWriter.endRow();
+  }
+
+  /**
+   * Write the record of the specified logging method.
+   *
+   * @param rowWriter      Row writer to write to. Non-null.
+   * @param loggingMethod  Logging method to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  private static void writeRecord(RowWriter rowWriter, LoggingMethod loggingMethod)
+    throws IOException
+  {
+    rowWriter.write(loggingMethod.getName());
+    rowWriter.write(loggingMethod.getDescription());
+    rowWriter.endRow();
+  }
+
+  /**
+   * Write the specified records as a table to the given stream.
+   *
+   * @param stream        Stream to write to. Non-null. Left open.
+   * @param records       Records to write. Non-null.
+   * @param format        Format to write. Non-null.
+   * @param columns       Column names of the table. Non-null.
+   * @param recordWriter  Writer of the records of each entity. Non-null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  private static <T> void writeTable(OutputStream stream, Iterable<T> records, CsvFormat format,
+                                     String[] columns, RecordWriter<T> recordWriter)
+    throws IOException
+  {
+    assert stream != null : "stream cannot be null";
+    assert records != null : "records cannot be null";
+    assert format != null : "format cannot be null";
+    assert columns != null : "columns cannot be null";
+    assert recordWriter != null : "recordWriter cannot be null";
+
+    // Not closed, as that would close the stream
+    Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    RowWriter rowWriter = new RowWriter(writer, format);
+
+    rowWriter.writeRow(columns);
+
+    for (T record : records)
+      recordWriter.write(rowWriter, record);
+
+    writer.flush();
+  }
+
+  /**
+   * Check the arguments common to the public write methods.
+   *
+   * @param stream   Stream argument. Non-null.
+   * @param records  Records argument. Non-null.
+   * @param what     Name of records argument, for the error message. Non-null.
+   * @param format   Format argument. Non-null.
+   * @throws IllegalArgumentException  If any of the arguments is null.
+   */
+  private static void checkArguments(OutputStream stream, Iterable<?> records, String what, CsvFormat format)
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (records == null)
+      throw new IllegalArgumentException(what + " cannot be null");
+
+    if (format == null)
+      throw new IllegalArgumentException("format cannot be null");
+  }
+
+  /**
+   * Write the specified PWLS curves as a table in the given format.
+   *
+   * @param stream  Stream to write to. Non-null. Left open.
+   * @param curves  Curves to write. Non-null.
+   * @param format  Format to write. Non-null.
+   * @throws IllegalArgumentException  If stream, curves or format is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeCurves(OutputStream stream, Iterable<Curve> curves, CsvFormat format)
+    throws IOException
+  {
+    checkArguments(stream, curves, "curves", format);
+    writeTable(stream, curves, format, CURVE_COLUMNS, CsvWriter::writeRecord);
+  }
+
+  /**
+   * Write the specified PWLS tools as a table in the given format.
+   *
+   * @param stream  Stream to write to. Non-null. Left open.
+   * @param tools   Tools to write. Non-null.
+   * @param format  Format to write. Non-null.
+   * @throws IllegalArgumentException  If stream, tools or format is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeTools(OutputStream stream, Iterable<Tool> tools, CsvFormat format)
+    throws IOException
+  {
+    checkArguments(stream, tools, "tools", format);
+    writeTable(stream, tools, format, TOOL_COLUMNS, CsvWriter::writeRecord);
+  }
+
+  /**
+   * Write the specified PWLS companies as a table in the given format.
+   *
+   * @param stream     Stream to write to. Non-null. Left open.
+   * @param companies  Companies to write. Non-null.
+   * @param format     Format to write. Non-null.
+   * @throws IllegalArgumentException  If stream, companies or format is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeCompanies(OutputStream stream, Iterable<Company> companies, CsvFormat format)
+    throws IOException
+  {
+    checkArguments(stream, companies, "companies", format);
+    writeTable(stream, companies, format, COMPANY_COLUMNS, CsvWriter::writeRecord);
+  }
+
+  /**
+   * Write the specified PWLS properties as a table in the given format.
+   * Parents are written by name.
+   *
+   * @param stream      Stream to write to. Non-null. Left open.
+   * @param properties  Properties to write. Non-null.
+   * @param format      Format to write. Non-null.
+   * @throws IllegalArgumentException  If stream, properties or format is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeProperties(OutputStream stream, Iterable<Property> properties, CsvFormat format)
+    throws IOException
+  {
+    checkArguments(stream, properties, "properties", format);
+    writeTable(stream, properties, format, PROPERTY_COLUMNS, CsvWriter::writeRecord);
+  }
+
+  /**
+   * Write the specified PWLS tool classes as a table in the given format.
+   *
+   * @param stream       Stream to write to. Non-null. Left open.
+   * @param toolClasses  Tool classes to write. Non-null.
+   * @param format       Format to write. Non-null.
+   * @throws IllegalArgumentException  If stream, toolClasses or format is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeToolClasses(OutputStream stream, Iterable<ToolClass> toolClasses, CsvFormat format)
+    throws IOException
+  {
+    checkArguments(stream, toolClasses, "toolClasses", format);
+    writeTable(stream, toolClasses, format, NAME_COLUMNS, CsvWriter::writeRecord);
+  }
+
+  /**
+   * Write the specified PWLS logging methods as a table in the given format.
+   *
+   * @param stream          Stream to write to. Non-null. Left open.
+   * @param loggingMethods  Logging methods to write. Non-null.
+   * @param format          Format to write. Non-null.
+   * @throws IllegalArgumentException  If stream, loggingMethods or format is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeLoggingMethods(OutputStream stream, Iterable<LoggingMethod> loggingMethods, CsvFormat format)
+    throws IOException
+  {
+    checkArguments(stream, loggingMethods, "loggingMethods", format);
+    writeTable(stream, loggingMethods, format, NAME_COLUMNS, CsvWriter::writeRecord);
+  }
+
+  /**
+   * Write the curves of the specified PWLS tools as a link table
+   * in the given format, one record per tool and curve.
+   * <p>
+   * The tools are written in the order given, and the curves of each
+   * tool in {@link CanonicalOrder canonical order}. Tools in canonical
+   * order thus give a canonical table.
+   *
+   * @param stream  Stream to write to. Non-null. Left open.
+   * @param tools   Tools to write curves of. Non-null.
+   * @param format  Format to write. Non-null.
+   * @throws IllegalArgumentException  If stream, tools or format is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeCurvesByTool(OutputStream stream, Iterable<Tool> tools, CsvFormat format)
+    throws IOException
+  {
+    checkArguments(stream, tools, "tools", format);
+
+    writeTable(stream, tools, format, LINK_COLUMNS, (rowWriter, tool) -> {
+      for (Curve curve : CanonicalOrder.sort(tool.getCurves(), CanonicalOrder.CURVES)) {
+        rowWriter.write(tool.getToolCode());
+        rowWriter.write(tool.getCompanyCode());
+        rowWriter.write(curve.getMnemonic());
+        rowWriter.endRow();
+      }
+    });
+  }
+}
@@ -0,0 +1,279 @@
+package no.geosoft.jpwls.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reader of delimited text records, one record at a time.
+ * <p>
+ * Fields may be quoted according to RFC 4180, and records may end with
+ * CRLF, LF or CR. An empty unquoted field is read as null, while an
+ * empty quoted field is read as an empty string. Empty lines and a
+ * leading byte order mark are ignored. Only the current record is
+ * held in memory.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+final class RowReader
+{
+  /** Size of the input buffer. */
+  private static final int BUFFER_SIZE = 8192;
+
+  /** Reader to read from. Non-null. */
+  private final Reader reader_;
+
+  /** Field delimiter. */
+  private final char delimiter_;
+
+  /** The input buffer. Non-null. */
+  private final char[] buffer_ = new char[BUFFER_SIZE];
+
+  /** Position of next char to read in the buffer. */
+  private int position_;
+
+  /** Number of valid chars in the buffer. -1 at end of input. */
+  private int limit_;
+
+  /** Assembly of fields spanning buffers or holding quotes. Non-null. */
+  private final StringBuilder field_ = new StringBuilder();
+
+  /** Fields of the current record. Non-null. */
+  private String[] fields_ = new String[16];
+
+  /** Number of fields of the current record. */
+  private int nFields_;
+
+  /** Line number of the start of the current record, 1-based. */
+  private int lineNo_;
+
+  /** Line number of the current position, 1-based. */
+  private int nextLineNo_ = 1;
+
+  /**
+   * Create a row reader.
+   *
+   * @param reader  Reader to read from. Non-null.
+   * @param format  Format to read. Non-null.
+   */
+  RowReader(Reader reader, CsvFormat format)
+  {
+    assert reader != null : "reader cannot be null";
+    assert format != null : "format cannot be null";
+
+    reader_ = reader;
+    delimiter_ = format.getDelimiter();
+  }
+
+  /**
+   * Make sure there is input available in the buffer.
+   *
+   * @return  True if there is input available, false at end of input.
+   * @throws IOException  If the read operation fails.
+   */
+  private boolean fill()
+    throws IOException
+  {
+    if (position_ < limit_)
+      return true;
+
+    if (limit_ < 0)
+      return false;
+
+    do {
+      limit_ = reader_.read(buffer_);
+    } while (limit_ == 0);
+
+    position_ = 0;
+
+    return limit_ > 0;
+  }
+
+  /**
+   * Add the specified field to the current record.
+   *
+   * @param field  Field to add. May be null.
+   */
+  private void addField(String field)
+  {
+    if (nFields_ == fields_.length)
+      fields_ = Arrays.copyOf(fields_, 2 * fields_.length);
+
+    fields_[nFields_++] = field;
+  }
+
+  /**
+   * Consume a line break at the current position, if any.
+   *
+   * @return  True if a line break was consumed, false otherwise.
+   * @throws IOException  If the read operation fails.
+   */
+  private boolean readLineBreak()
+    throws IOException
+  {
+    if (!fill())
+      return false;
+
+    char c = buffer_[position_];
+    if (c != '\r' && c != '\n')
+      return false;
+
+    position_++;
+    nextLineNo_++;
+
+    if (c == '\r' && fill() && buffer_[position_] == '\n')
+      position_++;
+
+    return true;
+  }
+
+  /**
+   * Read a quoted field. The opening quote is already consumed.
+   *
+   * @return  The field read. Never null.
+   * @throws IOException  If the read operation fails or the field is not terminated.
+   */
+  private String readQuotedField()
+    throws IOException
+  {
+    field_.setLength(0);
+
+    while (true) {
+      if (!fill())
+        throw new IOException("Unterminated quoted field at line " + lineNo_);
+
+      int start = position_;
+      while (position_ < limit_ && buffer_[position_] != '"') {
+        if (buffer_[position_] == '\n')
+          nextLineNo_++;
+        position_++;
+      }
+      field_.append(buffer_, start, position_ - start);
+
+      if (position_ == limit_)
+        continue;
+
+      // Closing quote, or the first of a doubled quote
+      position_++;
+      if (fill() && buffer_[position_] == '"') {
+        field_.append('"');
+        position_++;
+        continue;
+      }
+
+      return field_.toString();
+    }
+  }
+
+  /**
+   * Read an unquoted field.
+   *
+   * @return  The field read, or null if empty.
+   * @throws IOException  If the read operation fails.
+   */
+  private String readUnquotedField()
+    throws IOException
+  {
+    field_.setLength(0);
+
+    while (fill()) {
+      int start = position_;
+      while (position_ < limit_) {
+        char c = buffer_[position_];
+        if (c == delimiter_ || c == '\r' || c == '\n')
+          break;
+        position_++;
+      }
+
+      // Common case: the field is within the buffer
+      if (position_ < limit_ && field_.length() == 0)
+        return position_ > start ? new String(buffer_, start, position_ - start) : null;
+
+      field_.append(buffer_, start, position_ - start);
+
+      if (position_ < limit_)
+        break;
+    }
+
+    return field_.length() > 0 ? field_.toString() : null;
+  }
+
+  /**
+   * Read the next record.
+   *
+   * @return  True if a record was read, false at end of input.
+   * @throws IOException  If the read operation fails or the record is malformed.
+   */
+  boolean next()
+    throws IOException
+  {
+    nFields_ = 0;
+
+    if (!fill())
+      return false;
+
+    // Skip byte order mark
+    if (nextLineNo_ == 1 && position_ == 0 && buffer_[0] == '\uFEFF') {
+      position_++;
+      if (!fill())
+        return false;
+    }
+
+    // Skip empty lines
+    while (readLineBreak()) {
+      if (!fill())
+        return false;
+    }
+
+    lineNo_ = nextLineNo_;
+
+    while (true) {
+      if (fill() && buffer_[position_] == '"') {
+        position_++;
+        addField(readQuotedField());
+      }
+      else {
+        addField(readUnquotedField());
+      }
+
+      if (!fill() || readLineBreak())
+        return true;
+
+      if (buffer_[position_] != delimiter_)
+        throw new IOException("Unexpected character after quoted field at line " + lineNo_);
+
+      position_++;
+    }
+  }
+
+  /**
+   * Return the number of fields of the current record.
+   *
+   * @return  Number of fields of the current record. [0,&gt;.
+   */
+  int getNFields()
+  {
+    return nFields_;
+  }
+
+  /**
+   * Return the field of the specified index of the current record.
+   *
+   * @param index  Index of field. Indices beyond the last field are accepted.
+   * @return       The field, or null if empty or beyond the last field.
+   */
+  String getField(int index)
+  {
+    return index >= 0 && index < nFields_ ? fields_[index] : null;
+  }
+
+  /**
+   * Return the line number of the start of the current record.
+   *
+   * @return  Line number of the current record, 1-based.
+   */
+  int getLineNo()
+  {
+    return lineNo_;
+  }
+}
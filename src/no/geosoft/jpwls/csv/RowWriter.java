@@ -0,0 +1,170 @@
+package no.geosoft.jpwls.csv;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer of delimited text records, field by field.
+ * <p>
+ * Fields are quoted only when needed, which is decided by a single
+ * scan of the field. A null field is written as an empty field, while
+ * an empty string is written as <code>""</code>, so the two can be
+ * told apart when read back.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+final class RowWriter
+{
+  /** Writer to write to. Non-null. Should be buffered. */
+  private final Writer writer_;
+
+  /** Field delimiter. */
+  private final char delimiter_;
+
+  /** True if the next field is the first of its record. */
+  private boolean isFirstField_ = true;
+
+  /**
+   * Create a row writer.
+   *
+   * @param writer  Writer to write to. Non-null. Should be buffered.
+   * @param format  Format to write. Non-null.
+   */
+  RowWriter(Writer writer, CsvFormat format)
+  {
+    assert writer != null : "writer cannot be null";
+    assert format != null : "format cannot be null";
+
+    writer_ = writer;
+    delimiter_ = format.getDelimiter();
+  }
+
+  /**
+   * Write the delimiter preceding the next field, unless it is
+   * the first of its record.
+   *
+   * @throws IOException  If the write operation fails.
+   */
+  private void startField()
+    throws IOException
+  {
+    if (!isFirstField_)
+      writer_.write(delimiter_);
+
+    isFirstField_ = false;
+  }
+
+  /**
+   * Check if the specified field must be quoted.
+   *
+   * @param field  Field to check. Non-null.
+   * @return       True if the field must be quoted, false otherwise.
+   */
+  private boolean isQuotingNeeded(String field)
+  {
+    assert field != null : "field cannot be null";
+
+    if (field.isEmpty())
+      return true;
+
+    for (int i = 0; i < field.length(); i++) {
+      char c = field.charAt(i);
+      if (c == delimiter_ || c == '"' || c == '\n' || c == '\r')
+        return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Write the specified field.
+   *
+   * @param field  Field to write. Null to write an empty field.
+   * @throws IOException  If the write operation fails.
+   */
+  void write(String field)
+    throws IOException
+  {
+    startField();
+
+    if (field == null)
+      return;
+
+    if (!isQuotingNeeded(field)) {
+      writer_.write(field);
+      return;
+    }
+
+    writer_.write('"');
+
+    // Write the runs between quotes in one go, doubling the quotes
+    int start = 0;
+    for (int i = 0; i < field.length(); i++) {
+      if (field.charAt(i) == '"') {
+        writer_.write(field, start, i - start + 1);
+        writer_.write('"');
+        start = i + 1;
+      }
+    }
+    writer_.write(field, start, field.length() - start);
+
+    writer_.write('"');
+  }
+
+  /**
+   * Write the specified field.
+   *
+   * @param field  Field to write. Null to write an empty field.
+   * @throws IOException  If the write operation fails.
+   */
+  void write(Integer field)
+    throws IOException
+  {
+    startField();
+
+    if (field != null)
+      writer_.write(Integer.toString(field));
+  }
+
+  /**
+   * Write the specified field.
+   *
+   * @param field  Field to write.
+   * @throws IOException  If the write operation fails.
+   */
+  void write(boolean field)
+    throws IOException
+  {
+    startField();
+    writer_.write(field ? "true" : "false");
+  }
+
+  /**
+   * Write the specified fields as a complete record.
+   *
+   * @param fields  Fields to write. Non-null.
+   * @throws IOException  If the write operation fails.
+   */
+  void writeRow(String... fields)
+    throws IOException
+  {
+    assert fields != null : "fields cannot be null";
+
+    for (String field : fields)
+      write(field);
+
+    endRow();
+  }
+
+  /**
+   * End the current record.
+   *
+   * @throws IOException  If the write operation fails.
+   */
+  void endRow()
+    throws IOException
+  {
+    writer_.write("\r\n");
+    isFirstField_ = true;
+  }
+}
@@ -4,6 +4,8 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.io.File;
@@ -24,10 +26,12 @@ import no.geosoft.jpwls.Companies;
 import no.geosoft.jpwls.Company;
 import no.geosoft.jpwls.Curve;
 import no.geosoft.jpwls.Curves;
+import no.geosoft.jpwls.LoadReport;
 import no.geosoft.jpwls.LoggingMethod;
 import no.geosoft.jpwls.LoggingMethods;
 import no.geosoft.jpwls.Properties;
 import no.geosoft.jpwls.Property;
+import no.geosoft.jpwls.Pwls;
 import no.geosoft.jpwls.Tool;
 import no.geosoft.jpwls.ToolClass;
 import no.geosoft.jpwls.ToolClasses;
@@ -108,6 +112,47 @@ public final class ExcelReader
     return "true".equals(text);
   }
 
+  /**
+   * Return the sheet of the specified name from the given workbook.
+   *
+   * @param workbook   Workbook to get sheet from. Non-null.
+   * @param sheetName  Name of sheet to get. Non-null.
+   * @return           The requested sheet. Never null.
+   * @throws IOException  If the workbook has no sheet of the given name.
+   */
+  private static XSSFSheet getSheet(XSSFWorkbook workbook, String sheetName)
+    throws IOException
+  {
+    assert workbook != null : "workbook cannot be null";
+    assert sheetName != null : "sheetName cannot be null";
+
+    XSSFSheet sheet = workbook.getSheet(sheetName);
+    if (sheet == null)
+      throw new IOException("Sheet \"" + sheetName + "\" not found");
+
+    return sheet;
+  }
+
+  /**
+   * Close the specified workbook. A failure is logged rather than thrown
+   * as all content has been read at this point.
+   *
+   * @param workbook  Workbook to close. Non-null.
+   * @param source    Source of the workbook, for logging. Non-null.
+   */
+  private static void close(XSSFWorkbook workbook, Object source)
+  {
+    assert workbook != null : "workbook cannot be null";
+    assert source != null : "source cannot be null";
+
+    try {
+      workbook.close();
+    }
+    catch (IOException exception) {
+      logger_.log(Level.WARNING, "Unable to close workbook: " + source, exception);
+    }
+  }
+
   /**
    * Read tools/curves mapping from the PWLS Excel sheet "Curves Within Tools"
    * of the specified stream.
@@ -120,6 +165,26 @@ public final class ExcelReader
    */
   public static void readCurvesOfTools(InputStream stream, Tools tools, Curves curves)
     throws IOException
+  {
+    LoadReport report = new LoadReport();
+    readCurvesOfTools(stream, tools, curves, report);
+    report.log("\"Curves Within Tools\"");
+  }
+
+  /**
+   * Read tools/curves mapping from the PWLS Excel sheet "Curves Within Tools"
+   * of the specified stream. Rows of unknown tools or curves are added to
+   * the report rather than logged individually.
+   *
+   * @param stream  The MS/Excel stream to read from. Non-null.
+   * @param tools   The tools instance to populate. Non-null.
+   * @param curves  The curves instance to pick curves from. Non-null.
+   * @param report  Report to add load issues to. Non-null.
+   * @throws IllegalArgumentException  If stream, tools, curves or report is null.
+   * @throws IOException  If the read operation fails for some reason.
+   */
+  public static void readCurvesOfTools(InputStream stream, Tools tools, Curves curves, LoadReport report)
+    throws IOException
   {
     if (stream == null)
       throw new IllegalArgumentException("stream cannot be null");
@@ -130,10 +195,41 @@ public final class ExcelReader
     if (curves == null)
       throw new IllegalArgumentException("curves cannot be null");
 
+    if (report == null)
+      throw new IllegalArgumentException("report cannot be null");
+
     XSSFWorkbook workbook = new XSSFWorkbook(stream);
-    XSSFSheet sheet = workbook.getSheet("Curves Within Tools");
+    try {
+      readCurvesOfTools(workbook, stream, tools, curves, report);
+    }
+    finally {
+      close(workbook, stream);
+    }
+  }
+
+  /**
+   * Read tools/curves mapping from the PWLS Excel sheet "Curves Within Tools"
+   * of the specified workbook.
+   *
+   * @param workbook  Workbook to read from. Non-null.
+   * @param source    Source of the workbook, for logging. Non-null.
+   * @param tools     The tools instance to populate. Non-null.
+   * @param curves    The curves instance to pick curves from. Non-null.
+   * @param report    Report to add load issues to. Non-null.
+   * @throws IOException  If the workbook has no "Curves Within Tools" sheet.
+   */
+  private static void readCurvesOfTools(XSSFWorkbook workbook, Object source, Tools tools, Curves curves, LoadReport report)
+    throws IOException
+  {
+    assert workbook != null : "workbook cannot be null";
+    assert source != null : "source cannot be null";
+    assert tools != null : "tools cannot be null";
+    assert curves != null : "curves cannot be null";
+    assert report != null : "report cannot be null";
 
-    logger_.log(Level.INFO, "Reading \"Curves Within Tools\" from " + stream);
+    XSSFSheet sheet = getSheet(workbook, "Curves Within Tools");
+
+    logger_.log(Level.INFO, "Reading \"Curves Within Tools\" from " + source);
 
     // Get row iterator and skip the first (header) row
     Iterator<Row> rowIterator = sheet.rowIterator();
@@ -154,22 +250,15 @@ public final class ExcelReader
 
       Tool tool = tools.find(toolCode, companyCode);
       if (tool == null)
-        logger_.log(Level.WARNING, "Unknown tool: " + toolCode + " for company=" + companyCode);
+        report.add(LoadReport.Category.UNKNOWN_TOOL, toolCode + "/" + companyCode);
 
       Curve curve = curves.find(curveMnemonic, companyCode);
       if (curve == null)
-        logger_.log(Level.WARNING, "Unknown curve: " + curveMnemonic + " for company=" + companyCode);
+        report.add(LoadReport.Category.UNKNOWN_CURVE, curveMnemonic + "/" + companyCode);
 
       if (tool != null && curve != null)
         tool.addCurve(curve);
     }
-
-    try {
-      workbook.close();
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to close workbook: " + stream, exception);
-    }
   }
 
   /**
@@ -218,12 +307,34 @@ public final class ExcelReader
     if (stream == null)
       throw new IllegalArgumentException("stream cannot be null");
 
+    XSSFWorkbook workbook = new XSSFWorkbook(stream);
+    try {
+      return readCurves(workbook, stream);
+    }
+    finally {
+      close(workbook, stream);
+    }
+  }
+
+  /**
+   * Read curves from the PWLS Excel sheet "Curves" of the specified workbook.
+   *
+   * @param workbook  Workbook to read from. Non-null.
+   * @param source    Source of the workbook, for logging. Non-null.
+   * @return          The requested curves. Never null.
+   * @throws IOException  If the workbook has no "Curves" sheet.
+   */
+  private static Curves readCurves(XSSFWorkbook workbook, Object source)
+    throws IOException
+  {
+    assert workbook != null : "workbook cannot be null";
+    assert source != null : "source cannot be null";
+
     Curves curves = new Curves();
 
-    XSSFWorkbook workbook = new XSSFWorkbook(stream);
-    XSSFSheet sheet = workbook.getSheet("Curves");
+    XSSFSheet sheet = getSheet(workbook, "Curves");
 
-    logger_.log(Level.INFO, "Reading \"Curves\" from " + stream);
+    logger_.log(Level.INFO, "Reading \"Curves\" from " + source);
 
     // Get row iterator and skip the first (header) row
     Iterator<Row> rowIterator = sheet.rowIterator();
@@ -265,13 +376,6 @@ public final class ExcelReader
 
     logger_.log(Level.INFO, "Read " + nRows + " from \"Curves\".");
 
-    try {
-      workbook.close();
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to close workbook: " + stream, exception);
-    }
-
     return curves;
   }
 
@@ -312,12 +416,34 @@ public final class ExcelReader
     if (stream == null)
       throw new IllegalArgumentException("stream cannot be null");
 
+    XSSFWorkbook workbook = new XSSFWorkbook(stream);
+    try {
+      return readTools(workbook, stream);
+    }
+    finally {
+      close(workbook, stream);
+    }
+  }
+
+  /**
+   * Read tools from the PWLS Excel sheet "Tools" of the specified workbook.
+   *
+   * @param workbook  Workbook to read from. Non-null.
+   * @param source    Source of the workbook, for logging. Non-null.
+   * @return          The requested tools. Never null.
+   * @throws IOException  If the workbook has no "Tools" sheet.
+   */
+  private static Tools readTools(XSSFWorkbook workbook, Object source)
+    throws IOException
+  {
+    assert workbook != null : "workbook cannot be null";
+    assert source != null : "source cannot be null";
+
     Tools tools = new Tools();
 
-    XSSFWorkbook workbook = new XSSFWorkbook(stream);
-    XSSFSheet sheet = workbook.getSheet("Tools");
+    XSSFSheet sheet = getSheet(workbook, "Tools");
 
-    logger_.log(Level.INFO, "Reading \"Tools\" from" + stream);
+    logger_.log(Level.INFO, "Reading \"Tools\" from " + source);
 
     // Get row iterator and skip the first (header) row
     Iterator<Row> rowIterator = sheet.rowIterator();
@@ -367,13 +493,6 @@ public final class ExcelReader
 
     logger_.log(Level.INFO, "Read " + nRows + " from \"Tools\".");
 
-    try {
-      workbook.close();
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to close workbook: " + stream, exception);
-    }
-
     return tools;
   }
 
@@ -414,12 +533,34 @@ public final class ExcelReader
     if (stream == null)
       throw new IllegalArgumentException("stream cannot be null");
 
+    XSSFWorkbook workbook = new XSSFWorkbook(stream);
+    try {
+      return readCompanies(workbook, stream);
+    }
+    finally {
+      close(workbook, stream);
+    }
+  }
+
+  /**
+   * Read companies from the PWLS Excel sheet "Company Codes" of the specified workbook.
+   *
+   * @param workbook  Workbook to read from. Non-null.
+   * @param source    Source of the workbook, for logging. Non-null.
+   * @return          The requested companies. Never null.
+   * @throws IOException  If the workbook has no "Company Codes" sheet.
+   */
+  private static Companies readCompanies(XSSFWorkbook workbook, Object source)
+    throws IOException
+  {
+    assert workbook != null : "workbook cannot be null";
+    assert source != null : "source cannot be null";
+
     Companies companies = new Companies();
 
-    XSSFWorkbook workbook = new XSSFWorkbook(stream);
-    XSSFSheet sheet = workbook.getSheet("Company Codes");
+    XSSFSheet sheet = getSheet(workbook, "Company Codes");
 
-    logger_.log(Level.INFO, "Reading \"Company Codes\" from " + stream);
+    logger_.log(Level.INFO, "Reading \"Company Codes\" from " + source);
 
     // Get row iterator and skip the first (header) row
     Iterator<Row> rowIterator = sheet.rowIterator();
@@ -458,13 +599,6 @@ public final class ExcelReader
 
     logger_.log(Level.INFO, "Read " + nRows + " from \"Company Codes\".");
 
-    try {
-      workbook.close();
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to close workbook: " + stream, exception);
-    }
-
     return companies;
   }
 
@@ -507,13 +641,35 @@ public final class ExcelReader
     if (stream == null)
       throw new IllegalArgumentException("stream cannot be null");
 
-    LoggingMethods loggingMethods = new LoggingMethods();
-
     XSSFWorkbook workbook = new XSSFWorkbook(stream);
+    try {
+      return readLoggingMethods(workbook, stream);
+    }
+    finally {
+      close(workbook, stream);
+    }
+  }
+
+  /**
+   * Read logging methods from the PWLS Excel sheet "Logging Method"
+   * of the specified workbook.
+   *
+   * @param workbook  Workbook to read from. Non-null.
+   * @param source    Source of the workbook, for logging. Non-null.
+   * @return          The requested logging methods. Never null.
+   * @throws IOException  If the workbook has no "Logging Method" sheet.
+   */
+  private static LoggingMethods readLoggingMethods(XSSFWorkbook workbook, Object source)
+    throws IOException
+  {
+    assert workbook != null : "workbook cannot be null";
+    assert source != null : "source cannot be null";
 
-    XSSFSheet sheet = workbook.getSheet("Logging Method");
+    LoggingMethods loggingMethods = new LoggingMethods();
+
+    XSSFSheet sheet = getSheet(workbook, "Logging Method");
 
-    logger_.log(Level.INFO, "Reading \"Logging Method\" from " + stream);
+    logger_.log(Level.INFO, "Reading \"Logging Method\" from " + source);
 
     // Get row iterator and skip the first (header) row
     Iterator<Row> rowIterator = sheet.rowIterator();
@@ -538,13 +694,6 @@ public final class ExcelReader
 
     logger_.log(Level.INFO, "Read " + nRows + " from \"Logging Method\".");
 
-    try {
-      workbook.close();
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to close workbook: " + stream, exception);
-    }
-
     return loggingMethods;
   }
 
@@ -585,12 +734,35 @@ public final class ExcelReader
     if (stream == null)
       throw new IllegalArgumentException("stream cannot be null");
 
+    XSSFWorkbook workbook = new XSSFWorkbook(stream);
+    try {
+      return readToolClasses(workbook, stream);
+    }
+    finally {
+      close(workbook, stream);
+    }
+  }
+
+  /**
+   * Read tool classes from the PWLS Excel sheet "Well Log Tool Class"
+   * of the specified workbook.
+   *
+   * @param workbook  Workbook to read from. Non-null.
+   * @param source    Source of the workbook, for logging. Non-null.
+   * @return          The requested tool classes. Never null.
+   * @throws IOException  If the workbook has no "Well Log Tool Class" sheet.
+   */
+  private static ToolClasses readToolClasses(XSSFWorkbook workbook, Object source)
+    throws IOException
+  {
+    assert workbook != null : "workbook cannot be null";
+    assert source != null : "source cannot be null";
+
     ToolClasses toolClasses = new ToolClasses();
 
-    XSSFWorkbook workbook = new XSSFWorkbook(stream);
-    XSSFSheet sheet = workbook.getSheet("Well Log Tool Class");
+    XSSFSheet sheet = getSheet(workbook, "Well Log Tool Class");
 
-    logger_.log(Level.INFO, "Reading \"well Log Tool Class\" from " + stream);
+    logger_.log(Level.INFO, "Reading \"well Log Tool Class\" from " + source);
 
     // Get row iterator and skip the first (header) row
     Iterator<Row> rowIterator = sheet.rowIterator();
@@ -615,13 +787,6 @@ public final class ExcelReader
 
     logger_.log(Level.INFO, "Read " + nRows + " from \"Well Log Tool Class\".");
 
-    try {
-      workbook.close();
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to close workbook: " + stream, exception);
-    }
-
     return toolClasses;
   }
 
@@ -659,16 +824,64 @@ public final class ExcelReader
    */
   public static Properties readProperties(InputStream stream)
     throws IOException
+  {
+    LoadReport report = new LoadReport();
+    Properties properties = readProperties(stream, report);
+    report.log("\"Properties\"");
+
+    return properties;
+  }
+
+  /**
+   * Read properties from PWLS Excel sheet. Properties with a parent
+   * that doesn't exist are added to the report rather than logged
+   * individually.
+   *
+   * @param stream  The MS/Excel stream to read from. Non-null.
+   * @param report  Report to add load issues to. Non-null.
+   * @return  The requested properties. Never null.
+   * @throws IllegalArgumentException  If stream or report is null.
+   * @throws  IOException  If the read opertaion fails for some reason.
+   */
+  public static Properties readProperties(InputStream stream, LoadReport report)
+    throws IOException
   {
     if (stream == null)
       throw new IllegalArgumentException("stream cannot be null");
 
-    Properties properties = new Properties();
+    if (report == null)
+      throw new IllegalArgumentException("report cannot be null");
 
     XSSFWorkbook workbook = new XSSFWorkbook(stream);
-    XSSFSheet sheet = workbook.getSheet("Properties");
+    try {
+      return readProperties(workbook, stream, report);
+    }
+    finally {
+      close(workbook, stream);
+    }
+  }
+
+  /**
+   * Read properties from the PWLS Excel sheet "Properties" of the specified workbook.
+   *
+   * @param workbook  Workbook to read from. Non-null.
+   * @param source    Source of the workbook, for logging. Non-null.
+   * @param report    Report to add load issues to. Non-null.
+   * @return          The requested properties. Never null.
+   * @throws IOException  If the workbook has no "Properties" sheet.
+   */
+  private static Properties readProperties(XSSFWorkbook workbook, Object source, LoadReport report)
+    throws IOException
+  {
+    assert workbook != null : "workbook cannot be null";
+    assert source != null : "source cannot be null";
+    assert report != null : "report cannot be null";
+
+    Properties properties = new Properties();
 
-    logger_.log(Level.INFO, "Reading \"Properties\" from " + stream);
+    XSSFSheet sheet = getSheet(workbook, "Properties");
+
+    logger_.log(Level.INFO, "Reading \"Properties\" from " + source);
 
     // Get row iterator and skip the first (header) row
     Iterator<Row> rowIterator = sheet.rowIterator();
@@ -727,9 +940,9 @@ public final class ExcelReader
     // Resolve parents
     for (Property property : properties.getAll()) {
       String parentGuid = parents.get(property);
-      Property parentProperty = properties.findByGuid(parentGuid);
-      if (parentProperty == null)
-        logger_.log(Level.WARNING, "Missing parent property for " + property.getName());
+      Property parentProperty = parentGuid != null ? properties.findByGuid(parentGuid) : null;
+      if (parentGuid != null && parentProperty == null)
+        report.add(LoadReport.Category.MISSING_PARENT, property.getName());
 
       // Keep parent == null if at root level
       if (parentProperty != property)
@@ -738,13 +951,6 @@ public final class ExcelReader
 
     logger_.log(Level.INFO, "Read " + nRows + " from \"Properties\".");
 
-    try {
-      workbook.close();
-    }
-    catch (IOException exception) {
-      logger_.log(Level.WARNING, "Unable to close workbook: " + stream, exception);
-    }
-
     return properties;
   }
 
@@ -769,6 +975,118 @@ public final class ExcelReader
     }
   }
 
+  /**
+   * Read a complete PWLS model from the PWLS Excel definition.
+   * <p>
+   * The definition consists of two workbooks: The properties workbook
+   * (<em>PWLS_v3.0_Properties.xlsx</em>), and the logs workbook
+   * (<em>PWLS_v3.0_Logs.xlsx</em>) holding the companies, logging methods,
+   * tool classes, tools, curves and curves within tools. Unlike calling the
+   * per sheet methods in turn, each workbook is unzipped and parsed once
+   * only, and all its sheets are extracted from the same workbook instance.
+   * <p>
+   * The two workbooks are read concurrently. The sheets of a workbook are
+   * read in sequence as POI workbooks are not safe for concurrent access,
+   * and the curves within tools depend on the tools and curves anyway.
+   * Issues found in the data are collected in the load report of the model.
+   *
+   * @param propertiesStream  Stream of the properties workbook. Non-null.
+   * @param logsStream        Stream of the logs workbook. Non-null.
+   * @return                  The PWLS model read. Never null.
+   * @throws IllegalArgumentException  If propertiesStream or logsStream is null.
+   * @throws IOException  If the read operation fails for some reason.
+   */
+  public static Pwls readPwls(InputStream propertiesStream, InputStream logsStream)
+    throws IOException
+  {
+    if (propertiesStream == null)
+      throw new IllegalArgumentException("propertiesStream cannot be null");
+
+    if (logsStream == null)
+      throw new IllegalArgumentException("logsStream cannot be null");
+
+    LoadReport report = new LoadReport();
+
+    CompletableFuture<Properties> propertiesFuture = CompletableFuture.supplyAsync(() -> {
+        try {
+          return readProperties(propertiesStream, report);
+        }
+        catch (IOException exception) {
+          throw new CompletionException(exception);
+        }
+      });
+
+    Companies companies;
+    LoggingMethods loggingMethods;
+    ToolClasses toolClasses;
+    Tools tools;
+    Curves curves;
+
+    try {
+      XSSFWorkbook workbook = new XSSFWorkbook(logsStream);
+      try {
+        companies = readCompanies(workbook, logsStream);
+        loggingMethods = readLoggingMethods(workbook, logsStream);
+        toolClasses = readToolClasses(workbook, logsStream);
+        tools = readTools(workbook, logsStream);
+        curves = readCurves(workbook, logsStream);
+        readCurvesOfTools(workbook, logsStream, tools, curves, report);
+      }
+      finally {
+        close(workbook, logsStream);
+      }
+    }
+    catch (IOException | RuntimeException exception) {
+      // Don't return while the properties stream of the client is still being read
+      propertiesFuture.handle((properties, throwable) -> null).join();
+      throw exception;
+    }
+
+    Properties properties;
+    try {
+      properties = propertiesFuture.join();
+    }
+    catch (CompletionException exception) {
+      Throwable cause = exception.getCause();
+      if (cause instanceof IOException)
+        throw (IOException) cause;
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      if (cause instanceof Error)
+        throw (Error) cause;
+      throw exception;
+    }
+
+    report.log("PWLS Excel definition");
+
+    return new Pwls(properties, companies, loggingMethods, toolClasses, tools, curves, report);
+  }
+
+  /**
+   * Read a complete PWLS model from the specified PWLS Excel files.
+   *
+   * @param propertiesFile  The properties workbook file. Non-null.
+   * @param logsFile        The logs workbook file. Non-null.
+   * @return                The PWLS model read. Never null.
+   * @throws IllegalArgumentException  If propertiesFile or logsFile is null.
+   * @throws IOException  If the read operation fails for some reason.
+   * @see #readPwls(InputStream,InputStream)
+   */
+  public static Pwls readPwls(File propertiesFile, File logsFile)
+    throws IOException
+  {
+    if (propertiesFile == null)
+      throw new IllegalArgumentException("propertiesFile cannot be null");
+
+    if (logsFile == null)
+      throw new IllegalArgumentException("logsFile cannot be null");
+
+    try (InputStream propertiesStream = new FileInputStream(propertiesFile);
+         InputStream logsStream = new FileInputStream(logsFile)) {
+      return readPwls(propertiesStream, logsStream);
+    }
+  }
+
   /**
    * Testing this clas.
    *
@@ -777,36 +1095,29 @@ public final class ExcelReader
   public static void main(String[] arguments)
   {
     try {
-      File file = new File("C:/Users/jacob/dev/pwls/excel/PWLS_v3.0_Properties.xlsx");
+      Pwls pwls = ExcelReader.readPwls(new File("C:/Users/jacob/dev/pwls/excel/PWLS_v3.0_Properties.xlsx"),
+                                       new File("C:/Users/jacob/dev/pwls/excel/PWLS_v3.0_Logs.xlsx"));
 
-      Properties properties = ExcelReader.readProperties(file);
       no.geosoft.jpwls.json.JsonWriter.save(new File("C:/Users/jacob/dev/pwls/json/properties.json"),
-                                            no.geosoft.jpwls.json.JsonWriter.getProperties(properties.getAll()).build());
-
-      file = new File("C:/Users/jacob/dev/pwls/excel/PWLS_v3.0_Logs.xlsx");
+                                            no.geosoft.jpwls.json.JsonWriter.getProperties(pwls.getProperties(null, null)).build());
 
-      LoggingMethods loggingMethods = ExcelReader.readLoggingMethods(file);
       no.geosoft.jpwls.json.JsonWriter.save(new File("C:/Users/jacob/dev/pwls/json/loggingMethods.json"),
-                                            no.geosoft.jpwls.json.JsonWriter.getLoggingMethods(loggingMethods.getAll()).build());
+                                            no.geosoft.jpwls.json.JsonWriter.getLoggingMethods(pwls.getLoggingMethods(null)).build());
 
-      ToolClasses toolClasses = ExcelReader.readToolClasses(file);
       no.geosoft.jpwls.json.JsonWriter.save(new File("C:/Users/jacob/dev/pwls/json/toolClasses.json"),
-                                            no.geosoft.jpwls.json.JsonWriter.getToolClasses(toolClasses.getAll()).build());
+                                            no.geosoft.jpwls.json.JsonWriter.getToolClasses(pwls.getToolClasses(null)).build());
 
-      Companies companies = ExcelReader.readCompanies(file);
       no.geosoft.jpwls.json.JsonWriter.save(new File("C:/Users/jacob/dev/pwls/json/companies.json"),
-                                            no.geosoft.jpwls.json.JsonWriter.getCompanies(companies.getAll()).build());
+                                            no.geosoft.jpwls.json.JsonWriter.getCompanies(pwls.getCompanies(null)).build());
 
-      Tools tools = ExcelReader.readTools(file);
       no.geosoft.jpwls.json.JsonWriter.save(new File("C:/Users/jacob/dev/pwls/json/tools.json"),
-                                            no.geosoft.jpwls.json.JsonWriter.getTools(tools.getAll()).build());
+                                            no.geosoft.jpwls.json.JsonWriter.getTools(pwls.getTools(null, null, null, null, null)).build());
 
-      Curves curves = ExcelReader.readCurves(file);
       no.geosoft.jpwls.json.JsonWriter.save(new File("C:/Users/jacob/dev/pwls/json/curves.json"),
-                                            no.geosoft.jpwls.json.JsonWriter.getCurves(curves.getAll()).build());
-
-      ExcelReader.readCurvesOfTools(file, tools, curves);
+                                            no.geosoft.jpwls.json.JsonWriter.getCurves(pwls.getCurves(null, null, null, null)).build());
 
+      no.geosoft.jpwls.json.JsonWriter.save(new File("C:/Users/jacob/dev/pwls/json/curvesByTool.json"),
+                                            no.geosoft.jpwls.json.JsonWriter.getCurvesByTool(pwls.getTools(null, null, null, null, null)).build());
     }
     catch (Exception exception) {
       exception.printStackTrace();
@@ -0,0 +1,350 @@
+package no.geosoft.jpwls.json;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import no.geosoft.jpwls.Companies;
+import no.geosoft.jpwls.Curves;
+import no.geosoft.jpwls.LoadOptions;
+import no.geosoft.jpwls.LoadReport;
+import no.geosoft.jpwls.LoggingMethods;
+import no.geosoft.jpwls.Properties;
+import no.geosoft.jpwls.Property;
+import no.geosoft.jpwls.Pwls;
+import no.geosoft.jpwls.ToolClasses;
+import no.geosoft.jpwls.Tools;
+import no.geosoft.jpwls.util.TextStore;
+
+/**
+ * State of a PWLS bundle being read.
+ * <p>
+ * A bundle is the complete PWLS model as a single newline delimited JSON
+ * (NDJSON) stream, as written by {@link JsonWriter#writeBundle}. Each line
+ * is one record, with its type given by the first member:
+ * <pre>
+ *   {"type":"property","name":"Porosity",...}
+ *   {"type":"company","companyCode":440,...}
+ *   {"type":"loggingMethod",...}
+ *   {"type":"toolClass",...}
+ *   {"type":"tool","toolCode":"APS",...}
+ *   {"type":"curve","mnemonic":"APLC",...}
+ *   {"type":"link","toolCode":"APS","companyCode":440,"curveMnemonic":"APLC"}
+ *   {"type":"end","nRecords":123456}
+ * </pre>
+ * Records are indexed as they are read by {@link JsonReader#readBundle(java.io.InputStream,JsonBundle)}.
+ * The bundle keeps track of the byte offset of the last complete record, so if
+ * the stream is interrupted the read can be resumed from that offset by reading
+ * the remainder of the bundle into the same instance.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class JsonBundle
+{
+  /** Options restricting what is read. Non-null. */
+  private final LoadOptions options_;
+
+  /** Properties read so far. Non-null. */
+  private final Properties properties_ = new Properties();
+
+  /** Companies read so far. Non-null. */
+  private final Companies companies_ = new Companies();
+
+  /** Logging methods read so far. Non-null. */
+  private final LoggingMethods loggingMethods_ = new LoggingMethods();
+
+  /** Tool classes read so far. Non-null. */
+  private final ToolClasses toolClasses_ = new ToolClasses();
+
+  /** Tools read so far, with the curves of the links read so far. Non-null. */
+  private final Tools tools_ = new Tools();
+
+  /** Curves read so far. Non-null. */
+  private final Curves curves_ = new Curves();
+
+  /** Store of property descriptions. Null if kept as strings. */
+  private final TextStore propertyDescriptions_;
+
+  /** Store of tool descriptions. Null if kept as strings. */
+  private final TextStore toolDescriptions_;
+
+  /** Store of curve descriptions. Null if kept as strings. */
+  private final TextStore curveDescriptions_;
+
+  /** Parent names of properties read but not yet added. Non-null. */
+  private final Map<Property,String> parents_ = new HashMap<>();
+
+  /** Properties by name, for resolving parents. Non-null. */
+  private final Map<String,Property> propertiesByName_ = new HashMap<>();
+
+  /** Properties waiting for their parent, by parent name. Non-null. */
+  private final Map<String,List<Property>> orphans_ = new HashMap<>();
+
+  /** Issues found in the records read so far. Non-null. */
+  private final LoadReport report_ = new LoadReport();
+
+  /** Number of bytes of the bundle consumed, i.e. up to and including the last complete record. */
+  private long offset_;
+
+  /** Number of records consumed, excluding the end record. */
+  private int nRecords_;
+
+  /** Indicates if the end record has been read. */
+  private boolean isComplete_;
+
+  /**
+   * Create an empty bundle state.
+   *
+   * @param options  Options restricting what is read. Non-null.
+   * @throws IllegalArgumentException  If options is null.
+   */
+  public JsonBundle(LoadOptions options)
+  {
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
+
+    options_ = options;
+
+    propertyDescriptions_ = options.isDescriptionCompact() ? new TextStore() : null;
+    toolDescriptions_ = options.isDescriptionCompact() ? new TextStore() : null;
+    curveDescriptions_ = options.isDescriptionCompact() ? new TextStore() : null;
+  }
+
+  /**
+   * Create an empty bundle state for reading the complete model.
+   */
+  public JsonBundle()
+  {
+    this(LoadOptions.ALL);
+  }
+
+  /**
+   * Return the options of this bundle.
+   *
+   * @return  Options restricting what is read. Never null.
+   */
+  public LoadOptions getOptions()
+  {
+    return options_;
+  }
+
+  /**
+   * Return the number of bytes of the bundle consumed so far. This is the
+   * offset to resume reading from if the stream has been interrupted.
+   *
+   * @return  Number of bytes consumed. [0,&gt;.
+   */
+  public long getOffset()
+  {
+    return offset_;
+  }
+
+  /**
+   * Return the number of records consumed so far, including
+   * records skipped because of the options.
+   *
+   * @return  Number of records consumed. [0,&gt;.
+   */
+  public int getNRecords()
+  {
+    return nRecords_;
+  }
+
+  /**
+   * Check if the complete bundle has been read.
+   *
+   * @return  True if the end record has been read, false otherwise.
+   */
+  public boolean isComplete()
+  {
+    return isComplete_;
+  }
+
+  /**
+   * Return the issues found in the records read so far, like links
+   * to unknown tools or curves. Properties with a missing parent are
+   * added when the bundle is complete.
+   *
+   * @return  Report of the issues found. Never null.
+   */
+  public LoadReport getLoadReport()
+  {
+    return report_;
+  }
+
+  /**
+   * Return the PWLS model of the records read so far.
+   * <p>
+   * The model shares its entity sets with this bundle, so records
+   * read later are added to it. It should not be accessed while
+   * reading into the bundle.
+   *
+   * @return  The PWLS model of this bundle. Never null.
+   */
+  public Pwls getPwls()
+  {
+    return new Pwls(properties_, companies_, loggingMethods_, toolClasses_, tools_, curves_, report_);
+  }
+
+  /**
+   * Return the companies read so far.
+   *
+   * @return  Companies read so far. Never null.
+   */
+  Companies getCompanies()
+  {
+    return companies_;
+  }
+
+  /**
+   * Return the logging methods read so far.
+   *
+   * @return  Logging methods read so far. Never null.
+   */
+  LoggingMethods getLoggingMethods()
+  {
+    return loggingMethods_;
+  }
+
+  /**
+   * Return the tool classes read so far.
+   *
+   * @return  Tool classes read so far. Never null.
+   */
+  ToolClasses getToolClasses()
+  {
+    return toolClasses_;
+  }
+
+  /**
+   * Return the tools read so far.
+   *
+   * @return  Tools read so far. Never null.
+   */
+  Tools getTools()
+  {
+    return tools_;
+  }
+
+  /**
+   * Return the curves read so far.
+   *
+   * @return  Curves read so far. Never null.
+   */
+  Curves getCurves()
+  {
+    return curves_;
+  }
+
+  /**
+   * Return the store of property descriptions.
+   *
+   * @return  Store of property descriptions. Null if kept as strings.
+   */
+  TextStore getPropertyDescriptions()
+  {
+    return propertyDescriptions_;
+  }
+
+  /**
+   * Return the store of tool descriptions.
+   *
+   * @return  Store of tool descriptions. Null if kept as strings.
+   */
+  TextStore getToolDescriptions()
+  {
+    return toolDescriptions_;
+  }
+
+  /**
+   * Return the store of curve descriptions.
+   *
+   * @return  Store of curve descriptions. Null if kept as strings.
+   */
+  TextStore getCurveDescriptions()
+  {
+    return curveDescriptions_;
+  }
+
+  /**
+   * Return the map the property reader puts parent names in.
+   *
+   * @return  Parent names of properties not yet added. Never null.
+   */
+  Map<Property,String> getParents()
+  {
+    return parents_;
+  }
+
+  /**
+   * Add the specified property and resolve its parent, as well as
+   * the parent of any property already read that refers to it.
+   *
+   * @param property  Property to add. Non-null.
+   */
+  void addProperty(Property property)
+  {
+    assert property != null : "property cannot be null";
+
+    String name = property.getName();
+    String parentName = parents_.remove(property);
+
+    properties_.add(property);
+    propertiesByName_.putIfAbsent(name, property);
+
+    // Keep parent == null if at root level
+    if (parentName != null) {
+      Property parent = propertiesByName_.get(parentName);
+      if (parent == null)
+        orphans_.computeIfAbsent(parentName, key -> new ArrayList<>()).add(property);
+      else if (parent != property)
+        property.setParent(parent);
+    }
+
+    List<Property> children = orphans_.remove(name);
+    if (children != null) {
+      for (Property child : children) {
+        if (child != property)
+          child.setParent(property);
+      }
+    }
+  }
+
+  /**
+   * Mark the record of the specified number of bytes as consumed.
+   *
+   * @param nBytes  Number of bytes of the record, including the line terminator.
+   */
+  void advance(int nBytes)
+  {
+    offset_ += nBytes;
+    nRecords_++;
+  }
+
+  /**
+   * Mark the bundle as completely read.
+   *
+   * @param nBytes  Number of bytes of the end record, including the line terminator.
+   */
+  void complete(int nBytes)
+  {
+    offset_ += nBytes;
+    isComplete_ = true;
+
+    if (propertyDescriptions_ != null)
+      propertyDescriptions_.flush();
+    if (toolDescriptions_ != null)
+      toolDescriptions_.flush();
+    if (curveDescriptions_ != null)
+      curveDescriptions_.flush();
+
+    for (List<Property> children : orphans_.values()) {
+      for (Property child : children)
+        report_.add(LoadReport.Category.MISSING_PARENT, child.getName());
+    }
+    orphans_.clear();
+  }
+}
@@ -0,0 +1,353 @@
+package no.geosoft.jpwls.json;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+
+import no.geosoft.jpwls.Company;
+import no.geosoft.jpwls.Curve;
+import no.geosoft.jpwls.LoggingMethod;
+import no.geosoft.jpwls.Property;
+import no.geosoft.jpwls.Pwls;
+import no.geosoft.jpwls.PwlsChangeEvent;
+import no.geosoft.jpwls.PwlsChangeListener;
+import no.geosoft.jpwls.Tool;
+import no.geosoft.jpwls.ToolClass;
+
+/**
+ * Cache of the compact JSON encoding of PWLS entities.
+ * <p>
+ * Entities don't change once loaded, so each entity is serialized once
+ * only, on first use, and kept as UTF-8 bytes. Array responses are then
+ * assembled by copying the cached bytes straight to the output stream,
+ * which for large lists is far cheaper than serializing them again:
+ * <pre>
+ *   JsonCache jsonCache = new JsonCache().warmUp(pwls);
+ *   jsonCache.writeCurves(responseStream, pwls.getCurves(null, 440, null, null));
+ * </pre>
+ * The output is identical to that of the compact streaming writers of
+ * {@link JsonWriter}. Entities are cached by identity, so the cache should
+ * be cleared when the model is reloaded. Registering it as a change listener
+ * of a {@link no.geosoft.jpwls.ReloadablePwls} does this automatically.
+ * <p>
+ * Instances are thread safe.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class JsonCache
+  implements PwlsChangeListener
+{
+  /** The logger instance. */
+  private static final Logger logger_ = Logger.getLogger(JsonCache.class.getName());
+
+  /** Generator factory of compact output. Thread safe. */
+  private static final JsonGeneratorFactory generatorFactory_ = Json.createGeneratorFactory(null);
+
+  /** Size of the buffer array responses are assembled in. */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** JSON encoding of each entity cached so far. Non-null. */
+  private final Map<Object,byte[]> encodings_ = new ConcurrentHashMap<>();
+
+  /** Total number of bytes cached. */
+  private final AtomicLong nBytes_ = new AtomicLong();
+
+  /**
+   * Create an empty JSON cache.
+   */
+  public JsonCache()
+  {
+    // Nothing
+  }
+
+  /**
+   * Return the compact JSON encoding of the specified entity,
+   * encoding it and caching the result if not already cached.
+   *
+   * @param entity        Entity to get encoding of. Non-null.
+   * @param recordWriter  Writer of the members of the entity. Non-null.
+   * @return              The UTF-8 JSON encoding of the entity. Never null.
+   */
+  private <T> byte[] getEncoding(T entity, JsonWriter.RecordWriter<T> recordWriter)
+  {
+    assert entity != null : "entity cannot be null";
+    assert recordWriter != null : "recordWriter cannot be null";
+
+    byte[] encoding = encodings_.get(entity);
+    if (encoding != null)
+      return encoding;
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream(256);
+    JsonGenerator generator = generatorFactory_.createGenerator(stream);
+    generator.writeStartObject();
+    recordWriter.write(generator, entity, Projection.ALL);
+    generator.writeEnd();
+    generator.close();
+
+    encoding = stream.toByteArray();
+
+    // Concurrent encodings of the same entity are identical, so keep the first
+    byte[] existing = encodings_.putIfAbsent(entity, encoding);
+    if (existing != null)
+      return existing;
+
+    nBytes_.addAndGet(encoding.length);
+    return encoding;
+  }
+
+  /**
+   * Write the specified entities as a JSON array to the given stream
+   * by copying their cached encodings.
+   *
+   * @param stream        Stream to write to. Non-null.
+   * @param entities      Entities to write. Non-null.
+   * @param recordWriter  Writer of the members of an entity. Non-null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  private <T> void writeArray(OutputStream stream, Iterable<T> entities, JsonWriter.RecordWriter<T> recordWriter)
+    throws IOException
+  {
+    assert stream != null : "stream cannot be null";
+    assert entities != null : "entities cannot be null";
+    assert recordWriter != null : "recordWriter cannot be null";
+
+    // Buffered to not issue one write per entity. Flushed, not closed, to leave the stream open
+    OutputStream outputStream = new BufferedOutputStream(stream, BUFFER_SIZE);
+
+    outputStream.write('[');
+
+    boolean isFirst = true;
+    for (T entity : entities) {
+      if (!isFirst)
+        outputStream.write(',');
+      outputStream.write(getEncoding(entity, recordWriter));
+      isFirst = false;
+    }
+
+    outputStream.write(']');
+    outputStream.flush();
+  }
+
+  /**
+   * Write the specified PWLS curves as a compact JSON array to the given stream.
+   *
+   * @param stream  Stream to write to. Non-null. Left open.
+   * @param curves  Curves to write. Non-null.
+   * @throws IllegalArgumentException  If stream or curves is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see JsonWriter#writeCurves(OutputStream,Iterable)
+   */
+  public void writeCurves(OutputStream stream, Iterable<Curve> curves)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (curves == null)
+      throw new IllegalArgumentException("curves cannot be null");
+
+    writeArray(stream, curves, JsonWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS tools as a compact JSON array to the given stream.
+   *
+   * @param stream  Stream to write to. Non-null. Left open.
+   * @param tools   Tools to write. Non-null.
+   * @throws IllegalArgumentException  If stream or tools is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see JsonWriter#writeTools(OutputStream,Iterable)
+   */
+  public void writeTools(OutputStream stream, Iterable<Tool> tools)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (tools == null)
+      throw new IllegalArgumentException("tools cannot be null");
+
+    writeArray(stream, tools, JsonWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS companies as a compact JSON array to the given stream.
+   *
+   * @param stream     Stream to write to. Non-null. Left open.
+   * @param companies  Companies to write. Non-null.
+   * @throws IllegalArgumentException  If stream or companies is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see JsonWriter#writeCompanies(OutputStream,Iterable)
+   */
+  public void writeCompanies(OutputStream stream, Iterable<Company> companies)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (companies == null)
+      throw new IllegalArgumentException("companies cannot be null");
+
+    writeArray(stream, companies, JsonWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS properties as a compact JSON array to the given stream.
+   *
+   * @param stream      Stream to write to. Non-null. Left open.
+   * @param properties  Properties to write. Non-null.
+   * @throws IllegalArgumentException  If stream or properties is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see JsonWriter#writeProperties(OutputStream,Iterable)
+   */
+  public void writeProperties(OutputStream stream, Iterable<Property> properties)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (properties == null)
+      throw new IllegalArgumentException("properties cannot be null");
+
+    writeArray(stream, properties, JsonWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS tool classes as a compact JSON array to the given stream.
+   *
+   * @param stream       Stream to write to. Non-null. Left open.
+   * @param toolClasses  Tool classes to write. Non-null.
+   * @throws IllegalArgumentException  If stream or toolClasses is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see JsonWriter#writeToolClasses(OutputStream,Iterable)
+   */
+  public void writeToolClasses(OutputStream stream, Iterable<ToolClass> toolClasses)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (toolClasses == null)
+      throw new IllegalArgumentException("toolClasses cannot be null");
+
+    writeArray(stream, toolClasses, JsonWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS logging methods as a compact JSON array to the given stream.
+   *
+   * @param stream          Stream to write to. Non-null. Left open.
+   * @param loggingMethods  Logging methods to write. Non-null.
+   * @throws IllegalArgumentException  If stream or loggingMethods is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see JsonWriter#writeLoggingMethods(OutputStream,Iterable)
+   */
+  public void writeLoggingMethods(OutputStream stream, Iterable<LoggingMethod> loggingMethods)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (loggingMethods == null)
+      throw new IllegalArgumentException("loggingMethods cannot be null");
+
+    writeArray(stream, loggingMethods, JsonWriter::writeMembers);
+  }
+
+  /**
+   * Encode all entities of the specified model up front, so that
+   * the first responses don't pay for the serialization.
+   *
+   * @param pwls  Model to encode the entities of. Non-null.
+   * @return      This cache. Never null.
+   * @throws IllegalArgumentException  If pwls is null.
+   */
+  public JsonCache warmUp(Pwls pwls)
+  {
+    if (pwls == null)
+      throw new IllegalArgumentException("pwls cannot be null");
+
+    long startTime = System.nanoTime();
+
+    for (Property property : pwls.getProperties(null, null))
+      getEncoding(property, JsonWriter::writeMembers);
+
+    for (Company company : pwls.getCompanies(null))
+      getEncoding(company, JsonWriter::writeMembers);
+
+    for (LoggingMethod loggingMethod : pwls.getLoggingMethods(null))
+      getEncoding(loggingMethod, JsonWriter::writeMembers);
+
+    for (ToolClass toolClass : pwls.getToolClasses(null))
+      getEncoding(toolClass, JsonWriter::writeMembers);
+
+    for (Tool tool : pwls.getTools(null, null, null, null, null))
+      getEncoding(tool, JsonWriter::writeMembers);
+
+    for (Curve curve : pwls.getCurves(null, null, null, null))
+      getEncoding(curve, JsonWriter::writeMembers);
+
+    long time = (System.nanoTime() - startTime) / 1000000L;
+    logger_.log(Level.INFO, "Encoded " + encodings_.size() + " entities (" + nBytes_.get() + " bytes) in " + time + "ms");
+
+    return this;
+  }
+
+  /**
+   * Return the number of entities cached.
+   *
+   * @return  Number of entities cached. [0,&gt;.
+   */
+  public int size()
+  {
+    return encodings_.size();
+  }
+
+  /**
+   * Return the total size of the cached encodings.
+   *
+   * @return  Total size of the cached encodings in bytes. [0,&gt;.
+   */
+  public long getNBytes()
+  {
+    return nBytes_.get();
+  }
+
+  /**
+   * Remove all cached encodings.
+   */
+  public void clear()
+  {
+    encodings_.clear();
+    nBytes_.set(0);
+  }
+
+  /**
+   * Clear the cache when the model is reloaded, as the entities
+   * of the new snapshot are new instances.
+   *
+   * @param event  Event describing the change. Non-null.
+   */
+  @Override
+  public void pwlsChanged(PwlsChangeEvent event)
+  {
+    clear();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    return "JsonCache[" + size() + " entities, " + getNBytes() + " bytes]";
+  }
+}
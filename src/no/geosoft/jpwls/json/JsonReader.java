@@ -1,35 +1,59 @@
 package no.geosoft.jpwls.json;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Date;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.text.ParseException;
 
 import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonObject;
+import javax.json.JsonException;
+import javax.json.stream.JsonLocation;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
+
+import org.leadpony.justify.api.Problem;
+import org.leadpony.justify.api.ProblemHandler;
 
 import no.geosoft.jpwls.Companies;
 import no.geosoft.jpwls.Company;
 import no.geosoft.jpwls.Curve;
 import no.geosoft.jpwls.Curves;
+import no.geosoft.jpwls.LoadOptions;
+import no.geosoft.jpwls.LoadReport;
 import no.geosoft.jpwls.LoggingMethod;
 import no.geosoft.jpwls.LoggingMethods;
 import no.geosoft.jpwls.Properties;
 import no.geosoft.jpwls.Property;
+import no.geosoft.jpwls.Pwls;
 import no.geosoft.jpwls.Tool;
 import no.geosoft.jpwls.ToolClass;
 import no.geosoft.jpwls.ToolClasses;
 import no.geosoft.jpwls.Tools;
+import no.geosoft.jpwls.source.PwlsSource;
+import no.geosoft.jpwls.util.HttpFetcher;
+import no.geosoft.jpwls.util.TextStore;
 
 /**
  * JSON reader for the PWLS model.
+ * <p>
+ * The model objects are built directly from the parser event stream
+ * so no intermediate JSON object tree is created.
  *
  * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
  */
@@ -38,6 +62,18 @@ public final class JsonReader
   /** The logger instance. */
   private static final Logger logger_ = Logger.getLogger(JsonReader.class.getName());
 
+  /** Parser factory. Thread safe, and cached as creating one is expensive. */
+  private static final JsonParserFactory parserFactory_ = Json.createParserFactory(null);
+
+  /** Initial size of the bundle read buffer. Grows if a record doesn't fit. */
+  private static final int BUNDLE_BUFFER_SIZE = 64 * 1024;
+
+  /** Minimum size of the chunks of arrays parsed concurrently. Smaller arrays are parsed sequentially. */
+  private static final int MIN_CHUNK_SIZE = 1024 * 1024;
+
+  /** Maximum number of attempts when reading a bundle from a URL. */
+  private static final int MAX_BUNDLE_ATTEMPTS = 3;
+
   /**
    * Private constructor to prevent client instantiation.
    */
@@ -46,6 +82,893 @@ public final class JsonReader
     assert false : "This constructor should never be called";
   }
 
+  /**
+   * Input stream keeping track of the number of bytes read through it.
+   */
+  private static final class CountingInputStream extends FilterInputStream
+  {
+    /** Number of bytes read so far. */
+    private long nBytes_;
+
+    /**
+     * Create a counting stream on top of the specified stream.
+     *
+     * @param stream  Stream to count bytes of. Non-null.
+     */
+    CountingInputStream(InputStream stream)
+    {
+      super(stream);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read()
+      throws IOException
+    {
+      int b = super.read();
+      if (b != -1)
+        nBytes_++;
+      return b;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read(byte[] buffer, int offset, int length)
+      throws IOException
+    {
+      int nRead = super.read(buffer, offset, length);
+      if (nRead > 0)
+        nBytes_ += nRead;
+      return nRead;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long skip(long n)
+      throws IOException
+    {
+      long nSkipped = super.skip(n);
+      nBytes_ += nSkipped;
+      return nSkipped;
+    }
+
+    /**
+     * Return number of bytes read through this stream.
+     *
+     * @return  Number of bytes read through this stream.
+     */
+    long getNBytes()
+    {
+      return nBytes_;
+    }
+  }
+
+  /**
+   * Problem handler adding the schema problems of a PWLS resource to a load
+   * report, with the index of the record and the field they concern.
+   */
+  private static final class ProblemCollector implements ProblemHandler
+  {
+    /** Name of resource being validated. Non-null. */
+    private final String resource_;
+
+    /** Report to add problems to. Non-null. */
+    private final LoadReport report_;
+
+    /** Number of problems found so far. */
+    private int nProblems_;
+
+    /**
+     * Create a problem collector for the specified resource.
+     *
+     * @param resource  Name of resource being validated. Non-null.
+     * @param report    Report to add problems to. Non-null.
+     */
+    ProblemCollector(String resource, LoadReport report)
+    {
+      assert resource != null : "resource cannot be null";
+      assert report != null : "report cannot be null";
+
+      resource_ = resource;
+      report_ = report;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void handleProblems(List<Problem> problems)
+    {
+      for (Problem problem : problems) {
+        nProblems_++;
+        report_.add(LoadReport.Category.SCHEMA_PROBLEM, getDescription(problem));
+      }
+    }
+
+    /**
+     * Return a description of the specified problem, locating it by
+     * resource, record index and field.
+     *
+     * @param problem  Problem to describe. Non-null.
+     * @return         Description of the problem. Never null.
+     */
+    private String getDescription(Problem problem)
+    {
+      assert problem != null : "problem cannot be null";
+
+      StringBuilder s = new StringBuilder(resource_);
+
+      // The pointer of a record member is /<record index>/<field>
+      String pointer = problem.getPointer();
+      String[] tokens = pointer != null ? pointer.split("/") : new String[0];
+      if (tokens.length > 1)
+        s.append(" record " + tokens[1]);
+      if (tokens.length > 2)
+        s.append(", field " + tokens[2].replace("~1", "/").replace("~0", "~"));
+
+      JsonLocation location = problem.getLocation();
+      if (location != null)
+        s.append(" (line " + location.getLineNumber() + ", column " + location.getColumnNumber() + ")");
+
+      s.append(": " + problem.getMessage());
+      return s.toString();
+    }
+
+    /**
+     * Return number of problems found so far.
+     *
+     * @return  Number of problems found so far. [0,&gt;.
+     */
+    int getNProblems()
+    {
+      return nProblems_;
+    }
+  }
+
+  /**
+   * Validate the specified content against the schema of the given
+   * resource, adding the problems found to the report.
+   * <p>
+   * The content is parsed for validation only, in a pass of its own,
+   * so the cost of validation is timed and logged separately from that
+   * of the parse building the model.
+   *
+   * @param content   Content to validate. Non-null.
+   * @param resource  Name of resource, as defined by {@link PwlsSource}. Non-null.
+   * @param report    Report to add schema problems to. Non-null.
+   * @throws JsonException  If the content is not well-formed JSON.
+   */
+  private static void validate(byte[] content, String resource, LoadReport report)
+  {
+    assert content != null : "content cannot be null";
+    assert resource != null : "resource cannot be null";
+    assert report != null : "report cannot be null";
+
+    long startTime = System.nanoTime();
+
+    ProblemCollector problems = new ProblemCollector(resource, report);
+    JsonParser parser = PwlsSchemas.getValidationService().createParser(new ByteArrayInputStream(content),
+                                                                         PwlsSchemas.getSchema(resource),
+                                                                         problems);
+    while (parser.hasNext())
+      parser.next();
+    parser.close();
+
+    if (!logger_.isLoggable(Level.INFO))
+      return;
+
+    double seconds = (System.nanoTime() - startTime) / 1.0e9;
+    double megaBytes = content.length / (1024.0 * 1024.0);
+    double throughput = seconds > 0.0 ? megaBytes / seconds : 0.0;
+
+    logger_.log(Level.INFO, String.format("Validated %s (%.2f MB) in %.0f ms (%.1f MB/s), %d schema problems",
+                                          resource, megaBytes, seconds * 1000.0, throughput, problems.getNProblems()));
+  }
+
+  /**
+   * Validate the content of the specified stream against the schema of
+   * the given resource if requested by the options. The stream is then
+   * read completely, and the content is returned for parsing.
+   *
+   * @param stream    Stream to validate. Non-null.
+   * @param resource  Name of resource, as defined by {@link PwlsSource}. Non-null.
+   * @param options   Options of the read. Non-null.
+   * @param report    Report to add schema problems to. Non-null.
+   * @return          Stream of the content to parse. Never null.
+   * @throws JsonException  If the stream cannot be read or is not well-formed JSON.
+   */
+  private static InputStream validate(InputStream stream, String resource, LoadOptions options, LoadReport report)
+  {
+    assert stream != null : "stream cannot be null";
+    assert options != null : "options cannot be null";
+
+    if (!options.isValidated())
+      return stream;
+
+    byte[] content;
+    try {
+      content = stream.readAllBytes();
+    }
+    catch (IOException exception) {
+      throw new JsonException("Unable to read " + resource, exception);
+    }
+
+    validate(content, resource, report);
+    return new ByteArrayInputStream(content);
+  }
+
+  /**
+   * Create a parser for the specified stream and move it past the
+   * start of the top level array.
+   *
+   * @param stream  Stream to parse. Non-null.
+   * @return        The parser, positioned inside the top level array. Never null.
+   * @throws JsonException  If the stream doesn't contain a JSON array.
+   */
+  private static JsonParser startArray(InputStream stream)
+  {
+    assert stream != null : "stream cannot be null";
+
+    JsonParser parser = parserFactory_.createParser(stream);
+    if (!parser.hasNext() || parser.next() != JsonParser.Event.START_ARRAY)
+      throw new JsonException("Expected JSON array at " + parser.getLocation());
+
+    return parser;
+  }
+
+  /**
+   * Move the parser to the start of the next object of the current array.
+   *
+   * @param parser  Parser to move. Non-null.
+   * @return        True if positioned at the start of an object, false
+   *                if the end of the array has been reached.
+   * @throws JsonException  If the array contains anything but objects.
+   */
+  private static boolean nextObject(JsonParser parser)
+  {
+    assert parser != null : "parser cannot be null";
+
+    JsonParser.Event event = parser.next();
+    if (event == JsonParser.Event.END_ARRAY)
+      return false;
+
+    if (event != JsonParser.Event.START_OBJECT)
+      throw new JsonException("Expected JSON object at " + parser.getLocation());
+
+    return true;
+  }
+
+  /**
+   * Return the current value of the parser as a string.
+   * Non-string values are skipped.
+   *
+   * @param parser  Parser positioned at a value event. Non-null.
+   * @param event   The current value event. Non-null.
+   * @return        The string value, or null if the value is not a string.
+   */
+  private static String getString(JsonParser parser, JsonParser.Event event)
+  {
+    assert parser != null : "parser cannot be null";
+    assert event != null : "event cannot be null";
+
+    if (event == JsonParser.Event.VALUE_STRING)
+      return parser.getString();
+
+    skipValue(parser, event);
+    return null;
+  }
+
+  /**
+   * Skip the remaining members of the current object, up to and
+   * including its end. Values are skipped without being materialized.
+   *
+   * @param parser  Parser positioned within an object. Non-null.
+   */
+  private static void skipRemainingObject(JsonParser parser)
+  {
+    assert parser != null : "parser cannot be null";
+
+    JsonParser.Event event = parser.next();
+    while (event != JsonParser.Event.END_OBJECT) {
+      skipValue(parser, event);
+      event = parser.next();
+    }
+  }
+
+  /**
+   * Return the current value of the parser as a string if the specified
+   * field is to be loaded. Otherwise the value is skipped without being
+   * materialized.
+   *
+   * @param parser     Parser positioned at a value event. Non-null.
+   * @param event      The current value event. Non-null.
+   * @param isIncluded True if the field is to be loaded, false otherwise.
+   * @return           The string value, or null if not a string or not included.
+   */
+  private static String getString(JsonParser parser, JsonParser.Event event, boolean isIncluded)
+  {
+    if (isIncluded)
+      return getString(parser, event);
+
+    skipValue(parser, event);
+    return null;
+  }
+
+  /**
+   * Return the specified text, added to the given text store if any.
+   *
+   * @param text   Text to return. May be null.
+   * @param store  Store to keep the text in, or null to keep it as is.
+   * @return       The text, or a reference to the stored text. Null if text is null.
+   */
+  private static CharSequence getText(String text, TextStore store)
+  {
+    return text != null && store != null ? store.add(text) : text;
+  }
+
+  /**
+   * Return the current value of the parser as an integer.
+   * Non-numeric values are skipped.
+   *
+   * @param parser        Parser positioned at a value event. Non-null.
+   * @param event         The current value event. Non-null.
+   * @param defaultValue  Value to return if the value is not a number.
+   * @return              The integer value, or defaultValue if not a number.
+   */
+  private static int getInt(JsonParser parser, JsonParser.Event event, int defaultValue)
+  {
+    assert parser != null : "parser cannot be null";
+    assert event != null : "event cannot be null";
+
+    if (event == JsonParser.Event.VALUE_NUMBER)
+      return parser.getInt();
+
+    skipValue(parser, event);
+    return defaultValue;
+  }
+
+  /**
+   * Return the current value of the parser as a boolean.
+   * Non-boolean values are skipped.
+   *
+   * @param parser        Parser positioned at a value event. Non-null.
+   * @param event         The current value event. Non-null.
+   * @param defaultValue  Value to return if the value is not a boolean.
+   * @return              The boolean value, or defaultValue if not a boolean.
+   */
+  private static boolean getBoolean(JsonParser parser, JsonParser.Event event, boolean defaultValue)
+  {
+    assert parser != null : "parser cannot be null";
+    assert event != null : "event cannot be null";
+
+    if (event == JsonParser.Event.VALUE_TRUE)
+      return true;
+
+    if (event == JsonParser.Event.VALUE_FALSE)
+      return false;
+
+    skipValue(parser, event);
+    return defaultValue;
+  }
+
+  /**
+   * Skip the current value of the parser, including any nested structure.
+   *
+   * @param parser  Parser positioned at a value event. Non-null.
+   * @param event   The current value event. Non-null.
+   */
+  private static void skipValue(JsonParser parser, JsonParser.Event event)
+  {
+    assert parser != null : "parser cannot be null";
+    assert event != null : "event cannot be null";
+
+    if (event == JsonParser.Event.START_OBJECT)
+      parser.skipObject();
+    else if (event == JsonParser.Event.START_ARRAY)
+      parser.skipArray();
+  }
+
+  /**
+   * Log parse throughput of a completed read operation.
+   *
+   * @param what       What has been read, for logging. Non-null.
+   * @param nRecords   Number of records read.
+   * @param nBytes     Number of bytes read.
+   * @param startTime  Time when the read started, as given by System.nanoTime().
+   */
+  private static void logThroughput(String what, int nRecords, long nBytes, long startTime)
+  {
+    assert what != null : "what cannot be null";
+
+    if (!logger_.isLoggable(Level.INFO))
+      return;
+
+    double seconds = (System.nanoTime() - startTime) / 1.0e9;
+    double megaBytes = nBytes / (1024.0 * 1024.0);
+    double throughput = seconds > 0.0 ? megaBytes / seconds : 0.0;
+
+    logger_.log(Level.INFO, String.format("Parsed %d %s (%.2f MB) in %.0f ms (%.1f MB/s)",
+                                          nRecords, what, megaBytes, seconds * 1000.0, throughput));
+  }
+
+  /**
+   * Read a property record from the specified parser.
+   *
+   * @param parser        Parser positioned within the record object. Non-null.
+   * @param options       Options restricting what is read. Non-null.
+   * @param descriptions  Store to keep descriptions in. Null to keep them as strings.
+   * @param parents       Map to put the parent name of the property in. Non-null.
+   * @return              The property read. Never null.
+   */
+  private static Property readProperty(JsonParser parser, LoadOptions options, TextStore descriptions,
+                                       Map<Property,String> parents)
+  {
+    assert parser != null : "parser cannot be null";
+    assert options != null : "options cannot be null";
+    assert parents != null : "parents cannot be null";
+
+    boolean isDescriptionIncluded = options.isIncluded(LoadOptions.Field.DESCRIPTION);
+
+    String name = null;
+    String description = null;
+    String quantity = null;
+    String guid = null;
+    String parent = null;
+    int sortOrder = -1;
+    boolean isAbstract = false;
+
+    while (parser.next() == JsonParser.Event.KEY_NAME) {
+      String key = parser.getString();
+      JsonParser.Event event = parser.next();
+      switch (key) {
+        case "name"        : name = getString(parser, event); break;
+        case "description" : description = getString(parser, event, isDescriptionIncluded); break;
+        case "quantity"    : quantity = getString(parser, event); break;
+        case "guid"        : guid = getString(parser, event); break;
+        case "parent"      : parent = getString(parser, event); break;
+        case "sortOrder"   : sortOrder = getInt(parser, event, -1); break;
+        case "isAbstract"  : isAbstract = getBoolean(parser, event, false); break;
+        default            : skipValue(parser, event);
+      }
+    }
+
+    Property property = new Property(name,
+                                     getText(isDescriptionIncluded ? description : "", descriptions),
+                                     quantity,
+                                     guid,
+                                     sortOrder,
+                                     isAbstract);
+
+    parents.put(property, parent);
+
+    return property;
+  }
+
+  /**
+   * Read a company record from the specified parser.
+   *
+   * @param parser   Parser positioned within the record object. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @return         The company read, or null if excluded by the options.
+   * @throws JsonException  If the record has no company code.
+   */
+  private static Company readCompany(JsonParser parser, LoadOptions options)
+  {
+    assert parser != null : "parser cannot be null";
+    assert options != null : "options cannot be null";
+
+    int companyCode = -1;
+    String name = null;
+
+    while (parser.next() == JsonParser.Event.KEY_NAME) {
+      String key = parser.getString();
+      JsonParser.Event event = parser.next();
+      switch (key) {
+        case "companyCode" : companyCode = getInt(parser, event, -1); break;
+        case "name"        : name = getString(parser, event); break;
+        default            : skipValue(parser, event);
+      }
+
+      if (companyCode != -1 && !options.isIncluded(companyCode)) {
+        skipRemainingObject(parser);
+        return null;
+      }
+    }
+
+    if (companyCode == -1)
+      throw new JsonException("Missing companyCode at " + parser.getLocation());
+
+    return new Company(companyCode, name);
+  }
+
+  /**
+   * Read a curve record from the specified parser. The record is skipped
+   * as soon as its company code is known to be excluded.
+   *
+   * @param parser        Parser positioned within the record object. Non-null.
+   * @param options       Options restricting what is read. Non-null.
+   * @param descriptions  Store to keep descriptions in. Null to keep them as strings.
+   * @return              The curve read, or null if excluded by the options.
+   */
+  private static Curve readCurve(JsonParser parser, LoadOptions options, TextStore descriptions)
+  {
+    assert parser != null : "parser cannot be null";
+    assert options != null : "options cannot be null";
+
+    boolean isShortMnemonicIncluded = options.isIncluded(LoadOptions.Field.SHORT_MNEMONIC);
+    boolean isDescriptionIncluded = options.isIncluded(LoadOptions.Field.DESCRIPTION);
+
+    String mnemonic = null;
+    String shortMnemonic = null;
+    int companyCode = -1;
+    String property = null;
+    String quantity = null;
+    String description = null;
+
+    while (parser.next() == JsonParser.Event.KEY_NAME) {
+      String key = parser.getString();
+      JsonParser.Event event = parser.next();
+      switch (key) {
+        case "mnemonic"      : mnemonic = getString(parser, event); break;
+        case "shortMnemonic" : shortMnemonic = getString(parser, event, isShortMnemonicIncluded); break;
+        case "companyCode"   : companyCode = getInt(parser, event, -1); break;
+        case "property"      : property = getString(parser, event); break;
+        case "quantity"      : quantity = getString(parser, event); break;
+        case "description"   : description = getString(parser, event, isDescriptionIncluded); break;
+        default              : skipValue(parser, event);
+      }
+
+      if (companyCode != -1 && !options.isIncluded(companyCode)) {
+        skipRemainingObject(parser);
+        return null;
+      }
+    }
+
+    return new Curve(mnemonic,
+                     shortMnemonic,
+                     companyCode != -1 ? companyCode : null,
+                     property,
+                     quantity,
+                     getText(description, descriptions));
+  }
+
+  /**
+   * Read a tool record from the specified parser. The record is skipped
+   * as soon as its company code is known to be excluded.
+   *
+   * @param parser        Parser positioned within the record object. Non-null.
+   * @param options       Options restricting what is read. Non-null.
+   * @param descriptions  Store to keep descriptions in. Null to keep them as strings.
+   * @return              The tool read, or null if excluded by the options.
+   */
+  private static Tool readTool(JsonParser parser, LoadOptions options, TextStore descriptions)
+  {
+    assert parser != null : "parser cannot be null";
+    assert options != null : "options cannot be null";
+
+    boolean isMarketingNameIncluded = options.isIncluded(LoadOptions.Field.MARKETING_NAME);
+    boolean isDescriptionIncluded = options.isIncluded(LoadOptions.Field.DESCRIPTION);
+    boolean isTypeDescriptionIncluded = options.isIncluded(LoadOptions.Field.TYPE_DESCRIPTION);
+
+    String toolCode = null;
+    int companyCode = -1;
+    String group = null;
+    String marketingName = null;
+    String description = null;
+    String genericType = null;
+    String loggingMethod = null;
+    String typeDescription = null;
+
+    while (parser.next() == JsonParser.Event.KEY_NAME) {
+      String key = parser.getString();
+      JsonParser.Event event = parser.next();
+      switch (key) {
+        case "toolCode"        : toolCode = getString(parser, event); break;
+        case "companyCode"     : companyCode = getInt(parser, event, -1); break;
+        case "group"           : group = getString(parser, event); break;
+        case "marketingName"   : marketingName = getString(parser, event, isMarketingNameIncluded); break;
+        case "description"     : description = getString(parser, event, isDescriptionIncluded); break;
+        case "genericType"     : genericType = getString(parser, event); break;
+        case "loggingMethod"   : loggingMethod = getString(parser, event); break;
+        case "typeDescription" : typeDescription = getString(parser, event, isTypeDescriptionIncluded); break;
+        default                : skipValue(parser, event);
+      }
+
+      if (companyCode != -1 && !options.isIncluded(companyCode)) {
+        skipRemainingObject(parser);
+        return null;
+      }
+    }
+
+    return new Tool(toolCode,
+                    companyCode,
+                    group,
+                    marketingName,
+                    getText(description, descriptions),
+                    genericType,
+                    loggingMethod,
+                    typeDescription);
+  }
+
+  /**
+   * Read a tool class record from the specified parser.
+   *
+   * @param parser  Parser positioned within the record object. Non-null.
+   * @return        The tool class read. Never null.
+   */
+  private static ToolClass readToolClass(JsonParser parser)
+  {
+    assert parser != null : "parser cannot be null";
+
+    String name = null;
+    String description = null;
+
+    while (parser.next() == JsonParser.Event.KEY_NAME) {
+      String key = parser.getString();
+      JsonParser.Event event = parser.next();
+      switch (key) {
+        case "name"        : name = getString(parser, event); break;
+        case "description" : description = getString(parser, event); break;
+        default            : skipValue(parser, event);
+      }
+    }
+
+    return new ToolClass(name, description);
+  }
+
+  /**
+   * Read a logging method record from the specified parser.
+   *
+   * @param parser  Parser positioned within the record object. Non-null.
+   * @return        The logging method read. Never null.
+   */
+  private static LoggingMethod readLoggingMethod(JsonParser parser)
+  {
+    assert parser != null : "parser cannot be null";
+
+    String name = null;
+    String description = null;
+
+    while (parser.next() == JsonParser.Event.KEY_NAME) {
+      String key = parser.getString();
+      JsonParser.Event event = parser.next();
+      switch (key) {
+        case "name"        : name = getString(parser, event); break;
+        case "description" : description = getString(parser, event); break;
+        default            : skipValue(parser, event);
+      }
+    }
+
+    return new LoggingMethod(name, description);
+  }
+
+  /**
+   * Read a curve by tool record from the specified parser and
+   * associate the curve with its tool.
+   *
+   * @param parser   Parser positioned within the record object. Non-null.
+   * @param tools    Tools to associate curves with. Non-null.
+   * @param curves   Curves to associate. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @param report   Report to add unknown tools and curves to. Non-null.
+   * @return         True if the record was read, false if excluded by the options.
+   */
+  private static boolean readLink(JsonParser parser, Tools tools, Curves curves, LoadOptions options, LoadReport report)
+  {
+    assert parser != null : "parser cannot be null";
+    assert tools != null : "tools cannot be null";
+    assert curves != null : "curves cannot be null";
+    assert options != null : "options cannot be null";
+    assert report != null : "report cannot be null";
+
+    String toolCode = null;
+    int companyCode = -1;
+    String curveMnemonic = null;
+
+    while (parser.next() == JsonParser.Event.KEY_NAME) {
+      String key = parser.getString();
+      JsonParser.Event event = parser.next();
+      switch (key) {
+        case "toolCode"      : toolCode = getString(parser, event); break;
+        case "companyCode"   : companyCode = getInt(parser, event, -1); break;
+        case "curveMnemonic" : curveMnemonic = getString(parser, event); break;
+        default              : skipValue(parser, event);
+      }
+
+      if (companyCode != -1 && !options.isIncluded(companyCode)) {
+        skipRemainingObject(parser);
+        return false;
+      }
+    }
+
+    Tool tool = tools.find(toolCode, companyCode);
+    if (tool == null)
+      report.add(LoadReport.Category.UNKNOWN_TOOL, toolCode + "/" + companyCode);
+
+    Curve curve = curves.find(curveMnemonic, companyCode);
+    if (curve == null)
+      report.add(LoadReport.Category.UNKNOWN_CURVE, curveMnemonic + "/" + companyCode);
+
+    if (tool != null && curve != null)
+      tool.addCurve(curve);
+
+    return true;
+  }
+
+  /**
+   * Reader of a single record of a chunk of a JSON array.
+   *
+   * @param <T>  Type of record read.
+   */
+  private interface RecordReader<T>
+  {
+    /**
+     * Read a record from the specified parser.
+     *
+     * @param parser        Parser positioned within the record object. Non-null.
+     * @param descriptions  Store to keep descriptions in. Null to keep them as strings.
+     * @return              The record read, or null if excluded.
+     */
+    T read(JsonParser parser, TextStore descriptions);
+  }
+
+  /**
+   * Split the top level JSON array of the specified content into
+   * chunks of whole records.
+   * <p>
+   * The content is scanned for the commas separating the elements of the
+   * top level array, keeping track of nesting depth as well as string and
+   * escape state so that structural characters within strings are ignored.
+   * UTF-8 continuation bytes never equal ASCII, so the scan is done on the
+   * raw bytes.
+   *
+   * @param content  Content of the JSON array. Non-null.
+   * @param nChunks  Maximum number of chunks to split into. [1,&gt;.
+   * @return         Offset and length of the chunks, excluding the
+   *                 separating commas. Never null.
+   * @throws JsonException  If the content is not a complete JSON array.
+   */
+  private static List<int[]> split(byte[] content, int nChunks)
+  {
+    assert content != null : "content cannot be null";
+    assert nChunks > 0 : "Invalid nChunks: " + nChunks;
+
+    int start = 0;
+    while (start < content.length && content[start] != '[') {
+      byte b = content[start];
+      if (b != ' ' && b != '\t' && b != '\n' && b != '\r')
+        throw new JsonException("Expected JSON array at byte " + start);
+      start++;
+    }
+
+    if (start == content.length)
+      throw new JsonException("Expected JSON array");
+
+    int chunkSize = (content.length - start) / nChunks;
+
+    List<int[]> chunks = new ArrayList<>();
+
+    int chunkStart = start + 1;
+    int depth = 0;
+    boolean isString = false;
+    boolean isEscaped = false;
+
+    for (int i = chunkStart; i < content.length; i++) {
+      byte b = content[i];
+
+      if (isString) {
+        if (isEscaped)
+          isEscaped = false;
+        else if (b == '\\')
+          isEscaped = true;
+        else if (b == '"')
+          isString = false;
+        continue;
+      }
+
+      switch (b) {
+        case '"' :
+          isString = true;
+          break;
+
+        case '{' :
+        case '[' :
+          depth++;
+          break;
+
+        case '}' :
+        case ']' :
+          if (depth == 0) {
+            chunks.add(new int[] {chunkStart, i - chunkStart});
+            return chunks;
+          }
+          depth--;
+          break;
+
+        case ',' :
+          if (depth == 0 && i - chunkStart >= chunkSize && chunks.size() < nChunks - 1) {
+            chunks.add(new int[] {chunkStart, i - chunkStart});
+            chunkStart = i + 1;
+          }
+          break;
+
+        default :
+          break;
+      }
+    }
+
+    throw new JsonException("Unterminated JSON array");
+  }
+
+  /**
+   * Return the number of chunks to parse content of the specified size in.
+   *
+   * @param nBytes  Size of content in bytes.
+   * @return        Number of chunks. [1,&gt;.
+   */
+  private static int getNChunks(int nBytes)
+  {
+    return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), nBytes / MIN_CHUNK_SIZE));
+  }
+
+  /**
+   * Read the records of the top level JSON array of the specified content,
+   * parsing chunks of it concurrently.
+   * <p>
+   * Each chunk is parsed into a local list, and the lists are concatenated
+   * in order, so the result is identical to that of a sequential parse.
+   *
+   * @param content               Content of the JSON array. Non-null.
+   * @param reader                Reader of the records. Non-null.
+   * @param isDescriptionCompact  True to keep descriptions in a text store per chunk.
+   * @param executor              Executor to parse the chunks on. Non-null.
+   * @return                      The records read, in order. Never null.
+   * @throws JsonException  If the content is malformed.
+   */
+  private static <T> List<T> readChunked(byte[] content, RecordReader<T> reader, boolean isDescriptionCompact, Executor executor)
+  {
+    assert content != null : "content cannot be null";
+    assert reader != null : "reader cannot be null";
+    assert executor != null : "executor cannot be null";
+
+    List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+    for (int[] chunk : split(content, getNChunks(content.length))) {
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        TextStore descriptions = isDescriptionCompact ? new TextStore() : null;
+
+        // Parse the chunk as an array of its own
+        InputStream stream = new SequenceInputStream(Collections.enumeration(Arrays.asList(new ByteArrayInputStream(new byte[] {'['}),
+                                                                                           new ByteArrayInputStream(content, chunk[0], chunk[1]),
+                                                                                           new ByteArrayInputStream(new byte[] {']'}))));
+        List<T> records = new ArrayList<>();
+
+        JsonParser parser = startArray(stream);
+        while (nextObject(parser)) {
+          T record = reader.read(parser, descriptions);
+          if (record != null)
+            records.add(record);
+        }
+        parser.close();
+
+        if (descriptions != null)
+          descriptions.flush();
+
+        return records;
+      }, executor));
+    }
+
+    List<T> records = new ArrayList<>();
+    try {
+      for (CompletableFuture<List<T>> future : futures)
+        records.addAll(future.join());
+    }
+    catch (CompletionException exception) {
+      if (exception.getCause() instanceof RuntimeException)
+        throw (RuntimeException) exception.getCause();
+      throw exception;
+    }
+
+    return records;
+  }
+
   /**
    * Read PWLS properties from the specified JSON stream.
    *
@@ -54,53 +977,90 @@ public final class JsonReader
    * @throws IllegalArgumentException  If stream is null.
    */
   public static Properties readProperties(InputStream stream)
+  {
+    return readProperties(stream, LoadOptions.ALL);
+  }
+
+  /**
+   * Read PWLS properties from the specified JSON stream.
+   *
+   * @param stream   JSON stream to read from. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @return         The properties read. Never null.
+   * @throws IllegalArgumentException  If stream or options is null.
+   */
+  public static Properties readProperties(InputStream stream, LoadOptions options)
+  {
+    LoadReport report = new LoadReport();
+    Properties properties = readProperties(stream, options, report);
+    report.log("properties");
+
+    return properties;
+  }
+
+  /**
+   * Read PWLS properties from the specified JSON stream.
+   * Properties with a parent that doesn't exist are added to
+   * the report rather than logged individually.
+   *
+   * @param stream   JSON stream to read from. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @param report   Report to add load issues to. Non-null.
+   * @return         The properties read. Never null.
+   * @throws IllegalArgumentException  If stream, options or report is null.
+   */
+  public static Properties readProperties(InputStream stream, LoadOptions options, LoadReport report)
   {
     if (stream == null)
-      throw new IllegalArgumentException("stream inputannot be null");
+      throw new IllegalArgumentException("stream cannot be null");
 
-    Properties properties = new Properties();
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
 
-    javax.json.JsonReader reader = Json.createReader(stream);
-    JsonArray jsonArray = reader.readArray();
+    if (report == null)
+      throw new IllegalArgumentException("report cannot be null");
 
-    // Temporary holder of parents
-    Map<Property,String> parents = new HashMap<>();
+    InputStream content = validate(stream, PwlsSource.PROPERTIES, options, report);
 
-    for (int i = 0; i < jsonArray.size(); i++) {
-      JsonObject jsonObject = jsonArray.getJsonObject(i);
+    TextStore descriptions = options.isDescriptionCompact() ? new TextStore() : null;
 
-      String name = jsonObject.getString("name", null);
-      String description = jsonObject.getString("description", null);
-      String quantity = jsonObject.getString("quantity", null);
-      String guid = jsonObject.getString("guid", null);
-      String parent = jsonObject.getString("parent", null);
-      int sortOrder = jsonObject.getInt("sortOrder", -1);
-      boolean isAbstract = jsonObject.getBoolean("isAbstract", false);
+    long startTime = System.nanoTime();
+    CountingInputStream countingStream = new CountingInputStream(content);
 
-      Property property = new Property(name,
-                                       description,
-                                       quantity,
-                                       guid,
-                                       sortOrder,
-                                       isAbstract);
+    Properties properties = new Properties();
 
-      parents.put(property, parent);
+    // Temporary holder of parents
+    Map<Property,String> parents = new HashMap<>();
+
+    // Properties by name, for resolving parents
+    Map<String,Property> propertiesByName = new HashMap<>();
+
+    JsonParser parser = startArray(countingStream);
+    while (nextObject(parser)) {
+      Property property = readProperty(parser, options, descriptions, parents);
+      propertiesByName.putIfAbsent(property.getName(), property);
 
       properties.add(property);
     }
+    parser.close();
+
+    if (descriptions != null)
+      descriptions.flush();
 
     // Resolve parents
     for (Property property : properties.getAll()) {
       String parentName = parents.get(property);
-      Property parentProperty = parentName != null ? properties.findByName(parentName) : null;
-      if (parentProperty == null)
-        logger_.log(Level.WARNING, "Missing parent property for " + property.getName());
+      Property parentProperty = parentName != null ? propertiesByName.get(parentName) : null;
+      if (parentName != null && parentProperty == null)
+        report.add(LoadReport.Category.MISSING_PARENT, property.getName());
 
       // Keep parent == null if at root level
       if (parentProperty != null && parentProperty != property)
         property.setParent(parentProperty);
     }
 
+    logThroughput("properties", properties.getAll().size(), countingStream.getNBytes(), startTime);
+
     return properties;
   }
 
@@ -118,45 +1078,90 @@ public final class JsonReader
     if (file == null)
       throw new IllegalArgumentException("file cannot be null");
 
-    FileInputStream inputStream = null;
-    try {
-      inputStream = new FileInputStream(file);
-      return readProperties(inputStream);
-    }
-    finally {
-      if (inputStream != null)
-        inputStream.close();
-    }
+    FileInputStream inputStream = null;
+    try {
+      inputStream = new FileInputStream(file);
+      return readProperties(inputStream);
+    }
+    finally {
+      if (inputStream != null)
+        inputStream.close();
+    }
+  }
+
+  /**
+   * Read PWLS companies from the specified JSON stream.
+   *
+   * @param stream  JSON stream to read from. Non-null.
+   * @return        The companies read. Never null.
+   * @throws IllegalArgumentException  If stream is null.
+   * @throws IOException  If the read operation fails for some reason.
+   */
+  public static Companies readCompanies(InputStream stream)
+    throws IOException
+  {
+    return readCompanies(stream, LoadOptions.ALL);
+  }
+
+  /**
+   * Read PWLS companies from the specified JSON stream.
+   * Companies not included by the options are skipped.
+   *
+   * @param stream   JSON stream to read from. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @return         The companies read. Never null.
+   * @throws IllegalArgumentException  If stream or options is null.
+   * @throws IOException  If the read operation fails for some reason.
+   */
+  public static Companies readCompanies(InputStream stream, LoadOptions options)
+    throws IOException
+  {
+    LoadReport report = new LoadReport();
+    Companies companies = readCompanies(stream, options, report);
+    report.log("companies");
+
+    return companies;
   }
 
   /**
    * Read PWLS companies from the specified JSON stream.
+   * Companies not included by the options are skipped.
    *
-   * @param stream  JSON stream to read from. Non-null.
-   * @return        The companies read. Never null.
-   * @throws IllegalArgumentException  If stream is null.
+   * @param stream   JSON stream to read from. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @param report   Report to add load issues to. Non-null.
+   * @return         The companies read. Never null.
+   * @throws IllegalArgumentException  If stream, options or report is null.
    * @throws IOException  If the read operation fails for some reason.
    */
-  public static Companies readCompanies(InputStream stream)
+  public static Companies readCompanies(InputStream stream, LoadOptions options, LoadReport report)
     throws IOException
   {
     if (stream == null)
       throw new IllegalArgumentException("stream cannot be null");
 
-    Companies companies = new Companies();
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
 
-    javax.json.JsonReader reader = Json.createReader(stream);
-    JsonArray jsonArray = reader.readArray();
+    if (report == null)
+      throw new IllegalArgumentException("report cannot be null");
 
-    for (int i = 0; i < jsonArray.size(); i++) {
-      JsonObject jsonObject = jsonArray.getJsonObject(i);
+    InputStream content = validate(stream, PwlsSource.COMPANIES, options, report);
 
-      int companyCode = jsonObject.getInt("companyCode");
-      String name = jsonObject.getString("name");
-      Company company = new Company(companyCode, name);
+    long startTime = System.nanoTime();
+    CountingInputStream countingStream = new CountingInputStream(content);
 
-      companies.add(company);
+    Companies companies = new Companies();
+
+    JsonParser parser = startArray(countingStream);
+    while (nextObject(parser)) {
+      Company company = readCompany(parser, options);
+      if (company != null)
+        companies.add(company);
     }
+    parser.close();
+
+    logThroughput("companies", companies.getAll().size(), countingStream.getNBytes(), startTime);
 
     return companies;
   }
@@ -194,34 +1199,161 @@ public final class JsonReader
    * @throws IllegalArgumentException  If stream is null.
    */
   public static Curves readCurves(InputStream stream)
+  {
+    return readCurves(stream, LoadOptions.ALL);
+  }
+
+  /**
+   * Read PWLS curves from the specified JSON stream.
+   * Curves of companies not included by the options are skipped
+   * as soon as their company code is known.
+   *
+   * @param stream   JSON stream to read from. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @return         The curves read. Never null.
+   * @throws IllegalArgumentException  If stream or options is null.
+   */
+  public static Curves readCurves(InputStream stream, LoadOptions options)
+  {
+    LoadReport report = new LoadReport();
+    Curves curves = readCurves(stream, options, report);
+    report.log("curves");
+
+    return curves;
+  }
+
+  /**
+   * Read PWLS curves from the specified JSON stream.
+   * Curves of companies not included by the options are skipped
+   * as soon as their company code is known.
+   *
+   * @param stream   JSON stream to read from. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @param report   Report to add load issues to. Non-null.
+   * @return         The curves read. Never null.
+   * @throws IllegalArgumentException  If stream, options or report is null.
+   */
+  public static Curves readCurves(InputStream stream, LoadOptions options, LoadReport report)
   {
     if (stream == null)
       throw new IllegalArgumentException("stream cannot be null");
 
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
+
+    if (report == null)
+      throw new IllegalArgumentException("report cannot be null");
+
+    return parseCurves(validate(stream, PwlsSource.CURVES, options, report), options);
+  }
+
+  /**
+   * Parse PWLS curves from the specified JSON stream, without validation.
+   *
+   * @param stream   JSON stream to parse. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @return         The curves read. Never null.
+   */
+  private static Curves parseCurves(InputStream stream, LoadOptions options)
+  {
+    assert stream != null : "stream cannot be null";
+    assert options != null : "options cannot be null";
+
+    TextStore descriptions = options.isDescriptionCompact() ? new TextStore() : null;
+
+    long startTime = System.nanoTime();
+    CountingInputStream countingStream = new CountingInputStream(stream);
+
     Curves curves = new Curves();
 
-    javax.json.JsonReader reader = Json.createReader(stream);
-    JsonArray jsonArray = reader.readArray();
+    int nCurves = 0;
+    JsonParser parser = startArray(countingStream);
+    while (nextObject(parser)) {
+      Curve curve = readCurve(parser, options, descriptions);
+      if (curve != null) {
+        curves.add(curve);
+        nCurves++;
+      }
+    }
+    parser.close();
+
+    if (descriptions != null)
+      descriptions.flush();
+
+    logThroughput("curves", nCurves, countingStream.getNBytes(), startTime);
+
+    return curves;
+  }
+
+  /**
+   * Read PWLS curves from the specified JSON content, parsing chunks
+   * of it concurrently on the given executor.
+   * <p>
+   * The result is identical to that of {@link #readCurves(InputStream,LoadOptions)}.
+   * Content too small to split in chunks and content on single core
+   * machines is parsed sequentially.
+   *
+   * @param content   JSON content to read from. Non-null.
+   * @param options   Options restricting what is read. Non-null.
+   * @param executor  Executor to parse chunks on. Non-null.
+   * @return          The curves read. Never null.
+   * @throws IllegalArgumentException  If content, options or executor is null.
+   */
+  public static Curves readCurves(byte[] content, LoadOptions options, Executor executor)
+  {
+    LoadReport report = new LoadReport();
+    Curves curves = readCurves(content, options, report, executor);
+    report.log("curves");
+
+    return curves;
+  }
+
+  /**
+   * Read PWLS curves from the specified JSON content, parsing chunks
+   * of it concurrently on the given executor.
+   * <p>
+   * The result is identical to that of {@link #readCurves(InputStream,LoadOptions,LoadReport)}.
+   * Content too small to split in chunks and content on single core
+   * machines is parsed sequentially.
+   *
+   * @param content   JSON content to read from. Non-null.
+   * @param options   Options restricting what is read. Non-null.
+   * @param report    Report to add load issues to. Non-null.
+   * @param executor  Executor to parse chunks on. Non-null.
+   * @return          The curves read. Never null.
+   * @throws IllegalArgumentException  If content, options, report or executor is null.
+   */
+  public static Curves readCurves(byte[] content, LoadOptions options, LoadReport report, Executor executor)
+  {
+    if (content == null)
+      throw new IllegalArgumentException("content cannot be null");
+
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
+
+    if (report == null)
+      throw new IllegalArgumentException("report cannot be null");
+
+    if (executor == null)
+      throw new IllegalArgumentException("executor cannot be null");
 
-    for (int i = 0; i < jsonArray.size(); i++) {
-      JsonObject jsonObject = jsonArray.getJsonObject(i);
+    // Validation is a sequential pass of its own, so parsing may still be chunked
+    if (options.isValidated())
+      validate(content, PwlsSource.CURVES, report);
 
-      String mnemonic = jsonObject.getString("mnemonic", null);
-      String shortMnemonic = jsonObject.getString("shortMnemonic", null);
-      int companyCode = jsonObject.getInt("companyCode", -1);
-      String property = jsonObject.getString("property", null);
-      String quantity = jsonObject.getString("quantity", null);
-      String description = jsonObject.getString("description", null);
+    if (getNChunks(content.length) < 2)
+      return parseCurves(new ByteArrayInputStream(content), options);
 
-      Curve curve = new Curve(mnemonic,
-                              shortMnemonic,
-                              companyCode != -1 ? companyCode : null,
-                              property,
-                              quantity,
-                              description);
+    long startTime = System.nanoTime();
 
+    List<Curve> records = readChunked(content, (parser, descriptions) -> readCurve(parser, options, descriptions),
+                                      options.isDescriptionCompact(), executor);
+
+    Curves curves = new Curves();
+    for (Curve curve : records)
       curves.add(curve);
-    }
+
+    logThroughput("curves", records.size(), content.length, startTime);
 
     return curves;
   }
@@ -259,38 +1391,161 @@ public final class JsonReader
    * @throws IllegalArgumentException  If stream is null.
    */
   public static Tools readTools(InputStream stream)
+  {
+    return readTools(stream, LoadOptions.ALL);
+  }
+
+  /**
+   * Read PWLS tools from the specified JSON stream.
+   * Tools of companies not included by the options are skipped
+   * as soon as their company code is known.
+   *
+   * @param stream   JSON stream to read from. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @return         The tools read. Never null.
+   * @throws IllegalArgumentException  If stream or options is null.
+   */
+  public static Tools readTools(InputStream stream, LoadOptions options)
+  {
+    LoadReport report = new LoadReport();
+    Tools tools = readTools(stream, options, report);
+    report.log("tools");
+
+    return tools;
+  }
+
+  /**
+   * Read PWLS tools from the specified JSON stream.
+   * Tools of companies not included by the options are skipped
+   * as soon as their company code is known.
+   *
+   * @param stream   JSON stream to read from. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @param report   Report to add load issues to. Non-null.
+   * @return         The tools read. Never null.
+   * @throws IllegalArgumentException  If stream, options or report is null.
+   */
+  public static Tools readTools(InputStream stream, LoadOptions options, LoadReport report)
   {
     if (stream == null)
       throw new IllegalArgumentException("stream cannot be null");
 
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
+
+    if (report == null)
+      throw new IllegalArgumentException("report cannot be null");
+
+    return parseTools(validate(stream, PwlsSource.TOOLS, options, report), options);
+  }
+
+  /**
+   * Parse PWLS tools from the specified JSON stream, without validation.
+   *
+   * @param stream   JSON stream to parse. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @return         The tools read. Never null.
+   */
+  private static Tools parseTools(InputStream stream, LoadOptions options)
+  {
+    assert stream != null : "stream cannot be null";
+    assert options != null : "options cannot be null";
+
+    TextStore descriptions = options.isDescriptionCompact() ? new TextStore() : null;
+
+    long startTime = System.nanoTime();
+    CountingInputStream countingStream = new CountingInputStream(stream);
+
     Tools tools = new Tools();
 
-    javax.json.JsonReader reader = Json.createReader(stream);
-    JsonArray jsonArray = reader.readArray();
-
-    for (int i = 0; i < jsonArray.size(); i++) {
-      JsonObject jsonObject = jsonArray.getJsonObject(i);
-
-      String toolCode = jsonObject.getString("toolCode", null);
-      int companyCode = jsonObject.getInt("companyCode", -1);
-      String group = jsonObject.getString("group", null);
-      String marketingName = jsonObject.getString("marketingName", null);
-      String description = jsonObject.getString("description", null);
-      String genericType = jsonObject.getString("genericType", null);
-      String loggingMethod = jsonObject.getString("loggingMethod", null);
-      String typeDescription = jsonObject.getString("typeDescription", null);
-
-      Tool tool = new Tool(toolCode,
-                           companyCode != -1 ? companyCode : null,
-                           group,
-                           marketingName,
-                           description,
-                           genericType,
-                           loggingMethod,
-                           typeDescription);
+    int nTools = 0;
+    JsonParser parser = startArray(countingStream);
+    while (nextObject(parser)) {
+      Tool tool = readTool(parser, options, descriptions);
+      if (tool != null) {
+        tools.add(tool);
+        nTools++;
+      }
+    }
+    parser.close();
+
+    if (descriptions != null)
+      descriptions.flush();
+
+    logThroughput("tools", nTools, countingStream.getNBytes(), startTime);
+
+    return tools;
+  }
+
+  /**
+   * Read PWLS tools from the specified JSON content, parsing chunks
+   * of it concurrently on the given executor.
+   * <p>
+   * The result is identical to that of {@link #readTools(InputStream,LoadOptions)}.
+   * Content too small to split in chunks and content on single core
+   * machines is parsed sequentially.
+   *
+   * @param content   JSON content to read from. Non-null.
+   * @param options   Options restricting what is read. Non-null.
+   * @param executor  Executor to parse chunks on. Non-null.
+   * @return          The tools read. Never null.
+   * @throws IllegalArgumentException  If content, options or executor is null.
+   */
+  public static Tools readTools(byte[] content, LoadOptions options, Executor executor)
+  {
+    LoadReport report = new LoadReport();
+    Tools tools = readTools(content, options, report, executor);
+    report.log("tools");
+
+    return tools;
+  }
+
+  /**
+   * Read PWLS tools from the specified JSON content, parsing chunks
+   * of it concurrently on the given executor.
+   * <p>
+   * The result is identical to that of {@link #readTools(InputStream,LoadOptions,LoadReport)}.
+   * Content too small to split in chunks and content on single core
+   * machines is parsed sequentially.
+   *
+   * @param content   JSON content to read from. Non-null.
+   * @param options   Options restricting what is read. Non-null.
+   * @param report    Report to add load issues to. Non-null.
+   * @param executor  Executor to parse chunks on. Non-null.
+   * @return          The tools read. Never null.
+   * @throws IllegalArgumentException  If content, options, report or executor is null.
+   */
+  public static Tools readTools(byte[] content, LoadOptions options, LoadReport report, Executor executor)
+  {
+    if (content == null)
+      throw new IllegalArgumentException("content cannot be null");
+
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
+
+    if (report == null)
+      throw new IllegalArgumentException("report cannot be null");
 
+    if (executor == null)
+      throw new IllegalArgumentException("executor cannot be null");
+
+    // Validation is a sequential pass of its own, so parsing may still be chunked
+    if (options.isValidated())
+      validate(content, PwlsSource.TOOLS, report);
+
+    if (getNChunks(content.length) < 2)
+      return parseTools(new ByteArrayInputStream(content), options);
+
+    long startTime = System.nanoTime();
+
+    List<Tool> records = readChunked(content, (parser, descriptions) -> readTool(parser, options, descriptions),
+                                     options.isDescriptionCompact(), executor);
+
+    Tools tools = new Tools();
+    for (Tool tool : records)
       tools.add(tool);
-    }
+
+    logThroughput("tools", records.size(), content.length, startTime);
 
     return tools;
   }
@@ -328,25 +1583,60 @@ public final class JsonReader
    * @throws IllegalArgumentException  If stream is null.
    */
   public static ToolClasses readToolClasses(InputStream stream)
+  {
+    return readToolClasses(stream, LoadOptions.ALL);
+  }
+
+  /**
+   * Read PWLS tool classes from the specified JSON stream.
+   *
+   * @param stream   JSON stream to read from. Non-null.
+   * @param options  Options of the read. Non-null.
+   * @return         The tool classes read. Never null.
+   * @throws IllegalArgumentException  If stream or options is null.
+   */
+  public static ToolClasses readToolClasses(InputStream stream, LoadOptions options)
+  {
+    LoadReport report = new LoadReport();
+    ToolClasses toolClasses = readToolClasses(stream, options, report);
+    report.log("tool classes");
+
+    return toolClasses;
+  }
+
+  /**
+   * Read PWLS tool classes from the specified JSON stream.
+   *
+   * @param stream   JSON stream to read from. Non-null.
+   * @param options  Options of the read. Non-null.
+   * @param report   Report to add load issues to. Non-null.
+   * @return         The tool classes read. Never null.
+   * @throws IllegalArgumentException  If stream, options or report is null.
+   */
+  public static ToolClasses readToolClasses(InputStream stream, LoadOptions options, LoadReport report)
   {
     if (stream == null)
       throw new IllegalArgumentException("stream cannot be null");
 
-    ToolClasses toolClasses = new ToolClasses();
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
+
+    if (report == null)
+      throw new IllegalArgumentException("report cannot be null");
 
-    javax.json.JsonReader reader = Json.createReader(stream);
-    JsonArray jsonArray = reader.readArray();
+    InputStream content = validate(stream, PwlsSource.TOOL_CLASSES, options, report);
 
-    for (int i = 0; i < jsonArray.size(); i++) {
-      JsonObject jsonObject = jsonArray.getJsonObject(i);
+    long startTime = System.nanoTime();
+    CountingInputStream countingStream = new CountingInputStream(content);
 
-      String name = jsonObject.getString("name", null);
-      String description = jsonObject.getString("description", null);
+    ToolClasses toolClasses = new ToolClasses();
 
-      ToolClass toolClass = new ToolClass(name, description);
+    JsonParser parser = startArray(countingStream);
+    while (nextObject(parser))
+      toolClasses.add(readToolClass(parser));
+    parser.close();
 
-      toolClasses.add(toolClass);
-    }
+    logThroughput("tool classes", toolClasses.getAll().size(), countingStream.getNBytes(), startTime);
 
     return toolClasses;
   }
@@ -384,25 +1674,60 @@ public final class JsonReader
    * @throws IllegalArgumentException  If stream is null.
    */
   public static LoggingMethods readLoggingMethods(InputStream stream)
+  {
+    return readLoggingMethods(stream, LoadOptions.ALL);
+  }
+
+  /**
+   * Read PWLS logging methods from the specified JSON stream.
+   *
+   * @param stream   JSON stream to read from. Non-null.
+   * @param options  Options of the read. Non-null.
+   * @return         The logging methods read. Never null.
+   * @throws IllegalArgumentException  If stream or options is null.
+   */
+  public static LoggingMethods readLoggingMethods(InputStream stream, LoadOptions options)
+  {
+    LoadReport report = new LoadReport();
+    LoggingMethods loggingMethods = readLoggingMethods(stream, options, report);
+    report.log("logging methods");
+
+    return loggingMethods;
+  }
+
+  /**
+   * Read PWLS logging methods from the specified JSON stream.
+   *
+   * @param stream   JSON stream to read from. Non-null.
+   * @param options  Options of the read. Non-null.
+   * @param report   Report to add load issues to. Non-null.
+   * @return         The logging methods read. Never null.
+   * @throws IllegalArgumentException  If stream, options or report is null.
+   */
+  public static LoggingMethods readLoggingMethods(InputStream stream, LoadOptions options, LoadReport report)
   {
     if (stream == null)
       throw new IllegalArgumentException("stream cannot be null");
 
-    LoggingMethods loggingMethods = new LoggingMethods();
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
+
+    if (report == null)
+      throw new IllegalArgumentException("report cannot be null");
 
-    javax.json.JsonReader reader = Json.createReader(stream);
-    JsonArray jsonArray = reader.readArray();
+    InputStream content = validate(stream, PwlsSource.LOGGING_METHODS, options, report);
 
-    for (int i = 0; i < jsonArray.size(); i++) {
-      JsonObject jsonObject = jsonArray.getJsonObject(i);
+    long startTime = System.nanoTime();
+    CountingInputStream countingStream = new CountingInputStream(content);
 
-      String name = jsonObject.getString("name", null);
-      String description = jsonObject.getString("description", null);
+    LoggingMethods loggingMethods = new LoggingMethods();
 
-      LoggingMethod loggingMethod = new LoggingMethod(name, description);
+    JsonParser parser = startArray(countingStream);
+    while (nextObject(parser))
+      loggingMethods.add(readLoggingMethod(parser));
+    parser.close();
 
-      loggingMethods.add(loggingMethod);
-    }
+    logThroughput("logging methods", loggingMethods.getAll().size(), countingStream.getNBytes(), startTime);
 
     return loggingMethods;
   }
@@ -441,6 +1766,42 @@ public final class JsonReader
    * @throws IllegalArgumentException  If streamm tools or curves is null.
    */
   public static void readCurvesByTool(InputStream stream, Tools tools, Curves curves)
+  {
+    readCurvesByTool(stream, tools, curves, LoadOptions.ALL);
+  }
+
+  /**
+   * Read the PWLS curves by tool mapping from the specified JSON stream and
+   * associate the curves with their tools. Associations of companies not
+   * included by the options are skipped.
+   *
+   * @param stream   JSON stream to read from. Non-null.
+   * @param tools    Tools to associate curves with. Non-null.
+   * @param curves   Curves to associate. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @throws IllegalArgumentException  If stream, tools, curves or options is null.
+   */
+  public static void readCurvesByTool(InputStream stream, Tools tools, Curves curves, LoadOptions options)
+  {
+    LoadReport report = new LoadReport();
+    readCurvesByTool(stream, tools, curves, options, report);
+    report.log("curves by tool");
+  }
+
+  /**
+   * Read the PWLS curves by tool mapping from the specified JSON stream and
+   * associate the curves with their tools. Associations of companies not
+   * included by the options are skipped, and associations of unknown tools
+   * or curves are added to the report rather than logged individually.
+   *
+   * @param stream   JSON stream to read from. Non-null.
+   * @param tools    Tools to associate curves with. Non-null.
+   * @param curves   Curves to associate. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @param report   Report to add load issues to. Non-null.
+   * @throws IllegalArgumentException  If stream, tools, curves, options or report is null.
+   */
+  public static void readCurvesByTool(InputStream stream, Tools tools, Curves curves, LoadOptions options, LoadReport report)
   {
     if (stream == null)
       throw new IllegalArgumentException("stream cannot be null");
@@ -451,27 +1812,26 @@ public final class JsonReader
     if (curves == null)
       throw new IllegalArgumentException("curves cannot be null");
 
-    javax.json.JsonReader reader = Json.createReader(stream);
-    JsonArray jsonArray = reader.readArray();
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
 
-    for (int i = 0; i < jsonArray.size(); i++) {
-      JsonObject jsonObject = jsonArray.getJsonObject(i);
+    if (report == null)
+      throw new IllegalArgumentException("report cannot be null");
 
-      String toolCode = jsonObject.getString("toolCode", null);
-      int companyCode = jsonObject.getInt("companyCode", -1);
-      String curveMnemonic = jsonObject.getString("curveMnemonic", null);
+    InputStream content = validate(stream, PwlsSource.CURVES_BY_TOOL, options, report);
 
-      Tool tool = tools.find(toolCode, companyCode);
-      if (tool == null)
-        logger_.log(Level.WARNING, "Unknown tool: " + toolCode + " for company=" + companyCode);
+    long startTime = System.nanoTime();
+    CountingInputStream countingStream = new CountingInputStream(content);
 
-      Curve curve = curves.find(curveMnemonic, companyCode);
-      if (curve == null)
-        logger_.log(Level.WARNING, "Unknown curve: " + curveMnemonic + " for company=" + companyCode);
-
-      if (tool != null && curve != null)
-        tool.addCurve(curve);
+    int nLinks = 0;
+    JsonParser parser = startArray(countingStream);
+    while (nextObject(parser)) {
+      if (readLink(parser, tools, curves, options, report))
+        nLinks++;
     }
+    parser.close();
+
+    logThroughput("curves by tool", nLinks, countingStream.getNBytes(), startTime);
   }
 
   /**
@@ -505,6 +1865,272 @@ public final class JsonReader
         inputStream.close();
     }
   }
-}
 
+  /**
+   * Read the bundle record of the specified bytes into the given bundle.
+   *
+   * @param buffer  Buffer holding the record. Non-null.
+   * @param offset  Offset of the record within buffer.
+   * @param length  Number of bytes of the record, including the line terminator.
+   * @param bundle  Bundle to read into. Non-null.
+   * @throws JsonException  If the record is malformed.
+   */
+  private static void readRecord(byte[] buffer, int offset, int length, JsonBundle bundle)
+  {
+    assert buffer != null : "buffer cannot be null";
+    assert bundle != null : "bundle cannot be null";
+
+    // Blank lines are accepted and ignored
+    boolean isBlank = true;
+    for (int i = offset; i < offset + length && isBlank; i++)
+      isBlank = buffer[i] == '\n' || buffer[i] == '\r' || buffer[i] == ' ' || buffer[i] == '\t';
+
+    if (isBlank) {
+      bundle.advance(length);
+      return;
+    }
+
+    if (bundle.isComplete())
+      throw new JsonException("Unexpected record after end of bundle at byte " + bundle.getOffset());
+
+    LoadOptions options = bundle.getOptions();
 
+    JsonParser parser = parserFactory_.createParser(new StringReader(new String(buffer, offset, length, StandardCharsets.UTF_8)));
+    try {
+      if (!parser.hasNext() || parser.next() != JsonParser.Event.START_OBJECT)
+        throw new JsonException("Expected JSON object at byte " + bundle.getOffset());
+
+      if (parser.next() != JsonParser.Event.KEY_NAME || !parser.getString().equals("type") ||
+          parser.next() != JsonParser.Event.VALUE_STRING)
+        throw new JsonException("Missing record type at byte " + bundle.getOffset());
+
+      String type = parser.getString();
+      switch (type) {
+        case "property" :
+          bundle.addProperty(readProperty(parser, options, bundle.getPropertyDescriptions(), bundle.getParents()));
+          break;
+
+        case "company" :
+          Company company = readCompany(parser, options);
+          if (company != null)
+            bundle.getCompanies().add(company);
+          break;
+
+        case "loggingMethod" :
+          bundle.getLoggingMethods().add(readLoggingMethod(parser));
+          break;
+
+        case "toolClass" :
+          bundle.getToolClasses().add(readToolClass(parser));
+          break;
+
+        case "tool" :
+          Tool tool = readTool(parser, options, bundle.getToolDescriptions());
+          if (tool != null)
+            bundle.getTools().add(tool);
+          break;
+
+        case "curve" :
+          Curve curve = readCurve(parser, options, bundle.getCurveDescriptions());
+          if (curve != null)
+            bundle.getCurves().add(curve);
+          break;
+
+        case "link" :
+          readLink(parser, bundle.getTools(), bundle.getCurves(), options, bundle.getLoadReport());
+          break;
+
+        case "end" :
+          int nRecords = -1;
+          while (parser.next() == JsonParser.Event.KEY_NAME) {
+            String key = parser.getString();
+            JsonParser.Event event = parser.next();
+            if (key.equals("nRecords"))
+              nRecords = getInt(parser, event, -1);
+            else
+              skipValue(parser, event);
+          }
+
+          if (nRecords != bundle.getNRecords())
+            throw new JsonException("Bundle has " + bundle.getNRecords() + " records, expected " + nRecords);
+
+          bundle.complete(length);
+          return;
+
+        default :
+          // Record types of later versions of the format are skipped
+          logger_.log(Level.FINE, "Skipping unknown record type: " + type);
+          skipRemainingObject(parser);
+      }
+    }
+    finally {
+      parser.close();
+    }
+
+    bundle.advance(length);
+  }
+
+  /**
+   * Read PWLS bundle records from the specified NDJSON stream into the given bundle.
+   * <p>
+   * Records are parsed and indexed as their lines are received, so processing
+   * overlaps with the transfer. Only complete, newline terminated records are
+   * consumed. If the stream ends or fails in the middle of the bundle, the
+   * bundle holds everything up to the last complete record, and the read can
+   * be resumed by passing a stream positioned at {@link JsonBundle#getOffset}
+   * together with the same bundle.
+   *
+   * @param stream  NDJSON stream to read from, positioned at the offset of the bundle. Non-null.
+   * @param bundle  Bundle to read into. Non-null.
+   * @throws IllegalArgumentException  If stream or bundle is null.
+   * @throws IOException  If reading the stream fails for some reason.
+   * @throws JsonException  If the bundle contains a malformed record.
+   */
+  public static void readBundle(InputStream stream, JsonBundle bundle)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (bundle == null)
+      throw new IllegalArgumentException("bundle cannot be null");
+
+    long startTime = System.nanoTime();
+    CountingInputStream countingStream = new CountingInputStream(stream);
+
+    int nRecords = bundle.getNRecords();
+
+    byte[] buffer = new byte[BUNDLE_BUFFER_SIZE];
+    int length = 0;   // Number of bytes in buffer
+    int scanned = 0;  // Number of bytes of buffer scanned for line terminators
+
+    while (true) {
+      int nRead = countingStream.read(buffer, length, buffer.length - length);
+      if (nRead == -1)
+        break;
+
+      length += nRead;
+
+      int start = 0;
+      for (int i = scanned; i < length; i++) {
+        if (buffer[i] == '\n') {
+          readRecord(buffer, start, i + 1 - start, bundle);
+          start = i + 1;
+        }
+      }
+
+      // Move the incomplete record to the start of the buffer
+      System.arraycopy(buffer, start, buffer, 0, length - start);
+      length -= start;
+      scanned = length;
+
+      if (length == buffer.length)
+        buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+    }
+
+    // Any remaining bytes is an incomplete record which is left for a resumed read
+    if (length > 0)
+      logger_.log(Level.FINE, "Incomplete bundle record of " + length + " bytes at byte " + bundle.getOffset());
+
+    logThroughput("bundle records", bundle.getNRecords() - nRecords, countingStream.getNBytes(), startTime);
+  }
+
+  /**
+   * Read a PWLS model from the specified NDJSON bundle file.
+   *
+   * @param file     Bundle file to read from. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @return         The PWLS model read. Never null.
+   * @throws IllegalArgumentException  If file or options is null.
+   * @throws IOException  If the read operation fails for some reason, or the bundle is incomplete.
+   */
+  public static Pwls readBundle(File file, LoadOptions options)
+    throws IOException
+  {
+    if (file == null)
+      throw new IllegalArgumentException("file cannot be null");
+
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
+
+    JsonBundle bundle = new JsonBundle(options);
+    try (InputStream stream = new FileInputStream(file)) {
+      readBundle(stream, bundle);
+    }
+
+    if (!bundle.isComplete())
+      throw new IOException("Incomplete bundle: " + file);
+
+    bundle.getLoadReport().log("bundle " + file);
+
+    return bundle.getPwls();
+  }
+
+  /**
+   * Read a PWLS model from the NDJSON bundle of the specified URL.
+   * <p>
+   * If the transfer is interrupted, it is resumed from the last complete
+   * record by an HTTP range request, so records already received are
+   * neither downloaded nor parsed again. The range request is conditional
+   * on the <em>ETag</em> or <em>Last-Modified</em> value of the first
+   * response through <em>If-Range</em>. If the bundle has changed in the
+   * meantime, or the server provides no validator or doesn't support
+   * ranges, the read starts over from the beginning with a fresh bundle.
+   *
+   * @param url      URL of bundle to read. Non-null.
+   * @param fetcher  Fetcher to fetch the bundle with. Non-null.
+   * @param options  Options restricting what is read. Non-null.
+   * @return         The PWLS model read. Never null.
+   * @throws IllegalArgumentException  If url, fetcher or options is null.
+   * @throws IOException  If the bundle cannot be read completely.
+   */
+  public static Pwls readBundle(String url, HttpFetcher fetcher, LoadOptions options)
+    throws IOException
+  {
+    if (url == null)
+      throw new IllegalArgumentException("url cannot be null");
+
+    if (fetcher == null)
+      throw new IllegalArgumentException("fetcher cannot be null");
+
+    if (options == null)
+      throw new IllegalArgumentException("options cannot be null");
+
+    JsonBundle bundle = new JsonBundle(options);
+    String validator = null;
+
+    for (int attempt = 1; !bundle.isComplete(); attempt++) {
+      IOException failure = null;
+
+      // Only resume if the server can tell whether the bundle has changed
+      long offset = validator != null ? bundle.getOffset() : 0L;
+
+      try (HttpFetcher.RangeStream stream = fetcher.open(url, offset, validator)) {
+        validator = stream.getValidator();
+
+        // The bundle has changed, or cannot be resumed: Start over
+        if (stream.getOffset() != bundle.getOffset()) {
+          logger_.log(Level.WARNING, "Unable to resume bundle transfer at byte " + bundle.getOffset() + ". Restarting: " + url);
+          bundle = new JsonBundle(options);
+        }
+
+        readBundle(stream, bundle);
+      }
+      catch (IOException exception) {
+        failure = exception;
+      }
+
+      if (bundle.isComplete())
+        break;
+
+      if (attempt == MAX_BUNDLE_ATTEMPTS)
+        throw failure != null ? failure : new IOException("Incomplete bundle: " + url);
+
+      logger_.log(Level.WARNING, "Bundle transfer interrupted at byte " + bundle.getOffset() + ". Resuming: " + url, failure);
+    }
+
+    bundle.getLoadReport().log("bundle " + url);
+
+    return bundle.getPwls();
+  }
+}
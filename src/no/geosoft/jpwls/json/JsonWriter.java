@@ -1,5 +1,6 @@
 package no.geosoft.jpwls.json;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.io.IOException;
@@ -9,9 +10,13 @@ import java.io.OutputStream;
 import java.io.Writer;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilterWriter;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
 import java.nio.charset.StandardCharsets;
 
 import javax.json.JsonArray;
@@ -21,10 +26,13 @@ import javax.json.JsonObjectBuilder;
 import javax.json.JsonString;
 import javax.json.JsonValue;
 import javax.json.Json;
+import javax.json.JsonException;
 import javax.json.JsonStructure;
 import javax.json.JsonWriterFactory;
 import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
 
+import no.geosoft.jpwls.CanonicalOrder;
 import no.geosoft.jpwls.Companies;
 import no.geosoft.jpwls.Company;
 import no.geosoft.jpwls.Curve;
@@ -33,6 +41,7 @@ import no.geosoft.jpwls.LoggingMethod;
 import no.geosoft.jpwls.LoggingMethods;
 import no.geosoft.jpwls.Properties;
 import no.geosoft.jpwls.Property;
+import no.geosoft.jpwls.Pwls;
 import no.geosoft.jpwls.Tool;
 import no.geosoft.jpwls.ToolClass;
 import no.geosoft.jpwls.ToolClasses;
@@ -45,6 +54,33 @@ import no.geosoft.jpwls.Tools;
  */
 public final class JsonWriter
 {
+  /** Generator factory of compact output. Thread safe, and cached as creating one is expensive. */
+  private static final JsonGeneratorFactory generatorFactory_ = Json.createGeneratorFactory(null);
+
+  /** Generator factory of pretty-printed output. Thread safe. */
+  private static final JsonGeneratorFactory prettyGeneratorFactory_ =
+    Json.createGeneratorFactory(Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true));
+
+  /** Number of records between each flush to the stream of the streaming writers. */
+  private static final int FLUSH_INTERVAL = 1000;
+
+  /**
+   * Writer of the members of a single record.
+   *
+   * @param <T>  Type of record written.
+   */
+  interface RecordWriter<T>
+  {
+    /**
+     * Write the members of the specified record to the given generator.
+     *
+     * @param generator   Generator positioned within the record object. Non-null.
+     * @param record      Record to write. Non-null.
+     * @param projection  Members to write. Non-null.
+     */
+    void write(JsonGenerator generator, T record, Projection projection);
+  }
+
   /**
    * Private constructor to prevent client instantiation.
    */
@@ -219,7 +255,7 @@ public final class JsonWriter
    * @return        The equivalent JSON array builder. Never null.
    * @throws IllegalArgumentException  If curves is null.
    */
-  public static JsonArrayBuilder getCurves(Set<Curve> curves)
+  public static JsonArrayBuilder getCurves(Collection<Curve> curves)
   {
     if (curves == null)
       throw new IllegalArgumentException("curves cannot be null");
@@ -262,7 +298,7 @@ public final class JsonWriter
    * @return       The equivalent JSON array builder. Never null.
    * @throws IllegalArgumentException  If tools is null.
    */
-  public static JsonArrayBuilder getTools(Set<Tool> tools)
+  public static JsonArrayBuilder getTools(Collection<Tool> tools)
   {
     if (tools == null)
       throw new IllegalArgumentException("tools cannot be null");
@@ -274,6 +310,34 @@ public final class JsonWriter
     return arrayBuilder;
   }
 
+  /**
+   * Return the links between the specified PWLS tools and their curves
+   * as a JSON array builder, in the format of <em>curvesByTool.json</em>.
+   *
+   * @param tools  Tools to consider. Non-null.
+   * @return       The equivalent JSON array builder. Never null.
+   * @throws IllegalArgumentException  If tools is null.
+   * @see #writeCurvesByTool(OutputStream,Iterable,boolean)
+   */
+  public static JsonArrayBuilder getCurvesByTool(Collection<Tool> tools)
+  {
+    if (tools == null)
+      throw new IllegalArgumentException("tools cannot be null");
+
+    JsonArrayBuilder arrayBuilder = Json.createArrayBuilder();
+    for (Tool tool : tools) {
+      for (Curve curve : CanonicalOrder.sort(tool.getCurves(), CanonicalOrder.CURVES)) {
+        JsonObjectBuilder objectBuilder = Json.createObjectBuilder();
+        add(objectBuilder, "toolCode", tool.getToolCode());
+        add(objectBuilder, "companyCode", tool.getCompanyCode());
+        add(objectBuilder, "curveMnemonic", curve.getMnemonic());
+        arrayBuilder.add(objectBuilder);
+      }
+    }
+
+    return arrayBuilder;
+  }
+
   /**
    * Return the specified PWLS company as a JSON object builder.
    *
@@ -299,7 +363,7 @@ public final class JsonWriter
    * @return           The equivalent JSON array builder. Never null.
    * @throws IllegalArgumentException  If companies is null.
    */
-  public static JsonArrayBuilder getCompanies(Set<Company> companies)
+  public static JsonArrayBuilder getCompanies(Collection<Company> companies)
   {
     if (companies == null)
       throw new IllegalArgumentException("companies cannot be null");
@@ -344,7 +408,7 @@ public final class JsonWriter
    * @return            The equivalent JSON array builder. Never null.
    * @throws IllegalArgumentException  If properties is null.
    */
-  public static JsonArrayBuilder getProperties(Set<Property> properties)
+  public static JsonArrayBuilder getProperties(Collection<Property> properties)
   {
     if (properties == null)
       throw new IllegalArgumentException("properties cannot be null");
@@ -381,7 +445,7 @@ public final class JsonWriter
    * @return             The equivalent JSON array builder. Never null.
    * @throws IllegalArgumentException  If toolClasses is null.
    */
-  public static JsonArrayBuilder getToolClasses(Set<ToolClass> toolClasses)
+  public static JsonArrayBuilder getToolClasses(Collection<ToolClass> toolClasses)
   {
     if (toolClasses == null)
       throw new IllegalArgumentException("toolClasses cannot be null");
@@ -418,7 +482,7 @@ public final class JsonWriter
    * @return                The equivalent JSON array builder. Never null.
    * @throws IllegalArgumentException  If loggingMethods is null.
    */
-  public static JsonArrayBuilder getLoggingMethods(Set<LoggingMethod> loggingMethods)
+  public static JsonArrayBuilder getLoggingMethods(Collection<LoggingMethod> loggingMethods)
   {
     if (loggingMethods == null)
       throw new IllegalArgumentException("loggingMethods cannot be null");
@@ -429,4 +493,1031 @@ public final class JsonWriter
 
     return arrayBuilder;
   }
+
+  /**
+   * Write entry of the specified key/value to the given generator.
+   *
+   * @param generator  Generator to write to. Non-null.
+   * @param key        Key of entry to write. Non-null.
+   * @param value      Value of key. May be null, in case "null" is written.
+   */
+  private static void write(JsonGenerator generator, String key, String value)
+  {
+    assert generator != null : "generator cannot be null";
+    assert key != null : "key cannot be null";
+
+    if (value != null)
+      generator.write(key, value);
+    else
+      generator.writeNull(key);
+  }
+
+  /**
+   * Write entry of the specified key/value to the given generator.
+   *
+   * @param generator  Generator to write to. Non-null.
+   * @param key        Key of entry to write. Non-null.
+   * @param value      Value of key. May be null, in case "null" is written.
+   */
+  private static void write(JsonGenerator generator, String key, Integer value)
+  {
+    assert generator != null : "generator cannot be null";
+    assert key != null : "key cannot be null";
+
+    if (value != null)
+      generator.write(key, value);
+    else
+      generator.writeNull(key);
+  }
+
+  /**
+   * Write entry of the specified key/value to the given generator.
+   *
+   * @param generator  Generator to write to. Non-null.
+   * @param key        Key of entry to write. Non-null.
+   * @param value      Value of key. May be null, in case "null" is written.
+   */
+  private static void write(JsonGenerator generator, String key, Boolean value)
+  {
+    assert generator != null : "generator cannot be null";
+    assert key != null : "key cannot be null";
+
+    if (value != null)
+      generator.write(key, value);
+    else
+      generator.writeNull(key);
+  }
+
+  /**
+   * Write the members of the specified curve to the given generator.
+   *
+   * @param generator   Generator positioned within the curve object. Non-null.
+   * @param curve       Curve to write. Non-null.
+   * @param projection  Members to write. Non-null.
+   */
+  static void writeMembers(JsonGenerator generator, Curve curve, Projection projection)
+  {
+    assert generator != null : "generator cannot be null";
+    assert curve != null : "curve cannot be null";
+    assert projection != null : "projection cannot be null";
+
+    if (projection.isSelected("mnemonic"))
+      write(generator, "mnemonic", curve.getMnemonic());
+    if (projection.isSelected("shortMnemonic"))
+      write(generator, "shortMnemonic", curve.getLisMnemonic());
+    if (projection.isSelected("companyCode"))
+      write(generator, "companyCode", curve.getCompanyCode());
+    if (projection.isSelected("property"))
+      write(generator, "property", curve.getProperty());
+    if (projection.isSelected("quantity"))
+      write(generator, "quantity", curve.getQuantity());
+    if (projection.isSelected("description"))
+      write(generator, "description", curve.getDescription());
+  }
+
+  /**
+   * Write the members of the specified tool to the given generator.
+   *
+   * @param generator   Generator positioned within the tool object. Non-null.
+   * @param tool        Tool to write. Non-null.
+   * @param projection  Members to write. Non-null.
+   */
+  static void writeMembers(JsonGenerator generator, Tool tool, Projection projection)
+  {
+    assert generator != null : "generator cannot be null";
+    assert tool != null : "tool cannot be null";
+    assert projection != null : "projection cannot be null";
+
+    if (projection.isSelected("toolCode"))
+      write(generator, "toolCode", tool.getToolCode());
+    if (projection.isSelected("companyCode"))
+      write(generator, "companyCode", tool.getCompanyCode());
+    if (projection.isSelected("group"))
+      write(generator, "group", tool.getGroup());
+    if (projection.isSelected("marketingName"))
+      write(generator, "marketingName", tool.getMarketingName());
+    if (projection.isSelected("description"))
+      write(generator, "description", tool.getDescription());
+    if (projection.isSelected("genericType"))
+      write(generator, "genericType", tool.getGenericType());
+    if (projection.isSelected("loggingMethod"))
+      write(generator, "loggingMethod", tool.getLoggingMethod());
+    if (projection.isSelected("typeDescription"))
+      write(generator, "typeDescription", tool.getTypeDescription());
+  }
+
+  /**
+   * Write the members of the specified tool to the given generator,
+   * including the mnemonics of its curves.
+   *
+   * @param generator   Generator positioned within the tool object. Non-null.
+   * @param tool        Tool to write. Non-null.
+   * @param projection  Members to write. Non-null.
+   */
+  static void writeMembersWithCurves(JsonGenerator generator, Tool tool, Projection projection)
+  {
+    assert generator != null : "generator cannot be null";
+    assert tool != null : "tool cannot be null";
+    assert projection != null : "projection cannot be null";
+
+    writeMembers(generator, tool, projection);
+
+    if (projection.isSelected("curves")) {
+      generator.writeStartArray("curves");
+      for (Curve curve : CanonicalOrder.sort(tool.getCurves(), CanonicalOrder.CURVES))
+        generator.write(curve.getMnemonic());
+      generator.writeEnd();
+    }
+  }
+
+  /**
+   * Write the members of the specified company to the given generator.
+   *
+   * @param generator   Generator positioned within the company object. Non-null.
+   * @param company     Company to write. Non-null.
+   * @param projection  Members to write. Non-null.
+   */
+  static void writeMembers(JsonGenerator generator, Company company, Projection projection)
+  {
+    assert generator != null : "generator cannot be null";
+    assert company != null : "company cannot be null";
+    assert projection != null : "projection cannot be null";
+
+    if (projection.isSelected("companyCode"))
+      write(generator, "companyCode", company.getCompanyCode());
+    if (projection.isSelected("name"))
+      write(generator, "name", company.getName());
+  }
+
+  /**
+   * Write the members of the specified property to the given generator.
+   *
+   * @param generator   Generator positioned within the property object. Non-null.
+   * @param property    Property to write. Non-null.
+   * @param projection  Members to write. Non-null.
+   */
+  static void writeMembers(JsonGenerator generator, Property property, Projection projection)
+  {
+    assert generator != null : "generator cannot be null";
+    assert property != null : "property cannot be null";
+    assert projection != null : "projection cannot be null";
+
+    if (projection.isSelected("name"))
+      write(generator, "name", property.getName());
+    if (projection.isSelected("description"))
+      write(generator, "description", property.getDescription());
+    if (projection.isSelected("quantity"))
+      write(generator, "quantity", property.getQuantity());
+    if (projection.isSelected("guid"))
+      write(generator, "guid", property.getGuid());
+    if (projection.isSelected("parent"))
+      write(generator, "parent", property.getParent() != null ? property.getParent().getName() : null);
+    if (projection.isSelected("sortOrder"))
+      write(generator, "sortOrder", property.getSortOrder());
+    if (projection.isSelected("isAbstract"))
+      write(generator, "isAbstract", property.isAbstract());
+  }
+
+  /**
+   * Write the members of the specified tool class to the given generator.
+   *
+   * @param generator   Generator positioned within the tool class object. Non-null.
+   * @param toolClass   Tool class to write. Non-null.
+   * @param projection  Members to write. Non-null.
+   */
+  static void writeMembers(JsonGenerator generator, ToolClass toolClass, Projection projection)
+  {
+    assert generator != null : "generator cannot be null";
+    assert toolClass != null : "toolClass cannot be null";
+    assert projection != null : "projection cannot be null";
+
+    if (projection.isSelected("name"))
+      write(generator, "name", toolClass.getName());
+    if (projection.isSelected("description"))
+      write(generator, "description", toolClass.getDescription());
+  }
+
+  /**
+   * Write the members of the specified logging method to the given generator.
+   *
+   * @param generator      Generator positioned within the logging method object. Non-null.
+   * @param loggingMethod  Logging method to write. Non-null.
+   * @param projection     Members to write. Non-null.
+   */
+  static void writeMembers(JsonGenerator generator, LoggingMethod loggingMethod, Projection projection)
+  {
+    assert generator != null : "generator cannot be null";
+    assert loggingMethod != null : "loggingMethod cannot be null";
+    assert projection != null : "projection cannot be null";
+
+    if (projection.isSelected("name"))
+      write(generator, "name", loggingMethod.getName());
+    if (projection.isSelected("description"))
+      write(generator, "description", loggingMethod.getDescription());
+  }
+
+  /**
+   * Return a buffered UTF-8 writer of the specified stream that is not
+   * closed nor flushed when closed. Generators close their writer, which
+   * should not close the stream of the client, and closing the generator
+   * of each bundle record should not flush the stream.
+   *
+   * @param stream  Stream to write to. Non-null.
+   * @return        Writer of the stream. Never null.
+   */
+  private static Writer getWriter(OutputStream stream)
+  {
+    assert stream != null : "stream cannot be null";
+
+    return new FilterWriter(new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+      @Override
+      public void close()
+      {
+        // Nothing
+      }
+    };
+  }
+
+  /**
+   * Write the specified records as a JSON array to the given stream.
+   * <p>
+   * The records are written one by one directly through a generator, so no
+   * JSON structure is built and memory use is independent of the number of
+   * records. The output is flushed to the stream at regular intervals so
+   * that the client starts receiving data before the last record is written.
+   *
+   * @param stream        Stream to write to. Non-null.
+   * @param records       Records to write. Non-null.
+   * @param isPretty      True to pretty-print, false to write compact JSON.
+   * @param projection    Members to write of each record. Non-null.
+   * @param recordWriter  Writer of the members of a record. Non-null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  private static <T> void writeArray(OutputStream stream, Iterable<T> records, boolean isPretty,
+                                     Projection projection, RecordWriter<T> recordWriter)
+    throws IOException
+  {
+    assert stream != null : "stream cannot be null";
+    assert records != null : "records cannot be null";
+    assert projection != null : "projection cannot be null";
+    assert recordWriter != null : "recordWriter cannot be null";
+
+    JsonGeneratorFactory generatorFactory = isPretty ? prettyGeneratorFactory_ : generatorFactory_;
+    Writer writer = getWriter(stream);
+    JsonGenerator generator = generatorFactory.createGenerator(writer);
+
+    try {
+      generator.writeStartArray();
+
+      int nRecords = 0;
+      for (T record : records) {
+        generator.writeStartObject();
+        recordWriter.write(generator, record, projection);
+        generator.writeEnd();
+
+        nRecords++;
+        if (nRecords % FLUSH_INTERVAL == 0)
+          generator.flush();
+      }
+
+      generator.writeEnd();
+      generator.close();
+      writer.flush();
+    }
+    catch (JsonException exception) {
+      // The generator wraps I/O errors of the stream
+      if (exception.getCause() instanceof IOException)
+        throw (IOException) exception.getCause();
+      throw exception;
+    }
+  }
+
+  /**
+   * Write the specified PWLS curves as a JSON array to the given stream.
+   * <p>
+   * The curves are streamed directly to the output without building a
+   * JSON structure first, and the output is flushed incrementally.
+   *
+   * @param stream      Stream to write to. Non-null. Left open.
+   * @param curves      Curves to write. Non-null.
+   * @param isPretty    True to pretty-print, false to write compact JSON.
+   * @param projection  Members to write of each record. Non-null.
+   * @throws IllegalArgumentException  If stream, curves or projection is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeCurves(OutputStream stream, Iterable<Curve> curves, boolean isPretty, Projection projection)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (curves == null)
+      throw new IllegalArgumentException("curves cannot be null");
+
+    if (projection == null)
+      throw new IllegalArgumentException("projection cannot be null");
+
+    writeArray(stream, curves, isPretty, projection, JsonWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS curves as a JSON array to the given stream.
+   *
+   * @param stream    Stream to write to. Non-null. Left open.
+   * @param curves    Curves to write. Non-null.
+   * @param isPretty  True to pretty-print, false to write compact JSON.
+   * @throws IllegalArgumentException  If stream or curves is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeCurves(OutputStream,Iterable,boolean,Projection)
+   */
+  public static void writeCurves(OutputStream stream, Iterable<Curve> curves, boolean isPretty)
+    throws IOException
+  {
+    writeCurves(stream, curves, isPretty, Projection.ALL);
+  }
+
+  /**
+   * Write the specified PWLS curves as a compact JSON array to the given stream.
+   *
+   * @param stream  Stream to write to. Non-null. Left open.
+   * @param curves  Curves to write. Non-null.
+   * @throws IllegalArgumentException  If stream or curves is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeCurves(OutputStream,Iterable,boolean)
+   */
+  public static void writeCurves(OutputStream stream, Iterable<Curve> curves)
+    throws IOException
+  {
+    writeCurves(stream, curves, false);
+  }
+
+  /**
+   * Write the specified PWLS tools as a JSON array to the given stream.
+   * <p>
+   * The tools are streamed directly to the output without building a
+   * JSON structure first, and the output is flushed incrementally.
+   *
+   * @param stream      Stream to write to. Non-null. Left open.
+   * @param tools       Tools to write. Non-null.
+   * @param isPretty    True to pretty-print, false to write compact JSON.
+   * @param projection  Members to write of each record. Non-null.
+   * @throws IllegalArgumentException  If stream, tools or projection is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeTools(OutputStream stream, Iterable<Tool> tools, boolean isPretty, Projection projection)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (tools == null)
+      throw new IllegalArgumentException("tools cannot be null");
+
+    if (projection == null)
+      throw new IllegalArgumentException("projection cannot be null");
+
+    writeArray(stream, tools, isPretty, projection, JsonWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS tools as a JSON array to the given stream.
+   *
+   * @param stream    Stream to write to. Non-null. Left open.
+   * @param tools     Tools to write. Non-null.
+   * @param isPretty  True to pretty-print, false to write compact JSON.
+   * @throws IllegalArgumentException  If stream or tools is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeTools(OutputStream,Iterable,boolean,Projection)
+   */
+  public static void writeTools(OutputStream stream, Iterable<Tool> tools, boolean isPretty)
+    throws IOException
+  {
+    writeTools(stream, tools, isPretty, Projection.ALL);
+  }
+
+  /**
+   * Write the specified PWLS tools as a compact JSON array to the given stream.
+   *
+   * @param stream  Stream to write to. Non-null. Left open.
+   * @param tools   Tools to write. Non-null.
+   * @throws IllegalArgumentException  If stream or tools is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeTools(OutputStream,Iterable,boolean)
+   */
+  public static void writeTools(OutputStream stream, Iterable<Tool> tools)
+    throws IOException
+  {
+    writeTools(stream, tools, false);
+  }
+
+  /**
+   * Write the links between the specified PWLS tools and their curves as a
+   * JSON array to the given stream, in the format of <em>curvesByTool.json</em>.
+   * <p>
+   * There is one record per link, holding the tool code and company code
+   * of the tool and the mnemonic of the curve. The curves of a tool belong
+   * to its company, so this is sufficient to resolve the curve, see
+   * {@link JsonReader#readCurvesByTool(InputStream,Tools,Curves)}. The curves
+   * of each tool are written in {@link CanonicalOrder canonical order}.
+   * <p>
+   * The links are streamed directly to the output without building a
+   * JSON structure first, and the output is flushed incrementally.
+   *
+   * @param stream    Stream to write to. Non-null. Left open.
+   * @param tools     Tools to write links of. Non-null.
+   * @param isPretty  True to pretty-print, false to write compact JSON.
+   * @throws IllegalArgumentException  If stream or tools is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeCurvesByTool(OutputStream stream, Iterable<Tool> tools, boolean isPretty)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (tools == null)
+      throw new IllegalArgumentException("tools cannot be null");
+
+    JsonGeneratorFactory generatorFactory = isPretty ? prettyGeneratorFactory_ : generatorFactory_;
+    Writer writer = getWriter(stream);
+    JsonGenerator generator = generatorFactory.createGenerator(writer);
+
+    try {
+      generator.writeStartArray();
+
+      int nLinks = 0;
+      for (Tool tool : tools) {
+        for (Curve curve : CanonicalOrder.sort(tool.getCurves(), CanonicalOrder.CURVES)) {
+          generator.writeStartObject();
+          write(generator, "toolCode", tool.getToolCode());
+          generator.write("companyCode", tool.getCompanyCode());
+          write(generator, "curveMnemonic", curve.getMnemonic());
+          generator.writeEnd();
+
+          nLinks++;
+          if (nLinks % FLUSH_INTERVAL == 0)
+            generator.flush();
+        }
+      }
+
+      generator.writeEnd();
+      generator.close();
+      writer.flush();
+    }
+    catch (JsonException exception) {
+      // The generator wraps I/O errors of the stream
+      if (exception.getCause() instanceof IOException)
+        throw (IOException) exception.getCause();
+      throw exception;
+    }
+  }
+
+  /**
+   * Write the links between the specified PWLS tools and their curves as a
+   * compact JSON array to the given stream.
+   *
+   * @param stream  Stream to write to. Non-null. Left open.
+   * @param tools   Tools to write links of. Non-null.
+   * @throws IllegalArgumentException  If stream or tools is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeCurvesByTool(OutputStream,Iterable,boolean)
+   */
+  public static void writeCurvesByTool(OutputStream stream, Iterable<Tool> tools)
+    throws IOException
+  {
+    writeCurvesByTool(stream, tools, false);
+  }
+
+  /**
+   * Write the specified PWLS tools with their curves as a JSON array to the
+   * given stream.
+   * <p>
+   * Each tool is written as by {@link #writeTools(OutputStream,Iterable,boolean,Projection)}
+   * with an additional <em>curves</em> member listing the mnemonics of its
+   * curves in {@link CanonicalOrder canonical order}. The curves themselves
+   * are not repeated; they belong to the company of the tool and are found
+   * by their mnemonic. This gives the tool catalogue with its curves in one
+   * response, rather than one curve query per tool:
+   * <pre>
+   *   [{"toolCode":"AIT","companyCode":440,...,"curves":["AF10","AF20",...]}, ...]
+   * </pre>
+   * The <em>curves</em> member is subject to the projection like any other.
+   *
+   * @param stream      Stream to write to. Non-null. Left open.
+   * @param tools       Tools to write. Non-null.
+   * @param isPretty    True to pretty-print, false to write compact JSON.
+   * @param projection  Members to write of each record. Non-null.
+   * @throws IllegalArgumentException  If stream, tools or projection is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeToolsWithCurves(OutputStream stream, Iterable<Tool> tools, boolean isPretty, Projection projection)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (tools == null)
+      throw new IllegalArgumentException("tools cannot be null");
+
+    if (projection == null)
+      throw new IllegalArgumentException("projection cannot be null");
+
+    writeArray(stream, tools, isPretty, projection, JsonWriter::writeMembersWithCurves);
+  }
+
+  /**
+   * Write the specified PWLS tools with their curves as a JSON array to the
+   * given stream.
+   *
+   * @param stream    Stream to write to. Non-null. Left open.
+   * @param tools     Tools to write. Non-null.
+   * @param isPretty  True to pretty-print, false to write compact JSON.
+   * @throws IllegalArgumentException  If stream or tools is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeToolsWithCurves(OutputStream,Iterable,boolean,Projection)
+   */
+  public static void writeToolsWithCurves(OutputStream stream, Iterable<Tool> tools, boolean isPretty)
+    throws IOException
+  {
+    writeToolsWithCurves(stream, tools, isPretty, Projection.ALL);
+  }
+
+  /**
+   * Write the specified PWLS tools with their curves as a compact JSON
+   * array to the given stream.
+   *
+   * @param stream  Stream to write to. Non-null. Left open.
+   * @param tools   Tools to write. Non-null.
+   * @throws IllegalArgumentException  If stream or tools is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeToolsWithCurves(OutputStream,Iterable,boolean)
+   */
+  public static void writeToolsWithCurves(OutputStream stream, Iterable<Tool> tools)
+    throws IOException
+  {
+    writeToolsWithCurves(stream, tools, false);
+  }
+
+  /**
+   * Write the specified PWLS companies as a JSON array to the given stream.
+   *
+   * @param stream      Stream to write to. Non-null. Left open.
+   * @param companies   Companies to write. Non-null.
+   * @param isPretty    True to pretty-print, false to write compact JSON.
+   * @param projection  Members to write of each record. Non-null.
+   * @throws IllegalArgumentException  If stream, companies or projection is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeCompanies(OutputStream stream, Iterable<Company> companies, boolean isPretty, Projection projection)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (companies == null)
+      throw new IllegalArgumentException("companies cannot be null");
+
+    if (projection == null)
+      throw new IllegalArgumentException("projection cannot be null");
+
+    writeArray(stream, companies, isPretty, projection, JsonWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS companies as a JSON array to the given stream.
+   *
+   * @param stream     Stream to write to. Non-null. Left open.
+   * @param companies  Companies to write. Non-null.
+   * @param isPretty   True to pretty-print, false to write compact JSON.
+   * @throws IllegalArgumentException  If stream or companies is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeCompanies(OutputStream,Iterable,boolean,Projection)
+   */
+  public static void writeCompanies(OutputStream stream, Iterable<Company> companies, boolean isPretty)
+    throws IOException
+  {
+    writeCompanies(stream, companies, isPretty, Projection.ALL);
+  }
+
+  /**
+   * Write the specified PWLS companies as a compact JSON array to the given stream.
+   *
+   * @param stream     Stream to write to. Non-null. Left open.
+   * @param companies  Companies to write. Non-null.
+   * @throws IllegalArgumentException  If stream or companies is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeCompanies(OutputStream,Iterable,boolean)
+   */
+  public static void writeCompanies(OutputStream stream, Iterable<Company> companies)
+    throws IOException
+  {
+    writeCompanies(stream, companies, false);
+  }
+
+  /**
+   * Write the specified PWLS properties as a JSON array to the given stream.
+   *
+   * @param stream      Stream to write to. Non-null. Left open.
+   * @param properties  Properties to write. Non-null.
+   * @param isPretty    True to pretty-print, false to write compact JSON.
+   * @param projection  Members to write of each record. Non-null.
+   * @throws IllegalArgumentException  If stream, properties or projection is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeProperties(OutputStream stream, Iterable<Property> properties, boolean isPretty, Projection projection)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (properties == null)
+      throw new IllegalArgumentException("properties cannot be null");
+
+    if (projection == null)
+      throw new IllegalArgumentException("projection cannot be null");
+
+    writeArray(stream, properties, isPretty, projection, JsonWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS properties as a JSON array to the given stream.
+   *
+   * @param stream      Stream to write to. Non-null. Left open.
+   * @param properties  Properties to write. Non-null.
+   * @param isPretty    True to pretty-print, false to write compact JSON.
+   * @throws IllegalArgumentException  If stream or properties is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeProperties(OutputStream,Iterable,boolean,Projection)
+   */
+  public static void writeProperties(OutputStream stream, Iterable<Property> properties, boolean isPretty)
+    throws IOException
+  {
+    writeProperties(stream, properties, isPretty, Projection.ALL);
+  }
+
+  /**
+   * Write the specified PWLS properties as a compact JSON array to the given stream.
+   *
+   * @param stream      Stream to write to. Non-null. Left open.
+   * @param properties  Properties to write. Non-null.
+   * @throws IllegalArgumentException  If stream or properties is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeProperties(OutputStream,Iterable,boolean)
+   */
+  public static void writeProperties(OutputStream stream, Iterable<Property> properties)
+    throws IOException
+  {
+    writeProperties(stream, properties, false);
+  }
+
+  /**
+   * Write the specified PWLS tool classes as a JSON array to the given stream.
+   *
+   * @param stream       Stream to write to. Non-null. Left open.
+   * @param toolClasses  Tool classes to write. Non-null.
+   * @param isPretty     True to pretty-print, false to write compact JSON.
+   * @param projection   Members to write of each record. Non-null.
+   * @throws IllegalArgumentException  If stream, toolClasses or projection is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeToolClasses(OutputStream stream, Iterable<ToolClass> toolClasses, boolean isPretty, Projection projection)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (toolClasses == null)
+      throw new IllegalArgumentException("toolClasses cannot be null");
+
+    if (projection == null)
+      throw new IllegalArgumentException("projection cannot be null");
+
+    writeArray(stream, toolClasses, isPretty, projection, JsonWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS tool classes as a JSON array to the given stream.
+   *
+   * @param stream       Stream to write to. Non-null. Left open.
+   * @param toolClasses  Tool classes to write. Non-null.
+   * @param isPretty     True to pretty-print, false to write compact JSON.
+   * @throws IllegalArgumentException  If stream or toolClasses is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeToolClasses(OutputStream,Iterable,boolean,Projection)
+   */
+  public static void writeToolClasses(OutputStream stream, Iterable<ToolClass> toolClasses, boolean isPretty)
+    throws IOException
+  {
+    writeToolClasses(stream, toolClasses, isPretty, Projection.ALL);
+  }
+
+  /**
+   * Write the specified PWLS tool classes as a compact JSON array to the given stream.
+   *
+   * @param stream       Stream to write to. Non-null. Left open.
+   * @param toolClasses  Tool classes to write. Non-null.
+   * @throws IllegalArgumentException  If stream or toolClasses is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeToolClasses(OutputStream,Iterable,boolean)
+   */
+  public static void writeToolClasses(OutputStream stream, Iterable<ToolClass> toolClasses)
+    throws IOException
+  {
+    writeToolClasses(stream, toolClasses, false);
+  }
+
+  /**
+   * Write the specified PWLS logging methods as a JSON array to the given stream.
+   *
+   * @param stream          Stream to write to. Non-null. Left open.
+   * @param loggingMethods  Logging methods to write. Non-null.
+   * @param isPretty        True to pretty-print, false to write compact JSON.
+   * @param projection      Members to write of each record. Non-null.
+   * @throws IllegalArgumentException  If stream, loggingMethods or projection is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeLoggingMethods(OutputStream stream, Iterable<LoggingMethod> loggingMethods, boolean isPretty, Projection projection)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (loggingMethods == null)
+      throw new IllegalArgumentException("loggingMethods cannot be null");
+
+    if (projection == null)
+      throw new IllegalArgumentException("projection cannot be null");
+
+    writeArray(stream, loggingMethods, isPretty, projection, JsonWriter::writeMembers);
+  }
+
+  /**
+   * Write the specified PWLS logging methods as a JSON array to the given stream.
+   *
+   * @param stream          Stream to write to. Non-null. Left open.
+   * @param loggingMethods  Logging methods to write. Non-null.
+   * @param isPretty        True to pretty-print, false to write compact JSON.
+   * @throws IllegalArgumentException  If stream or loggingMethods is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeLoggingMethods(OutputStream,Iterable,boolean,Projection)
+   */
+  public static void writeLoggingMethods(OutputStream stream, Iterable<LoggingMethod> loggingMethods, boolean isPretty)
+    throws IOException
+  {
+    writeLoggingMethods(stream, loggingMethods, isPretty, Projection.ALL);
+  }
+
+  /**
+   * Write the specified PWLS logging methods as a compact JSON array to the given stream.
+   *
+   * @param stream          Stream to write to. Non-null. Left open.
+   * @param loggingMethods  Logging methods to write. Non-null.
+   * @throws IllegalArgumentException  If stream or loggingMethods is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeLoggingMethods(OutputStream,Iterable,boolean)
+   */
+  public static void writeLoggingMethods(OutputStream stream, Iterable<LoggingMethod> loggingMethods)
+    throws IOException
+  {
+    writeLoggingMethods(stream, loggingMethods, false);
+  }
+
+  /**
+   * Start a bundle record of the specified type.
+   *
+   * @param writer  Writer of the bundle. Non-null.
+   * @param type    Record type. Non-null.
+   * @return        Generator positioned within the record object. Never null.
+   */
+  private static JsonGenerator startRecord(Writer writer, String type)
+  {
+    assert writer != null : "writer cannot be null";
+    assert type != null : "type cannot be null";
+
+    JsonGenerator generator = generatorFactory_.createGenerator(writer);
+    generator.writeStartObject();
+    generator.write("type", type);
+    return generator;
+  }
+
+  /**
+   * End the bundle record of the specified generator.
+   *
+   * @param writer     Writer of the bundle. Non-null.
+   * @param generator  Generator of the record. Non-null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  private static void endRecord(Writer writer, JsonGenerator generator)
+    throws IOException
+  {
+    assert writer != null : "writer cannot be null";
+    assert generator != null : "generator cannot be null";
+
+    generator.writeEnd();
+    generator.close();
+    writer.write('\n');
+  }
+
+  /**
+   * Add the specified property to the given ordered map, preceded by
+   * its ancestors unless already added.
+   *
+   * @param property  Property to add. Non-null.
+   * @param ordered   Properties added so far. Non-null.
+   */
+  private static void addParentFirst(Property property, Map<Property,Boolean> ordered)
+  {
+    assert property != null : "property cannot be null";
+    assert ordered != null : "ordered cannot be null";
+
+    if (ordered.containsKey(property))
+      return;
+
+    // Guard against cycles
+    ordered.put(property, Boolean.FALSE);
+
+    Property parent = property.getParent();
+    if (parent != null)
+      addParentFirst(parent, ordered);
+
+    // Re-insert to place the property after its ancestors
+    ordered.remove(property);
+    ordered.put(property, Boolean.TRUE);
+  }
+
+  /**
+   * Return the specified entities in the given order if requested.
+   *
+   * @param entities  Entities to order. Non-null.
+   * @param order     Order to sort in. Non-null.
+   * @param isSorted  True to sort the entities, false to keep their order.
+   * @return          The entities, sorted if requested. Never null.
+   */
+  private static <T> Collection<T> inOrder(Collection<T> entities, Comparator<? super T> order, boolean isSorted)
+  {
+    assert entities != null : "entities cannot be null";
+    assert order != null : "order cannot be null";
+
+    return isSorted ? CanonicalOrder.sort(entities, order) : entities;
+  }
+
+  /**
+   * Write the specified PWLS model as a single NDJSON bundle to the given stream.
+   * <p>
+   * The model is written in one streaming pass, one record per line, without
+   * building any intermediate JSON structure. Records are ordered so that
+   * everything a record refers to precedes it: Parent properties precede
+   * their children, and tools and curves precede the links between them.
+   * This lets {@link JsonReader#readBundle(InputStream,JsonBundle)} index
+   * each record as it arrives. See {@link JsonBundle} for the format.
+   * <p>
+   * In canonical mode the records of each kind are written in
+   * {@link CanonicalOrder canonical order}, so that models of the same
+   * content give identical bundles.
+   *
+   * @param stream       Stream to write to. Non-null.
+   * @param pwls         PWLS model to write. Non-null.
+   * @param isCanonical  True to write in canonical order, false to write
+   *                     in the iteration order of the model.
+   * @throws IllegalArgumentException  If stream or pwls is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void writeBundle(OutputStream stream, Pwls pwls, boolean isCanonical)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    if (pwls == null)
+      throw new IllegalArgumentException("pwls cannot be null");
+
+    Writer writer = getWriter(stream);
+
+    int nRecords = 0;
+
+    //
+    // Properties, parents first
+    //
+    Map<Property,Boolean> properties = new LinkedHashMap<>();
+    for (Property property : inOrder(pwls.getProperties(null, null), CanonicalOrder.PROPERTIES, isCanonical))
+      addParentFirst(property, properties);
+
+    for (Property property : properties.keySet()) {
+      JsonGenerator generator = startRecord(writer, "property");
+      writeMembers(generator, property, Projection.ALL);
+      endRecord(writer, generator);
+      nRecords++;
+    }
+
+    //
+    // Companies
+    //
+    for (Company company : inOrder(pwls.getCompanies(null), CanonicalOrder.COMPANIES, isCanonical)) {
+      JsonGenerator generator = startRecord(writer, "company");
+      writeMembers(generator, company, Projection.ALL);
+      endRecord(writer, generator);
+      nRecords++;
+    }
+
+    //
+    // Logging methods
+    //
+    for (LoggingMethod loggingMethod : inOrder(pwls.getLoggingMethods(null), CanonicalOrder.LOGGING_METHODS, isCanonical)) {
+      JsonGenerator generator = startRecord(writer, "loggingMethod");
+      writeMembers(generator, loggingMethod, Projection.ALL);
+      endRecord(writer, generator);
+      nRecords++;
+    }
+
+    //
+    // Tool classes
+    //
+    for (ToolClass toolClass : inOrder(pwls.getToolClasses(null), CanonicalOrder.TOOL_CLASSES, isCanonical)) {
+      JsonGenerator generator = startRecord(writer, "toolClass");
+      writeMembers(generator, toolClass, Projection.ALL);
+      endRecord(writer, generator);
+      nRecords++;
+    }
+
+    //
+    // Tools
+    //
+    Collection<Tool> tools = inOrder(pwls.getTools(null, null, null, null, null), CanonicalOrder.TOOLS, isCanonical);
+    for (Tool tool : tools) {
+      JsonGenerator generator = startRecord(writer, "tool");
+      writeMembers(generator, tool, Projection.ALL);
+      endRecord(writer, generator);
+      nRecords++;
+    }
+
+    //
+    // Curves
+    //
+    for (Curve curve : inOrder(pwls.getCurves(null, null, null, null), CanonicalOrder.CURVES, isCanonical)) {
+      JsonGenerator generator = startRecord(writer, "curve");
+      writeMembers(generator, curve, Projection.ALL);
+      endRecord(writer, generator);
+      nRecords++;
+    }
+
+    //
+    // Links between tools and curves
+    //
+    for (Tool tool : tools) {
+      for (Curve curve : inOrder(tool.getCurves(), CanonicalOrder.CURVES, isCanonical)) {
+        JsonGenerator generator = startRecord(writer, "link");
+        write(generator, "toolCode", tool.getToolCode());
+        generator.write("companyCode", tool.getCompanyCode());
+        write(generator, "curveMnemonic", curve.getMnemonic());
+        endRecord(writer, generator);
+        nRecords++;
+      }
+    }
+
+    // The end record tells complete bundles from truncated ones
+    JsonGenerator generator = startRecord(writer, "end");
+    generator.write("nRecords", nRecords);
+    endRecord(writer, generator);
+
+    writer.flush();
+  }
+
+  /**
+   * Write the specified PWLS model as a single NDJSON bundle to the given
+   * stream, in the iteration order of the model.
+   *
+   * @param stream  Stream to write to. Non-null.
+   * @param pwls    PWLS model to write. Non-null.
+   * @throws IllegalArgumentException  If stream or pwls is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeBundle(OutputStream,Pwls,boolean)
+   */
+  public static void writeBundle(OutputStream stream, Pwls pwls)
+    throws IOException
+  {
+    writeBundle(stream, pwls, false);
+  }
+
+  /**
+   * Write the specified PWLS model as a single NDJSON bundle to the given file.
+   *
+   * @param file  File to write to. Non-null.
+   * @param pwls  PWLS model to write. Non-null.
+   * @throws IllegalArgumentException  If file or pwls is null.
+   * @throws IOException  If the write operation fails for some reason.
+   * @see #writeBundle(OutputStream,Pwls)
+   */
+  public static void writeBundle(File file, Pwls pwls)
+    throws IOException
+  {
+    if (file == null)
+      throw new IllegalArgumentException("file cannot be null");
+
+    if (pwls == null)
+      throw new IllegalArgumentException("pwls cannot be null");
+
+    try (OutputStream stream = new FileOutputStream(file)) {
+      writeBundle(stream, pwls);
+    }
+  }
 }
@@ -0,0 +1,131 @@
+package no.geosoft.jpwls.json;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Selection of the JSON members to write of each entity.
+ * <p>
+ * Clients often need only a few members, like the mnemonic and property of
+ * curves, while the full records include long descriptions. A projection
+ * is typically given by a query parameter like <code>fields=mnemonic,property</code>:
+ * <pre>
+ *   Projection projection = Projection.parse(parameters.get("fields"));
+ *   JsonWriter.writeCurves(stream, curves, false, projection);
+ * </pre>
+ * Members not selected are neither serialized nor read from the entity,
+ * so descriptions kept in compressed or mapped storage are not decoded.
+ * Member names are those of the JSON format. Names that are not members
+ * of an entity are ignored, so the same projection may be used for any
+ * entity type.
+ * <p>
+ * Instances are immutable.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class Projection
+{
+  /** Projection that selects all members. */
+  public static final Projection ALL = new Projection(null);
+
+  /** Names of the selected members. Null to select all. */
+  private final Set<String> members_;
+
+  /**
+   * Create a projection of the specified members.
+   *
+   * @param members  Names of the members to select. Null to select all.
+   */
+  public Projection(Set<String> members)
+  {
+    members_ = members != null ? Collections.unmodifiableSet(new HashSet<>(members)) : null;
+  }
+
+  /**
+   * Parse a projection from the specified comma separated list of
+   * member names, like "mnemonic,property,quantity". Whitespace around
+   * names and empty names are ignored.
+   *
+   * @param fields  Comma separated member names. Null or blank to select all.
+   * @return        The projection. Never null.
+   */
+  public static Projection parse(String fields)
+  {
+    if (fields == null || fields.isBlank())
+      return ALL;
+
+    Set<String> members = new HashSet<>();
+    for (String member : fields.split(",")) {
+      member = member.trim();
+      if (!member.isEmpty())
+        members.add(member);
+    }
+
+    return members.isEmpty() ? ALL : new Projection(members);
+  }
+
+  /**
+   * Check if the specified member is selected by this projection.
+   *
+   * @param member  Name of member to check. Non-null.
+   * @return        True if the member is selected, false otherwise.
+   * @throws IllegalArgumentException  If member is null.
+   */
+  public boolean isSelected(String member)
+  {
+    if (member == null)
+      throw new IllegalArgumentException("member cannot be null");
+
+    return members_ == null || members_.contains(member);
+  }
+
+  /**
+   * Check if this projection selects all members.
+   *
+   * @return  True if all members are selected, false otherwise.
+   */
+  public boolean isAll()
+  {
+    return members_ == null;
+  }
+
+  /**
+   * Return the names of the members selected by this projection.
+   *
+   * @return  Names of the selected members. Null if all are selected.
+   */
+  public Set<String> getMembers()
+  {
+    return members_;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean equals(Object object)
+  {
+    if (object == this)
+      return true;
+
+    if (!(object instanceof Projection))
+      return false;
+
+    Set<String> members = ((Projection) object).members_;
+    return members_ == null ? members == null : members_.equals(members);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int hashCode()
+  {
+    return members_ != null ? members_.hashCode() : 0;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    return members_ != null ? String.join(",", new TreeSet<>(members_)) : "*";
+  }
+}
@@ -0,0 +1,158 @@
+package no.geosoft.jpwls.json;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.leadpony.justify.api.InstanceType;
+import org.leadpony.justify.api.JsonSchema;
+import org.leadpony.justify.api.JsonSchemaBuilderFactory;
+import org.leadpony.justify.api.JsonValidationService;
+
+import no.geosoft.jpwls.source.PwlsSource;
+
+/**
+ * JSON schemas of the PWLS resources, for validating them while they are parsed.
+ * <p>
+ * The schemas state what the reader depends on: Required keys, and the
+ * types of known members. Unknown members are accepted so that additions
+ * to the standard doesn't fail validation. The schemas are built once, on
+ * first use, so there is no cost unless validation is requested.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+final class PwlsSchemas
+{
+  /** The validation service. Thread safe. */
+  private static final JsonValidationService validationService_ = JsonValidationService.newInstance();
+
+  /** Schemas by resource name. */
+  private static final Map<String,JsonSchema> schemas_ = new HashMap<>();
+
+  static {
+    JsonSchemaBuilderFactory factory = validationService_.createSchemaBuilderFactory();
+
+    JsonSchema string = factory.createBuilder().withType(InstanceType.STRING).build();
+    JsonSchema optionalString = factory.createBuilder().withType(InstanceType.STRING, InstanceType.NULL).build();
+    JsonSchema integer = factory.createBuilder().withType(InstanceType.INTEGER).build();
+    JsonSchema optionalInteger = factory.createBuilder().withType(InstanceType.INTEGER, InstanceType.NULL).build();
+    JsonSchema optionalBoolean = factory.createBuilder().withType(InstanceType.BOOLEAN, InstanceType.NULL).build();
+
+    schemas_.put(PwlsSource.PROPERTIES,
+                 factory.createBuilder()
+                 .withType(InstanceType.ARRAY)
+                 .withItems(factory.createBuilder()
+                            .withType(InstanceType.OBJECT)
+                            .withRequired("name")
+                            .withProperty("name", string)
+                            .withProperty("description", optionalString)
+                            .withProperty("quantity", optionalString)
+                            .withProperty("guid", optionalString)
+                            .withProperty("parent", optionalString)
+                            .withProperty("sortOrder", optionalInteger)
+                            .withProperty("isAbstract", optionalBoolean)
+                            .build())
+                 .build());
+
+    schemas_.put(PwlsSource.COMPANIES,
+                 factory.createBuilder()
+                 .withType(InstanceType.ARRAY)
+                 .withItems(factory.createBuilder()
+                            .withType(InstanceType.OBJECT)
+                            .withRequired("companyCode")
+                            .withProperty("companyCode", integer)
+                            .withProperty("name", optionalString)
+                            .build())
+                 .build());
+
+    JsonSchema namedItems = factory.createBuilder()
+      .withType(InstanceType.ARRAY)
+      .withItems(factory.createBuilder()
+                 .withType(InstanceType.OBJECT)
+                 .withRequired("name")
+                 .withProperty("name", string)
+                 .withProperty("description", optionalString)
+                 .build())
+      .build();
+
+    schemas_.put(PwlsSource.LOGGING_METHODS, namedItems);
+    schemas_.put(PwlsSource.TOOL_CLASSES, namedItems);
+
+    schemas_.put(PwlsSource.TOOLS,
+                 factory.createBuilder()
+                 .withType(InstanceType.ARRAY)
+                 .withItems(factory.createBuilder()
+                            .withType(InstanceType.OBJECT)
+                            .withRequired("toolCode", "companyCode")
+                            .withProperty("toolCode", string)
+                            .withProperty("companyCode", integer)
+                            .withProperty("group", optionalString)
+                            .withProperty("marketingName", optionalString)
+                            .withProperty("description", optionalString)
+                            .withProperty("genericType", optionalString)
+                            .withProperty("loggingMethod", optionalString)
+                            .withProperty("typeDescription", optionalString)
+                            .build())
+                 .build());
+
+    schemas_.put(PwlsSource.CURVES,
+                 factory.createBuilder()
+                 .withType(InstanceType.ARRAY)
+                 .withItems(factory.createBuilder()
+                            .withType(InstanceType.OBJECT)
+                            .withRequired("mnemonic")
+                            .withProperty("mnemonic", string)
+                            .withProperty("shortMnemonic", optionalString)
+                            .withProperty("companyCode", optionalInteger)
+                            .withProperty("property", optionalString)
+                            .withProperty("quantity", optionalString)
+                            .withProperty("description", optionalString)
+                            .build())
+                 .build());
+
+    schemas_.put(PwlsSource.CURVES_BY_TOOL,
+                 factory.createBuilder()
+                 .withType(InstanceType.ARRAY)
+                 .withItems(factory.createBuilder()
+                            .withType(InstanceType.OBJECT)
+                            .withRequired("toolCode", "companyCode", "curveMnemonic")
+                            .withProperty("toolCode", string)
+                            .withProperty("companyCode", integer)
+                            .withProperty("curveMnemonic", string)
+                            .build())
+                 .build());
+  }
+
+  /**
+   * Private constructor to prevent client instantiation.
+   */
+  private PwlsSchemas()
+  {
+    assert false : "This constructor should never be called";
+  }
+
+  /**
+   * Return the validation service.
+   *
+   * @return  The validation service. Never null.
+   */
+  static JsonValidationService getValidationService()
+  {
+    return validationService_;
+  }
+
+  /**
+   * Return the schema of the specified PWLS resource.
+   *
+   * @param resource  Name of resource, as defined by {@link PwlsSource}. Non-null.
+   * @return          The schema of the resource. Never null.
+   */
+  static JsonSchema getSchema(String resource)
+  {
+    assert resource != null : "resource cannot be null";
+
+    JsonSchema schema = schemas_.get(resource);
+    assert schema != null : "Unknown resource: " + resource;
+
+    return schema;
+  }
+}
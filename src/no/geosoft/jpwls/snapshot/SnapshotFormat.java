@@ -0,0 +1,70 @@
+package no.geosoft.jpwls.snapshot;
+
+/**
+ * Constants of the binary PWLS snapshot format.
+ * <p>
+ * A snapshot is laid out as follows (all numbers big-endian):
+ * <pre>
+ *   Header:
+ *     int    magic            "PWLS"
+ *     int    format version
+ *     int    body length      Number of bytes following the header
+ *     long   checksum         CRC-32C of the body
+ *
+ *   Body:
+ *     String pool:
+ *       int     nStrings
+ *       int[]   offsets        nStrings + 1 offsets into the data block
+ *       byte[]  data           UTF-8 encoded strings back to back
+ *     Properties:
+ *       int     nProperties
+ *       nProperties x { name, description, quantity, guid, int sortOrder, int isAbstract, int parentIndex }
+ *     Companies:
+ *       int     nCompanies
+ *       nCompanies x { int companyCode, name }
+ *     Logging methods:
+ *       int     nLoggingMethods
+ *       nLoggingMethods x { name, description }
+ *     Tool classes:
+ *       int     nToolClasses
+ *       nToolClasses x { name, description }
+ *     Curves:
+ *       int     nCurves
+ *       nCurves x { mnemonic, lisMnemonic, int companyCode, property, quantity, description }
+ *     Tools:
+ *       int     nTools
+ *       nTools x { toolCode, int companyCode, group, marketingName, description,
+ *                  genericType, loggingMethod, typeDescription }
+ *     Curves by tool:
+ *       nTools x { int nCurves, nCurves x int curveIndex }
+ * </pre>
+ * Strings are referred to by their int index into the string pool, or
+ * {@link #NULL} if absent. The sections are read sequentially.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+final class SnapshotFormat
+{
+  /** Magic number identifying a PWLS snapshot: "PWLS". */
+  static final int MAGIC = 0x50574C53;
+
+  /** Current format version. Snapshots of any other version are rejected. */
+  static final int VERSION = 1;
+
+  /** Size of the header in bytes. */
+  static final int HEADER_SIZE = 4 + 4 + 4 + 8;
+
+  /** Index used for absent strings and references. */
+  static final int NULL = -1;
+
+  /** Value used for absent company codes. */
+  static final int NO_COMPANY_CODE = Integer.MIN_VALUE;
+
+  /**
+   * Private constructor to prevent client instantiation.
+   */
+  private SnapshotFormat()
+  {
+    assert false : "This constructor should never be called";
+  }
+}
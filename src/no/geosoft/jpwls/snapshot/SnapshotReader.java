@@ -0,0 +1,380 @@
+package no.geosoft.jpwls.snapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+import no.geosoft.jpwls.Companies;
+import no.geosoft.jpwls.Company;
+import no.geosoft.jpwls.Curve;
+import no.geosoft.jpwls.Curves;
+import no.geosoft.jpwls.LoggingMethod;
+import no.geosoft.jpwls.LoggingMethods;
+import no.geosoft.jpwls.Properties;
+import no.geosoft.jpwls.Property;
+import no.geosoft.jpwls.Pwls;
+import no.geosoft.jpwls.Tool;
+import no.geosoft.jpwls.ToolClass;
+import no.geosoft.jpwls.ToolClasses;
+import no.geosoft.jpwls.Tools;
+import no.geosoft.jpwls.util.Utf8Text;
+
+/**
+ * Reader for binary PWLS snapshots as written by {@link SnapshotWriter}.
+ * <p>
+ * Snapshots of a different format version, or whose checksum doesn't
+ * match their content, are rejected.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class SnapshotReader
+{
+  /**
+   * Private constructor to prevent client instantiation.
+   */
+  private SnapshotReader()
+  {
+    assert false : "This constructor should never be called";
+  }
+
+  /**
+   * Validate the header of the specified snapshot and return its body.
+   *
+   * @param buffer  Snapshot buffer positioned at the start of the header. Non-null.
+   * @return        The body of the snapshot as a separate buffer. Never null.
+   * @throws IOException  If the snapshot is of a different version or is corrupt.
+   */
+  static ByteBuffer getBody(ByteBuffer buffer)
+    throws IOException
+  {
+    assert buffer != null : "buffer cannot be null";
+
+    if (buffer.remaining() < SnapshotFormat.HEADER_SIZE)
+      throw new IOException("Invalid PWLS snapshot: Truncated header");
+
+    int magic = buffer.getInt();
+    if (magic != SnapshotFormat.MAGIC)
+      throw new IOException("Invalid PWLS snapshot: Bad magic number");
+
+    int version = buffer.getInt();
+    if (version != SnapshotFormat.VERSION)
+      throw new IOException("Unsupported PWLS snapshot version: " + version + ". Expected " + SnapshotFormat.VERSION);
+
+    int bodyLength = buffer.getInt();
+    long expectedChecksum = buffer.getLong();
+
+    if (bodyLength < 0 || bodyLength > buffer.remaining())
+      throw new IOException("Invalid PWLS snapshot: Truncated body");
+
+    ByteBuffer body = buffer.slice();
+    body.limit(bodyLength);
+
+    CRC32C checksum = new CRC32C();
+    checksum.update(body.duplicate());
+    if (checksum.getValue() != expectedChecksum)
+      throw new IOException("Invalid PWLS snapshot: Checksum mismatch");
+
+    return body;
+  }
+
+  /**
+   * Return text of the specified pool index.
+   *
+   * @param strings  The string pool. Non-null.
+   * @param index    Index of text to get, or SnapshotFormat.NULL.
+   * @return         The requested text, or null if index is SnapshotFormat.NULL.
+   * @throws IOException  If the index is out of range.
+   */
+  private static CharSequence getText(CharSequence[] strings, int index)
+    throws IOException
+  {
+    assert strings != null : "strings cannot be null";
+
+    if (index == SnapshotFormat.NULL)
+      return null;
+
+    if (index < 0 || index >= strings.length)
+      throw new IOException("Invalid PWLS snapshot: String index out of range: " + index);
+
+    return strings[index];
+  }
+
+  /**
+   * Return string of the specified pool index.
+   *
+   * @param strings  The string pool. Non-null.
+   * @param index    Index of string to get, or SnapshotFormat.NULL.
+   * @return         The requested string, or null if index is SnapshotFormat.NULL.
+   * @throws IOException  If the index is out of range.
+   */
+  private static String getString(CharSequence[] strings, int index)
+    throws IOException
+  {
+    CharSequence text = getText(strings, index);
+    return text != null ? text.toString() : null;
+  }
+
+  /**
+   * Read a PWLS model from the specified snapshot buffer.
+   *
+   * @param buffer     Buffer holding the snapshot, positioned at its start. Non-null.
+   * @param isDecoded  True to decode the text of curves, tools and properties
+   *                   up front, false to leave it in the buffer and decode
+   *                   it on access.
+   * @return           The PWLS model read. Never null.
+   * @throws IOException  If the snapshot is of a different version or is corrupt.
+   */
+  private static Pwls read(ByteBuffer buffer, boolean isDecoded)
+    throws IOException
+  {
+    assert buffer != null : "buffer cannot be null";
+
+    ByteBuffer body = getBody(buffer);
+
+    try {
+      //
+      // String pool
+      //
+      int nStrings = body.getInt();
+      int[] offsets = new int[nStrings + 1];
+      for (int i = 0; i <= nStrings; i++)
+        offsets[i] = body.getInt();
+
+      int dataStart = body.position();
+      CharSequence[] strings = new CharSequence[nStrings];
+      for (int i = 0; i < nStrings; i++) {
+        int nBytes = offsets[i + 1] - offsets[i];
+        if (isDecoded) {
+          byte[] bytes = new byte[nBytes];
+          body.get(dataStart + offsets[i], bytes);
+          strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        else {
+          strings[i] = new Utf8Text(body, dataStart + offsets[i], nBytes);
+        }
+      }
+      body.position(dataStart + offsets[nStrings]);
+
+      //
+      // Properties
+      //
+      int nProperties = body.getInt();
+      Property[] propertyArray = new Property[nProperties];
+      int[] parentIndices = new int[nProperties];
+      Properties properties = new Properties();
+      for (int i = 0; i < nProperties; i++) {
+        CharSequence name = getText(strings, body.getInt());
+        CharSequence description = getText(strings, body.getInt());
+        CharSequence quantity = getText(strings, body.getInt());
+        CharSequence guid = getText(strings, body.getInt());
+        int sortOrder = body.getInt();
+        boolean isAbstract = body.getInt() != 0;
+        parentIndices[i] = body.getInt();
+
+        propertyArray[i] = new Property(name, description, quantity, guid, sortOrder, isAbstract);
+        properties.add(propertyArray[i]);
+      }
+
+      for (int i = 0; i < nProperties; i++) {
+        if (parentIndices[i] != SnapshotFormat.NULL)
+          propertyArray[i].setParent(propertyArray[parentIndices[i]]);
+      }
+
+      //
+      // Companies
+      //
+      int nCompanies = body.getInt();
+      Companies companies = new Companies();
+      for (int i = 0; i < nCompanies; i++) {
+        int companyCode = body.getInt();
+        String name = getString(strings, body.getInt());
+        companies.add(new Company(companyCode, name));
+      }
+
+      //
+      // Logging methods
+      //
+      int nLoggingMethods = body.getInt();
+      LoggingMethods loggingMethods = new LoggingMethods();
+      for (int i = 0; i < nLoggingMethods; i++) {
+        String name = getString(strings, body.getInt());
+        String description = getString(strings, body.getInt());
+        loggingMethods.add(new LoggingMethod(name, description));
+      }
+
+      //
+      // Tool classes
+      //
+      int nToolClasses = body.getInt();
+      ToolClasses toolClasses = new ToolClasses();
+      for (int i = 0; i < nToolClasses; i++) {
+        String name = getString(strings, body.getInt());
+        String description = getString(strings, body.getInt());
+        toolClasses.add(new ToolClass(name, description));
+      }
+
+      //
+      // Curves
+      //
+      int nCurves = body.getInt();
+      Curve[] curveArray = new Curve[nCurves];
+      Curves curves = new Curves();
+      for (int i = 0; i < nCurves; i++) {
+        CharSequence mnemonic = getText(strings, body.getInt());
+        CharSequence lisMnemonic = getText(strings, body.getInt());
+        int companyCode = body.getInt();
+        CharSequence property = getText(strings, body.getInt());
+        CharSequence quantity = getText(strings, body.getInt());
+        CharSequence description = getText(strings, body.getInt());
+
+        curveArray[i] = new Curve(mnemonic,
+                                  lisMnemonic,
+                                  companyCode != SnapshotFormat.NO_COMPANY_CODE ? companyCode : null,
+                                  property,
+                                  quantity,
+                                  description);
+        curves.add(curveArray[i]);
+      }
+
+      //
+      // Tools
+      //
+      int nTools = body.getInt();
+      Tool[] toolArray = new Tool[nTools];
+      Tools tools = new Tools();
+      for (int i = 0; i < nTools; i++) {
+        CharSequence toolCode = getText(strings, body.getInt());
+        int companyCode = body.getInt();
+        CharSequence group = getText(strings, body.getInt());
+        CharSequence marketingName = getText(strings, body.getInt());
+        CharSequence description = getText(strings, body.getInt());
+        CharSequence genericType = getText(strings, body.getInt());
+        CharSequence loggingMethod = getText(strings, body.getInt());
+        CharSequence typeDescription = getText(strings, body.getInt());
+
+        toolArray[i] = new Tool(toolCode,
+                                companyCode,
+                                group,
+                                marketingName,
+                                description,
+                                genericType,
+                                loggingMethod,
+                                typeDescription);
+        tools.add(toolArray[i]);
+      }
+
+      //
+      // Curves by tool
+      //
+      for (int i = 0; i < nTools; i++) {
+        int nToolCurves = body.getInt();
+        for (int j = 0; j < nToolCurves; j++)
+          toolArray[i].addCurve(curveArray[body.getInt()]);
+      }
+
+      return new Pwls(properties, companies, loggingMethods, toolClasses, tools, curves);
+    }
+    catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException exception) {
+      throw new IOException("Invalid PWLS snapshot", exception);
+    }
+  }
+
+  /**
+   * Read a PWLS model from the specified snapshot buffer.
+   *
+   * @param buffer  Buffer holding the snapshot, positioned at its start. Non-null.
+   * @return        The PWLS model read. Never null.
+   * @throws IllegalArgumentException  If buffer is null.
+   * @throws IOException  If the snapshot is of a different version or is corrupt.
+   */
+  public static Pwls read(ByteBuffer buffer)
+    throws IOException
+  {
+    if (buffer == null)
+      throw new IllegalArgumentException("buffer cannot be null");
+
+    return read(buffer, true);
+  }
+
+  /**
+   * Read a PWLS model from the specified snapshot stream.
+   *
+   * @param stream  Stream to read from. Non-null. The stream is not closed.
+   * @return        The PWLS model read. Never null.
+   * @throws IllegalArgumentException  If stream is null.
+   * @throws IOException  If the read operation fails, or the snapshot is of
+   *                      a different version or is corrupt.
+   */
+  public static Pwls read(InputStream stream)
+    throws IOException
+  {
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    return read(ByteBuffer.wrap(stream.readAllBytes()));
+  }
+
+  /**
+   * Read a PWLS model from the specified snapshot file.
+   * The file is read in one sequential operation.
+   *
+   * @param file  Snapshot file to read. Non-null.
+   * @return      The PWLS model read. Never null.
+   * @throws IllegalArgumentException  If file is null.
+   * @throws IOException  If the read operation fails, or the snapshot is of
+   *                      a different version or is corrupt.
+   */
+  public static Pwls read(Path file)
+    throws IOException
+  {
+    if (file == null)
+      throw new IllegalArgumentException("file cannot be null");
+
+    return read(ByteBuffer.wrap(Files.readAllBytes(file)));
+  }
+
+  /**
+   * Create a PWLS model backed by the memory mapped snapshot file.
+   * <p>
+   * The text of curves, tools and properties is left in the mapped file
+   * and decoded each time it is accessed. The text bytes are then shared
+   * through the operating system page cache between processes mapping the
+   * same file, rather than copied into the heap of each of them.
+   * <p>
+   * Only the text is off-heap. The entities, the entity sets and their
+   * lookup indexes are ordinary heap objects, each text field is a small
+   * {@link Utf8Text} view, and the curve mnemonics and tool codes are
+   * decoded at startup to key the lookup indexes. The heap saving is
+   * therefore roughly the size of the descriptions and other free text,
+   * and each getter call pays a decode.
+   * <p>
+   * The file must not be modified while mapped. Replace it by writing
+   * a new file and moving it in place, as done by
+   * {@link SnapshotWriter#write(Pwls,Path)}.
+   *
+   * @param file  Snapshot file to map. Non-null.
+   * @return      The PWLS model. Never null.
+   * @throws IllegalArgumentException  If file is null.
+   * @throws IOException  If the file cannot be mapped, or the snapshot is
+   *                      of a different version or is corrupt.
+   */
+  public static Pwls map(Path file)
+    throws IOException
+  {
+    if (file == null)
+      throw new IllegalArgumentException("file cannot be null");
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return read(buffer, false);
+    }
+  }
+}
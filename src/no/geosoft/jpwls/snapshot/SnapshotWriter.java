@@ -0,0 +1,293 @@
+package no.geosoft.jpwls.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+import no.geosoft.jpwls.Company;
+import no.geosoft.jpwls.Curve;
+import no.geosoft.jpwls.LoggingMethod;
+import no.geosoft.jpwls.Property;
+import no.geosoft.jpwls.Pwls;
+import no.geosoft.jpwls.Tool;
+import no.geosoft.jpwls.ToolClass;
+
+/**
+ * Writer for binary PWLS snapshots.
+ * <p>
+ * A snapshot captures the complete PWLS model including the resolved
+ * property hierarchy and the curves of each tool, so that it can be
+ * restored by {@link SnapshotReader} without any JSON parsing or
+ * re-linking. See {@link SnapshotFormat} for details on the format.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class SnapshotWriter
+{
+  /**
+   * Private constructor to prevent client instantiation.
+   */
+  private SnapshotWriter()
+  {
+    assert false : "This constructor should never be called";
+  }
+
+  /**
+   * Pool of unique strings of a snapshot.
+   */
+  private static final class StringPool
+  {
+    /** The unique strings in order of appearance. */
+    private final List<String> strings_ = new ArrayList<>();
+
+    /** Index of each string in the pool. */
+    private final Map<String,Integer> indices_ = new HashMap<>();
+
+    /**
+     * Return pool index of the specified string, adding it if not
+     * already present.
+     *
+     * @param string  String to get index of. May be null.
+     * @return        Index of the string, or SnapshotFormat.NULL if string is null.
+     */
+    int indexOf(String string)
+    {
+      if (string == null)
+        return SnapshotFormat.NULL;
+
+      Integer index = indices_.get(string);
+      if (index == null) {
+        index = strings_.size();
+        strings_.add(string);
+        indices_.put(string, index);
+      }
+
+      return index;
+    }
+
+    /**
+     * Write this pool to the specified stream.
+     *
+     * @param stream  Stream to write to. Non-null.
+     * @throws IOException  If the write operation fails for some reason.
+     */
+    void write(DataOutputStream stream)
+      throws IOException
+    {
+      assert stream != null : "stream cannot be null";
+
+      List<byte[]> encoded = new ArrayList<>(strings_.size());
+      for (String string : strings_)
+        encoded.add(string.getBytes(StandardCharsets.UTF_8));
+
+      stream.writeInt(encoded.size());
+
+      int offset = 0;
+      stream.writeInt(offset);
+      for (byte[] bytes : encoded) {
+        offset += bytes.length;
+        stream.writeInt(offset);
+      }
+
+      for (byte[] bytes : encoded)
+        stream.write(bytes);
+    }
+  }
+
+  /**
+   * Write the specified PWLS model as a snapshot to the given stream.
+   *
+   * @param pwls    PWLS model to write. Non-null.
+   * @param stream  Stream to write to. Non-null. The stream is not closed.
+   * @throws IllegalArgumentException  If pwls or stream is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void write(Pwls pwls, OutputStream stream)
+    throws IOException
+  {
+    if (pwls == null)
+      throw new IllegalArgumentException("pwls cannot be null");
+
+    if (stream == null)
+      throw new IllegalArgumentException("stream cannot be null");
+
+    StringPool stringPool = new StringPool();
+
+    ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    DataOutputStream records = new DataOutputStream(recordBytes);
+
+    //
+    // Properties
+    //
+    Set<Property> properties = pwls.getProperties(null, null);
+    Map<Property,Integer> propertyIndices = new IdentityHashMap<>();
+    for (Property property : properties)
+      propertyIndices.put(property, propertyIndices.size());
+
+    records.writeInt(properties.size());
+    for (Property property : properties) {
+      Integer parentIndex = property.getParent() != null ? propertyIndices.get(property.getParent()) : null;
+
+      records.writeInt(stringPool.indexOf(property.getName()));
+      records.writeInt(stringPool.indexOf(property.getDescription()));
+      records.writeInt(stringPool.indexOf(property.getQuantity()));
+      records.writeInt(stringPool.indexOf(property.getGuid()));
+      records.writeInt(property.getSortOrder());
+      records.writeInt(property.isAbstract() ? 1 : 0);
+      records.writeInt(parentIndex != null ? parentIndex : SnapshotFormat.NULL);
+    }
+
+    //
+    // Companies
+    //
+    Set<Company> companies = pwls.getCompanies(null);
+    records.writeInt(companies.size());
+    for (Company company : companies) {
+      records.writeInt(company.getCompanyCode());
+      records.writeInt(stringPool.indexOf(company.getName()));
+    }
+
+    //
+    // Logging methods
+    //
+    Set<LoggingMethod> loggingMethods = pwls.getLoggingMethods(null);
+    records.writeInt(loggingMethods.size());
+    for (LoggingMethod loggingMethod : loggingMethods) {
+      records.writeInt(stringPool.indexOf(loggingMethod.getName()));
+      records.writeInt(stringPool.indexOf(loggingMethod.getDescription()));
+    }
+
+    //
+    // Tool classes
+    //
+    Set<ToolClass> toolClasses = pwls.getToolClasses(null);
+    records.writeInt(toolClasses.size());
+    for (ToolClass toolClass : toolClasses) {
+      records.writeInt(stringPool.indexOf(toolClass.getName()));
+      records.writeInt(stringPool.indexOf(toolClass.getDescription()));
+    }
+
+    //
+    // Curves
+    //
+    Set<Curve> curves = pwls.getCurves(null, null, null, null);
+    Map<Curve,Integer> curveIndices = new IdentityHashMap<>();
+    records.writeInt(curves.size());
+    for (Curve curve : curves) {
+      curveIndices.put(curve, curveIndices.size());
+
+      Integer companyCode = curve.getCompanyCode();
+
+      records.writeInt(stringPool.indexOf(curve.getMnemonic()));
+      records.writeInt(stringPool.indexOf(curve.getLisMnemonic()));
+      records.writeInt(companyCode != null ? companyCode : SnapshotFormat.NO_COMPANY_CODE);
+      records.writeInt(stringPool.indexOf(curve.getProperty()));
+      records.writeInt(stringPool.indexOf(curve.getQuantity()));
+      records.writeInt(stringPool.indexOf(curve.getDescription()));
+    }
+
+    //
+    // Tools
+    //
+    List<Tool> tools = new ArrayList<>(pwls.getTools(null, null, null, null, null));
+    records.writeInt(tools.size());
+    for (Tool tool : tools) {
+      records.writeInt(stringPool.indexOf(tool.getToolCode()));
+      records.writeInt(tool.getCompanyCode());
+      records.writeInt(stringPool.indexOf(tool.getGroup()));
+      records.writeInt(stringPool.indexOf(tool.getMarketingName()));
+      records.writeInt(stringPool.indexOf(tool.getDescription()));
+      records.writeInt(stringPool.indexOf(tool.getGenericType()));
+      records.writeInt(stringPool.indexOf(tool.getLoggingMethod()));
+      records.writeInt(stringPool.indexOf(tool.getTypeDescription()));
+    }
+
+    //
+    // Curves by tool
+    //
+    for (Tool tool : tools) {
+      List<Integer> indices = new ArrayList<>();
+      for (Curve curve : tool.getCurves()) {
+        Integer curveIndex = curveIndices.get(curve);
+        if (curveIndex != null)
+          indices.add(curveIndex);
+      }
+
+      records.writeInt(indices.size());
+      for (int curveIndex : indices)
+        records.writeInt(curveIndex);
+    }
+
+    records.flush();
+
+    //
+    // Assemble body and header
+    //
+    ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(recordBytes.size() * 2);
+    DataOutputStream body = new DataOutputStream(bodyBytes);
+    stringPool.write(body);
+    recordBytes.writeTo(body);
+    body.flush();
+
+    byte[] content = bodyBytes.toByteArray();
+
+    CRC32C checksum = new CRC32C();
+    checksum.update(content, 0, content.length);
+
+    DataOutputStream output = new DataOutputStream(stream);
+    output.writeInt(SnapshotFormat.MAGIC);
+    output.writeInt(SnapshotFormat.VERSION);
+    output.writeInt(content.length);
+    output.writeLong(checksum.getValue());
+    output.write(content);
+    output.flush();
+  }
+
+  /**
+   * Write the specified PWLS model as a snapshot to the given file.
+   * <p>
+   * The snapshot is written to a temporary file which is then moved in
+   * place, so readers never see a partially written snapshot.
+   *
+   * @param pwls  PWLS model to write. Non-null.
+   * @param file  File to write to. Non-null.
+   * @throws IllegalArgumentException  If pwls or file is null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  public static void write(Pwls pwls, Path file)
+    throws IOException
+  {
+    if (pwls == null)
+      throw new IllegalArgumentException("pwls cannot be null");
+
+    if (file == null)
+      throw new IllegalArgumentException("file cannot be null");
+
+    Path folder = file.toAbsolutePath().getParent();
+    Path temporaryFile = Files.createTempFile(folder, file.getFileName().toString(), ".tmp");
+
+    try {
+      try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(temporaryFile))) {
+        write(pwls, stream);
+      }
+
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package no.geosoft.jpwls.source;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * PWLS resources on the class path, typically bundled with the
+ * application in a JAR file.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class ClasspathSource
+  implements PwlsSource
+{
+  /** Class loader to load the resources through. Non-null. */
+  private final ClassLoader classLoader_;
+
+  /** Path of the resources within the class path, without leading or trailing "/". */
+  private final String path_;
+
+  /**
+   * Create a source of the specified class path location.
+   *
+   * @param classLoader  Class loader to load the resources through. Non-null.
+   * @param path         Path of the resources within the class path,
+   *                     such as "pwls/json". Non-null.
+   * @throws IllegalArgumentException  If classLoader or path is null.
+   */
+  public ClasspathSource(ClassLoader classLoader, String path)
+  {
+    if (classLoader == null)
+      throw new IllegalArgumentException("classLoader cannot be null");
+
+    if (path == null)
+      throw new IllegalArgumentException("path cannot be null");
+
+    String p = path;
+    while (p.startsWith("/"))
+      p = p.substring(1);
+    while (p.endsWith("/"))
+      p = p.substring(0, p.length() - 1);
+
+    classLoader_ = classLoader;
+    path_ = p;
+  }
+
+  /**
+   * Create a source of the specified location on the class path
+   * of the jpwls library.
+   *
+   * @param path  Path of the resources within the class path,
+   *              such as "pwls/json". Non-null.
+   * @throws IllegalArgumentException  If path is null.
+   */
+  public ClasspathSource(String path)
+  {
+    this(ClasspathSource.class.getClassLoader(), path);
+  }
+
+  /**
+   * Return the class path name of the specified resource.
+   *
+   * @param name  Name of resource. Non-null.
+   * @return      Class path name of resource. Never null.
+   */
+  private String getResourceName(String name)
+  {
+    assert name != null : "name cannot be null";
+    return path_.isEmpty() ? name : path_ + "/" + name;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public InputStream open(String name)
+    throws IOException
+  {
+    if (name == null)
+      throw new IllegalArgumentException("name cannot be null");
+
+    InputStream stream = classLoader_.getResourceAsStream(getResourceName(name));
+    if (stream == null)
+      throw new FileNotFoundException("Resource not found: " + getLocation(name));
+
+    return stream;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String getLocation(String name)
+  {
+    if (name == null)
+      throw new IllegalArgumentException("name cannot be null");
+
+    return "classpath:" + getResourceName(name);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean isLocal()
+  {
+    return true;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    return "classpath:" + path_;
+  }
+}
@@ -0,0 +1,82 @@
+package no.geosoft.jpwls.source;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * PWLS resources in a local folder.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class DirectorySource
+  implements PwlsSource
+{
+  /** Folder of the JSON files. Non-null. */
+  private final File folder_;
+
+  /**
+   * Create a source of the specified folder.
+   *
+   * @param folder  Folder of the JSON files. Non-null.
+   * @throws IllegalArgumentException  If folder is null.
+   */
+  public DirectorySource(File folder)
+  {
+    if (folder == null)
+      throw new IllegalArgumentException("folder cannot be null");
+
+    folder_ = folder;
+  }
+
+  /**
+   * Return the folder of this source.
+   *
+   * @return  Folder of this source. Never null.
+   */
+  public File getFolder()
+  {
+    return folder_;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public InputStream open(String name)
+    throws IOException
+  {
+    if (name == null)
+      throw new IllegalArgumentException("name cannot be null");
+
+    File file = new File(folder_, name);
+    if (!file.isFile())
+      throw new FileNotFoundException("Resource not found: " + getLocation(name));
+
+    return new FileInputStream(file);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String getLocation(String name)
+  {
+    if (name == null)
+      throw new IllegalArgumentException("name cannot be null");
+
+    return new File(folder_, name).getPath();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean isLocal()
+  {
+    return true;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    return folder_.getPath();
+  }
+}
@@ -0,0 +1,86 @@
+package no.geosoft.jpwls.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import no.geosoft.jpwls.util.HttpFetcher;
+
+/**
+ * PWLS resources on a web server, typically the GitHub location
+ * of the JSON files that makes up the standard.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class HttpSource
+  implements PwlsSource
+{
+  /** Base URL of the JSON files. Non-null. */
+  private final String baseUrl_;
+
+  /** Fetcher used for accessing the resources. Non-null. */
+  private final HttpFetcher fetcher_;
+
+  /**
+   * Create a source of the specified base URL.
+   * <p>
+   * Use a fetcher with a cache folder to make restarts cost one conditional
+   * round trip per resource rather than full downloads.
+   *
+   * @param baseUrl  Base URL of the JSON files. Non-null.
+   * @param fetcher  Fetcher to fetch the resources with. Non-null.
+   * @throws IllegalArgumentException  If baseUrl or fetcher is null.
+   */
+  public HttpSource(String baseUrl, HttpFetcher fetcher)
+  {
+    if (baseUrl == null)
+      throw new IllegalArgumentException("baseUrl cannot be null");
+
+    if (fetcher == null)
+      throw new IllegalArgumentException("fetcher cannot be null");
+
+    baseUrl_ = baseUrl;
+    fetcher_ = fetcher;
+  }
+
+  /**
+   * Return the base URL of this source.
+   *
+   * @return  Base URL of this source. Never null.
+   */
+  public String getBaseUrl()
+  {
+    return baseUrl_;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public InputStream open(String name)
+    throws IOException
+  {
+    return fetcher_.open(getLocation(name));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String getLocation(String name)
+  {
+    if (name == null)
+      throw new IllegalArgumentException("name cannot be null");
+
+    return baseUrl_ + "/" + name;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean isLocal()
+  {
+    return false;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    return baseUrl_;
+  }
+}
@@ -0,0 +1,73 @@
+package no.geosoft.jpwls.source;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A location of the JSON resources that makes up the PWLS standard,
+ * such as a folder, a web server, the class path or a ZIP bundle.
+ * <p>
+ * Implementations must allow resources to be opened concurrently.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public interface PwlsSource
+{
+  /** Name of the properties resource. */
+  String PROPERTIES = "properties.json";
+
+  /** Name of the companies resource. */
+  String COMPANIES = "companies.json";
+
+  /** Name of the logging methods resource. */
+  String LOGGING_METHODS = "loggingMethods.json";
+
+  /** Name of the tool classes resource. */
+  String TOOL_CLASSES = "toolClasses.json";
+
+  /** Name of the tools resource. */
+  String TOOLS = "tools.json";
+
+  /** Name of the curves resource. */
+  String CURVES = "curves.json";
+
+  /** Name of the curves by tool resource. */
+  String CURVES_BY_TOOL = "curvesByTool.json";
+
+  /**
+   * Open the specified resource for reading.
+   * The caller is responsible for closing the stream.
+   *
+   * @param name  Name of resource to open, such as {@link #CURVES}. Non-null.
+   * @return      Stream of the resource content. Never null.
+   * @throws IllegalArgumentException  If name is null.
+   * @throws FileNotFoundException  If the resource doesn't exist, so that
+   *                                callers can tell a missing optional
+   *                                resource from a failure to read it.
+   * @throws IOException  If the resource cannot be opened for some other reason.
+   */
+  InputStream open(String name)
+    throws IOException;
+
+  /**
+   * Return a description of the location of the specified resource,
+   * for logging and error messages.
+   *
+   * @param name  Name of resource. Non-null.
+   * @return      Location of the resource. Never null.
+   * @throws IllegalArgumentException  If name is null.
+   */
+  String getLocation(String name);
+
+  /**
+   * Indicate if the resources of this source are held locally, on disk
+   * or in memory, so that the complete content of a resource is available
+   * without waiting on a transfer. Resources of local sources are read
+   * completely and parsed in concurrent chunks, while resources of other
+   * sources are parsed as their content streams in.
+   *
+   * @return  True if the resources are held locally, false otherwise.
+   */
+  boolean isLocal();
+}
@@ -0,0 +1,157 @@
+package no.geosoft.jpwls.source;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * PWLS resources bundled in a single ZIP or JAR file.
+ * <p>
+ * The resources are matched on file name, so they may be placed
+ * in any folder inside the bundle. All of them are read in one
+ * sequential pass over the file the first time any of them is
+ * opened. Each resource is then handed out once from memory, and
+ * the bundle is read again if a resource is opened a second time,
+ * such as on a reload, or if the file has changed since it was read.
+ * Resources not found in the bundle are reported as missing without
+ * reading it again.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class ZipSource
+  implements PwlsSource
+{
+  /** The ZIP file. Non-null. */
+  private final File file_;
+
+  /** Content of resources read but not yet opened, by name. */
+  private final Map<String,byte[]> contents_ = new HashMap<>();
+
+  /** Names of the resources opened since the file was last read. */
+  private final Set<String> openedNames_ = new HashSet<>();
+
+  /** Modification time of the file when last read. */
+  private long lastModified_;
+
+  /** Indicate if the file has been read. */
+  private boolean isRead_;
+
+  /**
+   * Create a source of the specified ZIP file.
+   *
+   * @param file  The ZIP or JAR file. Non-null.
+   * @throws IllegalArgumentException  If file is null.
+   */
+  public ZipSource(File file)
+  {
+    if (file == null)
+      throw new IllegalArgumentException("file cannot be null");
+
+    file_ = file;
+  }
+
+  /**
+   * Read all the PWLS resources of the ZIP file in one pass.
+   * Must be called with the source lock held.
+   *
+   * @throws FileNotFoundException  If the file doesn't exist.
+   * @throws IOException  If the file cannot be read.
+   */
+  private void readAll()
+    throws IOException
+  {
+    assert Thread.holdsLock(this);
+
+    contents_.clear();
+    openedNames_.clear();
+    lastModified_ = file_.lastModified();
+
+    if (!file_.isFile())
+      throw new FileNotFoundException("File not found: " + file_);
+
+    try (ZipInputStream stream = new ZipInputStream(new BufferedInputStream(new FileInputStream(file_)))) {
+      for (ZipEntry entry = stream.getNextEntry(); entry != null; entry = stream.getNextEntry()) {
+        if (entry.isDirectory())
+          continue;
+
+        String name = entry.getName();
+        name = name.substring(name.lastIndexOf('/') + 1);
+
+        switch (name) {
+          case PROPERTIES :
+          case COMPANIES :
+          case LOGGING_METHODS :
+          case TOOL_CLASSES :
+          case TOOLS :
+          case CURVES :
+          case CURVES_BY_TOOL :
+            contents_.put(name, stream.readAllBytes());
+            break;
+
+          default :
+            // Not a PWLS resource
+        }
+      }
+    }
+
+    isRead_ = true;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public synchronized InputStream open(String name)
+    throws IOException
+  {
+    if (name == null)
+      throw new IllegalArgumentException("name cannot be null");
+
+    byte[] content = contents_.remove(name);
+
+    // Read the file unless the resource is known to be missing from it
+    if (content == null && (!isRead_ || openedNames_.contains(name) || file_.lastModified() != lastModified_)) {
+      readAll();
+      content = contents_.remove(name);
+    }
+
+    if (content == null)
+      throw new FileNotFoundException("Resource not found: " + getLocation(name));
+
+    openedNames_.add(name);
+
+    return new ByteArrayInputStream(content);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String getLocation(String name)
+  {
+    if (name == null)
+      throw new IllegalArgumentException("name cannot be null");
+
+    return file_.getPath() + "!/" + name;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean isLocal()
+  {
+    return true;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    return file_.getPath();
+  }
+}
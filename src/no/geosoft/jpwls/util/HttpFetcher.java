@@ -0,0 +1,616 @@
+package no.geosoft.jpwls.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Fetches resources over HTTP with an optional on-disk cache.
+ * <p>
+ * Cached resources are stored together with their <em>ETag</em> and
+ * <em>Last-Modified</em> values. Later fetches of the same resource are made
+ * conditional through <em>If-None-Match</em> and <em>If-Modified-Since</em>,
+ * so that an unchanged resource costs a single small round trip
+ * (304 Not Modified) instead of a full download. Responses may be gzip
+ * compressed. If the server cannot be reached or doesn't respond in time,
+ * a cached copy is used if available. Error responses from the server are
+ * reported as is, as the server is then known to be up.
+ * <p>
+ * Non-HTTP URLs (such as file: URLs) are read directly and never cached.
+ * Instances are thread safe.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class HttpFetcher
+{
+  /** The logger instance. */
+  private static final Logger logger_ = Logger.getLogger(HttpFetcher.class.getName());
+
+  /** Default connect timeout in milliseconds. */
+  public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+
+  /** Default read timeout in milliseconds. */
+  public static final int DEFAULT_READ_TIMEOUT = 30000;
+
+  /** Meta data key of the URL of a cache entry. */
+  private static final String URL_KEY = "url";
+
+  /** Meta data key of the ETag of a cache entry. */
+  private static final String ETAG_KEY = "etag";
+
+  /** Meta data key of the Last-Modified value of a cache entry. */
+  private static final String LAST_MODIFIED_KEY = "lastModified";
+
+  /**
+   * A stream to the content of a URL from a given byte offset, as returned
+   * by {@link HttpFetcher#open(String,long,String)}. Closing the stream
+   * releases the underlying connection.
+   */
+  public static final class RangeStream extends FilterInputStream
+  {
+    /** The connection of the stream. Null if not HTTP. */
+    private final HttpURLConnection connection_;
+
+    /** Byte offset of the content the stream starts at. */
+    private final long offset_;
+
+    /** Validator of the content. Null if none. */
+    private final String validator_;
+
+    /**
+     * Create a range stream.
+     *
+     * @param stream      The content stream. Non-null.
+     * @param connection  The connection of the stream. Null if not HTTP.
+     * @param offset      Byte offset of the content the stream starts at.
+     * @param validator   Validator of the content. Null if none.
+     */
+    private RangeStream(InputStream stream, HttpURLConnection connection, long offset, String validator)
+    {
+      super(stream);
+
+      assert stream != null : "stream cannot be null";
+
+      connection_ = connection;
+      offset_ = offset;
+      validator_ = validator;
+    }
+
+    /**
+     * Return the byte offset of the content this stream starts at.
+     * This is the requested offset, or 0 if the complete content
+     * was returned instead.
+     *
+     * @return  Byte offset of the content the stream starts at. [0,&gt;.
+     */
+    public long getOffset()
+    {
+      return offset_;
+    }
+
+    /**
+     * Return the validator of the content, i.e. its strong <em>ETag</em>
+     * or else its <em>Last-Modified</em> value, for resuming the transfer
+     * through {@link HttpFetcher#open(String,long,String)}.
+     *
+     * @return  Validator of the content. Null if the server provided none.
+     */
+    public String getValidator()
+    {
+      return validator_;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close()
+      throws IOException
+    {
+      try {
+        super.close();
+      }
+      finally {
+        if (connection_ != null)
+          connection_.disconnect();
+      }
+    }
+  }
+
+  /** Folder of cached resources. Null if caching is disabled. */
+  private final File cacheFolder_;
+
+  /** Connect timeout in milliseconds. 0 means infinite. */
+  private volatile int connectTimeout_ = DEFAULT_CONNECT_TIMEOUT;
+
+  /** Read timeout in milliseconds. 0 means infinite. */
+  private volatile int readTimeout_ = DEFAULT_READ_TIMEOUT;
+
+  /**
+   * Create a fetcher caching resources in the specified folder.
+   *
+   * @param cacheFolder  Folder to cache resources in, or null to not cache.
+   *                     The folder is created if it doesn't exist.
+   */
+  public HttpFetcher(File cacheFolder)
+  {
+    cacheFolder_ = cacheFolder;
+  }
+
+  /**
+   * Create a fetcher without caching.
+   */
+  public HttpFetcher()
+  {
+    this(null);
+  }
+
+  /**
+   * Set connect timeout.
+   *
+   * @param connectTimeout  Connect timeout in milliseconds. 0 means infinite.
+   * @throws IllegalArgumentException  If connectTimeout is negative.
+   */
+  public void setConnectTimeout(int connectTimeout)
+  {
+    if (connectTimeout < 0)
+      throw new IllegalArgumentException("Invalid connectTimeout: " + connectTimeout);
+
+    connectTimeout_ = connectTimeout;
+  }
+
+  /**
+   * Return the connect timeout.
+   *
+   * @return  Connect timeout in milliseconds. 0 means infinite.
+   */
+  public int getConnectTimeout()
+  {
+    return connectTimeout_;
+  }
+
+  /**
+   * Set read timeout.
+   *
+   * @param readTimeout  Read timeout in milliseconds. 0 means infinite.
+   * @throws IllegalArgumentException  If readTimeout is negative.
+   */
+  public void setReadTimeout(int readTimeout)
+  {
+    if (readTimeout < 0)
+      throw new IllegalArgumentException("Invalid readTimeout: " + readTimeout);
+
+    readTimeout_ = readTimeout;
+  }
+
+  /**
+   * Return the read timeout.
+   *
+   * @return  Read timeout in milliseconds. 0 means infinite.
+   */
+  public int getReadTimeout()
+  {
+    return readTimeout_;
+  }
+
+  /**
+   * Return the cache folder of this fetcher.
+   *
+   * @return  The cache folder of this fetcher. Null if caching is disabled.
+   */
+  public File getCacheFolder()
+  {
+    return cacheFolder_;
+  }
+
+  /**
+   * Return the base name of the cache files of the specified URL.
+   *
+   * @param url  URL to get cache name of. Non-null.
+   * @return     Base name of the cache files. Never null.
+   */
+  private static String getCacheName(String url)
+  {
+    assert url != null : "url cannot be null";
+
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest(url.getBytes(StandardCharsets.UTF_8));
+
+      StringBuilder s = new StringBuilder();
+      for (int i = 0; i < 16; i++)
+        s.append(String.format("%02x", hash[i]));
+      return s.toString();
+    }
+    catch (NoSuchAlgorithmException exception) {
+      // SHA-256 is mandatory on all Java platforms
+      throw new AssertionError(exception);
+    }
+  }
+
+  /**
+   * Return the cached content file of the specified URL.
+   *
+   * @param url  URL to consider. Non-null.
+   * @return     The content file. Never null.
+   */
+  private File getContentFile(String url)
+  {
+    return new File(cacheFolder_, getCacheName(url) + ".content");
+  }
+
+  /**
+   * Return the cached meta data file of the specified URL.
+   *
+   * @param url  URL to consider. Non-null.
+   * @return     The meta data file. Never null.
+   */
+  private File getMetaFile(String url)
+  {
+    return new File(cacheFolder_, getCacheName(url) + ".meta");
+  }
+
+  /**
+   * Read the cached meta data of the specified URL.
+   *
+   * @param url  URL to read meta data of. Non-null.
+   * @return     The cached meta data, or null if the URL is not cached.
+   */
+  private Properties readMeta(String url)
+  {
+    assert url != null : "url cannot be null";
+
+    if (cacheFolder_ == null)
+      return null;
+
+    File metaFile = getMetaFile(url);
+    File contentFile = getContentFile(url);
+    if (!metaFile.isFile() || !contentFile.isFile())
+      return null;
+
+    Properties meta = new Properties();
+    try (InputStream stream = new FileInputStream(metaFile)) {
+      meta.load(stream);
+    }
+    catch (IOException exception) {
+      logger_.log(Level.WARNING, "Unable to read cache entry: " + metaFile, exception);
+      return null;
+    }
+
+    // Guard against hash collisions
+    return url.equals(meta.getProperty(URL_KEY)) ? meta : null;
+  }
+
+  /**
+   * Write the specified file atomically, i.e. through a temporary file.
+   *
+   * @param file     File to write. Non-null.
+   * @param content  Content to write. Non-null.
+   * @throws IOException  If the write operation fails for some reason.
+   */
+  private void writeAtomically(File file, byte[] content)
+    throws IOException
+  {
+    assert file != null : "file cannot be null";
+    assert content != null : "content cannot be null";
+
+    File temporaryFile = File.createTempFile(file.getName(), ".tmp", cacheFolder_);
+    try {
+      try (OutputStream stream = new FileOutputStream(temporaryFile)) {
+        stream.write(content);
+      }
+      Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    finally {
+      Files.deleteIfExists(temporaryFile.toPath());
+    }
+  }
+
+  /**
+   * Store the specified content and validators in the cache.
+   * Failing to do so is logged but otherwise ignored.
+   *
+   * @param url           URL of content. Non-null.
+   * @param content       Content to store. Non-null.
+   * @param etag          ETag of content. Null if none.
+   * @param lastModified  Last-Modified value of content. Null if none.
+   */
+  private void store(String url, byte[] content, String etag, String lastModified)
+  {
+    assert url != null : "url cannot be null";
+    assert content != null : "content cannot be null";
+
+    if (cacheFolder_ == null)
+      return;
+
+    Properties meta = new Properties();
+    meta.setProperty(URL_KEY, url);
+    if (etag != null)
+      meta.setProperty(ETAG_KEY, etag);
+    if (lastModified != null)
+      meta.setProperty(LAST_MODIFIED_KEY, lastModified);
+
+    try {
+      if (!cacheFolder_.isDirectory())
+        Files.createDirectories(cacheFolder_.toPath());
+
+      ByteArrayOutputStream metaBytes = new ByteArrayOutputStream();
+      meta.store(metaBytes, null);
+
+      // Content first, so that meta data never refers to missing content
+      writeAtomically(getContentFile(url), content);
+      writeAtomically(getMetaFile(url), metaBytes.toByteArray());
+    }
+    catch (IOException exception) {
+      logger_.log(Level.WARNING, "Unable to cache " + url, exception);
+    }
+  }
+
+  /**
+   * Read the content of the specified connection, decompressing it if needed.
+   *
+   * @param connection  Connection to read from. Non-null.
+   * @return            The content read. Never null.
+   * @throws IOException  If the read operation fails for some reason.
+   */
+  private static byte[] readContent(URLConnection connection)
+    throws IOException
+  {
+    assert connection != null : "connection cannot be null";
+
+    try (InputStream stream = connection.getInputStream()) {
+      boolean isGzip = "gzip".equalsIgnoreCase(connection.getContentEncoding());
+      return isGzip ? new GZIPInputStream(stream).readAllBytes() : stream.readAllBytes();
+    }
+  }
+
+  /**
+   * Indicate if the specified exception is caused by the server being
+   * unreachable or not responding, as opposed to an error reported by it.
+   *
+   * @param exception  Exception to check. Non-null.
+   * @return           True if the exception is a connection failure, false otherwise.
+   */
+  private static boolean isConnectionFailure(IOException exception)
+  {
+    assert exception != null : "exception cannot be null";
+
+    return exception instanceof ConnectException ||
+           exception instanceof NoRouteToHostException ||
+           exception instanceof UnknownHostException ||
+           exception instanceof SocketTimeoutException;
+  }
+
+  /**
+   * Fetch the content of the specified URL.
+   *
+   * @param url  URL to fetch. Non-null.
+   * @return     The content of the URL. Never null.
+   * @throws IllegalArgumentException  If url is null.
+   * @throws FileNotFoundException  If the server reports the resource as not found.
+   * @throws IOException  If the server responds with an error, or if it
+   *                      cannot be reached and no cached copy is available.
+   */
+  public byte[] fetch(String url)
+    throws IOException
+  {
+    if (url == null)
+      throw new IllegalArgumentException("url cannot be null");
+
+    URLConnection connection;
+    try {
+      connection = new URL(url).openConnection();
+    }
+    catch (MalformedURLException exception) {
+      throw new IOException("Invalid URL: " + url, exception);
+    }
+
+    connection.setConnectTimeout(connectTimeout_);
+    connection.setReadTimeout(readTimeout_);
+
+    // Non-HTTP resources are read as is
+    if (!(connection instanceof HttpURLConnection))
+      return readContent(connection);
+
+    HttpURLConnection httpConnection = (HttpURLConnection) connection;
+    httpConnection.setRequestProperty("Accept-Encoding", "gzip");
+
+    Properties meta = readMeta(url);
+    if (meta != null) {
+      String etag = meta.getProperty(ETAG_KEY);
+      String lastModified = meta.getProperty(LAST_MODIFIED_KEY);
+      if (etag != null)
+        httpConnection.setRequestProperty("If-None-Match", etag);
+      if (lastModified != null)
+        httpConnection.setRequestProperty("If-Modified-Since", lastModified);
+    }
+
+    try {
+      int responseCode = httpConnection.getResponseCode();
+
+      if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && meta != null) {
+        logger_.log(Level.FINE, "Not modified, using cached copy: " + url);
+        return Files.readAllBytes(getContentFile(url).toPath());
+      }
+
+      if (responseCode == HttpURLConnection.HTTP_NOT_FOUND || responseCode == HttpURLConnection.HTTP_GONE)
+        throw new FileNotFoundException("HTTP " + responseCode + " " + httpConnection.getResponseMessage() + ": " + url);
+
+      if (responseCode != HttpURLConnection.HTTP_OK)
+        throw new IOException("HTTP " + responseCode + " " + httpConnection.getResponseMessage() + ": " + url);
+
+      byte[] content = readContent(httpConnection);
+      store(url, content, httpConnection.getHeaderField("ETag"), httpConnection.getHeaderField("Last-Modified"));
+      return content;
+    }
+    catch (IOException exception) {
+      if (meta == null || !isConnectionFailure(exception))
+        throw exception;
+
+      logger_.log(Level.WARNING, "Unable to fetch " + url + ". Using cached copy", exception);
+      return Files.readAllBytes(getContentFile(url).toPath());
+    }
+    finally {
+      httpConnection.disconnect();
+    }
+  }
+
+  /**
+   * Open a stream to the content of the specified URL.
+   *
+   * @param url  URL to open. Non-null.
+   * @return     Stream to the content of the URL. Never null.
+   * @throws IllegalArgumentException  If url is null.
+   * @throws FileNotFoundException  If the server reports the resource as not found.
+   * @throws IOException  If the server responds with an error, or if it
+   *                      cannot be reached and no cached copy is available.
+   */
+  public InputStream open(String url)
+    throws IOException
+  {
+    return new ByteArrayInputStream(fetch(url));
+  }
+
+  /**
+   * Open a stream to the content of the specified URL, starting at the
+   * given byte offset.
+   * <p>
+   * The content is streamed as it arrives rather than fetched completely,
+   * and is not cached. A non-zero offset is requested through an HTTP range
+   * request. If the server ignores the range, the leading bytes are skipped.
+   * This makes it possible to resume an interrupted transfer, but without
+   * any check that the content is unchanged, see {@link #open(String,long,String)}.
+   *
+   * @param url     URL to open. Non-null.
+   * @param offset  Byte offset to start at. [0,&gt;.
+   * @return        Stream to the content of the URL from offset. Never null.
+   *                The caller must close it.
+   * @throws IllegalArgumentException  If url is null or offset is negative.
+   * @throws IOException  If the open operation fails for some reason.
+   */
+  public InputStream open(String url, long offset)
+    throws IOException
+  {
+    RangeStream stream = open(url, offset, null);
+
+    if (stream.getOffset() != offset) {
+      logger_.log(Level.FINE, "Range not supported, skipping " + offset + " bytes: " + url);
+      try {
+        stream.skipNBytes(offset);
+      }
+      catch (IOException exception) {
+        stream.close();
+        throw exception;
+      }
+    }
+
+    return stream;
+  }
+
+  /**
+   * Open a stream to the content of the specified URL, starting at the
+   * given byte offset if the content is unchanged.
+   * <p>
+   * The content is streamed as it arrives rather than fetched completely,
+   * and is not cached. A non-zero offset is requested through an HTTP range
+   * request, made conditional on the specified validator through
+   * <em>If-Range</em>. If the content has changed since the validator was
+   * captured, or the server doesn't support ranges, the complete content is
+   * returned instead. The caller must check {@link RangeStream#getOffset}
+   * to tell, and capture {@link RangeStream#getValidator} for later
+   * requests.
+   * <p>
+   * Without a validator the range is requested unconditionally.
+   *
+   * @param url        URL to open. Non-null.
+   * @param offset     Byte offset to start at. [0,&gt;.
+   * @param validator  Validator of the content the offset refers to, as
+   *                   returned by an earlier open. Null if none.
+   * @return           Stream to the content of the URL. Never null.
+   *                   The caller must close it.
+   * @throws IllegalArgumentException  If url is null or offset is negative.
+   * @throws IOException  If the open operation fails for some reason.
+   */
+  public RangeStream open(String url, long offset, String validator)
+    throws IOException
+  {
+    if (url == null)
+      throw new IllegalArgumentException("url cannot be null");
+
+    if (offset < 0)
+      throw new IllegalArgumentException("Invalid offset: " + offset);
+
+    URLConnection connection;
+    try {
+      connection = new URL(url).openConnection();
+    }
+    catch (MalformedURLException exception) {
+      throw new IOException("Invalid URL: " + url, exception);
+    }
+
+    connection.setConnectTimeout(connectTimeout_);
+    connection.setReadTimeout(readTimeout_);
+
+    if (!(connection instanceof HttpURLConnection)) {
+      InputStream stream = connection.getInputStream();
+      try {
+        stream.skipNBytes(offset);
+      }
+      catch (IOException exception) {
+        stream.close();
+        throw exception;
+      }
+      return new RangeStream(stream, null, offset, null);
+    }
+
+    HttpURLConnection httpConnection = (HttpURLConnection) connection;
+
+    // Ranges refer to the transferred bytes, so don't let the content be encoded
+    httpConnection.setRequestProperty("Accept-Encoding", "identity");
+    if (offset > 0) {
+      httpConnection.setRequestProperty("Range", "bytes=" + offset + "-");
+      if (validator != null)
+        httpConnection.setRequestProperty("If-Range", validator);
+    }
+
+    try {
+      int responseCode = httpConnection.getResponseCode();
+      if (responseCode != HttpURLConnection.HTTP_OK && responseCode != HttpURLConnection.HTTP_PARTIAL)
+        throw new IOException("HTTP " + responseCode + " " + httpConnection.getResponseMessage() + ": " + url);
+
+      // Weak entity tags cannot be used with If-Range
+      String etag = httpConnection.getHeaderField("ETag");
+      String responseValidator = etag != null && !etag.startsWith("W/") ? etag : httpConnection.getHeaderField("Last-Modified");
+
+      long responseOffset = responseCode == HttpURLConnection.HTTP_PARTIAL ? offset : 0L;
+
+      return new RangeStream(httpConnection.getInputStream(), httpConnection, responseOffset, responseValidator);
+    }
+    catch (IOException exception) {
+      httpConnection.disconnect();
+      throw exception;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package no.geosoft.jpwls.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A 64-bit FNV-1a digest of the UTF-8 encoding of a text.
+ * <p>
+ * The digest is defined by the encoded bytes, so it is the same whether
+ * the text is held as a string, compressed in a {@link TextStore}, or as
+ * {@link Utf8Text} in a mapped file. Stored text that knows its encoding
+ * is digested without being decoded, and strings are encoded on the fly
+ * without allocating.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class TextDigest
+{
+  /** FNV-1a 64-bit offset basis. */
+  private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+
+  /** FNV-1a 64-bit prime. */
+  private static final long PRIME = 0x100000001b3L;
+
+  /** UTF-8 encoding of unpaired surrogates, as by String.getBytes(). */
+  private static final int REPLACEMENT = '?';
+
+  /**
+   * A text that can digest its UTF-8 encoding without decoding it.
+   */
+  interface Digestible
+  {
+    /**
+     * Return the digest of the UTF-8 encoding of this text.
+     *
+     * @return  Digest of this text.
+     */
+    long getDigest();
+  }
+
+  /**
+   * Private constructor to prevent client instantiation.
+   */
+  private TextDigest()
+  {
+    assert false : "This constructor should never be called";
+  }
+
+  /**
+   * Mix a single byte into the specified digest.
+   *
+   * @param digest  Digest to mix into.
+   * @param b       Byte to mix in, [0,255].
+   * @return        The new digest.
+   */
+  private static long mix(long digest, int b)
+  {
+    return (digest ^ b) * PRIME;
+  }
+
+  /**
+   * Return the digest of the specified UTF-8 bytes.
+   *
+   * @param bytes   Bytes to digest. Non-null.
+   * @param offset  Position of first byte to digest.
+   * @param length  Number of bytes to digest.
+   * @return        Digest of the bytes.
+   */
+  static long of(byte[] bytes, int offset, int length)
+  {
+    assert bytes != null : "bytes cannot be null";
+
+    long digest = OFFSET_BASIS;
+    for (int i = offset; i < offset + length; i++)
+      digest = mix(digest, bytes[i] & 0xff);
+
+    return digest;
+  }
+
+  /**
+   * Return the digest of the specified UTF-8 bytes.
+   * The buffer is accessed by absolute position only.
+   *
+   * @param buffer  Buffer holding the bytes to digest. Non-null.
+   * @param offset  Position of first byte to digest.
+   * @param length  Number of bytes to digest.
+   * @return        Digest of the bytes.
+   */
+  static long of(ByteBuffer buffer, int offset, int length)
+  {
+    assert buffer != null : "buffer cannot be null";
+
+    long digest = OFFSET_BASIS;
+    for (int i = offset; i < offset + length; i++)
+      digest = mix(digest, buffer.get(i) & 0xff);
+
+    return digest;
+  }
+
+  /**
+   * Return the digest of the UTF-8 encoding of the specified text.
+   *
+   * @param text  Text to digest. Non-null.
+   * @return      Digest of the text.
+   * @throws IllegalArgumentException  If text is null.
+   */
+  public static long of(CharSequence text)
+  {
+    if (text == null)
+      throw new IllegalArgumentException("text cannot be null");
+
+    if (text instanceof Digestible)
+      return ((Digestible) text).getDigest();
+
+    long digest = OFFSET_BASIS;
+    int length = text.length();
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+
+      if (c < 0x80) {
+        digest = mix(digest, c);
+      }
+      else if (c < 0x800) {
+        digest = mix(digest, 0xc0 | (c >>> 6));
+        digest = mix(digest, 0x80 | (c & 0x3f));
+      }
+      else if (!Character.isSurrogate(c)) {
+        digest = mix(digest, 0xe0 | (c >>> 12));
+        digest = mix(digest, 0x80 | ((c >>> 6) & 0x3f));
+        digest = mix(digest, 0x80 | (c & 0x3f));
+      }
+      else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, text.charAt(++i));
+        digest = mix(digest, 0xf0 | (codePoint >>> 18));
+        digest = mix(digest, 0x80 | ((codePoint >>> 12) & 0x3f));
+        digest = mix(digest, 0x80 | ((codePoint >>> 6) & 0x3f));
+        digest = mix(digest, 0x80 | (codePoint & 0x3f));
+      }
+      else {
+        digest = mix(digest, REPLACEMENT);
+      }
+    }
+
+    return digest;
+  }
+}
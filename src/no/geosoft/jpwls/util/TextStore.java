@@ -0,0 +1,376 @@
+package no.geosoft.jpwls.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A compact store of rarely accessed text, such as descriptions.
+ * <p>
+ * Text is appended as UTF-8 to fixed size blocks which are deflate compressed
+ * as they fill up. Each added text is represented by a small {@link CharSequence}
+ * that decodes the text from its block on access. Blocks are small, so
+ * decoding a single text costs little even in random order, and the most
+ * recently decoded blocks are kept in a small LRU cache, so that reading
+ * texts in order or repeatedly is cheap. Blocks are inflated outside the
+ * lock of the store, so concurrent readers do not wait for each other.
+ * <p>
+ * Typical PWLS descriptions are highly repetitive and compress well, so
+ * the store occupies a fraction of the heap of the equivalent strings.
+ * Instances are thread safe.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class TextStore
+{
+  /** Size of uncompressed blocks. Texts never span blocks. */
+  private static final int BLOCK_SIZE = 8 * 1024;
+
+  /** Maximum number of decoded blocks cached. */
+  private static final int MAX_CACHED_BLOCKS = 64;
+
+  /** Estimated heap of a String instance excluding its content array. */
+  private static final int STRING_OVERHEAD = 24;
+
+  /** Estimated heap of an array instance excluding its elements. */
+  private static final int ARRAY_OVERHEAD = 16;
+
+  /** Estimated heap of a single stored text reference. */
+  private static final int TEXT_SIZE = 40;
+
+  /**
+   * A text of the store, decoded on access. The digest is recorded
+   * as the text is added, so hashing it never decodes the block.
+   */
+  private static final class Text implements CharSequence, TextDigest.Digestible
+  {
+    /** The store holding the text. Non-null. */
+    private final TextStore store_;
+
+    /** Position of the text: block index * BLOCK_SIZE + offset within block. */
+    private final int position_;
+
+    /** Number of UTF-8 bytes of the text. */
+    private final int nBytes_;
+
+    /** Number of characters of the text. */
+    private final int length_;
+
+    /** Digest of the UTF-8 bytes of the text. */
+    private final long digest_;
+
+    /**
+     * Create a new text reference.
+     *
+     * @param store     The store holding the text. Non-null.
+     * @param position  Position of the text.
+     * @param nBytes    Number of UTF-8 bytes of the text.
+     * @param length    Number of characters of the text.
+     * @param digest    Digest of the UTF-8 bytes of the text.
+     */
+    Text(TextStore store, int position, int nBytes, int length, long digest)
+    {
+      assert store != null : "store cannot be null";
+
+      store_ = store;
+      position_ = position;
+      nBytes_ = nBytes;
+      length_ = length;
+      digest_ = digest;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getDigest()
+    {
+      return digest_;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int length()
+    {
+      return length_;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public char charAt(int index)
+    {
+      if (index < 0 || index >= length_)
+        throw new IndexOutOfBoundsException("Invalid index: " + index);
+
+      // Pure ASCII text has one byte per character
+      if (length_ == nBytes_)
+        return (char) store_.getBlock(position_ / BLOCK_SIZE)[position_ % BLOCK_SIZE + index];
+
+      return toString().charAt(index);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CharSequence subSequence(int start, int end)
+    {
+      return toString().subSequence(start, end);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString()
+    {
+      byte[] block = store_.getBlock(position_ / BLOCK_SIZE);
+      return new String(block, position_ % BLOCK_SIZE, nBytes_, StandardCharsets.UTF_8);
+    }
+  }
+
+  /** Compressed blocks. The block currently being filled is not included. */
+  private final List<byte[]> blocks_ = new ArrayList<>();
+
+  /** The block currently being filled. Non-null. */
+  private ByteArrayOutputStream currentBlock_ = new ByteArrayOutputStream();
+
+  /** Recently decoded blocks by block index, least recently used first. */
+  private final Map<Integer,byte[]> decodedBlocks_ = new LinkedHashMap<Integer,byte[]>(16, 0.75f, true)
+  {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Integer,byte[]> eldest)
+    {
+      return size() > MAX_CACHED_BLOCKS;
+    }
+  };
+
+  /** Number of texts added. */
+  private int nTexts_;
+
+  /** Estimated heap the added texts would occupy as strings. */
+  private long stringSize_;
+
+  /**
+   * Create an empty text store.
+   */
+  public TextStore()
+  {
+    // Nothing
+  }
+
+  /**
+   * Add the specified text to this store.
+   *
+   * @param text  Text to add. Non-null.
+   * @return      Reference to the stored text. Never null.
+   * @throws IllegalArgumentException  If text is null.
+   */
+  public synchronized CharSequence add(String text)
+  {
+    if (text == null)
+      throw new IllegalArgumentException("text cannot be null");
+
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+    // Texts never span blocks. Longer texts get a block of their own.
+    if (currentBlock_.size() > 0 && currentBlock_.size() + bytes.length >= BLOCK_SIZE)
+      flush();
+
+    if ((long) blocks_.size() * BLOCK_SIZE > Integer.MAX_VALUE - BLOCK_SIZE)
+      throw new IllegalStateException("Text store is full");
+
+    int position = blocks_.size() * BLOCK_SIZE + currentBlock_.size();
+    currentBlock_.write(bytes, 0, bytes.length);
+
+    nTexts_++;
+    stringSize_ += getStringSize(text);
+
+    return new Text(this, position, bytes.length, text.length(), TextDigest.of(bytes, 0, bytes.length));
+  }
+
+  /**
+   * Compress the block currently being filled, if any. This is done
+   * automatically as blocks fill up, but should be called when no more
+   * text is to be added in order to compress the last block as well.
+   */
+  public synchronized void flush()
+  {
+    if (currentBlock_.size() == 0)
+      return;
+
+    byte[] block = currentBlock_.toByteArray();
+
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    deflater.setInput(block);
+    deflater.finish();
+
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(block.length / 4);
+    byte[] buffer = new byte[8192];
+    while (!deflater.finished()) {
+      int nBytes = deflater.deflate(buffer);
+      compressed.write(buffer, 0, nBytes);
+    }
+    deflater.end();
+
+    blocks_.add(compressed.toByteArray());
+    currentBlock_ = new ByteArrayOutputStream();
+  }
+
+  /**
+   * Return the specified decoded block. Only the lookup is done
+   * under the lock of the store; inflating is not.
+   *
+   * @param blockIndex  Index of block to get.
+   * @return            The decoded block. Never null.
+   */
+  private byte[] getBlock(int blockIndex)
+  {
+    byte[] compressed;
+
+    synchronized (this) {
+      if (blockIndex == blocks_.size())
+        return currentBlock_.toByteArray();
+
+      byte[] block = decodedBlocks_.get(blockIndex);
+      if (block != null)
+        return block;
+
+      compressed = blocks_.get(blockIndex);
+    }
+
+    byte[] block = inflate(compressed, blockIndex);
+
+    synchronized (this) {
+      decodedBlocks_.put(blockIndex, block);
+    }
+
+    return block;
+  }
+
+  /**
+   * Inflate the specified compressed block.
+   *
+   * @param compressed  Compressed block. Non-null.
+   * @param blockIndex  Index of block. For error reporting only.
+   * @return            The inflated block. Never null.
+   */
+  private static byte[] inflate(byte[] compressed, int blockIndex)
+  {
+    assert compressed != null : "compressed cannot be null";
+
+    Inflater inflater = new Inflater();
+    inflater.setInput(compressed);
+
+    ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_SIZE);
+    byte[] buffer = new byte[8192];
+    try {
+      while (!inflater.finished()) {
+        int nInflated = inflater.inflate(buffer);
+        if (nInflated == 0 && inflater.needsInput())
+          break;
+        block.write(buffer, 0, nInflated);
+      }
+    }
+    catch (DataFormatException exception) {
+      throw new IllegalStateException("Corrupt text block: " + blockIndex, exception);
+    }
+    finally {
+      inflater.end();
+    }
+
+    return block.toByteArray();
+  }
+
+  /**
+   * Round the specified number of bytes up to the 8 byte object alignment.
+   *
+   * @param nBytes  Number of bytes to align.
+   * @return        Aligned number of bytes.
+   */
+  private static long align(long nBytes)
+  {
+    return (nBytes + 7) & ~7L;
+  }
+
+  /**
+   * Return the estimated heap occupied by the specified string.
+   * Assumes compressed object pointers and compact strings.
+   *
+   * @param text  String to estimate heap of. Non-null.
+   * @return      Estimated heap size in bytes. [0,&gt;.
+   * @throws IllegalArgumentException  If text is null.
+   */
+  public static long getStringSize(String text)
+  {
+    if (text == null)
+      throw new IllegalArgumentException("text cannot be null");
+
+    boolean isLatin1 = text.chars().allMatch(c -> c < 256);
+    return STRING_OVERHEAD + align(ARRAY_OVERHEAD + (isLatin1 ? text.length() : 2 * text.length()));
+  }
+
+  /**
+   * Return the estimated heap of a single text reference of this store.
+   *
+   * @return  Estimated heap size in bytes of a text reference.
+   */
+  public static int getTextSize()
+  {
+    return TEXT_SIZE;
+  }
+
+  /**
+   * Return the number of texts of this store.
+   *
+   * @return  Number of texts of this store. [0,&gt;.
+   */
+  public synchronized int getNTexts()
+  {
+    return nTexts_;
+  }
+
+  /**
+   * Return the estimated heap occupied by this store, including the
+   * text references handed out.
+   *
+   * @return  Estimated heap size in bytes. [0,&gt;.
+   */
+  public synchronized long getHeapSize()
+  {
+    long size = (long) nTexts_ * TEXT_SIZE + align(ARRAY_OVERHEAD + currentBlock_.size());
+    for (byte[] block : blocks_)
+      size += align(ARRAY_OVERHEAD + block.length);
+
+    return size;
+  }
+
+  /**
+   * Return the estimated heap the texts of this store would
+   * occupy if held as plain strings.
+   *
+   * @return  Estimated heap size in bytes. [0,&gt;.
+   */
+  public synchronized long getStringSize()
+  {
+    return stringSize_;
+  }
+
+  /**
+   * Return the store holding the specified text.
+   *
+   * @param text  Text to check. May be null.
+   * @return      The store holding the text, or null if it is not a stored text.
+   */
+  public static TextStore getStore(CharSequence text)
+  {
+    return text instanceof Text ? ((Text) text).store_ : null;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public synchronized String toString()
+  {
+    return nTexts_ + " texts in " + blocks_.size() + " blocks, " + getHeapSize() + " bytes (" + stringSize_ + " as strings)";
+  }
+}
@@ -0,0 +1,191 @@
+package no.geosoft.jpwls.util;
+
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A piece of text stored as UTF-8 bytes inside a shared byte buffer,
+ * typically a memory mapped file, and decoded on demand.
+ * <p>
+ * The decoded string is not retained, so the instance stays small and
+ * the text itself never occupies the Java heap for longer than needed.
+ * The length is computed once, on first use. Text of ASCII characters
+ * only, which is the common case, is indexed directly in the buffer,
+ * so {@link #charAt} and {@link #subSequence} don't decode anything,
+ * and the digest of any text is computed from the buffer directly.
+ * Other text is decoded once for indexing and kept softly reachable,
+ * so that character by character access stays linear.
+ * <p>
+ * The underlying buffer is only accessed by absolute position and may
+ * be shared freely between threads.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class Utf8Text implements CharSequence, TextDigest.Digestible
+{
+  /** Marker of length not yet computed. */
+  private static final int NOT_COMPUTED = Integer.MIN_VALUE;
+
+  /** The buffer holding the text. Non-null. */
+  private final ByteBuffer buffer_;
+
+  /** Position of the first byte of the text within the buffer. */
+  private final int offset_;
+
+  /** Number of UTF-8 bytes of the text. */
+  private final int nBytes_;
+
+  /**
+   * Number of chars of pure ASCII text, or -(length + 1) of other text.
+   * NOT_COMPUTED until first use. Racy but idempotent, like the hash code
+   * of String, and held in a single field so it is read atomically.
+   */
+  private int length_ = NOT_COMPUTED;
+
+  /** Decoded text of non-ASCII text, once indexed. Null if not yet decoded. */
+  private SoftReference<String> decoded_;
+
+  /**
+   * Create a text instance of the specified buffer region.
+   *
+   * @param buffer  Buffer holding the text. Non-null.
+   * @param offset  Position of the first byte of the text within the buffer.
+   * @param nBytes  Number of UTF-8 bytes of the text.
+   * @throws IllegalArgumentException  If buffer is null or the region is outside the buffer.
+   */
+  public Utf8Text(ByteBuffer buffer, int offset, int nBytes)
+  {
+    if (buffer == null)
+      throw new IllegalArgumentException("buffer cannot be null");
+
+    if (offset < 0 || nBytes < 0 || offset + nBytes > buffer.limit())
+      throw new IllegalArgumentException("Invalid region: " + offset + "/" + nBytes);
+
+    buffer_ = buffer;
+    offset_ = offset;
+    nBytes_ = nBytes;
+  }
+
+  /**
+   * Return the number of UTF-8 bytes of this text.
+   *
+   * @return  Number of UTF-8 bytes of this text. [0,&gt;.
+   */
+  public int getNBytes()
+  {
+    return nBytes_;
+  }
+
+  /**
+   * Decode the text of this instance.
+   *
+   * @return  The decoded text. Never null.
+   */
+  private String decode()
+  {
+    byte[] bytes = new byte[nBytes_];
+    buffer_.get(offset_, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Return the decoded text of this instance for indexing, decoding
+   * it unless already decoded and still reachable.
+   *
+   * @return  The decoded text. Never null.
+   */
+  private String getDecoded()
+  {
+    SoftReference<String> reference = decoded_;
+    String decoded = reference != null ? reference.get() : null;
+    if (decoded == null) {
+      decoded = decode();
+      decoded_ = new SoftReference<>(decoded);
+    }
+
+    return decoded;
+  }
+
+  /**
+   * Return the encoded length of this text, computing it on first call.
+   *
+   * @return  Length of pure ASCII text, or -(length + 1) of other text.
+   */
+  private int getEncodedLength()
+  {
+    int length = length_;
+    if (length == NOT_COMPUTED) {
+      length = nBytes_;
+      for (int i = 0; i < nBytes_; i++) {
+        if (buffer_.get(offset_ + i) < 0) {
+          length = -(getDecoded().length() + 1);
+          break;
+        }
+      }
+      length_ = length;
+    }
+
+    return length;
+  }
+
+  /**
+   * Check if this text consists of ASCII characters only.
+   *
+   * @return  True if this text is pure ASCII, false otherwise.
+   */
+  private boolean isAscii()
+  {
+    return getEncodedLength() >= 0;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public long getDigest()
+  {
+    return TextDigest.of(buffer_, offset_, nBytes_);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int length()
+  {
+    int length = getEncodedLength();
+    return length >= 0 ? length : -(length + 1);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public char charAt(int index)
+  {
+    if (!isAscii())
+      return getDecoded().charAt(index);
+
+    if (index < 0 || index >= nBytes_)
+      throw new IndexOutOfBoundsException("Invalid index: " + index);
+
+    return (char) buffer_.get(offset_ + index);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public CharSequence subSequence(int start, int end)
+  {
+    if (!isAscii())
+      return getDecoded().subSequence(start, end);
+
+    if (start < 0 || end > nBytes_ || start > end)
+      throw new IndexOutOfBoundsException("Invalid range: " + start + "-" + end);
+
+    return new Utf8Text(buffer_, offset_ + start, end - start);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    SoftReference<String> reference = decoded_;
+    String decoded = reference != null ? reference.get() : null;
+    return decoded != null ? decoded : decode();
+  }
+}
@@ -0,0 +1,199 @@
+package no.geosoft.jpwls.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.function.ToLongFunction;
+
+import no.geosoft.jpwls.ContentHash;
+import no.geosoft.jpwls.json.JsonReader;
+import no.geosoft.jpwls.json.JsonWriter;
+import no.geosoft.jpwls.source.PwlsSource;
+
+/**
+ * Benchmark of the binary formats against the JSON format, checking that
+ * every round trip through {@link BinaryWriter} and {@link BinaryReader}
+ * preserves the content of the entities.
+ * <p>
+ * Run as a program with the folder of the PWLS JSON files as argument.
+ * Any failed round trip terminates it with an error.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class BinaryBenchmark
+{
+  /**
+   * Writer of a collection of entities in a given format.
+   *
+   * @param <T>  Type of entity written.
+   */
+  private interface BenchmarkWriter<T>
+  {
+    /**
+     * Write the specified entities to the given stream.
+     *
+     * @param stream    Stream to write to. Non-null.
+     * @param entities  Entities to write. Non-null.
+     * @param format    Binary format to write, or null for JSON.
+     * @throws IOException  If the write operation fails.
+     */
+    void write(OutputStream stream, Collection<T> entities, BinaryFormat format)
+      throws IOException;
+  }
+
+  /**
+   * Reader of a collection of entities in a given format.
+   *
+   * @param <T>  Type of entity read.
+   */
+  private interface BenchmarkReader<T>
+  {
+    /**
+     * Read entities from the specified stream.
+     *
+     * @param stream  Stream to read from. Non-null.
+     * @param format  Binary format to read, or null for JSON.
+     * @return        The entities read. Never null.
+     * @throws IOException  If the read operation fails.
+     */
+    Collection<T> read(InputStream stream, BinaryFormat format)
+      throws IOException;
+  }
+
+  /**
+   * Private constructor to prevent client instantiation.
+   */
+  private BinaryBenchmark()
+  {
+    assert false : "This constructor should never be called";
+  }
+
+  /**
+   * Benchmark the JSON and binary round trips of the specified entities,
+   * and check that every binary round trip preserves their content.
+   *
+   * @param what      What is benchmarked, for reporting. Non-null.
+   * @param entities  Entities to benchmark with. Non-null.
+   * @param hasher    Content hash of a single entity. Non-null.
+   * @param writer    Writer of the entities. Non-null.
+   * @param reader    Reader of the entities. Non-null.
+   * @param nRuns     Number of runs. Only the last one is reported. [1,&gt;.
+   * @throws IOException  If a round trip fails or doesn't preserve the content.
+   */
+  private static <T> void benchmark(String what, Collection<T> entities, ToLongFunction<? super T> hasher,
+                                    BenchmarkWriter<T> writer, BenchmarkReader<T> reader, int nRuns)
+    throws IOException
+  {
+    long contentHash = ContentHash.of(entities, hasher);
+
+    System.out.printf("%s (%d)%n", what, entities.size());
+
+    for (int run = 0; run < nRuns; run++) {
+      boolean isLast = run == nRuns - 1;
+
+      // null is JSON, the reference
+      BinaryFormat[] formats = new BinaryFormat[BinaryFormat.values().length + 1];
+      System.arraycopy(BinaryFormat.values(), 0, formats, 1, formats.length - 1);
+
+      for (BinaryFormat format : formats) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        long time0 = System.nanoTime();
+        writer.write(stream, entities, format);
+        long time1 = System.nanoTime();
+        Collection<T> decoded = reader.read(new ByteArrayInputStream(stream.toByteArray()), format);
+        long time2 = System.nanoTime();
+
+        String formatName = format != null ? format.toString() : "JSON";
+
+        if (ContentHash.of(decoded, hasher) != contentHash)
+          throw new IOException("Round trip mismatch: " + what + " " + formatName);
+
+        if (isLast)
+          System.out.printf("  %-12s  %9d bytes, write %6.1f ms, read %6.1f ms%n",
+                            formatName, stream.size(), (time1 - time0) / 1.0e6, (time2 - time1) / 1.0e6);
+      }
+    }
+  }
+
+  /**
+   * Benchmark the binary formats against the JSON format.
+   * <p>
+   * Reads the PWLS JSON files of the specified folder and reports size and
+   * encode/decode time of each format for each entity type. Every round trip
+   * is checked to preserve the content hash of the entities. Tools are compared
+   * without their curves, as these are not part of the tools resource.
+   *
+   * @param arguments  Path of a folder of PWLS JSON files.
+   * @throws IOException  If the files cannot be read or a round trip fails.
+   */
+  public static void main(String[] arguments)
+    throws IOException
+  {
+    File folder = new File(arguments[0]);
+    int nRuns = 10;
+
+    benchmark("Curves", JsonReader.readCurves(new File(folder, PwlsSource.CURVES)).getAll(), ContentHash::of,
+              (stream, curves, format) -> {
+                if (format != null)
+                  BinaryWriter.writeCurves(stream, curves, format);
+                else
+                  JsonWriter.writeCurves(stream, curves);
+              },
+              (stream, format) -> (format != null ? BinaryReader.readCurves(stream, format) : JsonReader.readCurves(stream)).getAll(),
+              nRuns);
+
+    benchmark("Tools", JsonReader.readTools(new File(folder, PwlsSource.TOOLS)).getAll(), ContentHash::of,
+              (stream, tools, format) -> {
+                if (format != null)
+                  BinaryWriter.writeTools(stream, tools, format);
+                else
+                  JsonWriter.writeTools(stream, tools);
+              },
+              (stream, format) -> (format != null ? BinaryReader.readTools(stream, format) : JsonReader.readTools(stream)).getAll(),
+              nRuns);
+
+    benchmark("Properties", JsonReader.readProperties(new File(folder, PwlsSource.PROPERTIES)).getAll(), ContentHash::of,
+              (stream, properties, format) -> {
+                if (format != null)
+                  BinaryWriter.writeProperties(stream, properties, format);
+                else
+                  JsonWriter.writeProperties(stream, properties);
+              },
+              (stream, format) -> (format != null ? BinaryReader.readProperties(stream, format) : JsonReader.readProperties(stream)).getAll(),
+              nRuns);
+
+    benchmark("Companies", JsonReader.readCompanies(new File(folder, PwlsSource.COMPANIES)).getAll(), ContentHash::of,
+              (stream, companies, format) -> {
+                if (format != null)
+                  BinaryWriter.writeCompanies(stream, companies, format);
+                else
+                  JsonWriter.writeCompanies(stream, companies);
+              },
+              (stream, format) -> (format != null ? BinaryReader.readCompanies(stream, format) : JsonReader.readCompanies(stream)).getAll(),
+              nRuns);
+
+    benchmark("Tool classes", JsonReader.readToolClasses(new File(folder, PwlsSource.TOOL_CLASSES)).getAll(), ContentHash::of,
+              (stream, toolClasses, format) -> {
+                if (format != null)
+                  BinaryWriter.writeToolClasses(stream, toolClasses, format);
+                else
+                  JsonWriter.writeToolClasses(stream, toolClasses);
+              },
+              (stream, format) -> (format != null ? BinaryReader.readToolClasses(stream, format) : JsonReader.readToolClasses(stream)).getAll(),
+              nRuns);
+
+    benchmark("Logging methods", JsonReader.readLoggingMethods(new File(folder, PwlsSource.LOGGING_METHODS)).getAll(), ContentHash::of,
+              (stream, loggingMethods, format) -> {
+                if (format != null)
+                  BinaryWriter.writeLoggingMethods(stream, loggingMethods, format);
+                else
+                  JsonWriter.writeLoggingMethods(stream, loggingMethods);
+              },
+              (stream, format) -> (format != null ? BinaryReader.readLoggingMethods(stream, format) : JsonReader.readLoggingMethods(stream)).getAll(),
+              nRuns);
+  }
+}
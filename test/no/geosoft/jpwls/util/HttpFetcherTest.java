@@ -0,0 +1,179 @@
+package no.geosoft.jpwls.util;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Checks of {@link HttpFetcher} against an in-process HTTP server,
+ * covering full and conditional fetches, error responses and an
+ * unreachable server.
+ * <p>
+ * Run as a program. Any failed check terminates it with an error.
+ *
+ * @author <a href="mailto:jacob.dreyer@geosoft.no">Jacob Dreyer</a>
+ */
+public final class HttpFetcherTest
+{
+  /** Content served. */
+  private static final byte[] CONTENT = "{\"curves\":[]}".getBytes(StandardCharsets.UTF_8);
+
+  /** ETag of the content served. */
+  private static final String ETAG = "\"v1\"";
+
+  /** Status to respond with. 200 serves the content, 304 if the client has it. */
+  private volatile int status_ = 200;
+
+  /** Number of times the complete content has been sent. */
+  private final AtomicInteger nDownloads_ = new AtomicInteger();
+
+  /**
+   * Create a test. Use {@link #main}.
+   */
+  private HttpFetcherTest()
+  {
+    // Nothing
+  }
+
+  /**
+   * Respond to the specified request according to the current status.
+   *
+   * @param exchange  Request to respond to. Non-null.
+   * @throws IOException  If the response cannot be sent.
+   */
+  private void handle(HttpExchange exchange)
+    throws IOException
+  {
+    assert exchange != null : "exchange cannot be null";
+
+    try (HttpExchange e = exchange) {
+      e.getRequestBody().readAllBytes();
+
+      if (status_ != 200) {
+        e.sendResponseHeaders(status_, -1);
+        return;
+      }
+
+      if (ETAG.equals(e.getRequestHeaders().getFirst("If-None-Match"))) {
+        e.sendResponseHeaders(304, -1);
+        return;
+      }
+
+      e.getResponseHeaders().set("ETag", ETAG);
+      e.sendResponseHeaders(200, CONTENT.length);
+      try (OutputStream stream = e.getResponseBody()) {
+        stream.write(CONTENT);
+      }
+      nDownloads_.incrementAndGet();
+    }
+  }
+
+  /**
+   * Fail unless the specified condition holds.
+   *
+   * @param condition  Condition to check.
+   * @param message    Description of the check. Non-null.
+   */
+  private static void check(boolean condition, String message)
+  {
+    if (!condition)
+      throw new AssertionError("Failed: " + message);
+
+    System.out.println("OK: " + message);
+  }
+
+  /**
+   * Fetch the specified URL and return the exception thrown, if any.
+   *
+   * @param fetcher  Fetcher to fetch with. Non-null.
+   * @param url      URL to fetch. Non-null.
+   * @return         The exception thrown, or null if the fetch succeeded.
+   */
+  private static IOException fetchFailure(HttpFetcher fetcher, String url)
+  {
+    try {
+      fetcher.fetch(url);
+      return null;
+    }
+    catch (IOException exception) {
+      return exception;
+    }
+  }
+
+  /**
+   * Run the checks.
+   *
+   * @throws IOException  If the test setup fails.
+   */
+  private void run()
+    throws IOException
+  {
+    File cacheFolder = Files.createTempDirectory("jpwls-cache").toFile();
+
+    HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", this::handle);
+    server.start();
+
+    String url = "http://localhost:" + server.getAddress().getPort() + "/curves.json";
+
+    try {
+      HttpFetcher fetcher = new HttpFetcher(cacheFolder);
+      fetcher.setConnectTimeout(2000);
+      fetcher.setReadTimeout(2000);
+
+      // 200
+      check(Arrays.equals(fetcher.fetch(url), CONTENT), "200 returns the content");
+      check(nDownloads_.get() == 1, "200 downloads the content once");
+
+      // 304
+      check(Arrays.equals(fetcher.fetch(url), CONTENT), "304 returns the cached content");
+      check(nDownloads_.get() == 1, "304 doesn't download the content");
+
+      // Errors are reported even with a cached copy
+      status_ = 500;
+      IOException exception = fetchFailure(fetcher, url);
+      check(exception != null && !(exception instanceof FileNotFoundException), "500 is reported, not hidden by the cache");
+
+      status_ = 404;
+      exception = fetchFailure(fetcher, url);
+      check(exception instanceof FileNotFoundException, "404 is reported as not found");
+    }
+    finally {
+      server.stop(0);
+    }
+
+    // Unreachable
+    HttpFetcher fetcher = new HttpFetcher(cacheFolder);
+    fetcher.setConnectTimeout(2000);
+    check(Arrays.equals(fetcher.fetch(url), CONTENT), "Unreachable server falls back to the cached content");
+
+    IOException exception = fetchFailure(new HttpFetcher(), url);
+    check(exception != null, "Unreachable server without cache is reported");
+
+    for (File file : cacheFolder.listFiles())
+      file.delete();
+    cacheFolder.delete();
+  }
+
+  /**
+   * Run the checks of {@link HttpFetcher}.
+   *
+   * @param arguments  Application arguments. Not used.
+   * @throws IOException  If the test setup fails.
+   */
+  public static void main(String[] arguments)
+    throws IOException
+  {
+    new HttpFetcherTest().run();
+  }
+}